@@ -0,0 +1,95 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.benchmarks;
+
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this fragment and writes the results as JSON for trend tracking. The benchmarks are run
+ * inside the OSGi test runtime that is started by the benchmarks build profile (<code>mvn verify -Pbenchmarks</code>).
+ * <p>
+ * The run is configured via the system properties
+ * <ul>
+ * <li><code>knime.dl.tensorflow.benchmarks.include</code>: regular expression of the benchmarks to run</li>
+ * <li><code>knime.dl.tensorflow.benchmarks.result</code>: path of the JSON result file</li>
+ * <li><code>knime.dl.tensorflow.benchmarks.warmup</code>: number of warmup iterations</li>
+ * <li><code>knime.dl.tensorflow.benchmarks.iterations</code>: number of measurement iterations</li>
+ * <li><code>knime.dl.tensorflow.benchmarks.threads</code>: number of threads running each benchmark concurrently</li>
+ * </ul>
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFBenchmarks {
+
+	private static final String PROPERTY_PREFIX = "knime.dl.tensorflow.benchmarks.";
+
+	@Test
+	public void runBenchmarks() throws Exception {
+		final File resultFile = new File(System.getProperty(PROPERTY_PREFIX + "result", "jmh-result.json"));
+		final ChainedOptionsBuilder options = new OptionsBuilder() //
+				.include(System.getProperty(PROPERTY_PREFIX + "include", ".*")) //
+				// forked JVMs would not see the bundle class path of the OSGi runtime
+				.forks(0) //
+				.warmupIterations(Integer.getInteger(PROPERTY_PREFIX + "warmup", 3)) //
+				.measurementIterations(Integer.getInteger(PROPERTY_PREFIX + "iterations", 5)) //
+				.threads(Integer.getInteger(PROPERTY_PREFIX + "threads", 1)) //
+				.resultFormat(ResultFormatType.JSON) //
+				.result(resultFile.getAbsolutePath());
+		final Collection<RunResult> results = new Runner(options.build()).run();
+		assertFalse("No benchmark has been run.", results.isEmpty());
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.dl.core.DLFixedTensorShape;
+import org.knime.dl.core.DLNetworkInputPreparer;
+import org.knime.dl.core.DLNetworkReferenceLocation;
+import org.knime.dl.core.DLTensor;
+import org.knime.dl.core.DLTensorId;
+import org.knime.dl.core.DLTensorSpec;
+import org.knime.dl.core.data.DLReadableBuffer;
+import org.knime.dl.core.data.DLWritableBuffer;
+import org.knime.dl.core.data.DLWritableFloatBuffer;
+import org.knime.dl.core.execution.DLDefaultExecutionMonitor;
+import org.knime.dl.core.execution.DLDefaultExecutionStatus;
+import org.knime.dl.core.execution.DLNetworkExecutionSession;
+import org.knime.dl.core.execution.DLNetworkOutputConsumer;
+import org.knime.dl.tensorflow.savedmodel.core.TFMetaGraphDef;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetwork;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelUtil;
+import org.knime.dl.tensorflow.savedmodel.core.data.TFTensorWritableStringBuffer;
+import org.knime.dl.tensorflow.savedmodel.core.execution.TFSavedModelExecutionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * End-to-end inference benchmark of {@link TFSavedModelExecutionContext} sessions on synthetic SavedModels. Each
+ * invocation runs {@value #NUM_BATCHES} batches through the session with a synthetic input preparer and output
+ * consumer.
+ * <p>
+ * The sample time mode reports the latency percentiles of one invocation, the throughput mode reports invocations per
+ * second. Rows per second are the throughput multiplied by <code>batchSize * {@value #NUM_BATCHES}</code>. The number
+ * of concurrent sessions is controlled by the thread count of the benchmark run.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.SampleTime, Mode.Throughput })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TFInferenceThroughputBenchmark {
+
+	private static final int NUM_BATCHES = 8;
+
+	// JMH injects parameters into public fields, their names show up in the results
+
+	@Param({ "DENSE", "CONV", "STRING_LOOKUP" })
+	public String model;
+
+	@Param({ "1", "32", "256" })
+	public int batchSize;
+
+	private Path m_modelDir;
+
+	private DLNetworkExecutionSession m_session;
+
+	private SyntheticInputPreparer m_inputPreparer;
+
+	private CountingOutputConsumer m_outputConsumer;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		m_modelDir = SyntheticModel.valueOf(model).write(Files.createTempDirectory("tf-benchmark"));
+		final TFMetaGraphDef metaGraphDef = new TFMetaGraphDef(
+				TFSavedModelUtil.readSavedModelProtoBuf(m_modelDir.toUri().toURL()),
+				new String[] { TFSyntheticSavedModel.TAG });
+		final TFSavedModelNetwork network = (TFSavedModelNetwork) metaGraphDef
+				.createSpecs(TFSyntheticSavedModel.SIGNATURE).create(new DLNetworkReferenceLocation(m_modelDir.toUri()));
+
+		final TFSavedModelExecutionContext context = new TFSavedModelExecutionContext();
+		final DLTensorSpec inputSpec = network.getSpec().getInputSpecs()[0];
+		final long[] inputShape = ((DLFixedTensorShape) inputSpec.getShape()).getShape();
+		final DLTensorSpec executionInputSpec =
+				context.getTensorFactory().createExecutionTensorSpec(inputSpec, batchSize, inputShape);
+		final Set<DLTensorId> requestedOutputs =
+				Collections.singleton(network.getSpec().getOutputSpecs()[0].getIdentifier());
+
+		m_inputPreparer = new SyntheticInputPreparer(batchSize * Arrays.stream(inputShape).reduce(1, (a, b) -> a * b));
+		m_outputConsumer = new CountingOutputConsumer();
+		m_session = context.createExecutionSession(null, network, Collections.singleton(executionInputSpec),
+				requestedOutputs, m_inputPreparer, m_outputConsumer);
+
+		// The first run loads the SavedModel which should not be measured
+		runBatches();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		m_session.close();
+		FileUtils.deleteQuietly(m_modelDir.toFile());
+	}
+
+	@Benchmark
+	public long runBatches() throws Exception {
+		m_inputPreparer.reset();
+		m_session.run(new DLDefaultExecutionMonitor(new DLDefaultExecutionStatus(NUM_BATCHES)));
+		return m_outputConsumer.m_consumedElements;
+	}
+
+	private enum SyntheticModel {
+		DENSE {
+			@Override
+			Path write(final Path dir) throws IOException {
+				return TFSyntheticSavedModel.writeDenseModel(dir, 64, 128, 10);
+			}
+		},
+		CONV {
+			@Override
+			Path write(final Path dir) throws IOException {
+				return TFSyntheticSavedModel.writeConvModel(dir, 28, 1, 8, 10);
+			}
+		},
+		STRING_LOOKUP {
+			@Override
+			Path write(final Path dir) throws IOException {
+				return TFSyntheticSavedModel.writeStringLookupModel(dir, 1000);
+			}
+		};
+
+		abstract Path write(Path dir) throws IOException;
+	}
+
+	/**
+	 * Fills the input tensors with the same random values for {@value TFInferenceThroughputBenchmark#NUM_BATCHES}
+	 * batches.
+	 */
+	private static final class SyntheticInputPreparer implements DLNetworkInputPreparer {
+
+		private final float[] m_floats;
+
+		private final String[] m_strings;
+
+		private int m_batchIndex;
+
+		SyntheticInputPreparer(final long batchElements) {
+			final Random random = new Random(42);
+			m_floats = new float[Math.toIntExact(batchElements)];
+			m_strings = new String[m_floats.length];
+			for (int i = 0; i < m_floats.length; i++) {
+				m_floats[i] = random.nextFloat();
+				m_strings[i] = Integer.toString(random.nextInt(10000));
+			}
+		}
+
+		void reset() {
+			m_batchIndex = 0;
+		}
+
+		@Override
+		public long getNumBatches() {
+			return NUM_BATCHES;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return m_batchIndex < NUM_BATCHES;
+		}
+
+		@Override
+		public void prepareNext(final Map<DLTensorId, DLTensor<? extends DLWritableBuffer>> input) {
+			for (final DLTensor<? extends DLWritableBuffer> tensor : input.values()) {
+				final DLWritableBuffer buffer = tensor.getBuffer();
+				if (buffer instanceof DLWritableFloatBuffer) {
+					((DLWritableFloatBuffer) buffer).putAll(m_floats);
+				} else if (buffer instanceof TFTensorWritableStringBuffer) {
+					((TFTensorWritableStringBuffer) buffer).putAll(m_strings);
+				} else {
+					throw new IllegalStateException("Unsupported input buffer: " + buffer.getClass());
+				}
+			}
+			m_batchIndex++;
+		}
+
+		@Override
+		public void close() {
+			// nothing to close
+		}
+	}
+
+	/**
+	 * Counts the elements of the output tensors.
+	 */
+	private static final class CountingOutputConsumer implements DLNetworkOutputConsumer {
+
+		private long m_consumedElements;
+
+		@Override
+		public void accept(final Map<DLTensorId, DLTensor<? extends DLReadableBuffer>> output) {
+			for (final DLTensor<? extends DLReadableBuffer> tensor : output.values()) {
+				m_consumedElements += tensor.getBuffer().size();
+			}
+		}
+
+		@Override
+		public void close() {
+			// nothing to close
+		}
+	}
+}
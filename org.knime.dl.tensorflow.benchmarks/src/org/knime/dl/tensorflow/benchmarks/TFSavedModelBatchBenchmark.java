@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.dl.core.DLDefaultFixedTensorShape;
+import org.knime.dl.core.DLFixedTensorShape;
+import org.knime.dl.tensorflow.savedmodel.core.data.TFTensorFloatBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Tensor;
+
+/**
+ * Benchmarks a full batch of a small SavedModel on the CPU: filling the input buffer, creating the input tensor,
+ * running the session and draining the output tensor into the output buffer.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TFSavedModelBatchBenchmark {
+
+	private static final int INPUT_SIZE = 64;
+
+	private static final int HIDDEN_SIZE = 128;
+
+	private static final int OUTPUT_SIZE = 10;
+
+	// JMH injects parameters into public fields, their names show up in the results
+
+	@Param({ "1", "16", "64", "256" })
+	public int batchSize;
+
+	private Path m_modelDir;
+
+	private SavedModelBundle m_bundle;
+
+	private float[] m_values;
+
+	private TFTensorFloatBuffer m_inputBuffer;
+
+	private TFTensorFloatBuffer m_outputBuffer;
+
+	private final DLFixedTensorShape m_inputShape = new DLDefaultFixedTensorShape(new long[] { INPUT_SIZE });
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		m_modelDir = TFSyntheticSavedModel.writeDenseModel(Files.createTempDirectory("tf-benchmark"), INPUT_SIZE,
+				HIDDEN_SIZE, OUTPUT_SIZE);
+		m_bundle = SavedModelBundle.load(m_modelDir.toString(), TFSyntheticSavedModel.TAG);
+		m_values = new float[batchSize * INPUT_SIZE];
+		final Random random = new Random(42);
+		for (int i = 0; i < m_values.length; i++) {
+			m_values[i] = random.nextFloat();
+		}
+		m_inputBuffer = new TFTensorFloatBuffer(m_values.length);
+		m_outputBuffer = new TFTensorFloatBuffer((long) batchSize * OUTPUT_SIZE);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		m_inputBuffer.close();
+		m_outputBuffer.close();
+		m_bundle.close();
+		FileUtils.deleteQuietly(m_modelDir.toFile());
+	}
+
+	@Benchmark
+	public long batch() throws Exception {
+		m_inputBuffer.reset();
+		m_inputBuffer.putAll(m_values);
+		try (Tensor<Float> input = m_inputBuffer.readIntoTensor(batchSize, m_inputShape)) {
+			final List<Tensor<?>> outputs = m_bundle.session().runner() //
+					.feed(TFSyntheticSavedModel.INPUT_NAME, input) //
+					.fetch(TFSyntheticSavedModel.OUTPUT_NAME) //
+					.run();
+			try (Tensor<?> output = outputs.get(0)) {
+				m_outputBuffer.reset();
+				m_outputBuffer.writeFromTensor(output);
+			}
+		}
+		return m_outputBuffer.size();
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.tensorflow.DataType;
+import org.tensorflow.Graph;
+import org.tensorflow.Output;
+import org.tensorflow.Shape;
+import org.tensorflow.Tensor;
+import org.tensorflow.TensorFlow;
+import org.tensorflow.framework.GraphDef;
+import org.tensorflow.framework.MetaGraphDef;
+import org.tensorflow.framework.MetaGraphDef.MetaInfoDef;
+import org.tensorflow.framework.SavedModel;
+import org.tensorflow.framework.SignatureDef;
+import org.tensorflow.framework.TensorInfo;
+import org.tensorflow.framework.TensorShapeProto;
+import org.tensorflow.framework.TensorShapeProto.Dim;
+
+/**
+ * Writes small synthetic SavedModels that only consist of constants and therefore need no variables. The models are
+ * generated with fixed seeds such that the results of benchmark runs are comparable.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSyntheticSavedModel {
+
+	/** The tag of the meta graph of the synthetic SavedModels. */
+	public static final String TAG = "serve";
+
+	/** The name of the signature of the synthetic SavedModels. */
+	public static final String SIGNATURE = "serving_default";
+
+	/** The name of the input operation. */
+	public static final String INPUT_NAME = "x";
+
+	/** The name of the output operation. */
+	public static final String OUTPUT_NAME = "y";
+
+	private TFSyntheticSavedModel() {
+		// utility class
+	}
+
+	/**
+	 * Writes a SavedModel of a multilayer perceptron with one hidden ReLU layer and a softmax output to the given
+	 * directory. The input has the shape <code>[batch, inputSize]</code> and the output has the shape
+	 * <code>[batch, outputSize]</code>.
+	 *
+	 * @param dir the directory to write the SavedModel to, will be created if it doesn't exist
+	 * @param inputSize the number of input features
+	 * @param hiddenSize the number of units of the hidden layer
+	 * @param outputSize the number of output classes
+	 * @return the directory of the SavedModel
+	 * @throws IOException if writing the SavedModel failed
+	 */
+	public static Path writeDenseModel(final Path dir, final int inputSize, final int hiddenSize,
+			final int outputSize) throws IOException {
+		final Random random = new Random(42);
+		final byte[] graphDef;
+		try (Graph graph = new Graph()) {
+			final Output<?> input = placeholder(graph, DataType.FLOAT, Shape.make(-1, inputSize));
+			final Output<?> hidden = dense(graph, "hidden", input, inputSize, hiddenSize, random);
+			final Output<?> relu = graph.opBuilder("Relu", "hidden/Relu").addInput(hidden).build().output(0);
+			final Output<?> logits = dense(graph, "logits", relu, hiddenSize, outputSize, random);
+			graph.opBuilder("Softmax", OUTPUT_NAME).addInput(logits).build();
+			graphDef = graph.toGraphDef();
+		}
+		return writeSavedModel(dir, graphDef, //
+				tensorInfo(INPUT_NAME, org.tensorflow.framework.DataType.DT_FLOAT, -1, inputSize), //
+				tensorInfo(OUTPUT_NAME, org.tensorflow.framework.DataType.DT_FLOAT, -1, outputSize));
+	}
+
+	/**
+	 * Writes a SavedModel of a small convolutional network to the given directory. The network consists of a 3x3
+	 * convolution with ReLU activation, a 2x2 max pooling and a dense softmax layer. The input has the shape
+	 * <code>[batch, size, size, channels]</code> and the output has the shape <code>[batch, outputSize]</code>.
+	 *
+	 * @param dir the directory to write the SavedModel to, will be created if it doesn't exist
+	 * @param size the height and width of the input images, must be even
+	 * @param channels the number of channels of the input images
+	 * @param filters the number of filters of the convolution
+	 * @param outputSize the number of output classes
+	 * @return the directory of the SavedModel
+	 * @throws IOException if writing the SavedModel failed
+	 */
+	public static Path writeConvModel(final Path dir, final int size, final int channels, final int filters,
+			final int outputSize) throws IOException {
+		final Random random = new Random(42);
+		final int flatSize = size / 2 * (size / 2) * filters;
+		final byte[] graphDef;
+		try (Graph graph = new Graph()) {
+			final Output<?> input = placeholder(graph, DataType.FLOAT, Shape.make(-1, size, size, channels));
+			final float[][][][] weights = new float[3][3][channels][filters];
+			for (final float[][][] a : weights) {
+				for (final float[][] b : a) {
+					for (final float[] c : b) {
+						for (int i = 0; i < filters; i++) {
+							c[i] = (float) random.nextGaussian() / (9 * channels);
+						}
+					}
+				}
+			}
+			final Output<?> kernel;
+			final Output<?> reshapeTarget;
+			try (Tensor<Float> kernelValue = Tensor.create(weights, Float.class);
+					Tensor<Integer> reshapeValue = Tensor.create(new int[] { -1, flatSize }, Integer.class)) {
+				kernel = constant(graph, "conv/kernel", kernelValue);
+				reshapeTarget = constant(graph, "flatten/shape", reshapeValue);
+			}
+			final Output<?> conv = graph.opBuilder("Conv2D", "conv/Conv2D") //
+					.addInput(input) //
+					.addInput(kernel) //
+					.setAttr("strides", new long[] { 1, 1, 1, 1 }) //
+					.setAttr("padding", "SAME") //
+					.setAttr("data_format", "NHWC") //
+					.build().output(0);
+			final Output<?> relu = graph.opBuilder("Relu", "conv/Relu").addInput(conv).build().output(0);
+			final Output<?> pool = graph.opBuilder("MaxPool", "pool/MaxPool") //
+					.addInput(relu) //
+					.setAttr("ksize", new long[] { 1, 2, 2, 1 }) //
+					.setAttr("strides", new long[] { 1, 2, 2, 1 }) //
+					.setAttr("padding", "VALID") //
+					.setAttr("data_format", "NHWC") //
+					.build().output(0);
+			final Output<?> flat = graph.opBuilder("Reshape", "flatten/Reshape") //
+					.addInput(pool) //
+					.addInput(reshapeTarget) //
+					.build().output(0);
+			final Output<?> logits = dense(graph, "logits", flat, flatSize, outputSize, random);
+			graph.opBuilder("Softmax", OUTPUT_NAME).addInput(logits).build();
+			graphDef = graph.toGraphDef();
+		}
+		return writeSavedModel(dir, graphDef, //
+				tensorInfo(INPUT_NAME, org.tensorflow.framework.DataType.DT_FLOAT, -1, size, size, channels), //
+				tensorInfo(OUTPUT_NAME, org.tensorflow.framework.DataType.DT_FLOAT, -1, outputSize));
+	}
+
+	/**
+	 * Writes a SavedModel that looks up strings by hashing them into a fixed number of buckets to the given
+	 * directory. The input is a string tensor of the shape <code>[batch, 1]</code> and the output is a long tensor of
+	 * the same shape containing the bucket indices.
+	 *
+	 * @param dir the directory to write the SavedModel to, will be created if it doesn't exist
+	 * @param numBuckets the number of hash buckets
+	 * @return the directory of the SavedModel
+	 * @throws IOException if writing the SavedModel failed
+	 */
+	public static Path writeStringLookupModel(final Path dir, final int numBuckets) throws IOException {
+		final byte[] graphDef;
+		try (Graph graph = new Graph()) {
+			final Output<?> input = placeholder(graph, DataType.STRING, Shape.make(-1, 1));
+			graph.opBuilder("StringToHashBucketFast", OUTPUT_NAME) //
+					.addInput(input) //
+					.setAttr("num_buckets", numBuckets) //
+					.build();
+			graphDef = graph.toGraphDef();
+		}
+		return writeSavedModel(dir, graphDef, //
+				tensorInfo(INPUT_NAME, org.tensorflow.framework.DataType.DT_STRING, -1, 1), //
+				tensorInfo(OUTPUT_NAME, org.tensorflow.framework.DataType.DT_INT64, -1, 1));
+	}
+
+	private static Path writeSavedModel(final Path dir, final byte[] graphDef, final TensorInfo input,
+			final TensorInfo output) throws IOException {
+		final SignatureDef signature = SignatureDef.newBuilder() //
+				.putInputs(INPUT_NAME, input) //
+				.putOutputs(OUTPUT_NAME, output) //
+				.setMethodName("tensorflow/serving/predict") //
+				.build();
+		final SavedModel savedModel = SavedModel.newBuilder() //
+				.setSavedModelSchemaVersion(1) //
+				.addMetaGraphs(MetaGraphDef.newBuilder() //
+						.setMetaInfoDef(MetaInfoDef.newBuilder() //
+								.addTags(TAG) //
+								.setTensorflowVersion(TensorFlow.version())) //
+						.setGraphDef(GraphDef.parseFrom(graphDef)) //
+						.putSignatureDef(SIGNATURE, signature)) //
+				.build();
+		Files.createDirectories(dir.resolve("variables"));
+		try (OutputStream out = Files.newOutputStream(dir.resolve("saved_model.pb"))) {
+			savedModel.writeTo(out);
+		}
+		return dir;
+	}
+
+	private static Output<?> placeholder(final Graph graph, final DataType type, final Shape shape) {
+		return graph.opBuilder("Placeholder", INPUT_NAME) //
+				.setAttr("dtype", type) //
+				.setAttr("shape", shape) //
+				.build().output(0);
+	}
+
+	private static Output<?> dense(final Graph graph, final String name, final Output<?> input, final int inputSize,
+			final int units, final Random random) {
+		final float[][] weights = new float[inputSize][units];
+		for (final float[] row : weights) {
+			for (int i = 0; i < units; i++) {
+				row[i] = (float) random.nextGaussian() / inputSize;
+			}
+		}
+		final Output<?> kernel;
+		final Output<?> bias;
+		try (Tensor<Float> kernelValue = Tensor.create(weights, Float.class);
+				Tensor<Float> biasValue = Tensor.create(new float[units], Float.class)) {
+			kernel = constant(graph, name + "/kernel", kernelValue);
+			bias = constant(graph, name + "/bias", biasValue);
+		}
+		final Output<?> matMul = graph.opBuilder("MatMul", name + "/MatMul").addInput(input).addInput(kernel).build()
+				.output(0);
+		return graph.opBuilder("BiasAdd", name + "/BiasAdd").addInput(matMul).addInput(bias).build().output(0);
+	}
+
+	private static Output<?> constant(final Graph graph, final String name, final Tensor<?> value) {
+		return graph.opBuilder("Const", name) //
+				.setAttr("dtype", value.dataType()) //
+				.setAttr("value", value) //
+				.build().output(0);
+	}
+
+	private static TensorInfo tensorInfo(final String operation, final org.tensorflow.framework.DataType type,
+			final long... shape) {
+		final TensorShapeProto.Builder shapeProto = TensorShapeProto.newBuilder();
+		for (final long dim : shape) {
+			shapeProto.addDim(Dim.newBuilder().setSize(dim));
+		}
+		return TensorInfo.newBuilder() //
+				.setName(operation + ":0") //
+				.setDtype(type) //
+				.setTensorShape(shapeProto) //
+				.build();
+	}
+}
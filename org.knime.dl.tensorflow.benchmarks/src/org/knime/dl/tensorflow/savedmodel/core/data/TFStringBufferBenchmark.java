@@ -0,0 +1,178 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.data;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.dl.core.DLDefaultFixedTensorShape;
+import org.knime.dl.core.DLFixedTensorShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tensorflow.Tensor;
+
+/**
+ * Benchmarks the string encoding of {@link TFStringBytesConverter} and filling, tensor creation and draining of the
+ * rank dependent bytes buffers behind {@link TFTensorStringBuffer}.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TFStringBufferBenchmark {
+
+	/** Number of elements of a single sample for all ranks but one. */
+	private static final int SAMPLE_SIZE = 64;
+
+	// JMH injects parameters into public fields, their names show up in the results
+
+	@Param({ "1", "2", "3", "6" })
+	public int rank;
+
+	@Param({ "1", "32" })
+	public int batchSize;
+
+	@Param({ "8", "256" })
+	public int stringLength;
+
+	@Param({ "false", "true" })
+	public boolean multiByte;
+
+	private String[] m_values;
+
+	private byte[][] m_encoded;
+
+	private DLFixedTensorShape m_shape;
+
+	private TFTensorStringBuffer m_buffer;
+
+	private Tensor<String> m_outputTensor;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		// the first dimension of the bytes buffer is the batch dimension
+		final long[] sampleShape = sampleShape(rank - 1);
+		m_shape = new DLDefaultFixedTensorShape(sampleShape.length == 0 ? new long[] { 1l } : sampleShape);
+		final long[] bufferShape = new long[rank];
+		bufferShape[0] = batchSize;
+		System.arraycopy(sampleShape, 0, bufferShape, 1, sampleShape.length);
+		final int capacity = Math.toIntExact(Arrays.stream(bufferShape).reduce(1, (a, b) -> a * b));
+		final char[] chars = new char[stringLength];
+		Arrays.fill(chars, multiByte ? '\u00e4' : 'k');
+		final String value = new String(chars);
+		m_values = new String[capacity];
+		Arrays.fill(m_values, value);
+		m_encoded = new byte[capacity][];
+		Arrays.fill(m_encoded, TFStringBytesConverter.INSTANCE.toBytes(value));
+		m_buffer = new TFTensorStringBuffer(bufferShape);
+		m_buffer.putAll(m_values);
+		m_outputTensor = m_buffer.readIntoTensor(batchSize, m_shape);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		m_outputTensor.close();
+		m_buffer.close();
+	}
+
+	@Benchmark
+	public void encode(final Blackhole blackhole) {
+		for (final String value : m_values) {
+			blackhole.consume(TFStringBytesConverter.INSTANCE.toBytes(value));
+		}
+	}
+
+	@Benchmark
+	public void decode(final Blackhole blackhole) {
+		for (final byte[] data : m_encoded) {
+			blackhole.consume(TFStringBytesConverter.INSTANCE.fromBytes(data));
+		}
+	}
+
+	@Benchmark
+	public long fill() {
+		m_buffer.reset();
+		m_buffer.putAll(m_values);
+		return m_buffer.size();
+	}
+
+	@Benchmark
+	public long readIntoTensor() {
+		try (Tensor<String> tensor = m_buffer.readIntoTensor(batchSize, m_shape)) {
+			return tensor.numElements();
+		}
+	}
+
+	@Benchmark
+	public void drain(final Blackhole blackhole) {
+		m_buffer.reset();
+		m_buffer.writeFromTensor(m_outputTensor);
+		for (long i = 0; i < m_buffer.size(); i++) {
+			blackhole.consume(m_buffer.readNext());
+		}
+	}
+
+	private static long[] sampleShape(final int numDimensions) {
+		final long[] shape = new long[numDimensions];
+		long remaining = SAMPLE_SIZE;
+		for (int i = 0; i < shape.length; i++) {
+			shape[i] = i == shape.length - 1 ? remaining : 2;
+			remaining /= shape[i];
+		}
+		return shape;
+	}
+}
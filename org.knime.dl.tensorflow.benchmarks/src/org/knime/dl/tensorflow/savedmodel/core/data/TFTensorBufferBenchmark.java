@@ -0,0 +1,237 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.knime.dl.core.DLDefaultFixedTensorShape;
+import org.knime.dl.core.DLFixedTensorShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.tensorflow.Tensor;
+
+/**
+ * Benchmarks filling, tensor creation and draining of the primitive TensorFlow tensor buffers for the different
+ * element types and tensor ranks.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TFTensorBufferBenchmark {
+
+	/** Number of elements of a single sample, independent of the rank. */
+	private static final int SAMPLE_SIZE = 4096;
+
+	// JMH injects parameters into public fields, their names show up in the results
+
+	@Param({ "FLOAT", "DOUBLE", "INT", "LONG", "BIT" })
+	public String type;
+
+	@Param({ "1", "2", "4" })
+	public int rank;
+
+	@Param({ "1", "32", "256" })
+	public int batchSize;
+
+	private DLFixedTensorShape m_shape;
+
+	private BufferFixture<?> m_fixture;
+
+	private Tensor<?> m_outputTensor;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		m_shape = new DLDefaultFixedTensorShape(sampleShape(rank));
+		m_fixture = BufferType.valueOf(type).createFixture((long) batchSize * SAMPLE_SIZE);
+		m_fixture.fill();
+		m_outputTensor = m_fixture.m_buffer.readIntoTensor(batchSize, m_shape);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		m_outputTensor.close();
+		m_fixture.m_buffer.close();
+	}
+
+	@Benchmark
+	public long fill() {
+		m_fixture.m_buffer.reset();
+		m_fixture.fill();
+		return m_fixture.m_buffer.size();
+	}
+
+	@Benchmark
+	public long readIntoTensor() throws Exception {
+		try (Tensor<?> tensor = m_fixture.m_buffer.readIntoTensor(batchSize, m_shape)) {
+			return tensor.numElements();
+		}
+	}
+
+	@Benchmark
+	public long drain() throws Exception {
+		m_fixture.m_buffer.reset();
+		m_fixture.m_buffer.writeFromTensor(m_outputTensor);
+		return m_fixture.drain();
+	}
+
+	private static long[] sampleShape(final int numDimensions) {
+		final long dim = Math.round(Math.pow(SAMPLE_SIZE, 1.0 / numDimensions));
+		final long[] shape = new long[numDimensions];
+		for (int i = 0; i < numDimensions; i++) {
+			shape[i] = dim;
+		}
+		return shape;
+	}
+
+	private enum BufferType {
+		FLOAT {
+			@Override
+			BufferFixture<?> createFixture(final long capacity) {
+				final float[] values = new float[Math.toIntExact(capacity)];
+				final Random random = new Random(42);
+				for (int i = 0; i < values.length; i++) {
+					values[i] = random.nextFloat();
+				}
+				final float[] dest = new float[values.length];
+				final TFTensorFloatBuffer buffer = new TFTensorFloatBuffer(capacity);
+				return new BufferFixture<>(buffer, () -> buffer.putAll(values), () -> {
+					buffer.readToFloatArray(dest, 0, dest.length);
+					return dest.length;
+				});
+			}
+		},
+		DOUBLE {
+			@Override
+			BufferFixture<?> createFixture(final long capacity) {
+				final double[] values = new Random(42).doubles(capacity).toArray();
+				final double[] dest = new double[values.length];
+				final TFTensorDoubleBuffer buffer = new TFTensorDoubleBuffer(capacity);
+				return new BufferFixture<>(buffer, () -> buffer.putAll(values), () -> {
+					buffer.readToDoubleArray(dest, 0, dest.length);
+					return dest.length;
+				});
+			}
+		},
+		INT {
+			@Override
+			BufferFixture<?> createFixture(final long capacity) {
+				final int[] values = new Random(42).ints(capacity).toArray();
+				final int[] dest = new int[values.length];
+				final TFTensorIntBuffer buffer = new TFTensorIntBuffer(capacity);
+				return new BufferFixture<>(buffer, () -> buffer.putAll(values), () -> {
+					buffer.readToIntArray(dest, 0, dest.length);
+					return dest.length;
+				});
+			}
+		},
+		LONG {
+			@Override
+			BufferFixture<?> createFixture(final long capacity) {
+				final long[] values = new Random(42).longs(capacity).toArray();
+				final long[] dest = new long[values.length];
+				final TFTensorLongBuffer buffer = new TFTensorLongBuffer(capacity);
+				return new BufferFixture<>(buffer, () -> buffer.putAll(values), () -> {
+					buffer.readToLongArray(dest, 0, dest.length);
+					return dest.length;
+				});
+			}
+		},
+		BIT {
+			@Override
+			BufferFixture<?> createFixture(final long capacity) {
+				final byte[] values = new byte[Math.toIntExact(capacity)];
+				final Random random = new Random(42);
+				for (int i = 0; i < values.length; i++) {
+					values[i] = (byte) (random.nextBoolean() ? 1 : 0);
+				}
+				final boolean[] dest = new boolean[values.length];
+				final TFTensorBitBuffer buffer = new TFTensorBitBuffer(capacity);
+				return new BufferFixture<>(buffer, () -> buffer.putAll(values), () -> {
+					buffer.readToBitArray(dest, 0, dest.length);
+					return dest.length;
+				});
+			}
+		};
+
+		abstract BufferFixture<?> createFixture(long capacity);
+	}
+
+	private static final class BufferFixture<B extends TFTensorReadableBuffer & TFTensorWritableBuffer<?>> {
+
+		private final B m_buffer;
+
+		private final Runnable m_fill;
+
+		private final LongSupplier m_drain;
+
+		BufferFixture(final B buffer, final Runnable fill, final LongSupplier drain) {
+			m_buffer = buffer;
+			m_fill = fill;
+			m_drain = drain;
+		}
+
+		void fill() {
+			m_fill.run();
+		}
+
+		long drain() {
+			return m_drain.getAsLong();
+		}
+	}
+}
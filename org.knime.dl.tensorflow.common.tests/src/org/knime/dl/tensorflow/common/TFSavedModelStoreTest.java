@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+
+/**
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFSavedModelStoreTest {
+
+	private Path m_tmpDir;
+
+	private TFSavedModelStore m_store;
+
+	@Before
+	public void setUp() throws Exception {
+		m_tmpDir = Files.createTempDirectory("savedmodel_store_test");
+		m_store = new TFSavedModelStore(m_tmpDir.resolve("store"));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtil.deleteRecursively(m_tmpDir.toFile());
+	}
+
+	@Test
+	public void testMaterializeLinksSameContent() throws Exception {
+		final byte[] content = randomBytes(TFSavedModelStore.MIN_STORED_SIZE);
+		final Path source = Files.write(m_tmpDir.resolve("source"), content);
+		final Path first = m_tmpDir.resolve("a/variables.data-00000-of-00001");
+		final Path second = m_tmpDir.resolve("b/variables.data-00000-of-00001");
+
+		m_store.materialize(source, first);
+		m_store.materialize(source, second);
+
+		assertArrayEquals(content, Files.readAllBytes(first));
+		assertTrue(Files.isSameFile(first, second));
+		final Path object = m_store.getObject(m_store.hash(source));
+		assertTrue(Files.isSameFile(object, first));
+		assertEquals(2, m_store.getReferences(object).size());
+	}
+
+	@Test
+	public void testSmallFilesAreCopied() throws Exception {
+		final Path source = Files.write(m_tmpDir.resolve("source"), randomBytes(16));
+		final Path target = m_tmpDir.resolve("a/saved_model.pb");
+
+		m_store.materialize(source, target);
+
+		assertFalse(Files.exists(m_store.getObject(m_store.hash(source))));
+		assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testDeduplicate() throws Exception {
+		final byte[] content = randomBytes(TFSavedModelStore.MIN_STORED_SIZE * 2);
+		final Path first = Files.write(Files.createDirectories(m_tmpDir.resolve("a")).resolve("file"), content);
+		final Path second = Files.write(Files.createDirectories(m_tmpDir.resolve("b")).resolve("file"), content);
+
+		m_store.deduplicate(first.getParent());
+		m_store.deduplicate(second.getParent());
+
+		assertTrue(Files.isSameFile(first, second));
+		assertArrayEquals(content, Files.readAllBytes(second));
+	}
+
+	@Test
+	public void testCollectGarbage() throws Exception {
+		final Path source = Files.write(m_tmpDir.resolve("source"), randomBytes(TFSavedModelStore.MIN_STORED_SIZE));
+		final Path first = m_tmpDir.resolve("a/file");
+		final Path second = m_tmpDir.resolve("b/file");
+		m_store.materialize(source, first);
+		m_store.materialize(source, second);
+		final Path object = m_store.getObject(m_store.hash(source));
+
+		// Still referenced by the second file
+		Files.delete(first);
+		assertEquals(0, m_store.collectGarbage());
+		assertEquals(1, m_store.getReferences(object).size());
+
+		Files.delete(second);
+		assertEquals(1, m_store.collectGarbage());
+		assertFalse(Files.exists(object));
+	}
+
+	@Test
+	public void testFingerprint() throws Exception {
+		final byte[] content = randomBytes(TFSavedModelStore.MIN_STORED_SIZE);
+		final Path first = Files.createDirectories(m_tmpDir.resolve("a/variables"));
+		Files.write(first.resolve("variables.data-00000-of-00001"), content);
+		Files.write(m_tmpDir.resolve("a/saved_model.pb"), randomBytes(16));
+		final Path second = m_tmpDir.resolve("b");
+		m_store.materialize(first.resolve("variables.data-00000-of-00001"),
+				second.resolve("variables/variables.data-00000-of-00001"));
+		m_store.materialize(m_tmpDir.resolve("a/saved_model.pb"), second.resolve("saved_model.pb"));
+
+		// Same content in a different location
+		final String fingerprint = m_store.fingerprint(m_tmpDir.resolve("a"));
+		assertEquals(fingerprint, m_store.fingerprint(second));
+
+		// Changed content
+		Files.write(second.resolve("saved_model.pb"), randomBytes(17));
+		assertNotEquals(fingerprint, m_store.fingerprint(second));
+	}
+
+	private static byte[] randomBytes(final long size) {
+		final byte[] bytes = new byte[(int)size];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,609 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A content-addressed store for the files of SavedModels. Each file is stored once under the SHA-256 hash of its
+ * content. The SavedModels in file stores are materialized as hard links to the stored files, so the same model read
+ * by many nodes occupies the disk only once and is not copied again.
+ * <p>
+ * The store remembers the paths linked to each stored file. A stored file is deleted by {@link #collectGarbage()} when
+ * none of these paths is a link to it anymore, e.g. because the file store has been deleted together with the
+ * workflow. Files are copied instead if the target is on another file system than the store or the file system does
+ * not support hard links.
+ * <p>
+ * Linking is only safe because TensorFlow never modifies the files of a SavedModel in place. Code writing to a
+ * SavedModel directory must replace the files instead of overwriting them.
+ * <p>
+ * The store is shared by the TensorFlow 1 and 2 integrations and by all KNIME instances which use the same KNIME home
+ * directory. Storing, linking and collecting garbage are therefore guarded by a lock on a file in the store directory.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSavedModelStore {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelStore.class);
+
+	/** The directory of the store in the KNIME home directory */
+	private static final String STORE_DIR_NAME = "tensorflow-savedmodel-store";
+
+	private static final String LOCK_FILE_NAME = ".lock";
+
+	private static final String OBJECTS_DIR_NAME = "objects";
+
+	private static final String TMP_DIR_NAME = "tmp";
+
+	private static final String REFS_SUFFIX = ".refs";
+
+	/** Smaller files are copied because linking them saves little space */
+	static final long MIN_STORED_SIZE = 64 * 1024;
+
+	private static final class InstanceHolder {
+		private static final TFSavedModelStore INSTANCE = createInstance();
+	}
+
+	private final Path m_root;
+
+	private final Path m_objectsDir;
+
+	private final Path m_tmpDir;
+
+	/** The hashes of the files that have been stored or materialized before. Keyed by the file key if available */
+	private final Map<Object, CachedHash> m_hashes = new ConcurrentHashMap<>();
+
+	/** The file store of the store directory. <code>null</code> until the first file is stored */
+	private FileStore m_fileStore;
+
+	/** The fingerprints of SavedModels. Keyed by the absolute path */
+	private final Map<Path, CachedFingerprint> m_fingerprints = new ConcurrentHashMap<>();
+
+	/** The file systems which do not support hard links */
+	private final Set<FileStore> m_linkingUnsupported = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Creates a store in the given directory.
+	 *
+	 * @param root the directory of the store. Created if it does not exist.
+	 */
+	TFSavedModelStore(final Path root) {
+		m_root = root;
+		m_objectsDir = root.resolve(OBJECTS_DIR_NAME);
+		m_tmpDir = root.resolve(TMP_DIR_NAME);
+	}
+
+	/**
+	 * @return the store in the KNIME home directory of the workspace
+	 */
+	public static TFSavedModelStore getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private static TFSavedModelStore createInstance() {
+		final TFSavedModelStore store = new TFSavedModelStore(
+				Paths.get(KNIMEConstants.getKNIMEHomeDir(), STORE_DIR_NAME));
+		// Delete the files of the workflows which have been closed since the last session
+		try {
+			final int deleted = store.collectGarbage();
+			if (deleted > 0) {
+				LOGGER.debug("Deleted " + deleted + " unused files from the SavedModel store.");
+			}
+		} catch (final IOException e) {
+			LOGGER.warn("Could not delete the unused files of the SavedModel store: " + e.getMessage(), e);
+		}
+		return store;
+	}
+
+	/**
+	 * Copies the file to the target. If possible, the file is added to the store and the target is created as a hard
+	 * link to the stored file.
+	 *
+	 * @param source the file to copy
+	 * @param target the target file. Replaced if it exists.
+	 * @throws IOException if storing, linking or copying the file failed
+	 */
+	public void materialize(final Path source, final Path target) throws IOException {
+		if (!isStored(source, target)) {
+			createDirectories(target.getParent());
+			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		final String hash = hash(source);
+		final Path object = getObject(hash);
+		// Copy outside of the lock such that other nodes and KNIME instances do not wait for large files. The copy is
+		// placed next to the target where the garbage collection of the store does not delete it
+		final Path copy;
+		if (Files.exists(object)) {
+			copy = null;
+		} else {
+			copy = Files.createTempFile(createDirectories(target.getParent()), ".object", ".tmp");
+			Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+		}
+		try {
+			runLocked(() -> {
+				addReference(object, target);
+				if (!Files.exists(object)) {
+					if (copy != null) {
+						moveToStore(copy, object);
+					} else {
+						// Deleted by the garbage collection in the meantime
+						final Path tmp = Files.createTempFile(createDirectories(m_tmpDir), "object", ".tmp");
+						Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+						moveToStore(tmp, object);
+					}
+				}
+				link(object, target);
+			});
+		} finally {
+			if (copy != null) {
+				Files.deleteIfExists(copy);
+			}
+		}
+		cacheHash(target, hash);
+	}
+
+	/**
+	 * Replaces the files in the given directory with hard links to the store. Files which are not in the store yet are
+	 * moved to the store. Nothing is done if the directory is on another file system than the store.
+	 *
+	 * @param dir the directory, e.g. a SavedModel which has been extracted to a file store
+	 * @throws IOException if storing or linking a file failed
+	 */
+	public void deduplicate(final Path dir) throws IOException {
+		final List<Path> files;
+		try (Stream<Path> paths = Files.walk(dir)) {
+			files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		for (final Path file : files) {
+			if (!isStored(file, file)) {
+				continue;
+			}
+			final String hash = hash(file);
+			final Path object = getObject(hash);
+			runLocked(() -> {
+				if (Files.exists(object) && Files.isSameFile(object, file)) {
+					// Already linked
+					return;
+				}
+				addReference(object, file);
+				if (Files.exists(object)) {
+					replaceWithLink(object, file);
+				} else {
+					// The file stays in place: The stored file is a second link to its content
+					createDirectories(object.getParent());
+					try {
+						Files.createLink(object, file);
+					} catch (final UnsupportedOperationException e) {
+						LOGGER.debug("The file system does not support hard links. The SavedModels are not "
+								+ "deduplicated.", e);
+						m_linkingUnsupported.add(m_fileStore);
+					}
+				}
+			});
+			cacheHash(file, hash);
+		}
+	}
+
+	/**
+	 * Computes a fingerprint of the content of a SavedModel: The SHA-256 hash of the relative paths and the content
+	 * hashes of all its files. The content hashes of files which have been stored or materialized in this session are
+	 * not computed again. The fingerprint is cached as long as no file of the SavedModel changes its size or
+	 * modification time.
+	 *
+	 * @param savedModel the SavedModel directory or a single file (e.g. an HDF5 file)
+	 * @return the fingerprint as hex string
+	 * @throws IOException if reading the files failed
+	 */
+	public String fingerprint(final Path savedModel) throws IOException {
+		final Path key = savedModel.toAbsolutePath().normalize();
+		final List<Path> files = listFiles(savedModel);
+		final String state = describe(savedModel, files);
+		final CachedFingerprint cached = m_fingerprints.get(key);
+		if (cached != null && cached.m_state.equals(state)) {
+			return cached.m_fingerprint;
+		}
+		final MessageDigest digest = createDigest();
+		for (final Path file : files) {
+			digest.update((relativeName(savedModel, file) + "\t" + hash(file) + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+		final String fingerprint = toHex(digest.digest());
+		m_fingerprints.put(key, new CachedFingerprint(state, fingerprint));
+		return fingerprint;
+	}
+
+	/**
+	 * Remembers the fingerprint of a SavedModel which has been computed before, e.g. in a previous session, such that
+	 * {@link #fingerprint(Path)} does not read the files again. Must only be used for SavedModels which have not been
+	 * changed since the fingerprint was computed, e.g. SavedModels in file stores.
+	 *
+	 * @param savedModel the SavedModel directory or a single file
+	 * @param fingerprint the fingerprint of its current content
+	 * @throws IOException if listing the files failed
+	 */
+	public void rememberFingerprint(final Path savedModel, final String fingerprint) throws IOException {
+		m_fingerprints.put(savedModel.toAbsolutePath().normalize(),
+				new CachedFingerprint(describe(savedModel, listFiles(savedModel)), fingerprint));
+	}
+
+	/**
+	 * Deletes the stored files which are not linked from any file store anymore.
+	 *
+	 * @return the number of deleted files
+	 * @throws IOException if reading the store failed
+	 */
+	public int collectGarbage() throws IOException {
+		if (!Files.isDirectory(m_objectsDir)) {
+			return 0;
+		}
+		final int[] deleted = new int[1];
+		runLocked(() -> deleted[0] = deleteUnreferenced());
+		return deleted[0];
+	}
+
+	private int deleteUnreferenced() throws IOException {
+		int deleted = 0;
+		try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(m_objectsDir)) {
+			for (final Path prefix : prefixes) {
+				try (DirectoryStream<Path> objects = Files.newDirectoryStream(prefix,
+						p -> !p.getFileName().toString().endsWith(REFS_SUFFIX))) {
+					for (final Path object : objects) {
+						if (!updateReferences(object)) {
+							Files.deleteIfExists(getReferencesFile(object));
+							Files.delete(object);
+							deleted++;
+						}
+					}
+				}
+			}
+		}
+		// Left over from interrupted copies
+		if (Files.isDirectory(m_tmpDir)) {
+			try (DirectoryStream<Path> tmpFiles = Files.newDirectoryStream(m_tmpDir)) {
+				for (final Path tmp : tmpFiles) {
+					Files.deleteIfExists(tmp);
+				}
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * @param object a stored file
+	 * @return the paths linked to the stored file
+	 * @throws IOException if reading the references failed
+	 */
+	List<Path> getReferences(final Path object) throws IOException {
+		final Path refs = getReferencesFile(object);
+		if (!Files.exists(refs)) {
+			return new ArrayList<>();
+		}
+		return Files.readAllLines(refs, StandardCharsets.UTF_8).stream() //
+				.filter(l -> !l.isEmpty()) //
+				.map(Paths::get) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @param hash the SHA-256 hash of the content
+	 * @return the path of the stored file with the given hash
+	 */
+	Path getObject(final String hash) {
+		return m_objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	/**
+	 * Computes the SHA-256 hash of the content of the file. The hash is cached as long as the size and modification
+	 * time of the file do not change.
+	 *
+	 * @param file the file
+	 * @return the hash as hex string
+	 * @throws IOException if reading the file failed
+	 */
+	String hash(final Path file) throws IOException {
+		final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+		final long lastModified = attrs.lastModifiedTime().toMillis();
+		final CachedHash cached = m_hashes.get(getKey(file, attrs));
+		if (cached != null && cached.m_size == attrs.size() && cached.m_lastModified == lastModified) {
+			return cached.m_hash;
+		}
+		final String hash = computeHash(file);
+		m_hashes.put(getKey(file, attrs), new CachedHash(attrs.size(), lastModified, hash));
+		return hash;
+	}
+
+	/** Remembers the hash of a file with a known content */
+	private void cacheHash(final Path file, final String hash) throws IOException {
+		final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+		m_hashes.put(getKey(file, attrs), new CachedHash(attrs.size(), attrs.lastModifiedTime().toMillis(), hash));
+	}
+
+	/** The file key identifies all hard links to the same file */
+	private static Object getKey(final Path file, final BasicFileAttributes attrs) {
+		return attrs.fileKey() != null ? attrs.fileKey() : file.toAbsolutePath();
+	}
+
+	private static List<Path> listFiles(final Path savedModel) throws IOException {
+		try (Stream<Path> paths = Files.walk(savedModel)) {
+			return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/** Describes the files by their paths, sizes and modification times */
+	private static String describe(final Path savedModel, final List<Path> files) throws IOException {
+		final StringBuilder state = new StringBuilder();
+		for (final Path file : files) {
+			final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+			state.append(relativeName(savedModel, file)).append('\t').append(attrs.size()).append('\t')
+					.append(attrs.lastModifiedTime().toMillis()).append('\n');
+		}
+		return state.toString();
+	}
+
+	private static String relativeName(final Path savedModel, final Path file) {
+		return savedModel.relativize(file).toString().replace(File.separatorChar, '/');
+	}
+
+	/** Whether the file should be stored and the target can be linked to the store */
+	private boolean isStored(final Path file, final Path target) throws IOException {
+		if (Files.size(file) < MIN_STORED_SIZE) {
+			return false;
+		}
+		if (m_fileStore == null) {
+			m_fileStore = Files.getFileStore(createDirectories(m_objectsDir));
+		}
+		return !m_linkingUnsupported.contains(m_fileStore)
+				&& m_fileStore.equals(Files.getFileStore(existingAncestor(target)));
+	}
+
+	/**
+	 * Runs the action while holding the lock of the store directory. The lock of the file only excludes other
+	 * processes, the threads of this process are excluded by synchronizing on the store.
+	 */
+	private synchronized void runLocked(final StoreAction action) throws IOException {
+		createDirectories(m_root);
+		try (FileChannel channel = FileChannel.open(m_root.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+			action.run();
+		}
+	}
+
+	private void moveToStore(final Path file, final Path object) throws IOException {
+		createDirectories(object.getParent());
+		try {
+			Files.move(file, object, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			// The object has been created in the meantime
+			if (!Files.exists(object)) {
+				throw e;
+			}
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Remembers that the target links to the object. Must be called before the object is created such that the object
+	 * is never visible without a reference. A reference whose target is not linked is removed by the garbage
+	 * collection.
+	 */
+	private void addReference(final Path object, final Path target) throws IOException {
+		createDirectories(object.getParent());
+		Files.write(getReferencesFile(object),
+				(target.toAbsolutePath().toString() + "\n").getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	/** Links the target to the object. Copies the object if linking failed */
+	private void link(final Path object, final Path target) throws IOException {
+		Files.deleteIfExists(target);
+		createDirectories(target.getParent());
+		try {
+			Files.createLink(target, object);
+		} catch (final UnsupportedOperationException e) {
+			LOGGER.debug("The file system does not support hard links. Copying the files of the SavedModels instead.",
+					e);
+			m_linkingUnsupported.add(m_fileStore);
+			Files.copy(object, target);
+		} catch (final IOException e) {
+			// E.g. the object has reached the maximum number of links
+			LOGGER.debug("Could not create a hard link to the SavedModel store. Copying the file instead.", e);
+			Files.copy(object, target);
+		}
+	}
+
+	/**
+	 * Replaces the file with a link to the object. The link is created next to the file and moved over it atomically
+	 * such that the file is never missing. The file is kept if linking failed.
+	 */
+	private void replaceWithLink(final Path object, final Path file) throws IOException {
+		final Path tmp = file.resolveSibling("." + file.getFileName() + ".link");
+		Files.deleteIfExists(tmp);
+		try {
+			Files.createLink(tmp, object);
+		} catch (final UnsupportedOperationException e) {
+			LOGGER.debug("The file system does not support hard links. The SavedModels are not deduplicated.", e);
+			m_linkingUnsupported.add(m_fileStore);
+			return;
+		} catch (final IOException e) {
+			// E.g. the object has reached the maximum number of links
+			LOGGER.debug("Could not create a hard link to the SavedModel store. Keeping the file.", e);
+			return;
+		}
+		try {
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/** Removes the references that are not linked to the object anymore. Returns false if none is left */
+	private boolean updateReferences(final Path object) throws IOException {
+		final List<Path> references = getReferences(object);
+		final List<Path> live = new ArrayList<>();
+		for (final Path reference : references) {
+			try {
+				if (Files.isSameFile(reference, object)) {
+					live.add(reference);
+				}
+			} catch (final NoSuchFileException e) {
+				// Deleted
+			}
+		}
+		if (live.isEmpty()) {
+			return false;
+		}
+		if (live.size() < references.size()) {
+			Files.write(getReferencesFile(object), live.stream().map(p -> p.toString() + "\n")
+					.collect(Collectors.joining()).getBytes(StandardCharsets.UTF_8));
+		}
+		return true;
+	}
+
+	private static Path getReferencesFile(final Path object) {
+		return object.resolveSibling(object.getFileName().toString() + REFS_SUFFIX);
+	}
+
+	private static Path existingAncestor(final Path path) {
+		Path p = path.toAbsolutePath();
+		while (p != null && !Files.exists(p)) {
+			p = p.getParent();
+		}
+		return p;
+	}
+
+	private static Path createDirectories(final Path dir) throws IOException {
+		return Files.createDirectories(dir);
+	}
+
+	private static String computeHash(final Path file) throws IOException {
+		final MessageDigest digest = createDigest();
+		final byte[] buffer = new byte[1 << 16];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			// Every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder();
+		for (final byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	@FunctionalInterface
+	private interface StoreAction {
+
+		void run() throws IOException;
+	}
+
+	private static final class CachedHash {
+
+		private final long m_size;
+
+		private final long m_lastModified;
+
+		private final String m_hash;
+
+		private CachedHash(final long size, final long lastModified, final String hash) {
+			m_size = size;
+			m_lastModified = lastModified;
+			m_hash = hash;
+		}
+	}
+
+	private static final class CachedFingerprint {
+
+		private final String m_state;
+
+		private final String m_fingerprint;
+
+		private CachedFingerprint(final String state, final String fingerprint) {
+			m_state = state;
+			m_fingerprint = fingerprint;
+		}
+	}
+}
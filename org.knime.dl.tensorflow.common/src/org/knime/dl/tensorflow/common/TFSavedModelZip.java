@@ -0,0 +1,282 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
+import org.apache.commons.io.IOUtils;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Writes and checks SavedModel ZIP archives. Used by the TensorFlow 1 and 2 integrations.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSavedModelZip {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelZip.class);
+
+	/**
+	 * The default compression level of SavedModel ZIP files. Same as {@link java.util.zip.Deflater#DEFAULT_COMPRESSION}
+	 */
+	public static final int DEFAULT_ZIP_COMPRESSION_LEVEL = 6;
+
+	/** Matches the data shards of the variables relative to the SavedModel root */
+	private static final Pattern VARIABLES_DATA_REGEX = Pattern.compile("^variables/.*\\.data-\\d+-of-\\d+$");
+
+	/** The signature of the end of central directory record of a ZIP archive */
+	private static final int ZIP_END_OF_CENTRAL_DIR_SIGNATURE = 0x06054b50;
+
+	/** The size of the end of central directory record without the comment */
+	private static final int ZIP_END_OF_CENTRAL_DIR_SIZE = 22;
+
+	private TFSavedModelZip() {
+		// Utility class
+	}
+
+	/**
+	 * Writes a SavedModel directory as a ZIP archive to the given stream. The entries are compressed in parallel and
+	 * written below a root directory with the given name.
+	 * <P>
+	 * The data shards of the variables are mostly incompressible floats. If <code>storeVariables</code> is
+	 * <code>true</code> they are written without compression, which avoids spending most of the time compressing
+	 * them for little gain.
+	 *
+	 * @param source the SavedModel directory
+	 * @param rootName the name of the root directory in the archive
+	 * @param out the stream to write the archive to. Closed when this method returns.
+	 * @param compressionLevel the compression level of the compressed entries (see {@link java.util.zip.Deflater})
+	 * @param storeVariables if the data shards of the variables should be stored without compression
+	 * @param comment the comment of the archive. <code>null</code> for no comment. The comment can be used to
+	 *            recognize an archive which has been written before (see {@link #hasZipComment(Path, String)}).
+	 * @param exec to report progress and check for cancellation
+	 * @throws IOException if writing the archive failed
+	 * @throws CanceledExecutionException if the execution has been canceled
+	 */
+	public static void zipSavedModel(final Path source, final String rootName, final OutputStream out,
+			final int compressionLevel, final boolean storeVariables, final String comment,
+			final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+		final List<Path> dirs;
+		final List<Path> files;
+		try (Stream<Path> paths = Files.walk(source)) {
+			dirs = paths.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+		}
+		try (Stream<Path> paths = Files.walk(source)) {
+			files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+
+		final int numThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), files.size()));
+		final ExecutorService executor = ThreadUtils
+				.executorServiceWithContext(Executors.newFixedThreadPool(numThreads));
+		try (final ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(out)) {
+			if (comment != null) {
+				zipOut.setComment(comment);
+			}
+			final ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor,
+					() -> new FileBasedScatterGatherBackingStore(FileUtil.createTempFile("tf_zip", ".tmp")),
+					compressionLevel);
+			final List<Path> storedFiles = new ArrayList<>();
+			final List<Future<Long>> storedCrcs = new ArrayList<>();
+			for (final Path file : files) {
+				final String relativeName = toZipEntryName(source.relativize(file));
+				if (storeVariables && VARIABLES_DATA_REGEX.matcher(relativeName).matches()) {
+					// Compute the checksum in parallel: Required before writing an uncompressed entry to a stream
+					storedFiles.add(file);
+					storedCrcs.add(executor.submit(() -> computeCrc(file)));
+				} else {
+					final ZipArchiveEntry entry = new ZipArchiveEntry(rootName + "/" + relativeName);
+					entry.setMethod(ZipEntry.DEFLATED);
+					entry.setSize(Files.size(file));
+					creator.addArchiveEntry(entry, () -> {
+						try {
+							return Files.newInputStream(file);
+						} catch (final IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+				}
+			}
+
+			// Directory entries (keeps empty directories like "assets")
+			for (final Path dir : dirs) {
+				final String relativeName = toZipEntryName(source.relativize(dir));
+				zipOut.putArchiveEntry(new ZipArchiveEntry(
+						relativeName.isEmpty() ? rootName + "/" : rootName + "/" + relativeName + "/"));
+				zipOut.closeArchiveEntry();
+			}
+
+			// Compressed entries: Waits for all entries to be compressed
+			exec.setMessage("Compressing files");
+			creator.writeTo(zipOut);
+			exec.checkCanceled();
+
+			// Uncompressed entries
+			exec.setMessage("Writing variables");
+			for (int i = 0; i < storedFiles.size(); i++) {
+				final Path file = storedFiles.get(i);
+				final long size = Files.size(file);
+				final ZipArchiveEntry entry = new ZipArchiveEntry(
+						rootName + "/" + toZipEntryName(source.relativize(file)));
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(size);
+				entry.setCompressedSize(size);
+				entry.setCrc(storedCrcs.get(i).get());
+				zipOut.putArchiveEntry(entry);
+				try (InputStream in = Files.newInputStream(file)) {
+					IOUtils.copyLarge(in, zipOut);
+				}
+				zipOut.closeArchiveEntry();
+				exec.setProgress((i + 1) / (double) storedFiles.size());
+				exec.checkCanceled();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CanceledExecutionException("Interrupted while writing the SavedModel archive.");
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause()
+					: e.getCause();
+			throw cause instanceof IOException ? (IOException) cause
+					: new IOException("Writing the SavedModel archive failed.", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static long computeCrc(final Path file) throws IOException {
+		final CRC32 crc = new CRC32();
+		final byte[] buffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE * 16];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Checks if the given file is a ZIP archive with the given comment. Only reads the end of the central directory
+	 * at the end of the file. Works for files on any file system which supports seekable channels.
+	 *
+	 * @param zip the file to check
+	 * @param comment the expected comment
+	 * @return <code>true</code> if the file is a ZIP archive with the given comment
+	 */
+	public static boolean hasZipComment(final Path zip, final String comment) {
+		if (!Files.isRegularFile(zip)) {
+			return false;
+		}
+		try (final SeekableByteChannel channel = Files.newByteChannel(zip)) {
+			// The comment is at most 65535 bytes long
+			final int tailSize = (int) Math.min(channel.size(), ZIP_END_OF_CENTRAL_DIR_SIZE + 0xFFFF);
+			final ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+			channel.position(channel.size() - tailSize);
+			while (tail.hasRemaining() && channel.read(tail) != -1) {
+				// Read the whole tail
+			}
+			// Search the record backwards: The comment must end at the end of the file
+			for (int i = tailSize - ZIP_END_OF_CENTRAL_DIR_SIZE; i >= 0; i--) {
+				final int commentLength = tail.getShort(i + ZIP_END_OF_CENTRAL_DIR_SIZE - 2) & 0xFFFF;
+				if (tail.getInt(i) == ZIP_END_OF_CENTRAL_DIR_SIGNATURE
+						&& i + ZIP_END_OF_CENTRAL_DIR_SIZE + commentLength == tailSize) {
+					final String actual = new String(tail.array(), i + ZIP_END_OF_CENTRAL_DIR_SIZE, commentLength,
+							StandardCharsets.UTF_8);
+					return comment.equals(actual);
+				}
+			}
+			return false;
+		} catch (final IOException | UnsupportedOperationException e) {
+			// Not a readable ZIP file: Must be written again
+			LOGGER.debug("Could not read the comment of the ZIP archive \"" + zip + "\".", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Gives the name of a ZIP entry for a relative path. ZIP entry names always use '/' as separator.
+	 *
+	 * @param relative the path relative to the root of the archive
+	 * @return the entry name
+	 */
+	public static String toZipEntryName(final Path relative) {
+		final List<String> names = new ArrayList<>();
+		for (final Path name : relative) {
+			if (!name.toString().isEmpty()) {
+				names.add(name.toString());
+			}
+		}
+		return String.join("/", names);
+	}
+}
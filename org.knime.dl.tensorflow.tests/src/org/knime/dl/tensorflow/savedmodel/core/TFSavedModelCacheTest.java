@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+
+/**
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFSavedModelCacheTest {
+
+	private static final long MAX_SIZE = 1024 * 1024;
+
+	private Path m_tmpDir;
+
+	private AtomicInteger m_extractions;
+
+	@Before
+	public void setUp() throws Exception {
+		m_tmpDir = Files.createTempDirectory("savedmodel_cache_test");
+		m_extractions = new AtomicInteger();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtil.deleteRecursively(m_tmpDir.toFile());
+	}
+
+	@Test
+	public void testGetExtractsOnce() throws Exception {
+		final URL source = writeSource("a", new byte[] { 1, 2, 3 });
+
+		final File first = createCache(MAX_SIZE).get(source);
+		// A new instance reads the same cache directory, e.g. after a restart
+		final File second = createCache(MAX_SIZE).get(source);
+
+		assertEquals(first, second);
+		assertEquals(1, m_extractions.get());
+		assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(first.toPath().resolve("content")));
+	}
+
+	@Test
+	public void testGetExtractsChangedFile() throws Exception {
+		final URL source = writeSource("a", new byte[] { 1, 2, 3 });
+		final TFSavedModelCache cache = createCache(MAX_SIZE);
+		final File first = cache.get(source);
+
+		final Path file = Path.of(source.toURI());
+		Files.write(file, new byte[] { 4, 5, 6 });
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+		final File second = cache.get(source);
+
+		assertNotEquals(first, second);
+		assertEquals(2, m_extractions.get());
+		assertArrayEquals(new byte[] { 4, 5, 6 }, Files.readAllBytes(second.toPath().resolve("content")));
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		final TFSavedModelCache cache = createCache(MAX_SIZE);
+		final File first = cache.get(writeSource("a", new byte[100]));
+		final File second = cache.get(writeSource("b", new byte[100]));
+		setLastAccess(first, 1000);
+		setLastAccess(second, 2000);
+
+		// Entries in use are not deleted
+		assertEquals(0, createCache(150).evict());
+
+		cache.release();
+		assertEquals(1, createCache(150).evict());
+		assertFalse(first.exists());
+		assertTrue(second.exists());
+	}
+
+	@Test
+	public void testEvictReleasedEntry() throws Exception {
+		final URL source = writeSource("a", new byte[100]);
+		final TFSavedModelCache cache = createCache(MAX_SIZE);
+		final File model = cache.get(source);
+		assertTrue(cache.pin(source, model));
+
+		cache.release(source);
+		// Still used once
+		assertEquals(0, createCache(50).evict());
+
+		cache.release(source);
+		assertEquals(1, createCache(50).evict());
+		assertFalse(model.exists());
+		assertFalse(cache.pin(source, model));
+	}
+
+	@Test
+	public void testEvictStaleModels() throws Exception {
+		final URL source = writeSource("a", new byte[100]);
+		final TFSavedModelCache cache = createCache(MAX_SIZE);
+		final File first = cache.get(source);
+
+		// The first version is in use and must not be deleted when the file changes
+		final Path file = Path.of(source.toURI());
+		Files.write(file, new byte[101]);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+		final File second = cache.get(source);
+		assertTrue(first.exists());
+
+		// Only the stale version is deleted to fit the size
+		cache.release(source);
+		cache.release(source);
+		assertEquals(0, createCache(150).evict());
+		assertFalse(first.exists());
+		assertTrue(second.exists());
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		final URL source = writeSource("a", new byte[] { 1, 2, 3 });
+		final TFSavedModelCache cache = createCache(MAX_SIZE);
+		final File model = cache.get(source);
+
+		cache.invalidate(source);
+		assertFalse(model.exists());
+
+		cache.get(source);
+		assertEquals(2, m_extractions.get());
+	}
+
+	private TFSavedModelCache createCache(final long maxSize) {
+		return new TFSavedModelCache(m_tmpDir.resolve("cache"), maxSize, new CopyExtractor(),
+				new TFSavedModelDownloader());
+	}
+
+	private URL writeSource(final String name, final byte[] content) throws IOException {
+		return Files.write(m_tmpDir.resolve(name + ".zip"), content).toUri().toURL();
+	}
+
+	/** Copies the "ZIP file" to a file called content */
+	private final class CopyExtractor implements TFSavedModelCache.Extractor {
+
+		@Override
+		public void extract(final InputStream zip, final File destination) throws IOException {
+			m_extractions.incrementAndGet();
+			Files.copy(zip, destination.toPath().resolve("content"));
+		}
+
+		@Override
+		public void extract(final File zip, final File destination) throws IOException {
+			m_extractions.incrementAndGet();
+			Files.copy(zip.toPath(), destination.toPath().resolve("content"));
+		}
+	}
+
+	private static void setLastAccess(final File model, final long time) throws IOException {
+		Files.setLastModifiedTime(model.toPath().resolveSibling("entry.properties"), FileTime.fromMillis(time));
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the {@link TFSavedModelDownloader} against a minimal HTTP server.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFSavedModelDownloaderTest {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private Path m_tmpDir;
+
+	private byte[] m_content;
+
+	private StandInServer m_server;
+
+	@Before
+	public void setUp() throws Exception {
+		m_tmpDir = Files.createTempDirectory("savedmodel_downloader_test");
+		m_content = new byte[10 * CHUNK_SIZE];
+		new Random(42).nextBytes(m_content);
+		m_server = new StandInServer(m_content);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		m_server.close();
+		FileUtil.deleteRecursively(m_tmpDir.toFile());
+	}
+
+	@Test
+	public void testDownloadRangesInParallel() throws Exception {
+		m_server.m_digest = Base64.getEncoder().encodeToString(sha256(m_content));
+		final Path target = m_tmpDir.resolve("model.zip");
+
+		final String hash = new TFSavedModelDownloader(CHUNK_SIZE, 4).download(m_server.getURL(), target);
+
+		assertArrayEquals(m_content, Files.readAllBytes(target));
+		assertEquals(toHex(sha256(m_content)), hash);
+		assertEquals(10, m_server.getRanges().size());
+	}
+
+	@Test
+	public void testResumeDownload() throws Exception {
+		final Path target = m_tmpDir.resolve("model.zip");
+		final TFSavedModelDownloader downloader = new TFSavedModelDownloader(CHUNK_SIZE, 1);
+		m_server.m_failingStart = 9 * CHUNK_SIZE;
+		try {
+			downloader.download(m_server.getURL(), target);
+			fail("The download should fail.");
+		} catch (final IOException e) {
+			// Expected
+		}
+		assertFalse(Files.exists(target));
+
+		m_server.m_failingStart = -1;
+		m_server.getRanges().clear();
+		downloader.download(m_server.getURL(), target);
+
+		assertArrayEquals(m_content, Files.readAllBytes(target));
+		assertEquals(Collections.singletonList("bytes=9000-9999"), m_server.getRanges());
+	}
+
+	@Test
+	public void testDownloadWithoutRanges() throws Exception {
+		m_server.m_acceptRanges = false;
+		final Path target = m_tmpDir.resolve("model.zip");
+
+		new TFSavedModelDownloader(CHUNK_SIZE, 4).download(m_server.getURL(), target);
+
+		assertArrayEquals(m_content, Files.readAllBytes(target));
+		assertEquals(Collections.singletonList(null), m_server.getRanges());
+	}
+
+	@Test
+	public void testChecksumMismatch() throws Exception {
+		m_server.m_digest = Base64.getEncoder().encodeToString(sha256(new byte[] { 1 }));
+		final Path target = m_tmpDir.resolve("model.zip");
+		try {
+			new TFSavedModelDownloader(CHUNK_SIZE, 4).download(m_server.getURL(), target);
+			fail("The checksum should not match.");
+		} catch (final IOException e) {
+			assertTrue(e.getMessage().contains("checksum"));
+		}
+		assertFalse(Files.exists(target));
+	}
+
+	private static byte[] sha256(final byte[] content) throws Exception {
+		return MessageDigest.getInstance("SHA-256").digest(content);
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder();
+		for (final byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/** Serves one file over HTTP/1.1 with optional support for range requests */
+	private static final class StandInServer implements AutoCloseable {
+
+		private final byte[] m_content;
+
+		private final ServerSocket m_socket;
+
+		private final ExecutorService m_executor = Executors.newCachedThreadPool();
+
+		/** The Range headers of the GET requests */
+		private final List<String> m_ranges = Collections.synchronizedList(new ArrayList<>());
+
+		private volatile boolean m_acceptRanges = true;
+
+		private volatile String m_digest;
+
+		/** Requests of the range starting at this position fail */
+		private volatile long m_failingStart = -1;
+
+		private StandInServer(final byte[] content) throws IOException {
+			m_content = content;
+			m_socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			m_executor.execute(() -> {
+				while (!m_socket.isClosed()) {
+					try {
+						final Socket socket = m_socket.accept();
+						m_executor.execute(() -> handle(socket));
+					} catch (final IOException e) {
+						// Closed
+					}
+				}
+			});
+		}
+
+		private URL getURL() throws IOException {
+			return new URL("http://127.0.0.1:" + m_socket.getLocalPort() + "/model.zip");
+		}
+
+		private List<String> getRanges() {
+			return m_ranges;
+		}
+
+		private void handle(final Socket socket) {
+			try (Socket s = socket) {
+				final BufferedReader reader = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.ISO_8859_1));
+				final String method = reader.readLine().split(" ")[0];
+				final Map<String, String> headers = new HashMap<>();
+				String line;
+				while ((line = reader.readLine()) != null && !line.isEmpty()) {
+					final int colon = line.indexOf(':');
+					headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+				}
+				final OutputStream out = s.getOutputStream();
+				if (method.equals("HEAD")) {
+					write(out, "200 OK", m_content.length, null);
+					return;
+				}
+				final String range = headers.get("range");
+				m_ranges.add(range);
+				if (range == null || !m_acceptRanges) {
+					write(out, "200 OK", m_content.length, null);
+					out.write(m_content);
+					return;
+				}
+				final String[] bounds = range.substring("bytes=".length()).split("-");
+				final int start = Integer.parseInt(bounds[0]);
+				final int end = Integer.parseInt(bounds[1]) + 1;
+				if (start == m_failingStart) {
+					write(out, "500 Internal Server Error", 0, null);
+					return;
+				}
+				write(out, "206 Partial Content", end - start,
+						"Content-Range: bytes " + start + "-" + (end - 1) + "/" + m_content.length);
+				out.write(m_content, start, end - start);
+			} catch (final IOException e) {
+				// The client closed the connection
+			}
+		}
+
+		private void write(final OutputStream out, final String status, final int length, final String extraHeader)
+				throws IOException {
+			final StringBuilder response = new StringBuilder("HTTP/1.1 " + status + "\r\n");
+			response.append("Content-Length: " + length + "\r\n");
+			response.append("ETag: \"v1\"\r\n");
+			response.append("Connection: close\r\n");
+			if (m_acceptRanges) {
+				response.append("Accept-Ranges: bytes\r\n");
+			}
+			if (m_digest != null) {
+				response.append("Digest: sha-256=" + m_digest + "\r\n");
+			}
+			if (extraHeader != null) {
+				response.append(extraHeader + "\r\n");
+			}
+			response.append("\r\n");
+			out.write(response.toString().getBytes(StandardCharsets.ISO_8859_1));
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			m_socket.close();
+			m_executor.shutdownNow();
+		}
+	}
+}
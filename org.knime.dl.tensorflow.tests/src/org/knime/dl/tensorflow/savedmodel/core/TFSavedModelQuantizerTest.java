@@ -0,0 +1,156 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelQuantizer.WeightType;
+import org.tensorflow.framework.AttrValue;
+import org.tensorflow.framework.DataType;
+import org.tensorflow.framework.GraphDef;
+import org.tensorflow.framework.NodeDef;
+import org.tensorflow.framework.TensorProto;
+import org.tensorflow.framework.TensorShapeProto;
+import org.tensorflow.framework.TensorShapeProto.Dim;
+
+/**
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFSavedModelQuantizerTest {
+
+	@Test
+	public void testToHalf() throws Exception {
+		assertEquals(0x0000, TFSavedModelQuantizer.toHalf(0f));
+		assertEquals((short) 0x8000, TFSavedModelQuantizer.toHalf(-0f));
+		assertEquals(0x3c00, TFSavedModelQuantizer.toHalf(1f));
+		assertEquals((short) 0xc000, TFSavedModelQuantizer.toHalf(-2f));
+		assertEquals(0x7bff, TFSavedModelQuantizer.toHalf(65504f));
+		assertEquals(0x7c00, TFSavedModelQuantizer.toHalf(1e6f));
+		// Smallest subnormal
+		assertEquals(0x0001, TFSavedModelQuantizer.toHalf(5.9604645e-8f));
+		// Ties to even
+		assertEquals(0x3c00, TFSavedModelQuantizer.toHalf(1f + 1f / 2048));
+		assertEquals(0x3c02, TFSavedModelQuantizer.toHalf(1f + 3f / 2048));
+	}
+
+	@Test
+	public void testQuantizeToInt8() throws Exception {
+		final GraphDef graph = createGraph(createFloatConst("w", 0f, 0.5f, 1f, 2f), createFloatConst("b", 1f));
+		final GraphDef quantized = TFSavedModelQuantizer.quantizeGraph(graph, WeightType.INT8, 2);
+
+		// The small constant is kept, the large one is replaced by a value, min, max and the dequantize op
+		assertEquals(5, quantized.getNodeCount());
+		final NodeDef dequantize = getNode(quantized, "w");
+		assertEquals("Dequantize", dequantize.getOp());
+		assertEquals("w/quantized_value", dequantize.getInput(0));
+		final TensorProto value = getNode(quantized, "w/quantized_value").getAttrOrThrow("value").getTensor();
+		assertEquals(DataType.DT_QUINT8, value.getDtype());
+		final byte[] bytes = value.getTensorContent().toByteArray();
+		assertEquals(0, bytes[0] & 0xff);
+		assertEquals(64, bytes[1] & 0xff);
+		assertEquals(128, bytes[2] & 0xff);
+		assertEquals(255, bytes[3] & 0xff);
+		assertEquals(0f, getNode(quantized, "w/quantized_min").getAttrOrThrow("value").getTensor().getFloatVal(0),
+				0f);
+		assertEquals(2f, getNode(quantized, "w/quantized_max").getAttrOrThrow("value").getTensor().getFloatVal(0),
+				0f);
+		assertEquals("Const", getNode(quantized, "b").getOp());
+	}
+
+	@Test
+	public void testQuantizeToFloat16() throws Exception {
+		final GraphDef graph = createGraph(createFloatConst("w", 1f, -2f));
+		final GraphDef quantized = TFSavedModelQuantizer.quantizeGraph(graph, WeightType.FLOAT16, 1);
+
+		assertEquals(2, quantized.getNodeCount());
+		assertEquals("Cast", getNode(quantized, "w").getOp());
+		final TensorProto value = getNode(quantized, "w/half_value").getAttrOrThrow("value").getTensor();
+		assertEquals(DataType.DT_HALF, value.getDtype());
+		final short[] halfs = new short[2];
+		value.getTensorContent().asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(halfs);
+		assertEquals(0x3c00, halfs[0]);
+		assertEquals((short) 0xc000, halfs[1]);
+	}
+
+	@Test
+	public void testConstantValuesAreKept() throws Exception {
+		final GraphDef graph = createGraph(createFloatConst("w", 3f, 3f, 3f));
+		final GraphDef quantized = TFSavedModelQuantizer.quantizeGraph(graph, WeightType.INT8, 1);
+		assertEquals(graph, quantized);
+	}
+
+	private static GraphDef createGraph(final NodeDef... nodes) {
+		final GraphDef.Builder graph = GraphDef.newBuilder();
+		for (final NodeDef node : nodes) {
+			graph.addNode(node);
+		}
+		return graph.build();
+	}
+
+	private static NodeDef createFloatConst(final String name, final float... values) {
+		final TensorProto.Builder tensor = TensorProto.newBuilder() //
+				.setDtype(DataType.DT_FLOAT) //
+				.setTensorShape(TensorShapeProto.newBuilder().addDim(Dim.newBuilder().setSize(values.length)));
+		for (final float v : values) {
+			tensor.addFloatVal(v);
+		}
+		return NodeDef.newBuilder() //
+				.setName(name) //
+				.setOp("Const") //
+				.putAttr("dtype", AttrValue.newBuilder().setType(DataType.DT_FLOAT).build()) //
+				.putAttr("value", AttrValue.newBuilder().setTensor(tensor).build()) //
+				.build();
+	}
+
+	private static NodeDef getNode(final GraphDef graph, final String name) {
+		return graph.getNodeList().stream().filter(n -> n.getName().equals(name)).findFirst()
+				.orElseThrow(() -> new AssertionError("No node " + name));
+	}
+}
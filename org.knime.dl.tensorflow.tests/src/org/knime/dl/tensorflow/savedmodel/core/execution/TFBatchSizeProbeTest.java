@@ -0,0 +1,123 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFBatchSizeProbeTest {
+
+	@Test
+	public void testSettlesOnHighestThroughput() {
+		final TFBatchSizeProbe probe = new TFBatchSizeProbe(64);
+		// Warm-up run with the smallest size
+		assertEquals(8, probe.getNextSize());
+		probe.recordRun(8, 1_000_000);
+		assertEquals(8, probe.getNextSize());
+		probe.recordRun(8, 80);
+		assertEquals(16, probe.getNextSize());
+		probe.recordRun(16, 80);
+		assertEquals(32, probe.getNextSize());
+		probe.recordRun(32, 320);
+		assertEquals(64, probe.getNextSize());
+		assertFalse(probe.isSettled());
+		probe.recordRun(64, 640);
+		assertTrue(probe.isSettled());
+		assertEquals(16, probe.getNextSize());
+	}
+
+	@Test
+	public void testIgnoresRunsWithOtherSizes() {
+		final TFBatchSizeProbe probe = new TFBatchSizeProbe(4);
+		probe.recordRun(1, 1);
+		probe.recordRun(1, 1);
+		assertEquals(2, probe.getNextSize());
+		// The remaining rows of a batch
+		probe.recordRun(1, 1);
+		assertEquals(2, probe.getNextSize());
+	}
+
+	@Test
+	public void testOutOfMemoryDropsLargerSizes() {
+		final TFBatchSizeProbe probe = new TFBatchSizeProbe(64);
+		probe.recordRun(8, 1);
+		probe.recordRun(8, 80);
+		probe.recordRun(16, 320);
+		probe.recordOutOfMemory(32);
+		assertTrue(probe.isSettled());
+		assertEquals(8, probe.getNextSize());
+	}
+
+	@Test
+	public void testOutOfMemoryOfSmallestSize() {
+		final TFBatchSizeProbe probe = new TFBatchSizeProbe(64);
+		probe.recordOutOfMemory(8);
+		assertEquals(4, probe.getNextSize());
+		probe.recordOutOfMemory(4);
+		assertEquals(2, probe.getNextSize());
+		probe.recordRun(2, 1);
+		probe.recordRun(2, 1);
+		assertTrue(probe.isSettled());
+		assertEquals(2, probe.getNextSize());
+	}
+
+	@Test
+	public void testOutOfMemoryAfterSettling() {
+		final TFBatchSizeProbe probe = new TFBatchSizeProbe(1);
+		probe.recordRun(1, 1);
+		probe.recordRun(1, 1);
+		assertTrue(probe.isSettled());
+		probe.recordOutOfMemory(1);
+		assertEquals(1, probe.getNextSize());
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.dl.tensorflow.savedmodel.core.execution.TFStepStatsProfiler.OpStats;
+import org.tensorflow.framework.DeviceStepStats;
+import org.tensorflow.framework.NodeExecStats;
+import org.tensorflow.framework.RunMetadata;
+import org.tensorflow.framework.StepStats;
+
+/**
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFStepStatsProfilerTest {
+
+	@Test
+	public void testNodeNotInGraph() throws Exception {
+		final RunMetadata metadata = RunMetadata.newBuilder()
+				.setStepStats(StepStats.newBuilder().addDevStats(DeviceStepStats.newBuilder()
+						.setDevice("/job:localhost/replica:0/task:0/device:CPU:0")
+						.addNodeStats(node("_SOURCE", 0, 1))
+						.addNodeStats(node("dense/MatMul", 1, 10))))
+				.build();
+		final TFStepStatsProfiler profiler = new TFStepStatsProfiler(0, 1);
+
+		// Only the MatMul is part of the graph
+		profiler.addRunMetadata(metadata.toByteArray(), n -> n.equals("dense/MatMul") ? "MatMul" : null);
+
+		final List<OpStats> topOps = profiler.getTopOps(2);
+		assertEquals("MatMul", topOps.get(0).getType());
+		assertEquals("_SOURCE", topOps.get(1).getName());
+		assertEquals("", topOps.get(1).getType());
+		final Path trace = Files.createTempFile("trace", ".json");
+		try {
+			profiler.writeChromeTrace(trace);
+			final String json = new String(Files.readAllBytes(trace), StandardCharsets.UTF_8);
+			assertTrue(json.contains("{\"name\":\"_SOURCE\",\"cat\":\"\""));
+		} finally {
+			Files.delete(trace);
+		}
+	}
+
+	private static NodeExecStats node(final String name, final long start, final long micros) {
+		return NodeExecStats.newBuilder().setNodeName(name).setAllStartMicros(start).setAllEndRelMicros(micros)
+				.build();
+	}
+}
@@ -63,6 +63,12 @@ public class TFExecutorNodeDialog extends DLAbstractPythonBasedExecutorNodeDialo
 
 	private final TFConfigProtoConfig m_configProtoConfig;
 
+	private final TFExecutionMetricsConfig m_executionMetricsConfig;
+
+	private final TFProfilingConfig m_profilingConfig;
+
+	private final TFMemoryBudgetConfig m_memoryBudgetConfig;
+
 	TFExecutorNodeDialog() {
         super(TFExecutorNodeModel::getDefaultPythonCommand);
 		final DLDefaultNodeDialogTab advancedTab = new DLDefaultNodeDialogTab("Advanced Options");
@@ -73,6 +79,15 @@ public class TFExecutorNodeDialog extends DLAbstractPythonBasedExecutorNodeDialo
 		setWrapperPanel(advancedTab.getTabRoot());
 		// NOTE: Currently, all settings of the config proto are related to the GPU
 		addDialogComponentGroupWithBorder(configProtoPanel, "GPU Configuration");
+
+		m_executionMetricsConfig = TFExecutorNodeModel.createExecutionMetricsConfig();
+		addDialogComponentGroupWithBorder(new TFExecutionMetricsPanel(m_executionMetricsConfig), "Execution Metrics");
+
+		m_profilingConfig = TFExecutorNodeModel.createProfilingConfig();
+		addDialogComponentGroupWithBorder(new TFProfilingPanel(m_profilingConfig), "Profiling");
+
+		m_memoryBudgetConfig = TFExecutorNodeModel.createMemoryBudgetConfig();
+		addDialogComponentGroupWithBorder(new TFMemoryBudgetPanel(m_memoryBudgetConfig), "Memory Budget");
 	}
 
 	@Override
@@ -81,6 +96,9 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectS
 		super.loadSettingsFrom(settings, specs);
 		try {
 			m_configProtoConfig.loadFromSettings(settings);
+			m_executionMetricsConfig.loadFromSettings(settings);
+			m_profilingConfig.loadFromSettings(settings);
+			m_memoryBudgetConfig.loadFromSettings(settings);
 		} catch (final InvalidSettingsException e) {
 			throw new NotConfigurableException(e.getMessage(), e);
 		}
@@ -90,5 +108,8 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectS
 	protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
 		super.saveSettingsTo(settings);
 		m_configProtoConfig.saveToSettings(settings);
+		m_executionMetricsConfig.saveToSettings(settings);
+		m_profilingConfig.saveToSettings(settings);
+		m_memoryBudgetConfig.saveToSettings(settings);
 	}
 }
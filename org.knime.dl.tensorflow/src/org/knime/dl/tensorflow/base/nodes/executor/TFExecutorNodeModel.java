@@ -46,18 +46,33 @@
  */
 package org.knime.dl.tensorflow.base.nodes.executor;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.knime.core.data.DataRow;
+import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.util.FileUtil;
 import org.knime.dl.core.DLExecutionSpecCreator;
 import org.knime.dl.core.DLMissingExtensionException;
 import org.knime.dl.core.DLNetwork;
 import org.knime.dl.core.DLNetworkInputPreparer;
 import org.knime.dl.core.DLTensorId;
+import org.knime.dl.core.DLTensorSpec;
 import org.knime.dl.core.data.convert.DLTensorToDataCellConverterFactory;
 import org.knime.dl.core.execution.DLExecutionContext;
 import org.knime.dl.core.execution.DLNetworkExecutionSession;
@@ -67,8 +82,14 @@
 import org.knime.dl.python.prefs.DLPythonPreferences;
 import org.knime.dl.tensorflow.base.nodes.TFConfigProtoConfig;
 import org.knime.dl.tensorflow.base.portobjects.TFNetworkPortObject;
+import org.knime.dl.tensorflow.core.execution.TFExecutionMetrics;
+import org.knime.dl.tensorflow.core.execution.TFExecutionMetrics.Phase;
+import org.knime.dl.tensorflow.savedmodel.core.TFTensorMemoryEstimator;
 import org.knime.dl.tensorflow.savedmodel.core.execution.TFPythonSavedModelExecutionContext;
 import org.knime.dl.tensorflow.savedmodel.core.execution.TFSavedModelNetworkExecutionSession;
+import org.knime.dl.tensorflow.savedmodel.core.execution.TFStepStatsProfiler;
+import org.knime.dl.tensorflow.savedmodel.core.execution.TFStepStatsProfiler.OpStats;
+import org.knime.dl.tensorflow.savedmodel.core.execution.TFTensorTracker;
 import org.knime.python2.PythonCommand;
 
 /**
@@ -86,11 +107,136 @@ static TFConfigProtoConfig createConfigProtoConfig() {
 		return new TFConfigProtoConfig();
 	}
 
+	static TFExecutionMetricsConfig createExecutionMetricsConfig() {
+		return new TFExecutionMetricsConfig();
+	}
+
+	static TFProfilingConfig createProfilingConfig() {
+		return new TFProfilingConfig();
+	}
+
+	static TFMemoryBudgetConfig createMemoryBudgetConfig() {
+		return new TFMemoryBudgetConfig();
+	}
+
+	private static final String METRICS_FLOW_VARIABLE_PREFIX = "tf_execution_";
+
 	private final TFConfigProtoConfig m_configProtoConfig;
 
+	private final TFExecutionMetricsConfig m_executionMetricsConfig;
+
+	private final TFProfilingConfig m_profilingConfig;
+
+	private final TFMemoryBudgetConfig m_memoryBudgetConfig;
+
+	/** The metrics of the session of the current execution, null if the back end doesn't record metrics */
+	private TFExecutionMetrics m_executionMetrics;
+
+	/** The profiler of the session of the current execution, null if profiling is disabled or not supported */
+	private TFStepStatsProfiler m_profiler;
+
+	/** The tensor tracker of the session of the current execution, null if the back end doesn't track tensors */
+	private TFTensorTracker m_tensorTracker;
+
+	/** The session of the current execution if it runs with the automatic batch size, null otherwise */
+	private TFSavedModelNetworkExecutionSession m_autoBatchSizeSession;
+
 	TFExecutorNodeModel() {
 		super(TFNetworkPortObject.TYPE, TFExecutorNodeModel::getDefaultPythonCommand);
 		m_configProtoConfig = createConfigProtoConfig();
+		m_executionMetricsConfig = createExecutionMetricsConfig();
+		m_profilingConfig = createProfilingConfig();
+		m_memoryBudgetConfig = createMemoryBudgetConfig();
+	}
+
+	@Override
+	protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+		m_executionMetrics = null;
+		m_profiler = null;
+		m_tensorTracker = null;
+		m_autoBatchSizeSession = null;
+		for (final PortObject inObject : inObjects) {
+			if (inObject instanceof TFNetworkPortObject) {
+				((TFNetworkPortObject) inObject).prefetchNetwork();
+			}
+		}
+		final PortObject[] outObjects = super.execute(inObjects, exec);
+		if (m_profiler != null) {
+			writeProfile(m_profiler);
+		} else if (m_profilingConfig.getEnabled().getValue()) {
+			setWarningMessage("Could not profile the execution because the selected back end does not support it.");
+		}
+		final boolean publishMetrics = m_executionMetricsConfig.getPublishFlowVariables().getValue();
+		if (m_executionMetrics != null) {
+			LOGGER.debug("Execution metrics: " + m_executionMetrics);
+			if (publishMetrics) {
+				pushExecutionMetrics(m_executionMetrics);
+			}
+		} else if (publishMetrics) {
+			LOGGER.warn("Could not output the execution metrics because the selected back end does not record them.");
+		}
+		if (m_tensorTracker != null) {
+			LOGGER.debug("Peak native memory of the TensorFlow tensors: " + m_tensorTracker.getPeakBytes() + " bytes");
+			if (publishMetrics) {
+				pushFlowVariableDouble(METRICS_FLOW_VARIABLE_PREFIX + "native_peak_bytes",
+						m_tensorTracker.getPeakBytes());
+			}
+		}
+		if (m_autoBatchSizeSession != null && m_autoBatchSizeSession.getAutoBatchSize().isPresent()) {
+			final long autoBatchSize = m_autoBatchSizeSession.getAutoBatchSize().getAsLong();
+			LOGGER.debug("The automatic batch size settled on sub-batches of " + autoBatchSize + " rows.");
+			if (publishMetrics) {
+				pushFlowVariableInt(METRICS_FLOW_VARIABLE_PREFIX + "auto_batch_size", (int) autoBatchSize);
+			}
+		}
+		m_executionMetrics = null;
+		m_profiler = null;
+		m_tensorTracker = null;
+		m_autoBatchSizeSession = null;
+		return outObjects;
+	}
+
+	private void writeProfile(final TFStepStatsProfiler profiler) throws IOException {
+		if (profiler.getProfiledBatches() == 0) {
+			setWarningMessage("No batch has been profiled because the input has fewer than "
+					+ (m_profilingConfig.getSkipBatches().getValue() + 1) + " batches.");
+			return;
+		}
+		final File outputDir = FileUtil.getFileFromURL(FileUtil.toURL(m_profilingConfig.getOutputDir().getValue()));
+		if (outputDir == null) {
+			throw new IOException("The profile output directory \"" + m_profilingConfig.getOutputDir().getValue()
+					+ "\" does not point to a local directory.");
+		}
+		Files.createDirectories(outputDir.toPath());
+		final String prefix =
+				"tf-profile-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		final Path traceFile = outputDir.toPath().resolve(prefix + ".trace.json");
+		final Path opsFile = outputDir.toPath().resolve(prefix + ".ops.csv");
+		final int topOps = m_profilingConfig.getTopOps().getValue();
+		profiler.writeChromeTrace(traceFile);
+		profiler.writeTopOps(opsFile, topOps);
+
+		final StringBuilder summary = new StringBuilder("Profiled " + profiler.getProfiledBatches()
+				+ " batches. Chrome trace: " + traceFile + ". Most expensive operations:");
+		for (final OpStats op : profiler.getTopOps(topOps)) {
+			summary.append(String.format("%n  %s (%s): %d us total, %.1f us mean, %d bytes", op.getName(),
+					op.getType(), op.getTotalMicros(), op.getMeanMicros(), op.getTotalBytes()));
+		}
+		LOGGER.info(summary.toString());
+	}
+
+	private void pushExecutionMetrics(final TFExecutionMetrics metrics) {
+		pushFlowVariableInt(METRICS_FLOW_VARIABLE_PREFIX + "batches",
+				(int) Math.min(metrics.getBatches(), Integer.MAX_VALUE));
+		pushFlowVariableDouble(METRICS_FLOW_VARIABLE_PREFIX + "rows", metrics.getRows());
+		pushFlowVariableDouble(METRICS_FLOW_VARIABLE_PREFIX + "rows_per_second", metrics.getRowsPerSecond());
+		pushFlowVariableDouble(METRICS_FLOW_VARIABLE_PREFIX + "bytes_fed", metrics.getBytesFed());
+		pushFlowVariableDouble(METRICS_FLOW_VARIABLE_PREFIX + "bytes_fetched", metrics.getBytesFetched());
+		for (final Phase phase : Phase.values()) {
+			final String prefix = METRICS_FLOW_VARIABLE_PREFIX + phase.getName();
+			pushFlowVariableDouble(prefix + "_ms", metrics.getTotalNanos(phase) / 1e6);
+			pushFlowVariableDouble(prefix + "_p95_ms", metrics.getPercentileNanos(phase, 0.95) / 1e6);
+		}
 	}
 
     @Override
@@ -113,9 +259,16 @@ protected <N extends DLNetwork> DLNetworkExecutionSession createExecutionSession
         final DLNetworkOutputConsumer outputConsumer) throws DLMissingExtensionException, InvalidSettingsException {
 
 		final DLExecutionContext<DLPythonContext, N> ctx = getExecutionContext(context);
-		final DLNetworkExecutionSession session = ctx.createExecutionSession(context, network,
-				DLExecutionSpecCreator.createExecutionSpecs(firstRow, ctx.getTensorFactory(), batchSize,
-						columnsForTensorId, m_inputConverters),
+		final Set<DLTensorSpec> executionInputSpecs = DLExecutionSpecCreator.createExecutionSpecs(firstRow,
+				ctx.getTensorFactory(), batchSize, columnsForTensorId, m_inputConverters);
+		final boolean autoBatchSize =
+				m_memoryBudgetConfig.getEnabled().getValue() && m_memoryBudgetConfig.getAutoBatchSize().getValue();
+		long maxAutoBatchSize = batchSize;
+		if (m_memoryBudgetConfig.getEnabled().getValue()) {
+			maxAutoBatchSize = checkMemoryBudget(network, batchSize, executionInputSpecs,
+					outputConverterForTensorId.keySet(), autoBatchSize);
+		}
+		final DLNetworkExecutionSession session = ctx.createExecutionSession(context, network, executionInputSpecs,
 				outputConverterForTensorId.keySet(), inputPreparer, outputConsumer);
 
 		final String visibleDeviceList = m_configProtoConfig.getVisibleDevicesList().getValue();
@@ -124,6 +277,19 @@ protected <N extends DLNetwork> DLNetworkExecutionSession createExecutionSession
 			final TFSavedModelNetworkExecutionSession s = (TFSavedModelNetworkExecutionSession) session;
 			s.setVisibleDeviceList(visibleDeviceList);
 			s.setPerProcessGpuMemoryFraction(perProcessGpuMem);
+			m_executionMetrics = s.getExecutionMetrics();
+			m_tensorTracker = s.getTensorTracker();
+			if (m_memoryBudgetConfig.getEnabled().getValue()) {
+				m_tensorTracker.setCapBytes(m_memoryBudgetConfig.getNativeBudgetMB().getValue() * 1024L * 1024L);
+			}
+			if (autoBatchSize) {
+				s.setMaxAutoBatchSize(maxAutoBatchSize);
+				m_autoBatchSizeSession = s;
+			}
+			if (m_profilingConfig.getEnabled().getValue()) {
+				m_profiler = m_profilingConfig.createProfiler();
+				s.setProfiler(m_profiler);
+			}
 		} else {
 			if (!visibleDeviceList.equals(TFConfigProtoConfig.VISIBLE_DEVICES_LIST_DEFAULT)) {
 				LOGGER.warn("Could not apply the value of 'Visible devices list' because the selected backend "
@@ -133,15 +299,91 @@ protected <N extends DLNetwork> DLNetworkExecutionSession createExecutionSession
 				LOGGER.warn("Could not apply the value of 'Per process GPU memory fraction' because "
 						+ "the selected backend does not support setting this value.");
 			}
+			if (autoBatchSize) {
+				LOGGER.warn("Could not apply the automatic batch size because the selected backend does not "
+						+ "support it.");
+			}
 		}
 		return session;
 	}
 
+	/**
+	 * Estimates the memory of the input and output tensors of one batch and fails if it exceeds the configured budget.
+	 * The tensor buffers live on the Java heap and the TensorFlow tensors created from them in native memory, both
+	 * hold the inputs and the outputs of a batch at the same time. With the automatic batch size, a batch which
+	 * exceeds the native memory budget is run in smaller sub-batches instead, only the heap space budget is enforced.
+	 *
+	 * @return the largest sub-batch size within the native memory budget, at most the batch size
+	 */
+	private long checkMemoryBudget(final DLNetwork network, final int batchSize,
+			final Set<DLTensorSpec> executionInputSpecs, final Set<DLTensorId> requestedOutputs,
+			final boolean autoBatchSize) throws InvalidSettingsException {
+		final List<DLTensorSpec> tensorSpecs = new ArrayList<>(executionInputSpecs);
+		Arrays.stream(network.getSpec().getOutputSpecs()).filter(s -> requestedOutputs.contains(s.getIdentifier()))
+				.forEach(tensorSpecs::add);
+		Arrays.stream(network.getSpec().getHiddenOutputSpecs())
+				.filter(s -> requestedOutputs.contains(s.getIdentifier())).forEach(tensorSpecs::add);
+		final String unknownTypes = tensorSpecs.stream()
+				.filter(s -> !TFTensorMemoryEstimator.getBytesPerElement(s.getElementType()).isPresent())
+				.map(s -> "'" + s.getName() + "'").collect(Collectors.joining(", "));
+		if (!unknownTypes.isEmpty()) {
+			setWarningMessage("The memory estimate does not include the tensors " + unknownTypes
+					+ " because the size of their elements is unknown.");
+		}
+		if (tensorSpecs.stream().anyMatch(s -> !TFTensorMemoryEstimator.getBytesPerExample(s).isPresent())) {
+			LOGGER.debug("The memory estimate does not include outputs whose shape is only known at runtime.");
+		}
+		final long bytesPerExample = TFTensorMemoryEstimator.getBytesPerExample(tensorSpecs);
+
+		final Runtime runtime = Runtime.getRuntime();
+		final long availableHeap = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		final long heapBudget = (long) (availableHeap * m_memoryBudgetConfig.getHeapFraction().getValue());
+		long maxBatchSize = TFTensorMemoryEstimator.getMaxBatchSize(bytesPerExample, heapBudget);
+		String limitingBudget = "heap space budget of " + toMB(heapBudget) + " MB";
+		final int nativeBudgetMB = m_memoryBudgetConfig.getNativeBudgetMB().getValue();
+		if (batchSize > maxBatchSize) {
+			throw new InvalidSettingsException("The tensors of a batch of size " + batchSize + " need about "
+					+ toMB(batchSize * bytesPerExample) + " MB which exceeds the " + limitingBudget
+					+ ". Please use an input batch size of at most " + maxBatchSize + ".");
+		}
+		if (nativeBudgetMB > 0) {
+			final long nativeMaxBatchSize =
+					TFTensorMemoryEstimator.getMaxBatchSize(bytesPerExample, nativeBudgetMB * 1024L * 1024L);
+			if (nativeMaxBatchSize < maxBatchSize) {
+				maxBatchSize = nativeMaxBatchSize;
+				limitingBudget = "native memory budget of " + nativeBudgetMB + " MB";
+			}
+		}
+
+		if (batchSize > maxBatchSize) {
+			if (!autoBatchSize) {
+				throw new InvalidSettingsException("The tensors of a batch of size " + batchSize + " need about "
+						+ toMB(batchSize * bytesPerExample) + " MB which exceeds the " + limitingBudget
+						+ ". Please use an input batch size of at most " + maxBatchSize + ".");
+			}
+			LOGGER.debug("The tensors of a batch of size " + batchSize + " need about "
+					+ toMB(batchSize * bytesPerExample) + " MB which exceeds the " + limitingBudget
+					+ ". The batches are run in sub-batches of at most " + maxBatchSize + " rows.");
+			return maxBatchSize;
+		}
+		LOGGER.debug("The tensors of a batch of size " + batchSize + " need about "
+				+ toMB(batchSize * bytesPerExample) + " MB. The largest batch size within the " + limitingBudget
+				+ " is " + maxBatchSize + ".");
+		return batchSize;
+	}
+
+	private static long toMB(final long bytes) {
+		return bytes / (1024 * 1024);
+	}
+
 	@Override
 	protected void saveSettingsTo(final NodeSettingsWO settings) {
 		super.saveSettingsTo(settings);
 		try {
 			m_configProtoConfig.saveToSettings(settings);
+			m_executionMetricsConfig.saveToSettings(settings);
+			m_profilingConfig.saveToSettings(settings);
+			m_memoryBudgetConfig.saveToSettings(settings);
 		} catch (final InvalidSettingsException e) {
 			throw new RuntimeException(e.getMessage(), e);
 		}
@@ -151,5 +393,8 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
 	protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
 		super.loadValidatedSettingsFrom(settings);
 		m_configProtoConfig.loadFromSettings(settings);
+		m_executionMetricsConfig.loadFromSettings(settings);
+		m_profilingConfig.loadFromSettings(settings);
+		m_memoryBudgetConfig.loadFromSettings(settings);
 	}
 }
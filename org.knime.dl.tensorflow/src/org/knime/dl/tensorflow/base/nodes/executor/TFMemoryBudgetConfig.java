@@ -0,0 +1,121 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.base.nodes.executor;
+
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.dl.base.settings.AbstractConfig;
+import org.knime.dl.base.settings.ConfigEntry;
+import org.knime.dl.base.settings.DefaultConfigEntry;
+
+/**
+ * Config for the memory budget of the tensors of the TensorFlow Executor.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFMemoryBudgetConfig extends AbstractConfig {
+
+	private static final String CFG_KEY_ROOT = "memory_budget";
+
+	private static final String CFG_KEY_ENABLED = "enabled";
+
+	private static final String CFG_KEY_HEAP_FRACTION = "heap_fraction";
+
+	private static final String CFG_KEY_NATIVE_BUDGET_MB = "native_budget_mb";
+
+	private static final String CFG_KEY_AUTO_BATCH_SIZE = "auto_batch_size";
+
+	/**
+	 * Create a new config for the memory budget.
+	 */
+	TFMemoryBudgetConfig() {
+		super(CFG_KEY_ROOT);
+		putDefaults();
+	}
+
+	/**
+	 * @return if the memory budget is checked before the execution
+	 */
+	ConfigEntry<Boolean> getEnabled() {
+		return get(CFG_KEY_ENABLED, Boolean.class);
+	}
+
+	/**
+	 * @return the fraction of the available Java heap space the tensor buffers may use
+	 */
+	ConfigEntry<Double> getHeapFraction() {
+		return get(CFG_KEY_HEAP_FRACTION, Double.class);
+	}
+
+	/**
+	 * @return the native memory the TensorFlow tensors may use in MB, 0 for no limit
+	 */
+	ConfigEntry<Integer> getNativeBudgetMB() {
+		return get(CFG_KEY_NATIVE_BUDGET_MB, Integer.class);
+	}
+
+	/**
+	 * @return if the batches are run in sub-batches whose size is probed for the highest throughput within the
+	 *         budget
+	 */
+	ConfigEntry<Boolean> getAutoBatchSize() {
+		return get(CFG_KEY_AUTO_BATCH_SIZE, Boolean.class);
+	}
+
+	@Override
+	protected boolean handleFailureToLoadConfig(final NodeSettingsRO settings, final Exception cause) {
+		// Workflows created before the memory budget existed
+		putDefaults();
+		return true;
+	}
+
+	private void putDefaults() {
+		put(new DefaultConfigEntry<>(CFG_KEY_ENABLED, Boolean.class, false));
+		put(new DefaultConfigEntry<>(CFG_KEY_HEAP_FRACTION, Double.class, 0.5));
+		put(new DefaultConfigEntry<>(CFG_KEY_NATIVE_BUDGET_MB, Integer.class, 0));
+		put(new DefaultConfigEntry<>(CFG_KEY_AUTO_BATCH_SIZE, Boolean.class, false));
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.base.nodes.executor;
+
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.dl.base.settings.AbstractConfig;
+import org.knime.dl.base.settings.ConfigEntry;
+import org.knime.dl.base.settings.DefaultConfigEntry;
+import org.knime.dl.tensorflow.savedmodel.core.execution.TFStepStatsProfiler;
+
+/**
+ * Config for the {@link TFStepStatsProfiler} of the TensorFlow Executor.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFProfilingConfig extends AbstractConfig {
+
+	/** The default directory of the profiles: the data folder of the workflow */
+	static final String OUTPUT_DIR_DEFAULT = "knime://knime.workflow/data/tensorflow-profiles";
+
+	private static final String CFG_KEY_ROOT = "profiling";
+
+	private static final String CFG_KEY_ENABLED = "enabled";
+
+	private static final String CFG_KEY_SKIP_BATCHES = "skip_batches";
+
+	private static final String CFG_KEY_NUM_BATCHES = "num_batches";
+
+	private static final String CFG_KEY_TOP_OPS = "top_ops";
+
+	private static final String CFG_KEY_OUTPUT_DIR = "output_dir";
+
+	/**
+	 * Create a new config for the profiling.
+	 */
+	TFProfilingConfig() {
+		super(CFG_KEY_ROOT);
+		putDefaults();
+	}
+
+	/**
+	 * @return if profiling is enabled
+	 */
+	ConfigEntry<Boolean> getEnabled() {
+		return get(CFG_KEY_ENABLED, Boolean.class);
+	}
+
+	/**
+	 * @return the number of batches at the beginning which are not profiled
+	 */
+	ConfigEntry<Integer> getSkipBatches() {
+		return get(CFG_KEY_SKIP_BATCHES, Integer.class);
+	}
+
+	/**
+	 * @return the number of batches which are profiled
+	 */
+	ConfigEntry<Integer> getNumBatches() {
+		return get(CFG_KEY_NUM_BATCHES, Integer.class);
+	}
+
+	/**
+	 * @return the number of operations in the summary
+	 */
+	ConfigEntry<Integer> getTopOps() {
+		return get(CFG_KEY_TOP_OPS, Integer.class);
+	}
+
+	/**
+	 * @return the directory (path or URL) the profiles are written to
+	 */
+	ConfigEntry<String> getOutputDir() {
+		return get(CFG_KEY_OUTPUT_DIR, String.class);
+	}
+
+	/**
+	 * @return a new profiler as configured
+	 */
+	TFStepStatsProfiler createProfiler() {
+		return new TFStepStatsProfiler(getSkipBatches().getValue(), getNumBatches().getValue());
+	}
+
+	@Override
+	protected boolean handleFailureToLoadConfig(final NodeSettingsRO settings, final Exception cause) {
+		// Workflows created before profiling existed
+		putDefaults();
+		return true;
+	}
+
+	private void putDefaults() {
+		put(new DefaultConfigEntry<>(CFG_KEY_ENABLED, Boolean.class, false));
+		put(new DefaultConfigEntry<>(CFG_KEY_SKIP_BATCHES, Integer.class, 1));
+		put(new DefaultConfigEntry<>(CFG_KEY_NUM_BATCHES, Integer.class, 5));
+		put(new DefaultConfigEntry<>(CFG_KEY_TOP_OPS, Integer.class, 20));
+		put(new DefaultConfigEntry<>(CFG_KEY_OUTPUT_DIR, String.class, OUTPUT_DIR_DEFAULT));
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.base.nodes.executor;
+
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.DialogComponentString;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.dl.base.nodes.AbstractGridBagDialogComponentGroup;
+import org.knime.dl.base.settings.ConfigUtil;
+
+/**
+ * Dialog component group for the {@link TFProfilingConfig}.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFProfilingPanel extends AbstractGridBagDialogComponentGroup {
+
+	/**
+	 * Creates a new dialog for the profiling settings.
+	 *
+	 * @param cfg the config object
+	 */
+	TFProfilingPanel(final TFProfilingConfig cfg) {
+		final SettingsModelBoolean enabled = ConfigUtil.toSettingsModelBoolean(cfg.getEnabled());
+		final DialogComponentBoolean dcEnabled = new DialogComponentBoolean(enabled, "");
+		final DialogComponentNumber dcSkipBatches = new DialogComponentNumber(
+				ConfigUtil.toSettingsModelIntegerBounded(cfg.getSkipBatches(), 0, Integer.MAX_VALUE),
+				"Skipped batches", 1);
+		final DialogComponentNumber dcNumBatches = new DialogComponentNumber(
+				ConfigUtil.toSettingsModelIntegerBounded(cfg.getNumBatches(), 1, Integer.MAX_VALUE),
+				"Profiled batches", 1);
+		final DialogComponentNumber dcTopOps = new DialogComponentNumber(
+				ConfigUtil.toSettingsModelIntegerBounded(cfg.getTopOps(), 1, Integer.MAX_VALUE),
+				"Operations in summary", 1);
+		final DialogComponentString dcOutputDir = new DialogComponentString(
+				ConfigUtil.toSettingsModelString(cfg.getOutputDir()), "Output directory");
+
+		final Runnable updateEnabled = () -> {
+			final boolean isEnabled = enabled.getBooleanValue();
+			dcSkipBatches.getModel().setEnabled(isEnabled);
+			dcNumBatches.getModel().setEnabled(isEnabled);
+			dcTopOps.getModel().setEnabled(isEnabled);
+			dcOutputDir.getModel().setEnabled(isEnabled);
+		};
+		enabled.addChangeListener(e -> updateEnabled.run());
+		updateEnabled.run();
+
+		addDoubleColumnRow(new JLabel("Profile TensorFlow operations"), getFirstComponent(dcEnabled, JCheckBox.class));
+		addDoubleColumnRow(getFirstComponent(dcSkipBatches, JLabel.class),
+				getFirstComponent(dcSkipBatches, JSpinner.class));
+		addDoubleColumnRow(getFirstComponent(dcNumBatches, JLabel.class),
+				getFirstComponent(dcNumBatches, JSpinner.class));
+		addDoubleColumnRow(getFirstComponent(dcTopOps, JLabel.class), getFirstComponent(dcTopOps, JSpinner.class));
+		addDoubleColumnRow(getFirstComponent(dcOutputDir, JLabel.class),
+				getFirstComponent(dcOutputDir, JTextField.class));
+	}
+}
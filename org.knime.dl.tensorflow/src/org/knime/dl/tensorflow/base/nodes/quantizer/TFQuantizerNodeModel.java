@@ -0,0 +1,194 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.base.nodes.quantizer;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.util.FileUtil;
+import org.knime.dl.base.portobjects.DLNetworkPortObject;
+import org.knime.dl.core.DLInvalidSourceException;
+import org.knime.dl.core.DLNetworkReferenceLocation;
+import org.knime.dl.tensorflow.base.portobjects.TFNetworkPortObject;
+import org.knime.dl.tensorflow.base.portobjects.TFNetworkPortObjectSpec;
+import org.knime.dl.tensorflow.core.TFNetwork;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetwork;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetworkSpec;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelOptimizer;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelQuantizer;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelQuantizer.WeightType;
+
+/**
+ * Node model of the TensorFlow Network Quantizer. Optimizes the network for inference and quantizes its weights.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFQuantizerNodeModel extends NodeModel {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFQuantizerNodeModel.class);
+
+	private static final String CFG_KEY_WEIGHT_TYPE = "weight_type";
+
+	private static final String CFG_KEY_MIN_ELEMENTS = "min_elements";
+
+	/** The same default as the quantize_weights transform of the TensorFlow graph transform tool */
+	private static final int DEFAULT_MIN_ELEMENTS = 1024;
+
+	private final SettingsModelString m_weightType = createWeightTypeModel();
+
+	private final SettingsModelIntegerBounded m_minElements = createMinElementsModel();
+
+	static SettingsModelString createWeightTypeModel() {
+		return new SettingsModelString(CFG_KEY_WEIGHT_TYPE, WeightType.INT8.getName());
+	}
+
+	static SettingsModelIntegerBounded createMinElementsModel() {
+		return new SettingsModelIntegerBounded(CFG_KEY_MIN_ELEMENTS, DEFAULT_MIN_ELEMENTS, 1, Integer.MAX_VALUE);
+	}
+
+	TFQuantizerNodeModel() {
+		super(new PortType[] { TFNetworkPortObject.TYPE }, new PortType[] { TFNetworkPortObject.TYPE });
+	}
+
+	@Override
+	protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+		final TFNetworkPortObjectSpec spec = (TFNetworkPortObjectSpec) inSpecs[0];
+		if (!(spec.getNetworkSpec() instanceof TFSavedModelNetworkSpec)) {
+			throw new InvalidSettingsException("Only TensorFlow SavedModel networks can be quantized.");
+		}
+		try {
+			WeightType.fromName(m_weightType.getStringValue());
+		} catch (final IllegalArgumentException e) {
+			throw new InvalidSettingsException(e.getMessage(), e);
+		}
+		return new PortObjectSpec[] { spec };
+	}
+
+	@Override
+	protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+		final TFNetwork network = ((TFNetworkPortObject) inObjects[0]).getNetwork();
+		if (!(network instanceof TFSavedModelNetwork)) {
+			throw new InvalidSettingsException("Only TensorFlow SavedModel networks can be quantized.");
+		}
+		final TFSavedModelNetworkSpec spec = (TFSavedModelNetworkSpec) network.getSpec();
+		final File savedModelDir = ((TFSavedModelNetwork) network).getSavedModelInDir();
+		final WeightType weightType = WeightType.fromName(m_weightType.getStringValue());
+
+		// The temporary directory is deleted together with the other temporary files of the workflow. It must not be
+		// deleted earlier because the network object of the port object still points to it.
+		final File quantizedDir = FileUtil.createTempDir("tf_quantized");
+		final long originalSize;
+		exec.setMessage("Folding the variables into constants");
+		try {
+			TFSavedModelOptimizer.optimizeForInference(savedModelDir, spec, quantizedDir);
+			originalSize = FileUtils.sizeOfDirectory(savedModelDir);
+		} catch (final DLInvalidSourceException e) {
+			throw new DLInvalidSourceException("The network cannot be quantized: " + e.getMessage(), e);
+		} finally {
+			((TFSavedModelNetwork) network).releaseSavedModelInDir();
+		}
+		exec.checkCanceled();
+		exec.setMessage("Quantizing the weights");
+		TFSavedModelQuantizer.quantizeWeights(quantizedDir, weightType, m_minElements.getIntValue());
+		LOGGER.info("Quantized the weights to " + weightType.getName() + ". Size of the SavedModel: "
+				+ FileUtils.byteCountToDisplaySize(originalSize) + " before, "
+				+ FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(quantizedDir)) + " after.");
+
+		final TFNetwork quantized = spec.create(new DLNetworkReferenceLocation(quantizedDir.toURI()));
+		return new PortObject[] {
+				new TFNetworkPortObject(quantized, DLNetworkPortObject.createFileStoreForSaving(null, exec)) };
+	}
+
+	@Override
+	protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// nothing to do
+	}
+
+	@Override
+	protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// nothing to do
+	}
+
+	@Override
+	protected void saveSettingsTo(final NodeSettingsWO settings) {
+		m_weightType.saveSettingsTo(settings);
+		m_minElements.saveSettingsTo(settings);
+	}
+
+	@Override
+	protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+		m_weightType.validateSettings(settings);
+		m_minElements.validateSettings(settings);
+	}
+
+	@Override
+	protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+		m_weightType.loadSettingsFrom(settings);
+		m_minElements.loadSettingsFrom(settings);
+	}
+
+	@Override
+	protected void reset() {
+		// nothing to do
+	}
+}
@@ -117,10 +117,15 @@ public class TFReaderNodeDialog extends NodeDialogPane {
 
 	private final SettingsModelStringArray m_smOutputs = TFReaderNodeModel.createOutputsSettingsModel();
 
+	private final SettingsModelBoolean m_smOptimizeForInference =
+			TFReaderNodeModel.createOptimizeForInferenceSettingsModel();
+
 	private final DialogComponentFileOrDirChooser m_dcFiles;
 
 	private final DialogComponentBoolean m_dcCopyNetwork;
 
+	private final DialogComponentBoolean m_dcOptimizeForInference;
+
 	private final DialogComponentObjectSelection<SettingsModelStringArray, String[]> m_dcTags;
 
 	private final DialogComponentStringSelection m_dcSignature;
@@ -150,6 +155,11 @@ public TFReaderNodeDialog() {
 				".zip");
 		m_dcCopyNetwork = new DialogComponentBoolean(m_smCopyNetwork,
 				"Copy deep learning network into KNIME workflow?");
+		m_dcOptimizeForInference = new DialogComponentBoolean(m_smOptimizeForInference,
+				"Optimize network for inference");
+		// The optimized network is always copied into the workflow
+		m_smOptimizeForInference.addChangeListener(
+				e -> m_smCopyNetwork.setEnabled(!m_smOptimizeForInference.getBooleanValue()));
 		// We can't change the size of this component. Therefore we use it as a reference width.
 		final int componentWidth = m_dcCopyNetwork.getComponentPanel().getComponent(0).getPreferredSize().width;
 		m_dcTags = new DialogComponentObjectSelection<>(m_smTags, t -> String.join(" ,", t),
@@ -179,9 +189,11 @@ public TFReaderNodeDialog() {
 		inputPanelConstr.gridy++;
 		inputPanel.add(m_dcSignature.getComponentPanel(), inputPanelConstr);
 		inputPanelConstr.gridy++;
-		inputPanelConstr.weighty = 1;
 		inputPanel.add(m_dcCopyNetwork.getComponentPanel(), inputPanelConstr);
 		inputPanelConstr.gridy++;
+		inputPanelConstr.weighty = 1;
+		inputPanel.add(m_dcOptimizeForInference.getComponentPanel(), inputPanelConstr);
+		inputPanelConstr.gridy++;
 		inputPanelConstr.anchor = GridBagConstraints.SOUTHWEST;
 		inputPanel.add(m_statusLabel, inputPanelConstr);
 		inputPanelConstr.gridy++;
@@ -374,6 +386,8 @@ protected void loadSettingsFrom(NodeSettingsRO settings, DataTableSpec[] specs)
 		m_dcAdvanced.loadSettingsFrom(settings, specs);
 		m_dcInputs.loadSettingsFrom(settings, specs);
 		m_dcOutputs.loadSettingsFrom(settings, specs);
+		m_dcOptimizeForInference.loadSettingsFrom(settings, specs);
+		m_smCopyNetwork.setEnabled(!m_smOptimizeForInference.getBooleanValue());
 	}
 
 	@Override
@@ -385,6 +399,7 @@ protected void saveSettingsTo(NodeSettingsWO settings) throws InvalidSettingsExc
 		m_dcAdvanced.saveSettingsTo(settings);
 		m_dcInputs.saveSettingsTo(settings);
 		m_dcOutputs.saveSettingsTo(settings);
+		m_dcOptimizeForInference.saveSettingsTo(settings);
 
 		validateSelection();
 	}
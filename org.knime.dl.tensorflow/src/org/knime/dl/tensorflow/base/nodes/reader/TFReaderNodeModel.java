@@ -59,6 +59,7 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -80,6 +81,7 @@
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModel;
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetwork;
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetworkSpec;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelOptimizer;
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelUtil;
 
 /**
@@ -87,6 +89,8 @@
  */
 public class TFReaderNodeModel extends NodeModel {
 
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFReaderNodeModel.class);
+
 	private static final String CFG_KEY_FILE_PATH = "file_path";
 
 	private static final String CFG_KEY_COPY_NETWORK = "copy_network";
@@ -101,6 +105,8 @@ public class TFReaderNodeModel extends NodeModel {
 
 	private static final String CFG_KEY_OUTPUTS = "outputs";
 
+	private static final String CFG_KEY_OPTIMIZE_FOR_INFERENCE = "optimize_for_inference";
+
 	private final SettingsModelString m_filePath = createFilePathSettingsModel();
 
 	private final SettingsModelBoolean m_copyNetwork = createCopyNetworkSettingsModel();
@@ -115,6 +121,8 @@ public class TFReaderNodeModel extends NodeModel {
 
 	private final SettingsModelStringArray m_outputs = createOutputsSettingsModel();
 
+	private final SettingsModelBoolean m_optimizeForInference = createOptimizeForInferenceSettingsModel();
+
 	private TFSavedModelNetworkSpec m_networkSpec;
 
 	static SettingsModelString createFilePathSettingsModel() {
@@ -145,6 +153,10 @@ static SettingsModelStringArray createOutputsSettingsModel() {
 		return new SettingsModelStringArray(CFG_KEY_OUTPUTS, new String[0]);
 	}
 
+	static SettingsModelBoolean createOptimizeForInferenceSettingsModel() {
+		return new SettingsModelBoolean(CFG_KEY_OPTIMIZE_FOR_INFERENCE, false);
+	}
+
 	static String getIdentifier(final DLTensorSpec t) {
 		// The names in a TensorFlow graph are unique
 		return t.getName();
@@ -177,7 +189,9 @@ protected PortObject[] execute(final PortObject[] inObjects, final ExecutionCont
 		// Create the network object
 		final TFNetwork network = m_networkSpec.create(new DLNetworkReferenceLocation(url.toURI()));
 		TFNetworkPortObject portObject;
-		if (m_copyNetwork.getBooleanValue()) {
+		if (m_optimizeForInference.getBooleanValue()) {
+			portObject = createOptimizedPortObject((TFSavedModelNetwork) network, exec);
+		} else if (m_copyNetwork.getBooleanValue()) {
 			final FileStore fileStore = DLNetworkPortObject.createFileStoreForSaving(null, exec);
 			portObject = new TFNetworkPortObject(network, fileStore);
 		} else {
@@ -186,6 +200,26 @@ protected PortObject[] execute(final PortObject[] inObjects, final ExecutionCont
 		return new PortObject[] { portObject };
 	}
 
+	private TFNetworkPortObject createOptimizedPortObject(final TFSavedModelNetwork network,
+			final ExecutionContext exec) throws Exception {
+		exec.setMessage("Optimizing the network for inference");
+		// The temporary directory is deleted together with the other temporary files of the workflow. It must not be
+		// deleted earlier because the network object of the port object still points to it.
+		final File optimizedDir = FileUtil.createTempDir("tf_optimized");
+		try {
+			TFSavedModelOptimizer.optimizeForInference(network.getSavedModelInDir(), m_networkSpec, optimizedDir);
+		} catch (final DLInvalidSourceException e) {
+			// Fall back to the original network
+			LOGGER.debug("Could not optimize the network for inference.", e);
+			setWarningMessage("The network could not be optimized for inference: " + e.getMessage());
+			return new TFNetworkPortObject(network, DLNetworkPortObject.createFileStoreForSaving(null, exec));
+		} finally {
+			network.releaseSavedModelInDir();
+		}
+		final TFNetwork optimized = m_networkSpec.create(new DLNetworkReferenceLocation(optimizedDir.toURI()));
+		return new TFNetworkPortObject(optimized, DLNetworkPortObject.createFileStoreForSaving(null, exec));
+	}
+
 	private TFSavedModelNetworkSpec createNetworkSpec(final URL url) throws InvalidSettingsException {
 		final TFSavedModel savedModel;
 		try {
@@ -240,6 +274,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
 		m_advanced.saveSettingsTo(settings);
 		m_inputs.saveSettingsTo(settings);
 		m_outputs.saveSettingsTo(settings);
+		m_optimizeForInference.saveSettingsTo(settings);
 	}
 
 	@Override
@@ -251,6 +286,10 @@ protected void validateSettings(final NodeSettingsRO settings) throws InvalidSet
 		m_advanced.validateSettings(settings);
 		m_inputs.validateSettings(settings);
 		m_outputs.validateSettings(settings);
+		// Added later: Missing in old workflows
+		if (settings.containsKey(CFG_KEY_OPTIMIZE_FOR_INFERENCE)) {
+			m_optimizeForInference.validateSettings(settings);
+		}
 	}
 
 	@Override
@@ -262,6 +301,11 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws I
 		m_advanced.loadSettingsFrom(settings);
 		m_inputs.loadSettingsFrom(settings);
 		m_outputs.loadSettingsFrom(settings);
+		if (settings.containsKey(CFG_KEY_OPTIMIZE_FOR_INFERENCE)) {
+			m_optimizeForInference.loadSettingsFrom(settings);
+		} else {
+			m_optimizeForInference.setBooleanValue(false);
+		}
 	}
 
 	@Override
@@ -46,9 +46,12 @@
  */
 package org.knime.dl.tensorflow.base.portobjects;
 
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -58,6 +61,7 @@
 import org.knime.core.data.filestore.FileStore;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortObjectZipInputStream;
 import org.knime.core.node.port.PortObjectZipOutputStream;
@@ -69,7 +73,9 @@
 import org.knime.dl.core.DLNetworkFileStoreLocation;
 import org.knime.dl.core.DLNetworkReferenceLocation;
 import org.knime.dl.python.core.DLPythonNetworkPortObject;
+import org.knime.dl.tensorflow.common.TFSavedModelStore;
 import org.knime.dl.tensorflow.core.TFNetwork;
+import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelUtil;
 import org.knime.python2.PythonCommand;
 
 import com.google.common.base.Objects;
@@ -89,10 +95,27 @@
 	@SuppressWarnings("hiding")
 	public static final PortType TYPE = PortTypeRegistry.getInstance().getPortType(TFNetworkPortObject.class);
 
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFNetworkPortObject.class);
+
 	private static final String ZIP_ENTRY_NAME = "TFNetworkPortObject";
 
 	private URI m_networkReference;
 
+	/** If the metadata of the network has been copied to the file store */
+	private volatile boolean m_metadataCopied;
+
+	/**
+	 * The network whose variables still need to be copied to the file store. <code>null</code> if there is nothing to
+	 * copy.
+	 */
+	private volatile TFNetwork m_variablesToCopy;
+
+	/** The state of the variables when the metadata has been copied. The variables are only copied in this state */
+	private volatile String m_variablesState;
+
+	/** The fingerprint of the network in the file store. <code>null</code> if not known (yet) */
+	private volatile String m_fingerprint;
+
 	/**
 	 * Creates a new TensorFlow deep learning network port object. The given network is stored in the given file store.
 	 *
@@ -124,10 +147,103 @@ public TFNetworkPortObject() {
 		super();
 	}
 
+	/**
+	 * Starts extracting the referenced SavedModel ZIP file in the background. Consuming nodes call this at the start of
+	 * their execution such that the download and extraction overlaps with the rest of their setup. Does nothing if the
+	 * network is stored in the file store.
+	 */
+	public void prefetchNetwork() {
+		if (m_networkReference == null) {
+			return;
+		}
+		try {
+			TFSavedModelUtil.prefetchSavedModel(m_networkReference.toURL());
+		} catch (final MalformedURLException | IllegalArgumentException e) {
+			// Reported when the network is loaded
+		}
+	}
+
+	/**
+	 * Copies the graph of the network to the file store. The variables are only copied when the port object is saved
+	 * or the network is read from the file store such that the node does not wait for copying gigabytes of weights
+	 * which are not needed before. The state of the variables (e.g. the sizes and modification times of their files) is
+	 * recorded now: If the source changes before the variables are copied, copying fails instead of mixing the graph
+	 * with other variables.
+	 */
 	@Override
-	protected void flushToFileStoreInternal(final TFNetwork network, final FileStore fileStore)
+	protected synchronized void flushToFileStoreInternal(final TFNetwork network, final FileStore fileStore)
 			throws IOException {
-		network.copyFilesToFileStore(fileStore);
+		if (m_metadataCopied) {
+			// Flushed before
+			return;
+		}
+		m_variablesState = network.describeVariables();
+		network.copyMetadataToFileStore(fileStore);
+		m_metadataCopied = true;
+		m_variablesToCopy = network;
+	}
+
+	/**
+	 * Computes the fingerprint of the network in the file store. Most files have just been materialized from the
+	 * SavedModel store which already knows their hashes.
+	 */
+	private static String computeFingerprint(final FileStore fileStore) {
+		final File file = fileStore.getFile();
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			return TFSavedModelStore.getInstance().fingerprint(file.toPath());
+		} catch (final IOException e) {
+			LOGGER.debug("Failed to compute the fingerprint of the TensorFlow network in the file store.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the fingerprint of the content of the network in the file store. Two port objects with the same
+	 * fingerprint hold identical networks. Consumers can use the fingerprint to skip writing a network again, e.g. when
+	 * exporting it to a location which already contains this network.
+	 *
+	 * @return the fingerprint or <code>null</code> if the network is only referenced or if the fingerprint is not known
+	 *         yet
+	 */
+	public String getFingerprint() {
+		return m_fingerprint;
+	}
+
+	/** Copies the variables of the network to the file store if they have not been copied yet */
+	private synchronized void copyVariables() throws IOException {
+		final TFNetwork network = m_variablesToCopy;
+		if (network == null) {
+			return;
+		}
+		final FileStore fileStore = getFileStore(0);
+		checkVariablesUnchanged(network);
+		try {
+			network.copyVariablesToFileStore(fileStore);
+		} catch (final IOException e) {
+			throw new IOException("Copying the variables of the TensorFlow network failed: " + e.getMessage(), e);
+		}
+		// The files could have changed while they were copied
+		checkVariablesUnchanged(network);
+		m_variablesToCopy = null;
+		m_fingerprint = computeFingerprint(fileStore);
+	}
+
+	/** Fails if the variables of the network changed since the metadata has been copied */
+	private void checkVariablesUnchanged(final TFNetwork network) throws IOException {
+		String state;
+		try {
+			state = network.describeVariables();
+		} catch (final IOException e) {
+			state = null;
+		}
+		if (!m_variablesState.equals(state)) {
+			throw new IOException("The variables of the TensorFlow network at '" + network.getSource().getURI()
+					+ "' have been changed or deleted after the network has been read. Please execute the node which "
+					+ "read the network again.");
+		}
 	}
 
 	@Override
@@ -158,6 +274,15 @@ public TFNetwork getNetwork(final PythonCommand command) throws DLInvalidSourceE
 	@Override
 	protected TFNetwork getNetworkInternal(final TFNetworkPortObjectSpec spec)
 			throws DLInvalidSourceException, IOException {
+		copyVariables();
+		if (m_networkReference == null && m_fingerprint != null) {
+			// Saved in a previous session: Do not read the files again to compute the fingerprint
+			try {
+				TFSavedModelStore.getInstance().rememberFingerprint(getFileStore(0).getFile().toPath(), m_fingerprint);
+			} catch (final IOException e) {
+				LOGGER.debug("Failed to remember the fingerprint of the TensorFlow network.", e);
+			}
+		}
 		return spec.getNetworkSpec()
 				.create(m_networkReference == null ? new DLNetworkFileStoreLocation(getFileStore(0))
 						: new DLNetworkReferenceLocation(m_networkReference));
@@ -171,6 +296,8 @@ public static final class Serializer extends PortObjectSerializer<TFNetworkPortO
 		@Override
 		public void savePortObject(final TFNetworkPortObject portObject, final PortObjectZipOutputStream out,
 				final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+			// The file store must be complete when the port object is saved
+			portObject.copyVariables();
 			out.putNextEntry(new ZipEntry(ZIP_ENTRY_NAME));
 			final ObjectOutputStream objOut = new ObjectOutputStream(out);
 			final boolean storedInFileStore = portObject.m_networkReference != null;
@@ -178,6 +305,9 @@ public void savePortObject(final TFNetworkPortObject portObject, final PortObjec
 			if (storedInFileStore) {
 				objOut.writeObject(portObject.m_networkReference.toURL());
 			}
+			// Appended for incremental saving. Not available in workflows saved with older versions
+			final String fingerprint = portObject.m_fingerprint;
+			objOut.writeUTF(fingerprint != null ? fingerprint : "");
 			objOut.flush();
 		}
 
@@ -200,6 +330,13 @@ public TFNetworkPortObject loadPortObject(final PortObjectZipInputStream in,
 			} else {
 				portObject.m_networkReference = null;
 			}
+			try {
+				final String fingerprint = objIn.readUTF();
+				portObject.m_fingerprint = fingerprint.isEmpty() ? null : fingerprint;
+			} catch (final EOFException e) {
+				// Saved with an older version
+				portObject.m_fingerprint = null;
+			}
 			portObject.m_spec = (TFNetworkPortObjectSpec) spec;
 			return portObject;
 		}
@@ -70,4 +70,40 @@ public interface TFNetwork extends DLPythonNetwork {
 	 * @throws IOException if copying the file store failed
 	 */
 	void copyFilesToFileStore(FileStore destination) throws IOException;
+
+	/**
+	 * Copy the files of the network which are needed to read its graph to the given file store. The remaining (usually
+	 * much larger) files are copied by {@link #copyVariablesToFileStore(FileStore)} afterwards. By default all files
+	 * are copied at once.
+	 *
+	 * @param destination the file store
+	 * @throws IOException if copying the file store failed
+	 */
+	default void copyMetadataToFileStore(final FileStore destination) throws IOException {
+		copyFilesToFileStore(destination);
+	}
+
+	/**
+	 * Copy the files of the network which have not been copied by {@link #copyMetadataToFileStore(FileStore)} to the
+	 * given file store. Does nothing by default.
+	 *
+	 * @param destination the file store
+	 * @throws IOException if copying the file store failed
+	 */
+	default void copyVariablesToFileStore(final FileStore destination) throws IOException {
+		// All files are copied with the metadata
+	}
+
+	/**
+	 * Describes the current state of the files copied by {@link #copyVariablesToFileStore(FileStore)}, e.g. by their
+	 * sizes and modification times. If the state changes between copying the metadata and the variables, the copied
+	 * network would mix different versions of the network. Empty by default because all files are copied with the
+	 * metadata.
+	 *
+	 * @return the state of the variables
+	 * @throws IOException if the files of the network cannot be read
+	 */
+	default String describeVariables() throws IOException {
+		return "";
+	}
 }
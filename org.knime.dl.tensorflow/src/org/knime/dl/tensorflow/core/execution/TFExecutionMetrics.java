@@ -0,0 +1,234 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.core.execution;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Aggregates timings and data volumes of the phases of the batch loop of a TensorFlow execution session. The timings
+ * are recorded in nanoseconds and additionally collected in histograms with power-of-two buckets to estimate
+ * percentiles cheaply.
+ * <p>
+ * The metrics are recorded by the executing thread. Listeners of the batch ended event of the execution status can
+ * read them because they are called from the same thread after a batch has been recorded.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFExecutionMetrics {
+
+	/**
+	 * The phases of the batch loop.
+	 */
+	public enum Phase {
+		/** Filling the input tensors by the input preparer. */
+		PREPARE_INPUT("prepare_input"),
+		/** Creating the TensorFlow tensors from the input buffers and feeding them. */
+		FEED("feed"),
+		/** Running the TensorFlow session. */
+		RUN("run"),
+		/** Writing the TensorFlow output tensors to the output buffers. */
+		FILL_OUTPUT("fill_output"),
+		/** Consuming the output tensors by the output consumer. */
+		CONSUME_OUTPUT("consume_output");
+
+		private final String m_name;
+
+		Phase(final String name) {
+			m_name = name;
+		}
+
+		/**
+		 * @return a short name of the phase which can be used as a key
+		 */
+		public String getName() {
+			return m_name;
+		}
+	}
+
+	private static final int NUM_BUCKETS = 64;
+
+	private final long[] m_totalNanos = new long[Phase.values().length];
+
+	private final long[][] m_histograms = new long[Phase.values().length][NUM_BUCKETS];
+
+	private long m_batches;
+
+	private long m_rows;
+
+	private long m_bytesFed;
+
+	private long m_bytesFetched;
+
+	/**
+	 * Records the duration of one phase.
+	 *
+	 * @param phase the phase
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(final Phase phase, final long nanos) {
+		final long value = Math.max(nanos, 0);
+		m_totalNanos[phase.ordinal()] += value;
+		m_histograms[phase.ordinal()][NUM_BUCKETS - Long.numberOfLeadingZeros(value)]++;
+	}
+
+	/**
+	 * Records the end of a batch.
+	 *
+	 * @param rows the number of rows in the batch
+	 * @param bytesFed the number of bytes that have been fed to TensorFlow
+	 * @param bytesFetched the number of bytes that have been fetched from TensorFlow
+	 */
+	public void batchEnded(final long rows, final long bytesFed, final long bytesFetched) {
+		m_batches++;
+		m_rows += rows;
+		m_bytesFed += bytesFed;
+		m_bytesFetched += bytesFetched;
+	}
+
+	/**
+	 * Resets all metrics.
+	 */
+	public void reset() {
+		Arrays.fill(m_totalNanos, 0);
+		for (final long[] histogram : m_histograms) {
+			Arrays.fill(histogram, 0);
+		}
+		m_batches = 0;
+		m_rows = 0;
+		m_bytesFed = 0;
+		m_bytesFetched = 0;
+	}
+
+	/**
+	 * @param phase the phase
+	 * @return the total time spent in the phase in nanoseconds
+	 */
+	public long getTotalNanos(final Phase phase) {
+		return m_totalNanos[phase.ordinal()];
+	}
+
+	/**
+	 * @return the total time spent in all phases in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return Arrays.stream(m_totalNanos).sum();
+	}
+
+	/**
+	 * Estimates a percentile of the durations of a phase. The estimate is the upper bound of the histogram bucket that
+	 * contains the percentile and is therefore at most twice the actual value.
+	 *
+	 * @param phase the phase
+	 * @param percentile the percentile between 0 and 1
+	 * @return the estimated percentile in nanoseconds or 0 if no batch has been recorded
+	 */
+	public long getPercentileNanos(final Phase phase, final double percentile) {
+		final long[] histogram = m_histograms[phase.ordinal()];
+		final long count = Arrays.stream(histogram).sum();
+		if (count == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += histogram[i];
+			if (seen >= rank) {
+				return i == 0 ? 0 : (1L << i) - 1;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return the number of batches
+	 */
+	public long getBatches() {
+		return m_batches;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public long getRows() {
+		return m_rows;
+	}
+
+	/**
+	 * @return the number of bytes that have been fed to TensorFlow
+	 */
+	public long getBytesFed() {
+		return m_bytesFed;
+	}
+
+	/**
+	 * @return the number of bytes that have been fetched from TensorFlow
+	 */
+	public long getBytesFetched() {
+		return m_bytesFetched;
+	}
+
+	/**
+	 * @return the number of rows per second over all phases or 0 if nothing has been recorded
+	 */
+	public double getRowsPerSecond() {
+		final long totalNanos = getTotalNanos();
+		return totalNanos == 0 ? 0 : m_rows * 1e9 / totalNanos;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder();
+		b.append(String.format(Locale.US, "%d batches, %d rows, %.1f rows/s, %d bytes fed, %d bytes fetched",
+				m_batches, m_rows, getRowsPerSecond(), m_bytesFed, m_bytesFetched));
+		for (final Phase phase : Phase.values()) {
+			b.append(String.format(Locale.US, ", %s: %.3f ms (p95 %.3f ms)", phase.getName(),
+					getTotalNanos(phase) / 1e6, getPercentileNanos(phase, 0.95) / 1e6));
+		}
+		return b.toString();
+	}
+}
@@ -74,6 +74,8 @@
 import org.knime.python2.extensions.serializationlibrary.interfaces.TableChunker;
 import org.knime.python2.extensions.serializationlibrary.interfaces.TableCreator;
 import org.knime.python2.extensions.serializationlibrary.interfaces.TableSpec;
+import org.tensorflow.framework.MetaGraphDef;
+import org.tensorflow.framework.SavedModel;
 
 /**
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
@@ -82,6 +84,8 @@ public final class TFPythonCommands extends DLPythonAbstractCommands {
 
 	private static final String TF_VERSION_NAME = "tf_version";
 
+	private static final String VERSIONS_NAME = "versions";
+
 	/**
 	 * Creates new TensorFlow python commands with a context.
 	 *
@@ -131,11 +135,56 @@ public String[] getTable() {
 				}, cancelable).getTable();
 
 		// Get the version numbers
-		final Version pythonVersion = getPythonVersion(cancelable);
-		final Version tfVersion = getTensorFlowVersion(cancelable);
-		TFUtil.checkTFVersion(tfVersion);
+		final Version[] versions = getVersions(cancelable);
+		TFUtil.checkTFVersion(versions[1]);
+
+		return new TFSavedModelNetworkSpec(versions[0], versions[1], tags, inputSpecs, hiddenOutputSpecs, outputSpecs);
+	}
+
+	/**
+	 * Creates the spec of a network which has been loaded from the given SavedModel. Unlike
+	 * {@link #extractNetworkSpec(DLPythonNetworkHandle, DLCancelable)} the tensor specs and tags are derived from the
+	 * SavedModel in Java and only the Python and TensorFlow versions are queried from Python in a single call.
+	 *
+	 * @param savedModel the SavedModel the network has been loaded from. Must fulfill
+	 *            {@link #canCreateNetworkSpec(SavedModel)}.
+	 * @param cancelable to check if the execution has been canceled
+	 * @return the network spec
+	 * @throws IllegalArgumentException if the SavedModel contains a tensor with an unsupported type
+	 * @throws DLCanceledExecutionException if the execution has been canceled
+	 * @throws DLInvalidEnvironmentException if failed to properly setup the Python context
+	 * @throws IOException if getting the data from python failed
+	 */
+	public TFSavedModelNetworkSpec createNetworkSpec(final SavedModel savedModel, final DLCancelable cancelable)
+			throws DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
+		final MetaGraphDef metaGraph = savedModel.getMetaGraphs(0);
+		final String[] tags = metaGraph.getMetaInfoDef().getTagsList().toArray(new String[0]);
+		final String signature = metaGraph.getSignatureDefMap().keySet().iterator().next();
+		final TFSavedModelNetworkSpec specs;
+		try {
+			specs = new TFMetaGraphDef(savedModel, tags).createSpecs(signature);
+		} catch (final IllegalStateException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+
+		// Get the version numbers
+		final Version[] versions = getVersions(cancelable);
+		TFUtil.checkTFVersion(versions[1]);
 
-		return new TFSavedModelNetworkSpec(pythonVersion, tfVersion, tags, inputSpecs, hiddenOutputSpecs, outputSpecs);
+		return new TFSavedModelNetworkSpec(versions[0], versions[1], tags, specs.getInputSpecs(),
+				specs.getHiddenOutputSpecs(), specs.getOutputSpecs());
+	}
+
+	/**
+	 * Checks if {@link #createNetworkSpec(SavedModel, DLCancelable)} can be used for the given SavedModel. This is the
+	 * case if the SavedModel contains exactly one Meta-Graph with exactly one signature like required by the Python
+	 * network reader.
+	 *
+	 * @param savedModel the SavedModel
+	 * @return if the spec can be created from the SavedModel
+	 */
+	public static boolean canCreateNetworkSpec(final SavedModel savedModel) {
+		return savedModel.getMetaGraphsCount() == 1 && savedModel.getMetaGraphs(0).getSignatureDefCount() == 1;
 	}
 
 	@Override
@@ -179,6 +228,48 @@ private String getExtractTagsCode(final DLPythonNetworkHandle network) {
 				"tags = pd.DataFrame({ 'tags': tags_val })";
 	}
 
+	/**
+	 * Gets the Python and the TensorFlow version in a single call to Python.
+	 *
+	 * @param cancelable to check if the execution has been canceled
+	 * @return the Python version at index 0 and the TensorFlow version at index 1
+	 * @throws DLCanceledExecutionException if the execution has been canceled
+	 * @throws DLInvalidEnvironmentException if failed to properly setup the Python context
+	 * @throws IOException if getting the data from python failed
+	 */
+	protected Version[] getVersions(final DLCancelable cancelable)
+			throws DLCanceledExecutionException, DLInvalidEnvironmentException, IOException {
+		final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+				.a("import sys") //
+				.n("import tensorflow as tf") //
+				.n("import pandas as pd") //
+				.n("global ").a(VERSIONS_NAME) //
+				.n("python_version = '.'.join(str(v) for v in sys.version_info[:3])") //
+				.n(VERSIONS_NAME).a(" = pd.DataFrame([[python_version, tf.__version__]])"); //
+		getContext(cancelable).executeInKernel(b.toString(), cancelable);
+		final String[] versions = (String[]) getContext(cancelable)
+				.getDataFromKernel(VERSIONS_NAME, (spec, tableSize) -> new TableCreator<String[]>() {
+
+					private String[] m_versions;
+
+					@Override
+					public void addRow(final Row row) {
+						m_versions = new String[] { row.getCell(0).getStringValue(), row.getCell(1).getStringValue() };
+					}
+
+					@Override
+					public TableSpec getTableSpec() {
+						return spec;
+					}
+
+					@Override
+					public String[] getTable() {
+						return m_versions;
+					}
+				}, cancelable).getTable();
+		return new Version[] { new Version(versions[0]), new Version(versions[1]) };
+	}
+
 	/**
 	 * @param cancelable to check if the execution has been canceled
 	 * @return the TensorFlow version
@@ -50,6 +50,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.util.Collections;
@@ -57,6 +58,7 @@
 
 import org.knime.base.filehandling.remote.files.RemoteFileHandlerRegistry;
 import org.knime.core.data.filestore.FileStore;
+import org.knime.core.node.NodeLogger;
 import org.knime.dl.core.DLCancelable;
 import org.knime.dl.core.DLCanceledExecutionException;
 import org.knime.dl.core.DLInvalidDestinationException;
@@ -69,6 +71,7 @@
 import org.knime.dl.python.core.DLPythonNetworkHandle;
 import org.knime.dl.python.core.DLPythonNetworkPortObject;
 import org.knime.dl.tensorflow.base.portobjects.TFNetworkPortObject;
+import org.tensorflow.framework.SavedModel;
 
 /**
  * A python network loader for TensorFlow SavedModels.
@@ -77,6 +80,8 @@
  */
 public class TFPythonNetworkLoader extends DLPythonAbstractNetworkLoader<TFSavedModelNetwork> {
 
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFPythonNetworkLoader.class);
+
 	private static final String URL_EXTENSION = "";
 
 	@Override
@@ -107,9 +112,8 @@ public URL validateSource(final URI source) throws DLInvalidSourceException {
 		} catch (final Exception e) {
 			throw new DLInvalidSourceException("TensorFlow network source (" + source + ") is not a valid URL.");
 		}
-		// We just try to read the saved model with the java API. If this works we can be pretty sure that it is a valid
-		// SavedModel
-		TFSavedModelUtil.readSavedModelProtoBuf(sourceURL);
+		// Only check that the SavedModel exists: It is parsed by Python when it is loaded and by fetch if possible
+		TFSavedModelUtil.checkSavedModelSource(sourceURL);
 		return sourceURL;
 	}
 
@@ -142,8 +146,13 @@ public DLPythonNetworkHandle load(final URI source, final DLPythonContext contex
 		final URL sourceURL = validateSource(source);
 		try {
 			final File savedModelDir = TFSavedModelUtil.getSavedModelInDir(sourceURL);
-            final TFPythonCommands commands = createCommands(checkNotNull(context));
-			return commands.loadNetwork(savedModelDir.getAbsolutePath(), loadTrainingConfig, cancelable);
+			try {
+				final TFPythonCommands commands = createCommands(checkNotNull(context));
+				return commands.loadNetwork(savedModelDir.getAbsolutePath(), loadTrainingConfig, cancelable);
+			} finally {
+				// Python does not read the directory after loading
+				TFSavedModelUtil.releaseSavedModelInDir(sourceURL);
+			}
 		} catch (final Throwable e) { // NOSONAR: Clean-up is necessary in any exceptional situation.
 			// Delete the temporary file if it exists
 			TFSavedModelUtil.deleteTempIfLocal(sourceURL);
@@ -158,6 +167,14 @@ public TFSavedModelNetwork fetch(final DLPythonNetworkHandle handle, final DLNet
 			final DLPythonContext context, final DLCancelable cancelable) throws IllegalArgumentException,
 			DLInvalidSourceException, DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
 		final TFPythonCommands commands = createCommands(checkNotNull(context));
+		final SavedModel savedModel = readLocalSavedModel(source);
+		if (savedModel != null && TFPythonCommands.canCreateNetworkSpec(savedModel)) {
+			try {
+				return new TFSavedModelNetwork(commands.createNetworkSpec(savedModel, cancelable), source);
+			} catch (final IllegalArgumentException e) {
+				LOGGER.debug("Could not create the network spec from the SavedModel. Extracting it in Python.", e);
+			}
+		}
 		final TFSavedModelNetworkSpec spec = commands.extractNetworkSpec(checkNotNull(handle), cancelable);
 		return new TFSavedModelNetwork(spec, source);
 	}
@@ -168,6 +185,25 @@ public DLPythonNetworkPortObject<? extends DLPythonNetwork> createPortObject(fin
 		return new TFNetworkPortObject(network, fileStore);
 	}
 
+	/**
+	 * Reads the SavedModel protobuf if the network is a local SavedModel directory. Parsing the protobuf in Java is
+	 * much faster than extracting the spec of the network in Python.
+	 *
+	 * @return the SavedModel or <code>null</code> if the network is not a local SavedModel directory
+	 */
+	private static SavedModel readLocalSavedModel(final DLNetworkLocation source) {
+		final URI uri = source.getURI();
+		if (!"file".equals(uri.getScheme()) || !new File(uri).isDirectory()) {
+			return null;
+		}
+		try {
+			return TFSavedModelUtil.readSavedModelProtoBuf(uri.toURL());
+		} catch (final DLInvalidSourceException | MalformedURLException e) {
+			LOGGER.debug("Could not read the SavedModel at \"" + uri + "\" in Java.", e);
+			return null;
+		}
+	}
+
 	@Override
 	protected TFPythonCommands createCommands(final DLPythonContext context) throws DLInvalidEnvironmentException {
 		return new TFPythonCommands(context);
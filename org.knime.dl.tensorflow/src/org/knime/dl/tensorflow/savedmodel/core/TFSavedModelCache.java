@@ -0,0 +1,724 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+
+/**
+ * A persistent, size-bounded cache for SavedModels extracted from remote ZIP files. Each entry is keyed by the URL of
+ * the ZIP file and remembers the ETag or the last modification time of the remote file. The entry is reused across
+ * restarts of KNIME as long as the remote file did not change. If the server provides neither, the file is downloaded
+ * again but the extracted SavedModel is only replaced if the SHA-256 hash of the downloaded file changed. Files on
+ * HTTP servers are downloaded with the {@link TFSavedModelDownloader} into the entry, so an interrupted download is
+ * resumed by the next access.
+ * <p>
+ * Entries are extracted at most once at the same time, also by different KNIME instances sharing the cache directory,
+ * using a lock file per entry. The least recently used entries are deleted if the cache grows larger than the maximum
+ * size. Older versions of a SavedModel and partial downloads count towards the size. Entries which are used by a
+ * running KNIME instance are never deleted. An entry is used from {@link #get(URL)} or {@link #pin(URL, File)} until
+ * the matching call of {@link #release(URL)}. The maximum size in megabytes is configured with the system property
+ * {@value #MAX_SIZE_PROPERTY}. A size of 0 disables the cache.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSavedModelCache {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelCache.class);
+
+	/** The maximum size of the cache in megabytes */
+	private static final String MAX_SIZE_PROPERTY = "knime.dl.tensorflow.savedmodel.cache.size";
+
+	private static final long DEFAULT_MAX_SIZE_MB = 10 * 1024;
+
+	/** The directory of the cache in the KNIME home directory */
+	private static final String CACHE_DIR_NAME = "tensorflow-savedmodel-cache";
+
+	private static final String ENTRY_FILE_NAME = "entry.properties";
+
+	/** Locked exclusively while an entry is extracted or deleted */
+	private static final String LOCK_FILE_NAME = "entry.lock";
+
+	/** Locked shared by each KNIME instance using an entry */
+	private static final String IN_USE_FILE_NAME = "entry.inuse";
+
+	private static final String TMP_PREFIX = "tmp-";
+
+	/** The downloaded ZIP file. Partial downloads are kept next to it */
+	private static final String ARCHIVE_FILE_NAME = "archive.zip";
+
+	private static final String KEY_URL = "url";
+
+	private static final String KEY_VALIDATOR = "validator";
+
+	private static final String KEY_HASH = "hash";
+
+	/**
+	 * Extracts the SavedModel in a ZIP file.
+	 */
+	interface Extractor {
+
+		/**
+		 * @param zip the stream of the ZIP file
+		 * @param destination the empty directory to extract the SavedModel to
+		 * @throws IOException if extracting failed
+		 */
+		void extract(InputStream zip, File destination) throws IOException;
+
+		/**
+		 * @param zip the downloaded ZIP file
+		 * @param destination the empty directory to extract the SavedModel to
+		 * @throws IOException if extracting failed
+		 */
+		void extract(File zip, File destination) throws IOException;
+	}
+
+	/** Guards the file locks of the entries in this JVM. File locks are held by the whole JVM and cannot overlap */
+	private static final Map<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+	/** The shared locks of the entries used in this JVM. Held until the last user releases the entry */
+	private static final Map<Path, Pin> IN_USE = new ConcurrentHashMap<>();
+
+	private static final class InstanceHolder {
+		private static final TFSavedModelCache INSTANCE = createInstance();
+	}
+
+	private final Path m_root;
+
+	private final long m_maxSize;
+
+	private final Extractor m_extractor;
+
+	private final TFSavedModelDownloader m_downloader;
+
+	private final Object m_evictionLock = new Object();
+
+	/**
+	 * Creates a cache in the given directory.
+	 *
+	 * @param root the directory of the cache. Created if it does not exist.
+	 * @param maxSize the maximum size of the extracted SavedModels in bytes. 0 disables the cache.
+	 * @param extractor extracts the downloaded ZIP files
+	 * @param downloader downloads ZIP files from HTTP servers
+	 */
+	TFSavedModelCache(final Path root, final long maxSize, final Extractor extractor,
+			final TFSavedModelDownloader downloader) {
+		m_root = root.toAbsolutePath();
+		m_maxSize = maxSize;
+		m_extractor = extractor;
+		m_downloader = downloader;
+	}
+
+	/**
+	 * @return the cache in the KNIME home directory of the workspace
+	 */
+	public static TFSavedModelCache getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private static TFSavedModelCache createInstance() {
+		final long maxSizeMB = Math.max(0, Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_MB));
+		return new TFSavedModelCache(Paths.get(KNIMEConstants.getKNIMEHomeDir(), CACHE_DIR_NAME),
+				maxSizeMB * 1024 * 1024, new ZipExtractor(), new TFSavedModelDownloader());
+	}
+
+	/**
+	 * @return if SavedModels should be extracted to the cache
+	 */
+	public boolean isEnabled() {
+		return m_maxSize > 0;
+	}
+
+	/**
+	 * Gives the directory of the SavedModel in the ZIP file at the given URL. The file is only downloaded and
+	 * extracted if it is not in the cache or changed on the server. If the server cannot be reached the cached
+	 * SavedModel is used. The entry is not deleted until the caller calls {@link #release(URL)}.
+	 *
+	 * @param source the URL of the ZIP file
+	 * @return the directory containing the SavedModel. Must not be modified.
+	 * @throws IOException if downloading or extracting the ZIP file failed
+	 */
+	public File get(final URL source) throws IOException {
+		final Path entryDir = Files.createDirectories(getEntryDir(source));
+		final ReentrantLock lock = getLock(entryDir);
+		final Path model;
+		lock.lock();
+		try (FileChannel channel = FileChannel.open(entryDir.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE); FileLock fileLock = channel.lock()) {
+			// Left over from an interrupted extraction
+			deleteDirectories(entryDir, p -> p.getFileName().toString().startsWith(TMP_PREFIX));
+
+			final Properties entry = readEntry(entryDir);
+			final Path cached = getModel(entryDir, entry);
+			String validator;
+			boolean offline = false;
+			try {
+				validator = getValidator(source);
+			} catch (final IOException e) {
+				LOGGER.debug("Could not check if the SavedModel at '" + source + "' changed: " + e.getMessage(), e);
+				validator = null;
+				offline = true;
+			}
+			final boolean unchanged = validator != null && validator.equals(entry.getProperty(KEY_VALIDATOR));
+			if (cached != null && (offline || unchanged)) {
+				model = cached;
+			} else {
+				model = download(source, entryDir, validator);
+				deleteStaleModels(entryDir, model);
+			}
+			markInUse(entryDir);
+			// The modification time of the entry file is the time of the last access
+			Files.setLastModifiedTime(entryDir.resolve(ENTRY_FILE_NAME),
+					FileTime.fromMillis(System.currentTimeMillis()));
+		} finally {
+			lock.unlock();
+		}
+		evict();
+		return model.toFile();
+	}
+
+	/**
+	 * Marks a SavedModel returned by {@link #get(URL)} before as used again such that it is not deleted until the
+	 * caller calls {@link #release(URL)}. Does not check if the file changed on the server.
+	 *
+	 * @param source the URL of the ZIP file
+	 * @param model the directory of the SavedModel returned by {@link #get(URL)}
+	 * @return <code>false</code> if the SavedModel has been deleted in the meantime and must be requested again
+	 * @throws IOException if locking the entry failed
+	 */
+	public boolean pin(final URL source, final File model) throws IOException {
+		final Path entryDir = getEntryDir(source);
+		if (!Files.isDirectory(entryDir)) {
+			return false;
+		}
+		final ReentrantLock lock = getLock(entryDir);
+		lock.lock();
+		try (FileChannel channel = FileChannel.open(entryDir.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE); FileLock fileLock = channel.lock()) {
+			if (!model.isDirectory()) {
+				return false;
+			}
+			markInUse(entryDir);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases a use of the SavedModel of the given URL started by {@link #get(URL)} or {@link #pin(URL, File)}. The
+	 * entry can be deleted once every use of all KNIME instances has been released.
+	 *
+	 * @param source the URL of the ZIP file
+	 * @throws IOException if releasing the lock of the entry failed
+	 */
+	public void release(final URL source) throws IOException {
+		final Path entryDir = getEntryDir(source);
+		final ReentrantLock lock = getLock(entryDir);
+		lock.lock();
+		try {
+			final Pin pin = IN_USE.get(entryDir);
+			if (pin != null && --pin.m_count == 0) {
+				IN_USE.remove(entryDir);
+				release(pin.m_lock);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the cached SavedModel of the given URL, e.g. because it is invalid.
+	 *
+	 * @param source the URL of the ZIP file
+	 * @throws IOException if deleting the SavedModel failed
+	 */
+	public void invalidate(final URL source) throws IOException {
+		final Path entryDir = getEntryDir(source);
+		if (!Files.isDirectory(entryDir)) {
+			return;
+		}
+		final ReentrantLock lock = getLock(entryDir);
+		lock.lock();
+		try (FileChannel channel = FileChannel.open(entryDir.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE); FileLock fileLock = channel.lock()) {
+			final Pin inUse = IN_USE.remove(entryDir);
+			if (inUse != null) {
+				release(inUse.m_lock);
+			}
+			deleteEntry(entryDir);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases the entries of this cache used in this JVM such that they can be deleted.
+	 *
+	 * @throws IOException if releasing a lock failed
+	 */
+	void release() throws IOException {
+		for (final Path entryDir : new ArrayList<>(IN_USE.keySet())) {
+			if (entryDir.startsWith(m_root)) {
+				final Pin inUse = IN_USE.remove(entryDir);
+				if (inUse != null) {
+					release(inUse.m_lock);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes the older versions of the SavedModels and then the least recently used entries until the cache is not
+	 * larger than the maximum size. Entries in use by a KNIME instance are skipped.
+	 *
+	 * @return the number of deleted entries
+	 * @throws IOException if reading the cache failed
+	 */
+	int evict() throws IOException {
+		synchronized (m_evictionLock) {
+			final List<EntryInfo> entries = new ArrayList<>();
+			long totalSize = 0;
+			try (DirectoryStream<Path> dirs = Files.newDirectoryStream(m_root, Files::isDirectory)) {
+				for (final Path dir : dirs) {
+					final Path entryFile = dir.resolve(ENTRY_FILE_NAME);
+					if (!Files.exists(entryFile)) {
+						continue;
+					}
+					final long size = sizeOfEntry(dir);
+					entries.add(new EntryInfo(dir, size, Files.getLastModifiedTime(entryFile).toMillis()));
+					totalSize += size;
+				}
+			}
+			entries.sort(Comparator.comparingLong(e -> e.m_lastAccess));
+			for (final EntryInfo entry : entries) {
+				if (totalSize <= m_maxSize) {
+					break;
+				}
+				if (tryWithUnusedEntry(entry.m_dir, () -> deleteStaleModels(entry.m_dir))) {
+					final long size = sizeOfEntry(entry.m_dir);
+					totalSize -= entry.m_size - size;
+					entry.m_size = size;
+				}
+			}
+			int evicted = 0;
+			for (final EntryInfo entry : entries) {
+				if (totalSize <= m_maxSize) {
+					break;
+				}
+				if (tryWithUnusedEntry(entry.m_dir, () -> deleteEntry(entry.m_dir))) {
+					totalSize -= entry.m_size;
+					evicted++;
+				}
+			}
+			return evicted;
+		}
+	}
+
+	/**
+	 * Runs the action on the entry if it is not locked and not used by any KNIME instance. Returns false if the entry
+	 * is locked or in use.
+	 */
+	private static boolean tryWithUnusedEntry(final Path entryDir, final EntryAction action) throws IOException {
+		if (IN_USE.containsKey(entryDir)) {
+			return false;
+		}
+		final ReentrantLock lock = getLock(entryDir);
+		if (!lock.tryLock()) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(entryDir.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE); FileLock fileLock = channel.tryLock()) {
+			if (fileLock == null) {
+				return false;
+			}
+			final FileLock unused = tryLockUnused(entryDir);
+			if (unused == null) {
+				return false;
+			}
+			try {
+				action.run();
+			} finally {
+				release(unused);
+			}
+			return true;
+		} catch (final OverlappingFileLockException e) {
+			// Locked by this JVM
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Downloads and extracts the ZIP file to a directory named after the hash of the file */
+	private Path download(final URL source, final Path entryDir, final String validator) throws IOException {
+		final Path tmp = Files.createTempDirectory(entryDir, TMP_PREFIX);
+		final Path model;
+		try {
+			if (TFSavedModelDownloader.isSupported(source)) {
+				final Path archive = entryDir.resolve(ARCHIVE_FILE_NAME);
+				model = entryDir.resolve(m_downloader.download(source, archive));
+				try {
+					if (!Files.isDirectory(model)) {
+						m_extractor.extract(archive.toFile(), tmp.toFile());
+					}
+				} finally {
+					Files.deleteIfExists(archive);
+				}
+			} else {
+				final MessageDigest digest = createDigest();
+				try (InputStream in = new DigestInputStream(FileUtil.openStreamWithTimeout(source), digest)) {
+					m_extractor.extract(in, tmp.toFile());
+					// The hash must cover the whole file
+					final byte[] buffer = new byte[1 << 16];
+					while (in.read(buffer) != -1) {
+						// Only updates the digest
+					}
+				}
+				model = entryDir.resolve(toHex(digest.digest()));
+			}
+			if (Files.isDirectory(model)) {
+				// The file did not change
+				FileUtil.deleteRecursively(tmp.toFile());
+			} else {
+				Files.move(tmp, model, StandardCopyOption.ATOMIC_MOVE);
+			}
+		} catch (final IOException | RuntimeException e) {
+			FileUtil.deleteRecursively(tmp.toFile());
+			throw e;
+		}
+		final Properties entry = new Properties();
+		entry.setProperty(KEY_URL, source.toString());
+		if (validator != null) {
+			entry.setProperty(KEY_VALIDATOR, validator);
+		}
+		entry.setProperty(KEY_HASH, model.getFileName().toString());
+		try (OutputStream out = Files.newOutputStream(entryDir.resolve(ENTRY_FILE_NAME))) {
+			entry.store(out, null);
+		}
+		return model;
+	}
+
+	/**
+	 * Deletes older versions of the SavedModel if no other KNIME instance uses them. Must be called while the entry is
+	 * locked.
+	 */
+	private static void deleteStaleModels(final Path entryDir, final Path model) throws IOException {
+		if (IN_USE.containsKey(entryDir)) {
+			return;
+		}
+		final FileLock unused = tryLockUnused(entryDir);
+		if (unused == null) {
+			return;
+		}
+		try {
+			deleteDirectories(entryDir, p -> !p.equals(model));
+		} finally {
+			release(unused);
+		}
+	}
+
+	/** Deletes all SavedModels of the entry except the current one. Must be called while the entry is locked */
+	private static void deleteStaleModels(final Path entryDir) throws IOException {
+		final Path model = getModel(entryDir, readEntry(entryDir));
+		deleteDirectories(entryDir, p -> !p.equals(model));
+	}
+
+	/**
+	 * Locks the entry shared such that other KNIME instances do not delete it. Counts the uses in this JVM. Must be
+	 * called while the entry is locked.
+	 */
+	private static void markInUse(final Path entryDir) throws IOException {
+		final Pin pin = IN_USE.get(entryDir);
+		if (pin != null) {
+			pin.m_count++;
+			return;
+		}
+		final FileChannel channel = FileChannel.open(entryDir.resolve(IN_USE_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			IN_USE.put(entryDir, new Pin(channel.lock(0, Long.MAX_VALUE, true)));
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Returns an exclusive lock if no KNIME instance uses the entry or null otherwise */
+	private static FileLock tryLockUnused(final Path entryDir) throws IOException {
+		final FileChannel channel = FileChannel.open(entryDir.resolve(IN_USE_FILE_NAME), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			final FileLock lock = channel.tryLock();
+			if (lock == null) {
+				channel.close();
+			}
+			return lock;
+		} catch (final OverlappingFileLockException e) {
+			// Used by this JVM
+			channel.close();
+			return null;
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Releases the lock and closes its channel */
+	private static void release(final FileLock lock) throws IOException {
+		lock.acquiredBy().close();
+	}
+
+	private Path getEntryDir(final URL source) {
+		return m_root.resolve(hash(source.toString()));
+	}
+
+	private static ReentrantLock getLock(final Path entryDir) {
+		return LOCKS.computeIfAbsent(entryDir, k -> new ReentrantLock());
+	}
+
+	/** Deletes the SavedModels and partial downloads of the entry. The lock files are kept */
+	private static void deleteEntry(final Path entryDir) throws IOException {
+		Files.deleteIfExists(entryDir.resolve(ENTRY_FILE_NAME));
+		deleteDirectories(entryDir, p -> true);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(entryDir, ARCHIVE_FILE_NAME + "*")) {
+			for (final Path file : files) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	private static void deleteDirectories(final Path entryDir, final DirectoryStream.Filter<Path> filter)
+			throws IOException {
+		try (DirectoryStream<Path> dirs = Files.newDirectoryStream(entryDir,
+				p -> Files.isDirectory(p) && filter.accept(p))) {
+			for (final Path dir : dirs) {
+				FileUtil.deleteRecursively(dir.toFile());
+			}
+		}
+	}
+
+	private static Properties readEntry(final Path entryDir) throws IOException {
+		final Properties entry = new Properties();
+		final Path entryFile = entryDir.resolve(ENTRY_FILE_NAME);
+		if (Files.exists(entryFile)) {
+			try (InputStream in = Files.newInputStream(entryFile)) {
+				entry.load(in);
+			}
+		}
+		return entry;
+	}
+
+	/** The extracted SavedModel of the entry or null if there is none */
+	private static Path getModel(final Path entryDir, final Properties entry) {
+		final String hash = entry.getProperty(KEY_HASH);
+		if (hash == null) {
+			return null;
+		}
+		final Path model = entryDir.resolve(hash);
+		return Files.isDirectory(model) ? model : null;
+	}
+
+	/**
+	 * Identifies the version of the remote file by its ETag or its last modification time and size.
+	 *
+	 * @return the version or null if the server provides neither
+	 * @throws IOException if the server could not be reached
+	 */
+	private static String getValidator(final URL source) throws IOException {
+		final URLConnection connection = source.openConnection();
+		connection.setConnectTimeout(FileUtil.getDefaultURLTimeoutMillis());
+		connection.setReadTimeout(FileUtil.getDefaultURLTimeoutMillis());
+		if (connection instanceof HttpURLConnection) {
+			final HttpURLConnection httpConnection = (HttpURLConnection)connection;
+			httpConnection.setRequestMethod("HEAD");
+			try {
+				if (httpConnection.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
+					return null;
+				}
+				return getValidator(connection);
+			} finally {
+				httpConnection.disconnect();
+			}
+		}
+		connection.connect();
+		try {
+			return getValidator(connection);
+		} finally {
+			// Other connections (e.g. to local files) open the stream on connect
+			connection.getInputStream().close();
+		}
+	}
+
+	private static String getValidator(final URLConnection connection) {
+		final String etag = connection.getHeaderField("ETag");
+		if (etag != null) {
+			return "etag:" + etag;
+		}
+		final long lastModified = connection.getLastModified();
+		if (lastModified > 0) {
+			return "modified:" + lastModified + ";" + connection.getContentLengthLong();
+		}
+		return null;
+	}
+
+	/** The size of the SavedModels, including older versions, and partial downloads of the entry */
+	private static long sizeOfEntry(final Path entryDir) throws IOException {
+		long size = 0;
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(entryDir,
+				p -> Files.isDirectory(p) || p.getFileName().toString().startsWith(ARCHIVE_FILE_NAME))) {
+			for (final Path child : children) {
+				size += size(child);
+			}
+		}
+		return size;
+	}
+
+	private static long size(final Path dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			return paths.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+		}
+	}
+
+	private static String hash(final String value) {
+		return toHex(createDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			// Every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder();
+		for (final byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static final class ZipExtractor implements Extractor {
+
+		@Override
+		public void extract(final InputStream zip, final File destination) throws IOException {
+			TFSavedModelUtil.extractZipToFile(zip, destination);
+		}
+
+		@Override
+		public void extract(final File zip, final File destination) throws IOException {
+			TFSavedModelUtil.extractZipToFile(zip, destination);
+		}
+	}
+
+	/** An action on a locked entry */
+	private interface EntryAction {
+
+		void run() throws IOException;
+	}
+
+	/** The shared lock of an entry and the number of uses in this JVM. Guarded by the lock of the entry */
+	private static final class Pin {
+
+		private final FileLock m_lock;
+
+		private int m_count = 1;
+
+		private Pin(final FileLock lock) {
+			m_lock = lock;
+		}
+	}
+
+	private static final class EntryInfo {
+
+		private final Path m_dir;
+
+		private long m_size;
+
+		private final long m_lastAccess;
+
+		private EntryInfo(final Path dir, final long size, final long lastAccess) {
+			m_dir = dir;
+			m_size = size;
+			m_lastAccess = lastAccess;
+		}
+	}
+}
@@ -0,0 +1,429 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Downloads SavedModel archives from HTTP servers. If the server supports range requests the file is split into
+ * chunks which are downloaded in parallel. Chunks which fail are retried from the last received byte. The completed
+ * chunks are recorded next to the partial file such that an interrupted download can be resumed later, as long as the
+ * ETag or last modification time of the file did not change. The size of the download and, if the server sends a
+ * <code>Digest</code> header, its SHA-256 checksum are verified.
+ * <p>
+ * Other URLs (e.g. KNIME URLs) are not supported and must be read as a stream.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSavedModelDownloader {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelDownloader.class);
+
+	private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	private static final int DEFAULT_NUM_CONNECTIONS = 4;
+
+	/** How often a chunk is requested again without receiving any bytes */
+	private static final int MAX_RETRIES = 3;
+
+	private static final String PART_SUFFIX = ".part";
+
+	private static final String STATE_SUFFIX = ".part.properties";
+
+	private static final String KEY_VALIDATOR = "validator";
+
+	private static final String KEY_LENGTH = "length";
+
+	private static final String KEY_CHUNK_SIZE = "chunkSize";
+
+	private static final String KEY_COMPLETED = "completed";
+
+	private final int m_chunkSize;
+
+	private final int m_numConnections;
+
+	/**
+	 * Creates a downloader with chunks of 8MB and 4 connections.
+	 */
+	public TFSavedModelDownloader() {
+		this(DEFAULT_CHUNK_SIZE, DEFAULT_NUM_CONNECTIONS);
+	}
+
+	/**
+	 * @param chunkSize the size of the range requested at once
+	 * @param numConnections the maximum number of parallel requests
+	 */
+	TFSavedModelDownloader(final int chunkSize, final int numConnections) {
+		m_chunkSize = chunkSize;
+		m_numConnections = numConnections;
+	}
+
+	/**
+	 * @param source the URL of the file
+	 * @return if the file can be downloaded with this downloader
+	 */
+	public static boolean isSupported(final URL source) {
+		return source.getProtocol().equalsIgnoreCase("http") || source.getProtocol().equalsIgnoreCase("https");
+	}
+
+	/**
+	 * Downloads the file to the target. A partial download of the same file to the same target is resumed.
+	 *
+	 * @param source the URL of the file. Must be {@link #isSupported(URL) supported}.
+	 * @param target the local file. Replaced if it exists.
+	 * @return the SHA-256 hash of the file as hex string
+	 * @throws IOException if downloading the file failed or the checksum does not match
+	 */
+	public String download(final URL source, final Path target) throws IOException {
+		final Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+		final Path stateFile = target.resolveSibling(target.getFileName() + STATE_SUFFIX);
+		final HttpURLConnection head = openConnection(source);
+		final long length;
+		final boolean acceptRanges;
+		final String validator;
+		final String digest;
+		try {
+			head.setRequestMethod("HEAD");
+			checkResponse(source, head, HttpURLConnection.HTTP_OK);
+			length = head.getContentLengthLong();
+			acceptRanges = "bytes".equalsIgnoreCase(head.getHeaderField("Accept-Ranges"));
+			validator = getValidator(head);
+			digest = getSha256Digest(head);
+		} finally {
+			head.disconnect();
+		}
+
+		if (length >= 0 && acceptRanges) {
+			downloadChunks(source, part, stateFile, length, validator);
+		} else {
+			downloadAtOnce(source, part);
+		}
+
+		// Verify the download
+		if (length >= 0 && Files.size(part) != length) {
+			deletePartial(part, stateFile);
+			throw new IOException("The size of the downloaded file '" + source + "' does not match. Expected "
+					+ length + " bytes but got " + Files.size(part) + " bytes.");
+		}
+		final byte[] hash = computeHash(part);
+		if (digest != null && !digest.equals(Base64.getEncoder().encodeToString(hash))) {
+			deletePartial(part, stateFile);
+			throw new IOException("The checksum of the downloaded file '" + source + "' does not match.");
+		}
+		Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+		Files.deleteIfExists(stateFile);
+		return toHex(hash);
+	}
+
+	/** Downloads the missing chunks in parallel. Completed chunks of a previous download are kept if possible */
+	private void downloadChunks(final URL source, final Path part, final Path stateFile, final long length,
+			final String validator) throws IOException {
+		final int numChunks = (int)((length + m_chunkSize - 1) / m_chunkSize);
+		final DownloadState state = DownloadState.load(stateFile);
+		final BitSet completed;
+		if (validator != null && validator.equals(state.m_validator) && length == state.m_length
+				&& m_chunkSize == state.m_chunkSize && Files.exists(part) && Files.size(part) == length) {
+			completed = state.m_completed;
+			LOGGER.debug("Resuming the download of '" + source + "'. " + completed.cardinality() + " of " + numChunks
+					+ " chunks are complete.");
+		} else {
+			completed = new BitSet(numChunks);
+			try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				if (length > 0) {
+					// Allocate the file such that the chunks can be written at their position
+					channel.write(ByteBuffer.allocate(1), length - 1);
+				}
+			}
+		}
+		final DownloadState newState = new DownloadState(validator, length, m_chunkSize, completed);
+		if (validator != null) {
+			newState.save(stateFile);
+		}
+
+		final int numThreads = Math.max(1, Math.min(m_numConnections, numChunks - completed.cardinality()));
+		final ExecutorService executor = ThreadUtils
+				.executorServiceWithContext(Executors.newFixedThreadPool(numThreads));
+		try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int i = completed.nextClearBit(0); i < numChunks; i = completed.nextClearBit(i + 1)) {
+				final int chunk = i;
+				futures.add(executor.submit(() -> {
+					final long start = (long)chunk * m_chunkSize;
+					downloadRange(source, channel, start, Math.min(start + m_chunkSize, length), validator);
+					if (validator != null) {
+						newState.complete(chunk, stateFile);
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while downloading '" + source + "'.", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException)cause
+					: new IOException("Downloading '" + source + "' failed.", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/** Downloads the bytes from start (inclusive) to end (exclusive) and writes them at the same position */
+	private static void downloadRange(final URL source, final FileChannel channel, final long start, final long end,
+			final String validator) throws IOException {
+		long position = start;
+		int retries = 0;
+		while (position < end) {
+			final long requested = position;
+			try {
+				final HttpURLConnection connection = openConnection(source);
+				try {
+					connection.setRequestProperty("Range", "bytes=" + position + "-" + (end - 1));
+					if (validator != null) {
+						// The server sends the whole file if it changed in the meantime
+						connection.setRequestProperty("If-Range", validator);
+					}
+					checkResponse(source, connection, HttpURLConnection.HTTP_PARTIAL);
+					try (InputStream in = connection.getInputStream()) {
+						final byte[] buffer = new byte[1 << 16];
+						int read;
+						while (position < end && (read = in.read(buffer)) != -1) {
+							final ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, (int)Math.min(read, end - position));
+							while (bytes.hasRemaining()) {
+								position += channel.write(bytes, position);
+							}
+						}
+					}
+				} finally {
+					connection.disconnect();
+				}
+				if (position < end) {
+					throw new EOFException("The connection was closed before the requested range of '" + source
+							+ "' was received.");
+				}
+			} catch (final IOException e) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+				// Only count the attempts which did not make any progress
+				retries = position > requested ? 0 : retries + 1;
+				if (retries > MAX_RETRIES) {
+					throw e;
+				}
+				LOGGER.debug("Requesting the bytes " + position + "-" + (end - 1) + " of '" + source
+						+ "' again: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/** Downloads the file with a single request if the server does not support ranges */
+	private static void downloadAtOnce(final URL source, final Path part) throws IOException {
+		final HttpURLConnection connection = openConnection(source);
+		try {
+			checkResponse(source, connection, HttpURLConnection.HTTP_OK);
+			try (InputStream in = connection.getInputStream(); OutputStream out = Files.newOutputStream(part)) {
+				in.transferTo(out);
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static HttpURLConnection openConnection(final URL source) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection)source.openConnection();
+		connection.setConnectTimeout(FileUtil.getDefaultURLTimeoutMillis());
+		connection.setReadTimeout(FileUtil.getDefaultURLTimeoutMillis());
+		return connection;
+	}
+
+	private static void checkResponse(final URL source, final HttpURLConnection connection, final int expected)
+			throws IOException {
+		final int code = connection.getResponseCode();
+		if (code != expected) {
+			throw new IOException("Unexpected response of the server for '" + source + "': " + code + " "
+					+ connection.getResponseMessage());
+		}
+	}
+
+	/** The strong ETag or the last modification date of the file. Only these can be used in If-Range requests */
+	private static String getValidator(final HttpURLConnection connection) {
+		final String etag = connection.getHeaderField("ETag");
+		if (etag != null && !etag.startsWith("W/")) {
+			return etag;
+		}
+		return connection.getHeaderField("Last-Modified");
+	}
+
+	/** The base64 encoded SHA-256 checksum of a <code>Digest</code> header or null */
+	private static String getSha256Digest(final HttpURLConnection connection) {
+		final String header = connection.getHeaderField("Digest");
+		if (header == null) {
+			return null;
+		}
+		for (final String digest : header.split(",")) {
+			final String[] parts = digest.trim().split("=", 2);
+			if (parts.length == 2 && parts[0].equalsIgnoreCase("sha-256")) {
+				return parts[1];
+			}
+		}
+		return null;
+	}
+
+	private static void deletePartial(final Path part, final Path stateFile) throws IOException {
+		Files.deleteIfExists(part);
+		Files.deleteIfExists(stateFile);
+	}
+
+	private static byte[] computeHash(final Path file) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			// Every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+		final byte[] buffer = new byte[1 << 16];
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder();
+		for (final byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/** The completed chunks of a download which are saved next to the partial file */
+	private static final class DownloadState {
+
+		private final String m_validator;
+
+		private final long m_length;
+
+		private final int m_chunkSize;
+
+		private final BitSet m_completed;
+
+		private DownloadState(final String validator, final long length, final int chunkSize,
+				final BitSet completed) {
+			m_validator = validator;
+			m_length = length;
+			m_chunkSize = chunkSize;
+			m_completed = completed;
+		}
+
+		private static DownloadState load(final Path stateFile) {
+			final Properties state = new Properties();
+			try (InputStream in = Files.newInputStream(stateFile)) {
+				state.load(in);
+				return new DownloadState(state.getProperty(KEY_VALIDATOR),
+						Long.parseLong(state.getProperty(KEY_LENGTH, "-1")),
+						Integer.parseInt(state.getProperty(KEY_CHUNK_SIZE, "-1")),
+						BitSet.valueOf(Base64.getDecoder().decode(state.getProperty(KEY_COMPLETED, ""))));
+			} catch (final IOException | IllegalArgumentException e) {
+				// No or an invalid previous download
+				return new DownloadState(null, -1, -1, new BitSet());
+			}
+		}
+
+		private synchronized void complete(final int chunk, final Path stateFile) throws IOException {
+			m_completed.set(chunk);
+			save(stateFile);
+		}
+
+		private synchronized void save(final Path stateFile) throws IOException {
+			final Properties state = new Properties();
+			state.setProperty(KEY_VALIDATOR, m_validator);
+			state.setProperty(KEY_LENGTH, Long.toString(m_length));
+			state.setProperty(KEY_CHUNK_SIZE, Integer.toString(m_chunkSize));
+			state.setProperty(KEY_COMPLETED, Base64.getEncoder().encodeToString(m_completed.toByteArray()));
+			// Replace the file at once such that an interrupted download does not leave a corrupt state
+			final Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmp)) {
+				state.store(out, null);
+			}
+			Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
@@ -77,6 +77,21 @@ public void copyFilesToFileStore(final FileStore destination) throws IOException
 		TFSavedModelUtil.copySavedModelToFileStore(getSource().getURI().toURL(), destination);
 	}
 
+	@Override
+	public void copyMetadataToFileStore(final FileStore destination) throws IOException {
+		TFSavedModelUtil.copySavedModelMetadataToFileStore(getSource().getURI().toURL(), destination);
+	}
+
+	@Override
+	public void copyVariablesToFileStore(final FileStore destination) throws IOException {
+		TFSavedModelUtil.copySavedModelVariablesToFileStore(getSource().getURI().toURL(), destination);
+	}
+
+	@Override
+	public String describeVariables() throws IOException {
+		return TFSavedModelUtil.describeSavedModelVariables(getSource().getURI().toURL());
+	}
+
 	/**
 	 * Gives a directory where the SavedModel lies as a directory. If the SavedModel is was read from a ZIP file and not
 	 * copied into the KNIME workflow it gets extracted into a temporary directory.
@@ -87,4 +102,14 @@ public void copyFilesToFileStore(final FileStore destination) throws IOException
 	public File getSavedModelInDir() throws IOException {
 		return TFSavedModelUtil.getSavedModelInDir(getSource().getURI().toURL());
 	}
+
+	/**
+	 * Releases the directory returned by {@link #getSavedModelInDir()} such that it can be deleted from the SavedModel
+	 * cache. Must be called once for each call of {@link #getSavedModelInDir()}.
+	 *
+	 * @throws IOException if the source URL of the network is invalid
+	 */
+	public void releaseSavedModelInDir() throws IOException {
+		TFSavedModelUtil.releaseSavedModelInDir(getSource().getURI().toURL());
+	}
 }
@@ -0,0 +1,314 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.dl.core.DLInvalidSourceException;
+import org.knime.dl.core.DLTensorSpec;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session.Runner;
+import org.tensorflow.Tensor;
+import org.tensorflow.TensorFlowException;
+import org.tensorflow.framework.AttrValue;
+import org.tensorflow.framework.DataType;
+import org.tensorflow.framework.GraphDef;
+import org.tensorflow.framework.MetaGraphDef;
+import org.tensorflow.framework.NodeDef;
+import org.tensorflow.framework.SavedModel;
+import org.tensorflow.framework.SignatureDef;
+import org.tensorflow.framework.TensorInfo;
+import org.tensorflow.framework.TensorProto;
+import org.tensorflow.framework.TensorShapeProto;
+import org.tensorflow.framework.TensorShapeProto.Dim;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Optimizes a TensorFlow SavedModel for inference. The graph is pruned to the operations which are needed to compute
+ * the outputs of a network spec from its inputs and the variables in this subgraph are replaced by constants holding
+ * their current values. The optimized SavedModel contains no variables, no collections and no saver which drops
+ * optimizer slots, summaries and everything else which is only used for training.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSavedModelOptimizer {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelOptimizer.class);
+
+	private static final String SAVED_MODEL_FILE = "saved_model.pb";
+
+	private static final Set<String> VARIABLE_OPS = new HashSet<>(Arrays.asList("Variable", "VariableV2"));
+
+	private static final String RESOURCE_VARIABLE_OP = "VarHandleOp";
+
+	private static final String READ_RESOURCE_VARIABLE_OP = "ReadVariableOp";
+
+	/** Parts of the types of stateful operations which are initialized by an init op that is not kept */
+	private static final List<String> UNSUPPORTED_OP_PARTS = Arrays.asList("Table", "Iterator", "Queue", "Reader");
+
+	private TFSavedModelOptimizer() {
+		// Utility class
+	}
+
+	/**
+	 * Writes an optimized copy of a SavedModel which only contains the subgraph that computes the outputs of the given
+	 * network spec from its inputs. The variables of the subgraph are folded into constants.
+	 *
+	 * @param savedModelDir the directory containing the SavedModel
+	 * @param spec the spec of the network whose inputs and outputs are kept
+	 * @param destinationDir the directory to write the optimized SavedModel to
+	 * @throws DLInvalidSourceException if the SavedModel cannot be read or contains operations which cannot be
+	 *             optimized
+	 * @throws IOException if writing the optimized SavedModel failed
+	 */
+	public static void optimizeForInference(final File savedModelDir, final TFSavedModelNetworkSpec spec,
+			final File destinationDir) throws DLInvalidSourceException, IOException {
+		final SavedModel savedModel = TFSavedModelUtil.readSavedModelProtoBuf(savedModelDir.toURI().toURL());
+		final String[] tags = spec.getTags();
+		final MetaGraphDef metaGraphDef = savedModel.getMetaGraphsList().stream()
+				.filter(m -> m.getMetaInfoDef().getTagsList().containsAll(Arrays.asList(tags))).findFirst()
+				.orElseThrow(() -> new DLInvalidSourceException(
+						"The SavedModel contains no Meta-Graph with the given tags."));
+		final GraphDef graphDef = metaGraphDef.getGraphDef();
+		final Map<String, NodeDef> nodes = new LinkedHashMap<>();
+		graphDef.getNodeList().forEach(n -> nodes.put(n.getName(), n));
+
+		final Set<String> inputOps = Arrays.stream(spec.getInputSpecs()).map(TFSavedModelOptimizer::opName)
+				.collect(Collectors.toSet());
+		final Set<String> outputOps = Stream.concat(Arrays.stream(spec.getOutputSpecs()),
+				Arrays.stream(spec.getHiddenOutputSpecs())).map(TFSavedModelOptimizer::opName)
+				.collect(Collectors.toSet());
+
+		// Find the variables which are needed for the outputs
+		final Set<String> needed = collectNeeded(nodes, inputOps, outputOps);
+		final Map<String, String> variableReads = new LinkedHashMap<>();
+		for (final String name : needed) {
+			final NodeDef node = nodes.get(name);
+			checkSupported(node);
+			if (VARIABLE_OPS.contains(node.getOp())) {
+				variableReads.put(name, name + ":0");
+			} else if (READ_RESOURCE_VARIABLE_OP.equals(node.getOp())
+					&& RESOURCE_VARIABLE_OP.equals(getOpType(nodes, node.getInput(0)))) {
+				variableReads.put(name, name + ":0");
+			}
+		}
+
+		// Replace the variables by constants and prune again to drop the resource handles
+		for (final Map.Entry<String, TensorProto> value : readValues(savedModelDir, tags, variableReads).entrySet()) {
+			final NodeDef node = nodes.get(value.getKey());
+			nodes.put(node.getName(), createConst(node, value.getValue()));
+		}
+		final Set<String> kept = collectNeeded(nodes, inputOps, outputOps);
+		for (final String name : kept) {
+			final String op = nodes.get(name).getOp();
+			if (RESOURCE_VARIABLE_OP.equals(op) || VARIABLE_OPS.contains(op)) {
+				throw new DLInvalidSourceException("The variable \"" + name + "\" is used by an operation which "
+						+ "cannot be optimized for inference.");
+			}
+		}
+
+		final GraphDef.Builder optimizedGraph = graphDef.toBuilder().clearNode();
+		nodes.values().stream().filter(n -> kept.contains(n.getName())).forEach(optimizedGraph::addNode);
+		final MetaGraphDef.Builder optimizedMetaGraph = MetaGraphDef.newBuilder() //
+				.setMetaInfoDef(metaGraphDef.getMetaInfoDef()) //
+				.setGraphDef(optimizedGraph);
+		for (final Map.Entry<String, SignatureDef> signature : metaGraphDef.getSignatureDefMap().entrySet()) {
+			// Only keep signatures which can still be computed
+			if (Stream.concat(signature.getValue().getInputsMap().values().stream(),
+					signature.getValue().getOutputsMap().values().stream()).map(TensorInfo::getName)
+					.allMatch(t -> kept.contains(opName(t)))) {
+				optimizedMetaGraph.putSignatureDef(signature.getKey(), signature.getValue());
+			}
+		}
+		final SavedModel optimized = SavedModel.newBuilder() //
+				.setSavedModelSchemaVersion(savedModel.getSavedModelSchemaVersion()) //
+				.addMetaGraphs(optimizedMetaGraph) //
+				.build();
+
+		Files.createDirectories(destinationDir.toPath());
+		try (final OutputStream out = Files.newOutputStream(new File(destinationDir, SAVED_MODEL_FILE).toPath())) {
+			optimized.writeTo(out);
+		}
+		LOGGER.debug("Optimized the SavedModel for inference: kept " + optimizedGraph.getNodeCount() + " of "
+				+ graphDef.getNodeCount() + " operations and folded " + variableReads.size()
+				+ " variables into constants.");
+	}
+
+	/** Collects the operations which are transitively needed for the outputs without looking behind placeholders */
+	private static Set<String> collectNeeded(final Map<String, NodeDef> nodes, final Set<String> inputOps,
+			final Set<String> outputOps) throws DLInvalidSourceException {
+		final Set<String> needed = new HashSet<>();
+		final Deque<String> queue = new ArrayDeque<>(outputOps);
+		while (!queue.isEmpty()) {
+			final String name = queue.poll();
+			if (!needed.add(name)) {
+				continue;
+			}
+			final NodeDef node = nodes.get(name);
+			if (node == null) {
+				throw new DLInvalidSourceException("The graph doesn't contain the operation \"" + name + "\".");
+			}
+			if (inputOps.contains(name) && "Placeholder".equals(node.getOp())) {
+				continue;
+			}
+			// Control inputs start with a '^'
+			node.getInputList().forEach(i -> queue.add(opName(i.startsWith("^") ? i.substring(1) : i)));
+		}
+		return needed;
+	}
+
+	private static void checkSupported(final NodeDef node) throws DLInvalidSourceException {
+		for (final String part : UNSUPPORTED_OP_PARTS) {
+			if (node.getOp().contains(part)) {
+				throw new DLInvalidSourceException("The operation \"" + node.getName() + "\" of type \""
+						+ node.getOp() + "\" needs an initialization and cannot be optimized for inference.");
+			}
+		}
+	}
+
+	private static String getOpType(final Map<String, NodeDef> nodes, final String input) {
+		final NodeDef node = nodes.get(opName(input));
+		return node == null ? null : node.getOp();
+	}
+
+	/** Runs the variable reads in a session of the original SavedModel */
+	private static Map<String, TensorProto> readValues(final File savedModelDir, final String[] tags,
+			final Map<String, String> variableReads) throws DLInvalidSourceException {
+		final Map<String, TensorProto> values = new HashMap<>(variableReads.size());
+		if (variableReads.isEmpty()) {
+			return values;
+		}
+		try (final SavedModelBundle bundle = SavedModelBundle.load(savedModelDir.getAbsolutePath(), tags)) {
+			final Runner runner = bundle.session().runner();
+			final List<String> names = variableReads.keySet().stream().collect(Collectors.toList());
+			names.forEach(n -> runner.fetch(variableReads.get(n)));
+			final List<Tensor<?>> tensors = runner.run();
+			try {
+				for (int i = 0; i < names.size(); i++) {
+					values.put(names.get(i), toTensorProto(names.get(i), tensors.get(i)));
+				}
+			} finally {
+				tensors.forEach(Tensor::close);
+			}
+		} catch (final TensorFlowException | IllegalArgumentException e) {
+			throw new DLInvalidSourceException("Could not read the values of the variables.", e);
+		}
+		return values;
+	}
+
+	private static TensorProto toTensorProto(final String name, final Tensor<?> tensor)
+			throws DLInvalidSourceException {
+		final TensorShapeProto.Builder shape = TensorShapeProto.newBuilder();
+		for (final long dim : tensor.shape()) {
+			shape.addDim(Dim.newBuilder().setSize(dim));
+		}
+		final ByteBuffer content = ByteBuffer.allocate(tensor.numBytes()).order(ByteOrder.nativeOrder());
+		tensor.writeTo(content);
+		content.flip();
+		return TensorProto.newBuilder() //
+				.setDtype(toDataType(name, tensor.dataType())) //
+				.setTensorShape(shape) //
+				.setTensorContent(ByteString.copyFrom(content)) //
+				.build();
+	}
+
+	private static DataType toDataType(final String name, final org.tensorflow.DataType dataType)
+			throws DLInvalidSourceException {
+		switch (dataType) {
+		case FLOAT:
+			return DataType.DT_FLOAT;
+		case DOUBLE:
+			return DataType.DT_DOUBLE;
+		case INT32:
+			return DataType.DT_INT32;
+		case INT64:
+			return DataType.DT_INT64;
+		case UINT8:
+			return DataType.DT_UINT8;
+		case BOOL:
+			return DataType.DT_BOOL;
+		default:
+			throw new DLInvalidSourceException("The variable \"" + name + "\" has the type " + dataType
+					+ " which cannot be folded into a constant.");
+		}
+	}
+
+	private static NodeDef createConst(final NodeDef variable, final TensorProto value) {
+		return NodeDef.newBuilder() //
+				.setName(variable.getName()) //
+				.setOp("Const") //
+				.putAttr("dtype", AttrValue.newBuilder().setType(value.getDtype()).build()) //
+				.putAttr("value", AttrValue.newBuilder().setTensor(value).build()) //
+				.build();
+	}
+
+	private static String opName(final DLTensorSpec spec) {
+		return opName(spec.getIdentifier().getIdentifierString());
+	}
+
+	private static String opName(final String tensorName) {
+		return tensorName.contains(":") ? tensorName.substring(0, tensorName.lastIndexOf(':')) : tensorName;
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.dl.core.DLInvalidSourceException;
+import org.tensorflow.framework.AttrValue;
+import org.tensorflow.framework.DataType;
+import org.tensorflow.framework.GraphDef;
+import org.tensorflow.framework.MetaGraphDef;
+import org.tensorflow.framework.NodeDef;
+import org.tensorflow.framework.SavedModel;
+import org.tensorflow.framework.TensorProto;
+import org.tensorflow.framework.TensorShapeProto;
+import org.tensorflow.framework.TensorShapeProto.Dim;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Quantizes the weights of a TensorFlow SavedModel whose variables have been folded into constants (see
+ * {@link TFSavedModelOptimizer}). Large float constants are stored with fewer bits and converted back to float by an
+ * operation which takes the name of the original constant. The computations still run in float precision, only the
+ * size of the model and the memory for loading it shrink.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFSavedModelQuantizer {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelQuantizer.class);
+
+	private static final String SAVED_MODEL_FILE = "saved_model.pb";
+
+	/** The number of values of an unsigned 8-bit integer minus one */
+	private static final float QUINT8_RANGE = 255;
+
+	/**
+	 * The types the weights can be quantized to.
+	 */
+	public enum WeightType {
+		/** Unsigned 8-bit integers with a float minimum and maximum per weight tensor. */
+		INT8("8-bit integer"),
+		/** 16-bit floats. */
+		FLOAT16("16-bit float");
+
+		private final String m_name;
+
+		WeightType(final String name) {
+			m_name = name;
+		}
+
+		/**
+		 * @return the human readable name of the type
+		 */
+		public String getName() {
+			return m_name;
+		}
+
+		/**
+		 * @param name the human readable name of a type
+		 * @return the type with the given name
+		 * @throws IllegalArgumentException if no type has the given name
+		 */
+		public static WeightType fromName(final String name) {
+			for (final WeightType t : values()) {
+				if (t.m_name.equals(name)) {
+					return t;
+				}
+			}
+			throw new IllegalArgumentException("No weight type with the name \"" + name + "\" exists.");
+		}
+	}
+
+	private TFSavedModelQuantizer() {
+		// Utility class
+	}
+
+	/**
+	 * Quantizes the weights of the SavedModel in the given directory in place. The SavedModel must not contain
+	 * variables.
+	 *
+	 * @param savedModelDir the directory containing the SavedModel
+	 * @param type the type to quantize the weights to
+	 * @param minElements the minimum number of elements of a constant to be quantized. Smaller constants are kept.
+	 * @throws DLInvalidSourceException if the SavedModel cannot be read
+	 * @throws IOException if writing the quantized SavedModel failed
+	 */
+	public static void quantizeWeights(final File savedModelDir, final WeightType type, final long minElements)
+			throws DLInvalidSourceException, IOException {
+		final SavedModel savedModel = TFSavedModelUtil.readSavedModelProtoBuf(savedModelDir.toURI().toURL());
+		final SavedModel.Builder quantized = savedModel.toBuilder();
+		for (final MetaGraphDef.Builder metaGraph : quantized.getMetaGraphsBuilderList()) {
+			final GraphDef graph = metaGraph.getGraphDef();
+			final GraphDef quantizedGraph = quantizeGraph(graph, type, minElements);
+			LOGGER.debug("Quantized the weights to " + type.getName() + ": " + graph.getSerializedSize()
+					+ " bytes before, " + quantizedGraph.getSerializedSize() + " bytes after.");
+			metaGraph.setGraphDef(quantizedGraph);
+		}
+		try (final OutputStream out = Files.newOutputStream(new File(savedModelDir, SAVED_MODEL_FILE).toPath())) {
+			quantized.build().writeTo(out);
+		}
+	}
+
+	/**
+	 * Replaces the float constants of the graph with at least the given number of elements by quantized constants
+	 * followed by an operation converting them back to float.
+	 *
+	 * @param graph the graph
+	 * @param type the type to quantize the weights to
+	 * @param minElements the minimum number of elements of a constant to be quantized
+	 * @return the graph with quantized weights
+	 */
+	static GraphDef quantizeGraph(final GraphDef graph, final WeightType type, final long minElements) {
+		final Set<String> names = new HashSet<>();
+		graph.getNodeList().forEach(n -> names.add(n.getName()));
+		final GraphDef.Builder quantized = graph.toBuilder().clearNode();
+		for (final NodeDef node : graph.getNodeList()) {
+			final float[] values = getFloatValues(node);
+			if (values == null || values.length < minElements) {
+				quantized.addNode(node);
+			} else if (type == WeightType.INT8) {
+				quantizeToInt8(node, values, names, quantized);
+			} else {
+				quantizeToFloat16(node, values, names, quantized);
+			}
+		}
+		return quantized.build();
+	}
+
+	private static void quantizeToInt8(final NodeDef node, final float[] values, final Set<String> names,
+			final GraphDef.Builder graph) {
+		float min = Float.POSITIVE_INFINITY;
+		float max = Float.NEGATIVE_INFINITY;
+		for (final float v : values) {
+			min = Math.min(min, v);
+			max = Math.max(max, v);
+		}
+		final String valueName = node.getName() + "/quantized_value";
+		final String minName = node.getName() + "/quantized_min";
+		final String maxName = node.getName() + "/quantized_max";
+		if (!(min < max) || names.contains(valueName) || names.contains(minName) || names.contains(maxName)) {
+			// Constant, NaN or infinite values or the names are taken
+			graph.addNode(node);
+			return;
+		}
+		final double scale = QUINT8_RANGE / ((double) max - min);
+		final byte[] quantized = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			quantized[i] = (byte) Math.round((values[i] - min) * scale);
+		}
+		final TensorShapeProto shape = getShape(node);
+		graph.addNode(createConst(valueName, TensorProto.newBuilder() //
+				.setDtype(DataType.DT_QUINT8) //
+				.setTensorShape(shape) //
+				.setTensorContent(ByteString.copyFrom(quantized)) //
+				.build()));
+		graph.addNode(createConst(minName, createScalar(min)));
+		graph.addNode(createConst(maxName, createScalar(max)));
+		// MIN_COMBINED: out = min + in * (max - min) / 255
+		graph.addNode(NodeDef.newBuilder() //
+				.setName(node.getName()) //
+				.setOp("Dequantize") //
+				.setDevice(node.getDevice()) //
+				.addInput(valueName) //
+				.addInput(minName) //
+				.addInput(maxName) //
+				.putAttr("T", AttrValue.newBuilder().setType(DataType.DT_QUINT8).build()) //
+				.putAttr("mode", AttrValue.newBuilder().setS(ByteString.copyFromUtf8("MIN_COMBINED")).build()) //
+				.build());
+	}
+
+	private static void quantizeToFloat16(final NodeDef node, final float[] values, final Set<String> names,
+			final GraphDef.Builder graph) {
+		final String valueName = node.getName() + "/half_value";
+		if (names.contains(valueName)) {
+			graph.addNode(node);
+			return;
+		}
+		final ByteBuffer half = ByteBuffer.allocate(values.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+		for (final float v : values) {
+			half.putShort(toHalf(v));
+		}
+		half.flip();
+		graph.addNode(createConst(valueName, TensorProto.newBuilder() //
+				.setDtype(DataType.DT_HALF) //
+				.setTensorShape(getShape(node)) //
+				.setTensorContent(ByteString.copyFrom(half)) //
+				.build()));
+		graph.addNode(NodeDef.newBuilder() //
+				.setName(node.getName()) //
+				.setOp("Cast") //
+				.setDevice(node.getDevice()) //
+				.addInput(valueName) //
+				.putAttr("SrcT", AttrValue.newBuilder().setType(DataType.DT_HALF).build()) //
+				.putAttr("DstT", AttrValue.newBuilder().setType(DataType.DT_FLOAT).build()) //
+				.build());
+	}
+
+	/**
+	 * Converts a float to the bits of the nearest 16-bit float (ties to even).
+	 *
+	 * @param value the float value
+	 * @return the bits of the 16-bit float
+	 */
+	static short toHalf(final float value) {
+		final int bits = Float.floatToIntBits(value);
+		final int sign = (bits >>> 16) & 0x8000;
+		final int floatExp = (bits >>> 23) & 0xff;
+		int mantissa = bits & 0x7fffff;
+		if (floatExp == 0xff) {
+			// NaN or infinity
+			return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+		}
+		final int exp = floatExp - 127 + 15;
+		if (exp >= 0x1f) {
+			// Too large: infinity
+			return (short) (sign | 0x7c00);
+		}
+		if (exp <= 0) {
+			if (exp < -10) {
+				// Too small: zero
+				return (short) sign;
+			}
+			// Subnormal 16-bit float: add the implicit leading bit and shift it into the mantissa
+			mantissa |= 0x800000;
+			final int shift = 14 - exp;
+			return (short) (sign | roundToEven(mantissa, shift));
+		}
+		// A carry of the rounding correctly increments the exponent
+		return (short) (sign | ((exp << 10) + roundToEven(mantissa, 13)));
+	}
+
+	private static int roundToEven(final int value, final int shift) {
+		final int truncated = value >> shift;
+		final int remainder = value & ((1 << shift) - 1);
+		final int halfway = 1 << (shift - 1);
+		if (remainder > halfway || (remainder == halfway && (truncated & 1) != 0)) {
+			return truncated + 1;
+		}
+		return truncated;
+	}
+
+	/** Gives the values of a float constant or null if the node is not a float constant or uses a splat value */
+	private static float[] getFloatValues(final NodeDef node) {
+		if (!"Const".equals(node.getOp()) || !node.containsAttr("value")) {
+			return null;
+		}
+		final TensorProto tensor = node.getAttrOrThrow("value").getTensor();
+		if (tensor.getDtype() != DataType.DT_FLOAT) {
+			return null;
+		}
+		long numElements = 1;
+		for (final Dim dim : tensor.getTensorShape().getDimList()) {
+			numElements *= dim.getSize();
+		}
+		if (!tensor.getTensorContent().isEmpty()) {
+			final float[] values = new float[tensor.getTensorContent().size() / Float.BYTES];
+			tensor.getTensorContent().asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer()
+					.get(values);
+			return values.length == numElements ? values : null;
+		}
+		if (tensor.getFloatValCount() == numElements) {
+			final float[] values = new float[tensor.getFloatValCount()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = tensor.getFloatVal(i);
+			}
+			return values;
+		}
+		return null;
+	}
+
+	private static TensorShapeProto getShape(final NodeDef node) {
+		return node.getAttrOrThrow("value").getTensor().getTensorShape();
+	}
+
+	private static TensorProto createScalar(final float value) {
+		return TensorProto.newBuilder() //
+				.setDtype(DataType.DT_FLOAT) //
+				.setTensorShape(TensorShapeProto.getDefaultInstance()) //
+				.addFloatVal(value) //
+				.build();
+	}
+
+	private static NodeDef createConst(final String name, final TensorProto value) {
+		return NodeDef.newBuilder() //
+				.setName(name) //
+				.setOp("Const") //
+				.putAttr("dtype", AttrValue.newBuilder().setType(value.getDtype()).build()) //
+				.putAttr("value", AttrValue.newBuilder().setTensor(value).build()) //
+				.build();
+	}
+}
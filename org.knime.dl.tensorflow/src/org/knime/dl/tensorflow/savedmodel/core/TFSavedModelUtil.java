@@ -46,28 +46,54 @@
  */
 package org.knime.dl.tensorflow.savedmodel.core;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.lang3.SystemUtils;
 import org.knime.core.data.filestore.FileStore;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.util.FileUtil;
+import org.knime.core.util.ThreadUtils;
 import org.knime.dl.core.DLInvalidSourceException;
+import org.knime.dl.tensorflow.common.TFSavedModelStore;
+import org.knime.dl.tensorflow.common.TFSavedModelZip;
 import org.tensorflow.framework.SavedModel;
 
+import com.google.protobuf.CodedInputStream;
+
 /**
  * Utility class for handling TensorFlow SavedModels.
  *
@@ -75,11 +101,21 @@
  */
 public class TFSavedModelUtil {
 
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelUtil.class);
+
 	private static final String SAVED_MODEL_REGEX = "^.*saved_model.pb$" + "|^.*variables(/.*|\\.*)?$"
 			+ "|^.*assets(/.*|\\.*)?$";
 
-	/** Map saving which files already have been extracted to a folder. */
-	private static final Map<URL, File> CACHED_MODELS = new ConcurrentHashMap<>();
+	/** Map saving which files already have been extracted (or are being extracted) to a folder. */
+	private static final Map<URL, CompletableFuture<File>> CACHED_MODELS = new ConcurrentHashMap<>();
+
+	/** Extracts SavedModels in the background. The node context of the caller is available in the tasks */
+	private static final ExecutorService PREFETCH_EXECUTOR = ThreadUtils
+			.executorServiceWithContext(Executors.newFixedThreadPool(2, r -> {
+				final Thread thread = new Thread(r, "TensorFlow SavedModel Prefetch");
+				thread.setDaemon(true);
+				return thread;
+			}));
 
 	private TFSavedModelUtil() {
 		// Utility class
@@ -89,6 +125,17 @@ private static enum SavedModelType {
 		LOCAL_DIR, LOCAL_ZIP, REMOTE_ZIP;
 	}
 
+	/** The files of a SavedModel which are copied */
+	private static enum SavedModelPart {
+		ALL, METADATA, VARIABLES;
+
+		/** @param relative the path of a file or directory relative to the SavedModel directory */
+		private boolean includes(final String relative) {
+			final boolean variables = relative.equals("variables") || relative.startsWith("variables/");
+			return this == ALL || (this == VARIABLES) == variables;
+		}
+	}
+
 	/**
 	 * Deletes the temporary directory for the given source if it points to a local zip file which has been extracted
 	 * before.
@@ -100,9 +147,55 @@ public static void deleteTempIfLocal(final URL source) {
 			// If it's not a local zip: Do nothing
 			return;
 		}
-		final File tmp = CACHED_MODELS.remove(source);
-		if (tmp != null) {
-			FileUtil.deleteRecursively(tmp);
+		final CompletableFuture<File> extraction = CACHED_MODELS.remove(source);
+		if (extraction != null) {
+			// Delete the directory once an extraction in progress is done
+			extraction.thenAccept(FileUtil::deleteRecursively);
+		}
+	}
+
+	/**
+	 * Starts downloading and extracting the SavedModel at the given source in the background if it is a ZIP file (local
+	 * or remote). A later call of {@link #getSavedModelInDir(URL)} waits for this extraction instead of starting
+	 * another one. Does nothing for SavedModel directories and models which have been extracted before.
+	 *
+	 * @param source a URL pointing to the SavedModel
+	 */
+	public static void prefetchSavedModel(final URL source) {
+		if (getSavedModelType(source) == SavedModelType.LOCAL_DIR) {
+			return;
+		}
+		final CompletableFuture<File> extraction = new CompletableFuture<>();
+		if (CACHED_MODELS.putIfAbsent(source, extraction) == null) {
+			PREFETCH_EXECUTOR.execute(() -> extract(source, extraction));
+		}
+	}
+
+	/**
+	 * Checks cheaply if the given source can be a SavedModel without parsing it: A local directory must contain a
+	 * <code>saved_model.pb</code> file and a local ZIP file must exist. Remote files are not checked.
+	 *
+	 * @param source URL to the SavedModel directory or zip file
+	 * @throws DLInvalidSourceException if the source is no SavedModel
+	 */
+	public static void checkSavedModelSource(final URL source) throws DLInvalidSourceException {
+		switch (getSavedModelType(source)) {
+		case LOCAL_DIR:
+			if (!new File(FileUtil.getFileFromURL(source), "saved_model.pb").isFile()) {
+				throw new DLInvalidSourceException(
+						"The directory '" + source + "' is no SavedModel: It does not contain a saved_model.pb file.");
+			}
+			break;
+
+		case LOCAL_ZIP:
+			if (!FileUtil.getFileFromURL(source).isFile()) {
+				throw new DLInvalidSourceException("The SavedModel file '" + source + "' does not exist.");
+			}
+			break;
+
+		default:
+			// Checked when the file is downloaded
+			break;
 		}
 	}
 
@@ -129,10 +222,16 @@ public static SavedModel readSavedModelProtoBuf(final URL source) throws DLInval
 				try {
 					return readSavedModelFromDir(tmp);
 				} catch (final DLInvalidSourceException e) {
-					// Delete the temp directory
+					// Delete the temp directory or the cache entry
 					CACHED_MODELS.remove(source);
-					FileUtil.deleteRecursively(tmp);
+					if (TFSavedModelCache.getInstance().isEnabled()) {
+						TFSavedModelCache.getInstance().invalidate(source);
+					} else {
+						FileUtil.deleteRecursively(tmp);
+					}
 					throw e;
+				} finally {
+					releaseSavedModelInDir(source);
 				}
 
 			case LOCAL_ZIP:
@@ -151,26 +250,120 @@ public static SavedModel readSavedModelProtoBuf(final URL source) throws DLInval
 	}
 
 	/**
-	 * Copies the SavedModel at the given source to the given FileStore.
+	 * Copies the SavedModel at the given source to the given FileStore. The files are linked to the
+	 * {@link TFSavedModelStore} if possible such that the same model is only stored once on disk.
 	 *
 	 * @param source a URL pointing to the SavedModel
 	 * @param destination the FileStore
 	 * @throws IOException if copying the model fails
 	 */
 	public static void copySavedModelToFileStore(final URL source, final FileStore destination) throws IOException {
+		copySavedModelToFileStore(source, destination, SavedModelPart.ALL);
+	}
+
+	/**
+	 * Copies the graph (saved_model.pb) and the assets of the SavedModel at the given source to the given FileStore.
+	 * The variables, which make up most of the size of a SavedModel, are copied by
+	 * {@link #copySavedModelVariablesToFileStore(URL, FileStore)}.
+	 *
+	 * @param source a URL pointing to the SavedModel
+	 * @param destination the FileStore
+	 * @throws IOException if copying the model fails
+	 */
+	public static void copySavedModelMetadataToFileStore(final URL source, final FileStore destination)
+			throws IOException {
+		copySavedModelToFileStore(source, destination, SavedModelPart.METADATA);
+	}
+
+	/**
+	 * Copies the variables of the SavedModel at the given source to the given FileStore.
+	 *
+	 * @param source a URL pointing to the SavedModel
+	 * @param destination the FileStore
+	 * @throws IOException if copying the model fails
+	 * @see #copySavedModelMetadataToFileStore(URL, FileStore)
+	 */
+	public static void copySavedModelVariablesToFileStore(final URL source, final FileStore destination)
+			throws IOException {
+		copySavedModelToFileStore(source, destination, SavedModelPart.VARIABLES);
+	}
+
+	/**
+	 * Describes the current state of the variables of the SavedModel at the given source by the sizes and
+	 * modification times of their files. Copying the variables later with
+	 * {@link #copySavedModelVariablesToFileStore(URL, FileStore)} only gives the same variables if the state did not
+	 * change in the meantime.
+	 *
+	 * @param source a URL pointing to the SavedModel
+	 * @return the state of the variables
+	 * @throws IOException if the SavedModel cannot be read, e.g. because it has been deleted
+	 */
+	public static String describeSavedModelVariables(final URL source) throws IOException {
+		switch (getSavedModelType(source)) {
+		case LOCAL_DIR:
+			final Path dir = FileUtil.getFileFromURL(source).toPath();
+			final StringBuilder state = new StringBuilder();
+			try (Stream<Path> paths = Files.walk(dir)) {
+				for (final Path file : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+					final String relative = TFSavedModelZip.toZipEntryName(dir.relativize(file));
+					if (SavedModelPart.VARIABLES.includes(relative)) {
+						state.append(relative).append('\t').append(Files.size(file)).append('\t')
+								.append(Files.getLastModifiedTime(file).toMillis()).append('\n');
+					}
+				}
+			}
+			return state.toString();
+
+		case LOCAL_ZIP:
+			final Path zip = FileUtil.getFileFromURL(source).toPath();
+			return Files.size(zip) + "\t" + Files.getLastModifiedTime(zip).toMillis();
+
+		case REMOTE_ZIP:
+			if (!isCached(source)) {
+				// The variables are extracted together with the metadata
+				return "";
+			}
+			// The directory of a cached SavedModel is named after the hash of the ZIP file
+			try {
+				return getSavedModelInDir(source).getName();
+			} finally {
+				releaseSavedModelInDir(source);
+			}
+
+		default:
+			// We know that we handled all cases
+			return "";
+		}
+	}
+
+	private static void copySavedModelToFileStore(final URL source, final FileStore destination,
+			final SavedModelPart part) throws IOException {
 		final File destinationFile = destination.getFile();
 
 		switch (getSavedModelType(source)) {
 		case LOCAL_DIR:
-			copyDirToFile(FileUtil.getFileFromURL(source), destinationFile);
+			copyDirToFile(FileUtil.getFileFromURL(source), destinationFile, TFSavedModelStore.getInstance(), part);
 			break;
 
 		case LOCAL_ZIP:
-			extractZipToFile(source, destinationFile);
+			// Only the entries of the part are read
+			extractZipToFile(FileUtil.getFileFromURL(source), destinationFile, part);
+			TFSavedModelStore.getInstance().deduplicate(destinationFile.toPath());
 			break;
 
 		case REMOTE_ZIP:
-			extractZipToFile(source, destinationFile);
+			if (TFSavedModelCache.getInstance().isEnabled()) {
+				// Copy the cached SavedModel instead of downloading the file again
+				try {
+					copyDirToFile(getSavedModelInDir(source), destinationFile, TFSavedModelStore.getInstance(), part);
+				} finally {
+					releaseSavedModelInDir(source);
+				}
+			} else if (part != SavedModelPart.VARIABLES) {
+				// The whole file must be read anyway: The variables are extracted together with the metadata
+				extractZipToFile(source, destinationFile);
+				TFSavedModelStore.getInstance().deduplicate(destinationFile.toPath());
+			}
 			break;
 		}
 	}
@@ -179,6 +372,9 @@ public static void copySavedModelToFileStore(final URL source, final FileStore d
 	 * Gives a directory where the SavedModel at the given source can be read from. If the source points to a local
 	 * directory this function will only return this directory. If it points to a zip file (local or remote) it will
 	 * extract the file to a directory. If the ZIP file has been extracted before the same directory is returned.
+	 * Remote ZIP files are extracted to the {@link TFSavedModelCache} if it is enabled. The caller must call
+	 * {@link #releaseSavedModelInDir(URL)} once it does not need the directory anymore such that the cache can delete
+	 * it.
 	 *
 	 * @param source a URL pointing to the SavedModel
 	 * @return a file pointing to a directory containing the SavedModel
@@ -191,24 +387,22 @@ public static File getSavedModelInDir(final URL source) throws IOException {
 
 		case LOCAL_ZIP:
 		case REMOTE_ZIP:
-			// Check if the zip file already has been extracted
-			if (CACHED_MODELS.containsKey(source)) {
-				return CACHED_MODELS.get(source);
-			}
-			// Extract the zip file and remember
-			// TODO the KNIME API description is wrong here:
-			// final File extracted = FileUtil.createTempDir("SavedModel");
-			final File extracted = FileUtil.createTempDir("SavedModel", FileUtils.getTempDirectory());
-			try {
-				extractZipToFile(source, extracted);
-			} catch (final IOException e) {
-				// Delete the temp directory
-				CACHED_MODELS.remove(source);
-				FileUtil.deleteRecursively(extracted);
-				throw e;
+			while (true) {
+				// Check if the zip file already has been extracted or is being extracted in the background
+				final CompletableFuture<File> extraction = new CompletableFuture<>();
+				final CompletableFuture<File> cached = CACHED_MODELS.putIfAbsent(source, extraction);
+				if (cached == null) {
+					// Extract the zip file and remember
+					extract(source, extraction);
+				}
+				final CompletableFuture<File> current = cached != null ? cached : extraction;
+				final File dir = awaitExtraction(current);
+				if (!isCached(source) || TFSavedModelCache.getInstance().pin(source, dir)) {
+					return dir;
+				}
+				// Evicted from the cache in the meantime
+				CACHED_MODELS.remove(source, current);
 			}
-			CACHED_MODELS.put(source, extracted);
-			return extracted;
 
 		default:
 			// We know that we handled all cases
@@ -216,6 +410,77 @@ public static File getSavedModelInDir(final URL source) throws IOException {
 		}
 	}
 
+	/**
+	 * Releases the directory of the SavedModel at the given source returned by {@link #getSavedModelInDir(URL)} such
+	 * that the {@link TFSavedModelCache} can delete it. Must be called once for each call of
+	 * {@link #getSavedModelInDir(URL)}.
+	 *
+	 * @param source a URL pointing to the SavedModel
+	 */
+	public static void releaseSavedModelInDir(final URL source) {
+		if (isCached(source)) {
+			try {
+				TFSavedModelCache.getInstance().release(source);
+			} catch (final IOException e) {
+				LOGGER.debug("Could not release the cached SavedModel at '" + source + "'.", e);
+			}
+		}
+	}
+
+	/** If the SavedModel at the given source is extracted to the {@link TFSavedModelCache} */
+	private static boolean isCached(final URL source) {
+		return getSavedModelType(source) == SavedModelType.REMOTE_ZIP && TFSavedModelCache.getInstance().isEnabled();
+	}
+
+	/**
+	 * Extracts the ZIP file to the cache or a new temporary directory and completes the future with the directory. A
+	 * SavedModel in the cache is not marked as used: Each caller of {@link #getSavedModelInDir(URL)} marks it itself.
+	 */
+	private static void extract(final URL source, final CompletableFuture<File> extraction) {
+		try {
+			if (isCached(source)) {
+				final File model = TFSavedModelCache.getInstance().get(source);
+				TFSavedModelCache.getInstance().release(source);
+				extraction.complete(model);
+			} else {
+				extraction.complete(extractToTemp(source));
+			}
+		} catch (final IOException | RuntimeException e) {
+			CACHED_MODELS.remove(source, extraction);
+			extraction.completeExceptionally(e);
+		}
+	}
+
+	private static File extractToTemp(final URL source) throws IOException {
+		// TODO the KNIME API description is wrong here:
+		// final File extracted = FileUtil.createTempDir("SavedModel");
+		final File extracted = FileUtil.createTempDir("SavedModel", FileUtils.getTempDirectory());
+		try {
+			extractZipToFile(source, extracted);
+		} catch (final IOException | RuntimeException e) {
+			// Delete the temp directory
+			FileUtil.deleteRecursively(extracted);
+			throw e;
+		}
+		return extracted;
+	}
+
+	/** Waits for the extraction and rethrows its exception */
+	private static File awaitExtraction(final CompletableFuture<File> extraction) throws IOException {
+		try {
+			return extraction.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the extraction of the SavedModel.");
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Extracting the SavedModel failed: " + cause.getMessage(), cause);
+		}
+	}
+
 	/**
 	 * Checks if the given URL points to a local directory.
 	 *
@@ -241,45 +506,115 @@ private static SavedModelType getSavedModelType(final URL source) {
 	}
 
 	/**
-	 * Extracts the zip file at the given source URL to the destination which should be an empty directory.
+	 * Extracts the zip file at the given source URL to the destination which should be an empty directory. Files on
+	 * HTTP servers are downloaded with the {@link TFSavedModelDownloader} first. Other files are extracted while
+	 * reading them.
 	 *
 	 * @param source the source URL (Every URL where KNIME can open an InputStream on)
 	 * @param destination the destination file
 	 */
 	private static void extractZipToFile(final URL source, final File destination) throws IOException {
+		if (TFSavedModelDownloader.isSupported(source)) {
+			final File zip = FileUtil.createTempFile("SavedModel", ".zip");
+			try {
+				new TFSavedModelDownloader().download(source, zip.toPath());
+				extractZipToFile(zip, destination);
+			} finally {
+				Files.deleteIfExists(zip.toPath());
+			}
+			return;
+		}
+		try (final InputStream fileStream = FileUtil.openStreamWithTimeout(source)) {
+			extractZipToFile(fileStream, destination);
+		}
+	}
+
+	/**
+	 * Extracts the SavedModel in the local zip file to the destination which should be an empty directory. Only the
+	 * entries of the SavedModel are read.
+	 *
+	 * @param zip the local zip file
+	 * @param destination the destination file
+	 */
+	static void extractZipToFile(final File zip, final File destination) throws IOException {
+		extractZipToFile(zip, destination, SavedModelPart.ALL);
+	}
+
+	private static void extractZipToFile(final File zip, final File destination, final SavedModelPart part)
+			throws IOException {
+		createDirs(destination);
+		final Path destinationPath = destination.toPath().normalize();
+		try (ZipFile zipFile = new ZipFile(zip)) {
+			// The prefix from the root of the zip file to the SavedModel
+			String prefix = "";
+			for (final ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+				final String name = entry.getName();
+				if (name.endsWith("saved_model.pb")) {
+					prefix = name.substring(0, name.lastIndexOf("saved_model.pb"));
+					break;
+				}
+			}
+			for (final ZipArchiveEntry entry : Collections.list(zipFile.getEntriesInPhysicalOrder())) {
+				final String name = entry.getName();
+				if (!name.startsWith(prefix) || !name.matches(SAVED_MODEL_REGEX)
+						|| !part.includes(name.substring(prefix.length()))) {
+					continue;
+				}
+				final Path destFile = destinationPath.resolve(name.substring(prefix.length())).normalize();
+				if (!destFile.startsWith(destinationPath)) {
+					throw new ZipException("The zip entry '" + name + "' is outside of the SavedModel.");
+				}
+				if (entry.isDirectory()) {
+					createDirs(destFile.toFile());
+				} else {
+					createDirs(destFile.getParent().toFile());
+					try (InputStream in = zipFile.getInputStream(entry)) {
+						Files.copy(in, destFile, StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Extracts the SavedModel in the zip file to the destination which should be an empty directory. The stream is not
+	 * closed.
+	 *
+	 * @param fileStream the stream of the zip file
+	 * @param destination the destination file
+	 */
+	static void extractZipToFile(final InputStream fileStream, final File destination) throws IOException {
 		createDirs(destination);
 
 		// The prefix from the root of the zip file to the SavedModel
 		String prefix = "";
 
 		// Extract the zip file
-		try (final InputStream fileStream = FileUtil.openStreamWithTimeout(source)) {
-			try (final ZipInputStream zipStream = new ZipInputStream(fileStream)) {
-				ZipEntry entry;
-				while ((entry = zipStream.getNextEntry()) != null) {
-					// Check if the entry is a relevant file in the SavedModel we
-					// extract
-					final String name = entry.getName();
-					if (!name.matches(SAVED_MODEL_REGEX) || !name.startsWith(prefix)) {
-						continue;
-					}
+		try (final ZipInputStream zipStream = new ZipInputStream(CloseShieldInputStream.wrap(fileStream))) {
+			ZipEntry entry;
+			while ((entry = zipStream.getNextEntry()) != null) {
+				// Check if the entry is a relevant file in the SavedModel we
+				// extract
+				final String name = entry.getName();
+				if (!name.matches(SAVED_MODEL_REGEX) || !name.startsWith(prefix)) {
+					continue;
+				}
 
-					// If this is the saved_model.pb we use it to determine the prefix
-					if (prefix.isEmpty() && name.matches("^.*saved_model.pb?$")) {
-						prefix = name.substring(0, name.lastIndexOf("saved_model.pb"));
-					}
+				// If this is the saved_model.pb we use it to determine the prefix
+				if (prefix.isEmpty() && name.matches("^.*saved_model.pb?$")) {
+					prefix = name.substring(0, name.lastIndexOf("saved_model.pb"));
+				}
 
-					// Extract this entry
-					final File destFile = new File(destination, name);
-					if (entry.isDirectory()) {
-						createDirs(destFile);
-					} else {
-						createDirs(destFile.getParentFile());
-						// This is due to a bug in apache commons io 2.6
-						// FileUtils.copyToFile(...) closes the input stream.
-						try (OutputStream out = FileUtils.openOutputStream(destFile)) {
-							IOUtils.copy(zipStream, out);
-						}
+				// Extract this entry
+				final File destFile = new File(destination, name);
+				if (entry.isDirectory()) {
+					createDirs(destFile);
+				} else {
+					createDirs(destFile.getParentFile());
+					// This is due to a bug in apache commons io 2.6
+					// FileUtils.copyToFile(...) closes the input stream.
+					try (OutputStream out = FileUtils.openOutputStream(destFile)) {
+						IOUtils.copy(zipStream, out);
 					}
 				}
 			}
@@ -320,9 +655,12 @@ private static void createDirs(final File dir) throws IOException {
 	 *
 	 * @param source the source directory
 	 * @param destination the destination directory
+	 * @param store the store to link the files to
+	 * @param part the files to copy
 	 * @throws IOException if copying failed
 	 */
-	private static void copyDirToFile(final File source, final File destination) throws IOException {
+	private static void copyDirToFile(final File source, final File destination, final TFSavedModelStore store,
+			final SavedModelPart part) throws IOException {
 		if (!destination.equals(source)) {
 			// Create the target directory if it doesn't exist yet
 			createDirs(destination);
@@ -334,13 +672,30 @@ private static void copyDirToFile(final File source, final File destination) thr
 			for (final String child : sourceList) {
 				// Only copy the child if it is part of the SavedModel
 				// definition
-				if (child.matches(SAVED_MODEL_REGEX)) {
-					FileUtil.copyDir(new File(source, child), new File(destination, child));
+				if (child.matches(SAVED_MODEL_REGEX) && part.includes(child)) {
+					materializeDir(source.toPath().resolve(child), destination.toPath().resolve(child), store);
 				}
 			}
 		}
 	}
 
+	/** Copies the file or directory by materializing each file from the store */
+	private static void materializeDir(final Path source, final Path destination, final TFSavedModelStore store)
+			throws IOException {
+		final List<Path> files;
+		try (Stream<Path> paths = Files.walk(source)) {
+			files = paths.collect(Collectors.toList());
+		}
+		for (final Path file : files) {
+			final Path target = destination.resolve(source.relativize(file).toString());
+			if (Files.isDirectory(file)) {
+				Files.createDirectories(target);
+			} else {
+				store.materialize(file, target);
+			}
+		}
+	}
+
 	private static SavedModel readSavedModelFromDir(final File file) throws DLInvalidSourceException {
 		try {
 			final File[] savedModelPb = file.listFiles((d, n) -> n.equals("saved_model.pb"));
@@ -352,10 +707,10 @@ private static SavedModel readSavedModelFromDir(final File file) throws DLInvali
 					throw new DLInvalidSourceException("The directory doesn't contain a saved_model.pb");
 				}
 			}
-			try (final FileInputStream inStream = new FileInputStream(savedModelPb[0])) {
-				return SavedModel.parseFrom(inStream);
+			try (final FileChannel channel = FileChannel.open(savedModelPb[0].toPath(), StandardOpenOption.READ)) {
+				return parseMapped(channel, 0, channel.size());
 			}
-		} catch (FileNotFoundException e) {
+		} catch (NoSuchFileException e) {
 			throw new DLInvalidSourceException("The directory doesn't contain a saved_model.pb");
 		} catch (IOException e) {
 			throw new DLInvalidSourceException("The SavedModel could not be parsed.", e);
@@ -371,11 +726,11 @@ private static SavedModel readSavedModelFromDir(final File file) throws DLInvali
 	private static SavedModel readSavedModelFromLocalZip(final File file)
 			throws ZipException, IOException, DLInvalidSourceException {
 		try (ZipFile savedModelZip = new ZipFile(file)) {
-			final Enumeration<? extends ZipEntry> entries = savedModelZip.entries();
-			ZipEntry entry = null;
+			final Enumeration<ZipArchiveEntry> entries = savedModelZip.getEntries();
+			ZipArchiveEntry entry = null;
 			boolean hasPBTXT = false;
 			while (entries.hasMoreElements()) {
-				final ZipEntry zipEntry = entries.nextElement();
+				final ZipArchiveEntry zipEntry = entries.nextElement();
 				if (zipEntry.getName().endsWith("saved_model.pb")) {
 					entry = zipEntry;
 				} else if (zipEntry.getName().endsWith("saved_model.pbtxt")) {
@@ -391,7 +746,45 @@ private static SavedModel readSavedModelFromLocalZip(final File file)
 					throw new DLInvalidSourceException("The zip file doesn't contain a saved_model.pb");
 				}
 			}
+			if (entry.getMethod() == ZipEntry.STORED && entry.getDataOffset() >= 0) {
+				// The entry is not compressed: Map its bytes directly
+				try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+					return parseMapped(channel, entry.getDataOffset(), entry.getSize());
+				}
+			}
 			return SavedModel.parseFrom(savedModelZip.getInputStream(entry));
 		}
 	}
+
+	/**
+	 * Parses a SavedModel from a region of a file which is mapped into memory. The protobuf is decoded directly from
+	 * the mapped pages without copying the file content through a buffered stream. The pages are shared with all other
+	 * readers of the file via the page cache of the operating system.
+	 *
+	 * @param channel the channel of the file
+	 * @param position the position of the SavedModel protobuf in the file
+	 * @param size the size of the SavedModel protobuf
+	 * @return the SavedModel
+	 * @throws IOException if mapping or parsing the file failed
+	 */
+	private static SavedModel parseMapped(final FileChannel channel, final long position, final long size)
+			throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("The saved_model.pb is larger than 2GB, which is not supported by protobuf.");
+		}
+		if (SystemUtils.IS_OS_WINDOWS) {
+			// Windows locks mapped files until the buffer is garbage collected which would prevent deleting temporary
+			// SavedModels: Read the region at once instead
+			final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					throw new EOFException("Unexpected end of the saved_model.pb.");
+				}
+			}
+			buffer.flip();
+			return SavedModel.parseFrom(CodedInputStream.newInstance(buffer));
+		}
+		final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, size);
+		return SavedModel.parseFrom(CodedInputStream.newInstance(buffer));
+	}
 }
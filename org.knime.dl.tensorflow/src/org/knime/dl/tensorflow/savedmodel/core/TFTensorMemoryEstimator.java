@@ -0,0 +1,131 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core;
+
+import java.util.Collection;
+import java.util.OptionalLong;
+
+import org.knime.dl.core.DLTensorSpec;
+import org.knime.dl.util.DLUtils;
+
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Estimates the memory that the buffers of {@link TFSavedModelTensorFactory} and the TensorFlow tensors created from
+ * them need for one example, and the largest batch size that fits into a memory budget.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFTensorMemoryEstimator {
+
+	/**
+	 * The estimated size of a string element in bytes. The actual size depends on the data, this estimate covers the
+	 * array overhead of the bytes buffers and short strings.
+	 */
+	public static final long STRING_ELEMENT_BYTES_ESTIMATE = 64;
+
+	private TFTensorMemoryEstimator() {
+		// utility class
+	}
+
+	/**
+	 * @param elementType the element type of a tensor spec
+	 * @return the number of bytes of one element in a buffer or TensorFlow tensor or an empty optional if the element
+	 *         type is not known to the estimator
+	 */
+	public static OptionalLong getBytesPerElement(final Class<?> elementType) {
+		if (elementType.equals(double.class) || elementType.equals(long.class)) {
+			return OptionalLong.of(8);
+		} else if (elementType.equals(float.class) || elementType.equals(int.class)) {
+			return OptionalLong.of(4);
+		} else if (elementType.equals(boolean.class) || elementType.equals(UnsignedBytes.class)) {
+			return OptionalLong.of(1);
+		} else if (elementType.equals(String.class)) {
+			return OptionalLong.of(STRING_ELEMENT_BYTES_ESTIMATE);
+		} else {
+			return OptionalLong.empty();
+		}
+	}
+
+	/**
+	 * @param spec the tensor spec
+	 * @return the number of bytes of one example of the tensor or an empty optional if the shape of the tensor is
+	 *         not fixed or its element type is not known to the estimator
+	 */
+	public static OptionalLong getBytesPerExample(final DLTensorSpec spec) {
+		final OptionalLong bytesPerElement = getBytesPerElement(spec.getElementType());
+		if (!bytesPerElement.isPresent()) {
+			return OptionalLong.empty();
+		}
+		return DLUtils.Shapes.getFixedShape(spec.getShape())
+				.map(s -> OptionalLong.of(DLUtils.Shapes.getSize(s) * bytesPerElement.getAsLong()))
+				.orElse(OptionalLong.empty());
+	}
+
+	/**
+	 * Sums up the bytes per example of all tensors with a fixed shape and a known element type.
+	 *
+	 * @param specs the tensor specs
+	 * @return the number of bytes of one example of all tensors with a fixed shape and a known element type
+	 */
+	public static long getBytesPerExample(final Collection<DLTensorSpec> specs) {
+		return specs.stream().map(TFTensorMemoryEstimator::getBytesPerExample).filter(OptionalLong::isPresent)
+				.mapToLong(OptionalLong::getAsLong).sum();
+	}
+
+	/**
+	 * @param bytesPerExample the number of bytes of one example
+	 * @param budget the memory budget in bytes
+	 * @return the largest batch size whose tensors fit into the budget, at least 1
+	 */
+	public static long getMaxBatchSize(final long bytesPerExample, final long budget) {
+		if (bytesPerExample <= 0) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(1, budget / bytesPerExample);
+	}
+}
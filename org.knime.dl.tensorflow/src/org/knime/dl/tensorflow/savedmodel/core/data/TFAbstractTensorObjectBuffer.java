@@ -117,11 +117,21 @@ public final Tensor<String> readIntoTensor(long batchSize, DLFixedTensorShape sh
 		return Tensor.create(m_storage.getStorageForTensorCreation(batchSize), String.class);
 	}
 
+	@Override
+	public final Tensor<String> readIntoTensor(long offset, long batchSize, DLFixedTensorShape shape) {
+		throw new UnsupportedOperationException("String tensors can only be created from the full buffer.");
+	}
+
 	@Override
 	public final void writeFromTensor(Tensor<?> tensor) {
 		tensor.copyTo(m_storage.getStorageForWriting(0, tensor.numElements()));
 	}
 
+	@Override
+	public final void writeFromTensor(Tensor<?> tensor, long offset) {
+		throw new UnsupportedOperationException("String tensors can only be written to the full buffer.");
+	}
+
 	@Override
 	public final void resetRead() {
 		m_storage.resetRead();
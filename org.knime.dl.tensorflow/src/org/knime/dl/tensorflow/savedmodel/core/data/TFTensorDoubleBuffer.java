@@ -53,6 +53,7 @@
 import org.knime.dl.core.DLInvalidNetworkOutputException;
 import org.knime.dl.core.data.DLDefaultDoubleBuffer;
 import org.knime.dl.tensorflow.core.TFUtil;
+import org.knime.dl.util.DLUtils;
 import org.tensorflow.DataType;
 import org.tensorflow.Tensor;
 
@@ -85,13 +86,31 @@ public Tensor<Double> readIntoTensor(final long batchSize, final DLFixedTensorSh
 		return Tensor.create(tfShape, DoubleBuffer.wrap(getStorageForReading(0, bufferSize), 0, bufferSize));
 	}
 
+	@Override
+	public Tensor<Double> readIntoTensor(final long offset, final long batchSize, final DLFixedTensorShape shape)
+			throws DLInvalidNetworkInputException {
+		final long[] tfShape = TFUtil.createTFShape(batchSize, shape);
+		final long exampleSize = DLUtils.Shapes.getSize(shape.getShape());
+		final int from = Math.toIntExact(offset * exampleSize);
+		final int length = Math.toIntExact(batchSize * exampleSize);
+		return Tensor.create(tfShape, DoubleBuffer.wrap(getStorageForReading(from, length), from, length));
+	}
+
 	@Override
 	public void writeFromTensor(final Tensor<?> tensor) throws DLInvalidNetworkOutputException {
+		writeFromTensor(tensor, 0);
+	}
+
+	@Override
+	public void writeFromTensor(final Tensor<?> tensor, final long offset) throws DLInvalidNetworkOutputException {
 		if (tensor.dataType() != DataType.DOUBLE) {
 			throw new DLInvalidNetworkOutputException("Writing a TensorFlow tensor of type " + tensor.dataType()
 					+ " to a double buffer is not supported.");
 		}
-		final DoubleBuffer doubleBuffer = DoubleBuffer.wrap(getStorageForWriting(0, tensor.numElements()));
+		// The first dimension of the tensor is the batch dimension if it is written at an offset
+		final int from = offset == 0 ? 0 : Math.toIntExact(offset * (tensor.numElements() / tensor.shape()[0]));
+		final DoubleBuffer doubleBuffer = DoubleBuffer.wrap(getStorageForWriting(from, tensor.numElements()), from,
+				tensor.numElements());
 		tensor.writeTo(doubleBuffer);
 	}
 }
@@ -53,6 +53,7 @@
 import org.knime.dl.core.DLInvalidNetworkOutputException;
 import org.knime.dl.core.data.DLDefaultLongBuffer;
 import org.knime.dl.tensorflow.core.TFUtil;
+import org.knime.dl.util.DLUtils;
 import org.tensorflow.DataType;
 import org.tensorflow.Tensor;
 
@@ -85,13 +86,31 @@ public Tensor<Long> readIntoTensor(final long batchSize, final DLFixedTensorShap
 		return Tensor.create(tfShape, LongBuffer.wrap(getStorageForReading(0, bufferSize), 0, bufferSize));
 	}
 
+	@Override
+	public Tensor<Long> readIntoTensor(final long offset, final long batchSize, final DLFixedTensorShape shape)
+			throws DLInvalidNetworkInputException {
+		final long[] tfShape = TFUtil.createTFShape(batchSize, shape);
+		final long exampleSize = DLUtils.Shapes.getSize(shape.getShape());
+		final int from = Math.toIntExact(offset * exampleSize);
+		final int length = Math.toIntExact(batchSize * exampleSize);
+		return Tensor.create(tfShape, LongBuffer.wrap(getStorageForReading(from, length), from, length));
+	}
+
 	@Override
 	public void writeFromTensor(final Tensor<?> tensor) {
+		writeFromTensor(tensor, 0);
+	}
+
+	@Override
+	public void writeFromTensor(final Tensor<?> tensor, final long offset) {
 		if (tensor.dataType() != DataType.INT64) {
 			throw new DLInvalidNetworkOutputException("Writing a TensorFlow tensor of type " + tensor.dataType()
 					+ " to a long buffer is not supported.");
 		}
-		final LongBuffer longBuffer = LongBuffer.wrap(getStorageForWriting(0, tensor.numElements()));
+		// The first dimension of the tensor is the batch dimension if it is written at an offset
+		final int from = offset == 0 ? 0 : Math.toIntExact(offset * (tensor.numElements() / tensor.shape()[0]));
+		final LongBuffer longBuffer = LongBuffer.wrap(getStorageForWriting(from, tensor.numElements()), from,
+				tensor.numElements());
 		tensor.writeTo(longBuffer);
 	}
 }
@@ -62,4 +62,14 @@ public interface TFTensorReadableBuffer extends DLReadableBuffer {
 	 * @throws DLInvalidNetworkOutputException if the data of the tensor could not be read into the buffer
 	 */
 	void writeFromTensor(Tensor<?> tensor) throws DLInvalidNetworkOutputException;
+
+	/**
+	 * Writes the data of the tensor into the buffer starting at the given example. The examples before the offset are
+	 * kept. Used to fill the buffer with the outputs of several consecutive sub-batches.
+	 *
+	 * @param tensor the tensor
+	 * @param offset the index of the example at which the first example of the tensor is written
+	 * @throws DLInvalidNetworkOutputException if the data of the tensor could not be read into the buffer
+	 */
+	void writeFromTensor(Tensor<?> tensor, long offset) throws DLInvalidNetworkOutputException;
 }
@@ -69,4 +69,20 @@
 	 * @throws DLInvalidNetworkInputException if no tensor could be created from this buffer
 	 */
 	Tensor<T> readIntoTensor(long batchSize, DLFixedTensorShape shape) throws DLInvalidNetworkInputException;
+
+	/**
+	 * Reads a range of examples of the buffer and creates a new tensor containing their data. Only the data of the
+	 * range is copied.
+	 * <p>
+	 * <b>WARNING:</b> The Tensor object <b>must</b> be explicitly freed by invoking the
+	 * {@link #close()} method when the object is no longer needed.
+	 *
+	 * @param offset the index of the first example of the range
+	 * @param batchSize the number of examples of the range which will be the size of the first dimension of the tensor
+	 * @param shape the shape of one example
+	 * @return a tensor with the examples of the range
+	 * @throws DLInvalidNetworkInputException if no tensor could be created from this buffer
+	 */
+	Tensor<T> readIntoTensor(long offset, long batchSize, DLFixedTensorShape shape)
+			throws DLInvalidNetworkInputException;
 }
@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the sub-batch size with the highest throughput for an execution session. The probe tries a few sizes up to a
+ * maximum size, one run each, and then settles on the size with the most rows per second. The first run is a warm-up
+ * run and is not measured because it includes the initialization of the TensorFlow graph.
+ * <p>
+ * If a run fails because it ran out of memory, the failed size and all larger sizes are dropped. If no probed size is
+ * left, half of the failed size is used. This also applies after the probe has settled.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFBatchSizeProbe {
+
+	/** The number of sizes which are probed: the maximum size, a half, a quarter and an eighth of it */
+	static final int NUM_CANDIDATES = 4;
+
+	/** The candidate sizes in ascending order */
+	private final List<Long> m_candidates = new ArrayList<>(NUM_CANDIDATES);
+
+	/** The measured rows per nanosecond of the candidates which have been probed so far */
+	private final List<Double> m_throughputs = new ArrayList<>(NUM_CANDIDATES);
+
+	private boolean m_warmedUp;
+
+	private long m_settledSize = -1;
+
+	/**
+	 * @param maxSize the largest sub-batch size which may be used
+	 */
+	TFBatchSizeProbe(final long maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The maximum batch size must be at least 1 but was " + maxSize + ".");
+		}
+		for (long size = maxSize; size >= 1 && m_candidates.size() < NUM_CANDIDATES; size /= 2) {
+			m_candidates.add(0, size);
+		}
+	}
+
+	/**
+	 * @return the size of the next sub-batch
+	 */
+	synchronized long getNextSize() {
+		if (m_settledSize > 0) {
+			return m_settledSize;
+		}
+		// Warm up with the smallest size
+		return m_candidates.get(m_warmedUp ? m_throughputs.size() : 0);
+	}
+
+	/**
+	 * @return if the probe has settled on a size
+	 */
+	synchronized boolean isSettled() {
+		return m_settledSize > 0;
+	}
+
+	/**
+	 * Records a successful run. Runs with another size than {@link #getNextSize()} (e.g. the remaining rows of a
+	 * batch) are not measured.
+	 *
+	 * @param size the number of rows of the run
+	 * @param nanos the duration of the run in nanoseconds
+	 */
+	synchronized void recordRun(final long size, final long nanos) {
+		if (m_settledSize > 0 || size != getNextSize()) {
+			return;
+		}
+		if (!m_warmedUp) {
+			m_warmedUp = true;
+			return;
+		}
+		m_throughputs.add(size / (double) Math.max(1, nanos));
+		if (m_throughputs.size() == m_candidates.size()) {
+			settle();
+		}
+	}
+
+	/**
+	 * Records a run which ran out of memory.
+	 *
+	 * @param size the number of rows of the run
+	 */
+	synchronized void recordOutOfMemory(final long size) {
+		final long maxSize = Math.max(1, size / 2);
+		if (m_settledSize > 0) {
+			m_settledSize = Math.min(m_settledSize, maxSize);
+			return;
+		}
+		while (!m_candidates.isEmpty() && m_candidates.get(m_candidates.size() - 1) > maxSize) {
+			m_candidates.remove(m_candidates.size() - 1);
+		}
+		if (m_candidates.isEmpty()) {
+			m_candidates.add(maxSize);
+			m_throughputs.clear();
+		}
+		while (m_throughputs.size() > m_candidates.size()) {
+			m_throughputs.remove(m_throughputs.size() - 1);
+		}
+		if (m_throughputs.size() == m_candidates.size()) {
+			settle();
+		}
+	}
+
+	private void settle() {
+		int best = m_candidates.size() - 1;
+		for (int i = 0; i < m_throughputs.size(); i++) {
+			if (m_throughputs.get(i) > m_throughputs.get(best)) {
+				best = i;
+			}
+		}
+		m_settledSize = m_candidates.get(best);
+	}
+}
@@ -50,11 +50,16 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.knime.core.node.NodeLogger;
 import org.knime.dl.core.DLCanceledExecutionException;
 import org.knime.dl.core.DLCheckedException;
 import org.knime.dl.core.DLFixedTensorShape;
@@ -71,11 +76,16 @@
 import org.knime.dl.core.execution.DLExecutionStatus;
 import org.knime.dl.core.execution.DLNetworkOutputConsumer;
 import org.knime.dl.tensorflow.core.TFUtil;
+import org.knime.dl.tensorflow.core.execution.TFExecutionMetrics;
+import org.knime.dl.tensorflow.core.execution.TFExecutionMetrics.Phase;
 import org.knime.dl.tensorflow.core.execution.TFNetworkExecutionSession;
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetwork;
+import org.knime.dl.tensorflow.savedmodel.core.TFTensorMemoryEstimator;
 import org.knime.dl.tensorflow.savedmodel.core.data.TFTensorReadableBuffer;
 import org.knime.dl.tensorflow.savedmodel.core.data.TFTensorWritableBuffer;
+import org.tensorflow.Operation;
 import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
 import org.tensorflow.Session.Runner;
 import org.tensorflow.Tensor;
 import org.tensorflow.TensorFlow;
@@ -89,12 +99,24 @@
 public class TFSavedModelNetworkExecutionSession extends DLAbstractNetworkExecutionSession<TFSavedModelNetwork>
 		implements TFNetworkExecutionSession {
 
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelNetworkExecutionSession.class);
+
 	private SavedModelBundle m_savedModelBundle;
 
 	private String m_visibleDeviceList = "";
 
 	private double m_perProcessGpuMemoryFraction = 1;
 
+	private final TFExecutionMetrics m_metrics = new TFExecutionMetrics();
+
+	private TFStepStatsProfiler m_profiler;
+
+	private final TFTensorTracker m_tensorTracker = new TFTensorTracker();
+
+	private TFBatchSizeProbe m_batchSizeProbe;
+
+	private Boolean m_subBatchesSupported;
+
 	/**
 	 * Creates a new execution session for a TensorFlow SavedModel deep learning network.
 	 *
@@ -133,6 +155,57 @@ public void setPerProcessGpuMemoryFraction(final double perProcessGpuMemoryFract
 		m_perProcessGpuMemoryFraction = perProcessGpuMemoryFraction;
 	}
 
+	/**
+	 * Set a profiler which collects the TensorFlow step stats of selected batches. The selected batches are run with a
+	 * full trace which slows down their execution.
+	 *
+	 * @param profiler the profiler or <code>null</code> to disable profiling
+	 */
+	public void setProfiler(final TFStepStatsProfiler profiler) {
+		m_profiler = profiler;
+	}
+
+	/**
+	 * Enables the automatic batch size. Each batch of the input preparer is run in sub-batches whose size is probed
+	 * for the highest throughput on the first batches, up to the given maximum. A sub-batch which runs out of memory is
+	 * retried with fewer rows. Networks with string tensors are always run with the full batches.
+	 *
+	 * @param maxBatchSize the largest sub-batch size, 0 or less to run the full batches
+	 */
+	public void setMaxAutoBatchSize(final long maxBatchSize) {
+		m_batchSizeProbe = maxBatchSize > 0 ? new TFBatchSizeProbe(maxBatchSize) : null;
+	}
+
+	/**
+	 * @return the sub-batch size the automatic batch size has settled on or an empty optional if the automatic batch
+	 *         size is disabled or has not settled yet
+	 */
+	public OptionalLong getAutoBatchSize() {
+		return m_batchSizeProbe != null && m_batchSizeProbe.isSettled()
+				? OptionalLong.of(m_batchSizeProbe.getNextSize())
+				: OptionalLong.empty();
+	}
+
+	/**
+	 * Gives the metrics of the phases of the batch loop of this session. The metrics are accumulated over all runs of
+	 * this session and are updated before the batch ended event of the execution status is raised.
+	 *
+	 * @return the execution metrics
+	 */
+	public TFExecutionMetrics getExecutionMetrics() {
+		return m_metrics;
+	}
+
+	/**
+	 * Gives the tracker of the TensorFlow tensors of this session. It can be used to read the native memory held by
+	 * the tensors and to cap it.
+	 *
+	 * @return the tensor tracker
+	 */
+	public TFTensorTracker getTensorTracker() {
+		return m_tensorTracker;
+	}
+
 	@Override
 	protected void executeInternal(final DLExecutionMonitor monitor) throws DLCanceledExecutionException, Exception {
 		if (m_savedModelBundle == null) {
@@ -146,10 +219,15 @@ protected void executeInternal(final DLExecutionMonitor monitor) throws DLCancel
 						.setGpuOptions(gpuOptions) //
 						.build();
 
-				m_savedModelBundle = SavedModelBundle.loader(m_network.getSavedModelInDir().getAbsolutePath()) //
-						.withConfigProto(configProto.toByteArray()) //
-						.withTags(m_network.getSpec().getTags()) //
-						.load();
+				try {
+					m_savedModelBundle = SavedModelBundle.loader(m_network.getSavedModelInDir().getAbsolutePath()) //
+							.withConfigProto(configProto.toByteArray()) //
+							.withTags(m_network.getSpec().getTags()) //
+							.load();
+				} finally {
+					// The bundle does not read the directory after loading
+					m_network.releaseSavedModelInDir();
+				}
 			} catch (final IllegalArgumentException e) {
 				if (e.getMessage().contains("'visible_device_list' listed an invalid GPU id")) {
 					throw new DLCheckedException("Invalid GPU selected: " + e.getMessage(), e);
@@ -165,18 +243,31 @@ protected void executeInternal(final DLExecutionMonitor monitor) throws DLCancel
 		}
 
 		final DLExecutionStatus status = monitor.getExecutionStatus();
+		long batchIndex = 0;
 		// Loop over batches
 		while (m_inputPreparer.hasNext()) {
+			final boolean profile = m_profiler != null && m_profiler.isProfiled(batchIndex++);
 			// Create a TensorFlow runner
-			try (final DLRunner runner = new DLRunner(m_savedModelBundle.session().runner())) {
+			try (final DLRunner runner = new DLRunner(m_savedModelBundle.session().runner(), m_tensorTracker)) {
 				monitor.checkCanceled();
 
 				// Prepare the inputs
+				long phaseStart = System.nanoTime();
 				m_inputPreparer.prepareNext(m_input);
+				m_metrics.record(Phase.PREPARE_INPUT, System.nanoTime() - phaseStart);
 				monitor.checkCanceled();
 
 				// Feed the inputs
-				m_input.entrySet().stream().forEach(e -> runner.feed(e.getKey(), e.getValue()));
+				phaseStart = System.nanoTime();
+				final boolean subBatches = m_batchSizeProbe != null && isSubBatchesSupported();
+				for (final DLTensorId id : m_input.keySet()) {
+					if (subBatches) {
+						runner.feedInSubBatches(id, m_input.get(id));
+					} else {
+						runner.feed(id, m_input.get(id));
+					}
+				}
+				m_metrics.record(Phase.FEED, System.nanoTime() - phaseStart);
 				monitor.checkCanceled();
 
 				// Request the outputs
@@ -184,99 +275,214 @@ protected void executeInternal(final DLExecutionMonitor monitor) throws DLCancel
 				monitor.checkCanceled();
 
 				// Run the model
-				runner.run();
+				phaseStart = System.nanoTime();
+				if (subBatches) {
+					final byte[] metadata = runner.runInSubBatches(m_savedModelBundle.session(), m_batchSizeProbe,
+							profile, this::getOutputTensor);
+					if (profile) {
+						m_profiler.addRunMetadata(metadata, this::getOpType);
+					}
+				} else if (profile) {
+					m_profiler.addRunMetadata(runner.runAndFetchMetadata(), this::getOpType);
+				} else {
+					runner.run();
+				}
+				m_metrics.record(Phase.RUN, System.nanoTime() - phaseStart);
 				monitor.checkCanceled();
 
 				// Reset the buffers of the input tensors
 				m_input.values().forEach(in -> in.getBuffer().reset());
 
-				// Create the output map if it doesn't exist yet
-				if (m_output == null) {
-					m_output = new HashMap<>(m_requestedOutputs.size());
-
-					// Fill a Map with the specs for a tensor id
-					final Map<DLTensorId, DLTensorSpec> allOutputSpecs = new HashMap<>(m_requestedOutputs.size());
-					Arrays.stream(ArrayUtils.addAll(m_network.getSpec().getOutputSpecs(),
-							m_network.getSpec().getHiddenOutputSpecs()))
-							.filter(s -> m_requestedOutputs.contains(s.getIdentifier()))
-							.forEach(s -> allOutputSpecs.put(s.getIdentifier(), s));
-
-					// Create tensors for the requested outputs
+				// Fill the output tensors unless the sub-batches have already been written to them
+				phaseStart = System.nanoTime();
+				if (!runner.isOutputWritten()) {
 					for (final DLTensorId id : m_requestedOutputs) {
-						final long[] outShape = runner.getOutputShape(id);
-						final long outBatchSize = outShape[0];
-						final long[] outShapeWithoutBatchSize = Arrays.stream(outShape).skip(1).toArray();
-						final DLTensorSpec executionSpec = m_tensorFactory.createExecutionTensorSpec(
-								allOutputSpecs.get(id), outBatchSize, outShapeWithoutBatchSize);
-						m_output.put(id, m_tensorFactory.createReadableTensor(executionSpec));
+						runner.fillTensor(id, getOutputTensor(id, runner.getOutputShape(id)));
 					}
-					monitor.checkCanceled();
 				}
-
-				// Fill the output tensors
-				m_output.entrySet().forEach(e -> runner.fillTensor(e.getKey(), e.getValue()));
+				m_metrics.record(Phase.FILL_OUTPUT, System.nanoTime() - phaseStart);
 				monitor.checkCanceled();
 
 				// Consume the output
+				phaseStart = System.nanoTime();
 				m_outputConsumer.accept(m_output);
+				m_metrics.record(Phase.CONSUME_OUTPUT, System.nanoTime() - phaseStart);
 
 				// Reset the buffers of the output tensors
 				m_output.values().stream().forEach(o -> o.getBuffer().reset());
 
 				// This batch is done!
+				m_metrics.batchEnded(runner.getBatchSize(), runner.getBytesFed(), runner.getBytesFetched());
 				status.batchEnded().raise(null);
 			}
 		}
 	}
 
+	/**
+	 * Gives the output tensor of the given id. The output tensors are created on the first batch with the shape of the
+	 * output of this batch.
+	 */
+	private DLTensor<? extends DLReadableBuffer> getOutputTensor(final DLTensorId id, final long[] outShape) {
+		if (m_output == null) {
+			m_output = new HashMap<>(m_requestedOutputs.size());
+		}
+		DLTensor<? extends DLReadableBuffer> tensor = m_output.get(id);
+		if (tensor == null) {
+			final DLTensorSpec spec = Arrays.stream(ArrayUtils.addAll(m_network.getSpec().getOutputSpecs(),
+					m_network.getSpec().getHiddenOutputSpecs()))
+					.filter(s -> s.getIdentifier().equals(id))
+					.findFirst()
+					.orElseThrow(() -> new IllegalStateException("The network has no output \"" + id + "\"."));
+			final long outBatchSize = outShape[0];
+			final long[] outShapeWithoutBatchSize = Arrays.stream(outShape).skip(1).toArray();
+			final DLTensorSpec executionSpec =
+					m_tensorFactory.createExecutionTensorSpec(spec, outBatchSize, outShapeWithoutBatchSize);
+			tensor = m_tensorFactory.createReadableTensor(executionSpec);
+			m_output.put(id, tensor);
+		}
+		return tensor;
+	}
+
+	/**
+	 * Sub-batches are created from ranges of the tensor buffers which is not possible for string tensors.
+	 */
+	private boolean isSubBatchesSupported() {
+		if (m_subBatchesSupported == null) {
+			m_subBatchesSupported = Stream.concat(m_input.values().stream().map(DLTensor::getSpec),
+					Stream.concat(Arrays.stream(m_network.getSpec().getOutputSpecs()),
+							Arrays.stream(m_network.getSpec().getHiddenOutputSpecs()))
+							.filter(s -> m_requestedOutputs.contains(s.getIdentifier())))
+					.noneMatch(s -> s.getElementType().equals(String.class));
+			if (!m_subBatchesSupported) {
+				LOGGER.warn("The automatic batch size is not supported for networks with string inputs or outputs. "
+						+ "The full batches are used.");
+			}
+		}
+		return m_subBatchesSupported;
+	}
+
+	private String getOpType(final String opName) {
+		final Operation op = m_savedModelBundle.graph().operation(opName);
+		return op == null ? null : op.type();
+	}
+
 	@Override
 	public void close() throws Exception {
+		final long leakedBytes = m_tensorTracker.getLiveBytes();
+		final int leakedTensors = m_tensorTracker.releaseAll();
+		if (leakedTensors > 0) {
+			LOGGER.warn("Released " + leakedTensors + " TensorFlow tensors (" + leakedBytes
+					+ " bytes of native memory) which have not been closed after the execution.");
+		}
 		if (m_savedModelBundle != null) {
 			m_savedModelBundle.close();
 		}
 		super.close();
 	}
 
-	private static Tensor<?> createTFTensor(final DLTensor<? extends DLWritableBuffer> dlTensor) {
-		final DLFixedTensorShape shape;
+	private static Tensor<?> createTFTensor(final DLTensor<? extends DLWritableBuffer> dlTensor,
+			final TFTensorTracker tracker) throws DLCheckedException {
+		final DLFixedTensorShape shape = getFixedShape(dlTensor);
+		final long batchSize = dlTensor.getBuffer().size() / dlTensor.getExampleSize();
+		checkCap(dlTensor, dlTensor.getBuffer().size(), tracker);
+		return tracker.track(getWritableBuffer(dlTensor).readIntoTensor(batchSize, shape));
+	}
+
+	/**
+	 * Creates a tensor of a range of examples of the given tensor. Only the examples of the range are copied to native
+	 * memory.
+	 */
+	private static Tensor<?> createTFTensor(final DLTensor<? extends DLWritableBuffer> dlTensor, final long offset,
+			final long batchSize, final TFTensorTracker tracker) throws DLCheckedException {
+		final DLFixedTensorShape shape = getFixedShape(dlTensor);
+		checkCap(dlTensor, batchSize * dlTensor.getExampleSize(), tracker);
+		return tracker.track(getWritableBuffer(dlTensor).readIntoTensor(offset, batchSize, shape));
+	}
+
+	private static DLFixedTensorShape getFixedShape(final DLTensor<?> dlTensor) {
 		try {
-			shape = (DLFixedTensorShape) dlTensor.getSpec().getShape();
+			return (DLFixedTensorShape) dlTensor.getSpec().getShape();
 		} catch (final ClassCastException e) {
 			throw new IllegalStateException("The shape of the tensor must be known at runtime", e);
 		}
+	}
 
-		final long batchSize = dlTensor.getBuffer().size() / dlTensor.getExampleSize();
+	private static void checkCap(final DLTensor<?> dlTensor, final long numElements, final TFTensorTracker tracker)
+			throws DLCheckedException {
+		// The tensor is created without a check if the size of its elements is unknown
+		final OptionalLong bytesPerElement =
+				TFTensorMemoryEstimator.getBytesPerElement(dlTensor.getSpec().getElementType());
+		if (bytesPerElement.isPresent()) {
+			tracker.checkCap(numElements * bytesPerElement.getAsLong());
+		}
+	}
 
+	private static TFTensorWritableBuffer<?> getWritableBuffer(final DLTensor<? extends DLWritableBuffer> dlTensor) {
 		try {
-			final TFTensorWritableBuffer<?> buffer = (TFTensorWritableBuffer<?>) dlTensor.getBuffer();
-			return buffer.readIntoTensor(batchSize, shape);
+			return (TFTensorWritableBuffer<?>) dlTensor.getBuffer();
 		} catch (final ClassCastException e) {
 			throw new IllegalStateException("Wrong type of buffer: \"" + dlTensor.getBuffer().getClass()
 					+ "\", expected: \"" + TFTensorWritableBuffer.class + "\".");
 		}
 	}
 
+	private static TFTensorReadableBuffer getReadableBuffer(final DLTensor<? extends DLReadableBuffer> dlTensor) {
+		try {
+			return (TFTensorReadableBuffer) dlTensor.getBuffer();
+		} catch (final ClassCastException e) {
+			throw new IllegalStateException("Wrong type of buffer: \"" + dlTensor.getBuffer().getClass()
+					+ "\", expected: \"" + TFTensorReadableBuffer.class + "\".");
+		}
+	}
+
 	private static class DLRunner implements AutoCloseable {
 
 		private final Runner m_runner;
 
+		private final TFTensorTracker m_tracker;
+
 		/** Keep track of open Tensors to close them */
 		private final List<Tensor<?>> m_openTensors = new ArrayList<>();
 
+		private final Map<DLTensorId, Tensor<?>> m_inputs = new LinkedHashMap<>();
+
+		private final Map<DLTensorId, DLTensor<? extends DLWritableBuffer>> m_subBatchInputs = new LinkedHashMap<>();
+
 		private final List<DLTensorId> m_outputIds = new ArrayList<>();
 
 		private List<Tensor<?>> m_outputs;
 
-		public DLRunner(final Runner runner) {
+		private long m_batchSize;
+
+		private long m_bytesFed;
+
+		private long m_bytesFetched;
+
+		private boolean m_outputWritten;
+
+		public DLRunner(final Runner runner, final TFTensorTracker tracker) {
 			m_runner = runner;
+			m_tracker = tracker;
 		}
 
-		public void feed(final DLTensorId id, final DLTensor<? extends DLWritableBuffer> tensor) {
-			Tensor<?> t = createTFTensor(tensor);
+		public void feed(final DLTensorId id, final DLTensor<? extends DLWritableBuffer> tensor)
+				throws DLCheckedException {
+			Tensor<?> t = createTFTensor(tensor, m_tracker);
 			m_openTensors.add(t);
+			m_inputs.put(id, t);
+			m_batchSize = Math.max(m_batchSize, t.numDimensions() > 0 ? t.shape()[0] : 1);
+			m_bytesFed += t.numBytes();
 			m_runner.feed(opName(id), t);
 		}
 
+		/**
+		 * Feeds an input which is copied to native memory one sub-batch at a time by {@link #runInSubBatches}.
+		 */
+		public void feedInSubBatches(final DLTensorId id, final DLTensor<? extends DLWritableBuffer> tensor) {
+			m_subBatchInputs.put(id, tensor);
+			m_batchSize = Math.max(m_batchSize, getBatchSize(tensor));
+		}
+
 		public void fetch(final DLTensorId id) {
 			m_runner.fetch(opName(id), opOutput(id));
 			m_outputIds.add(id);
@@ -284,6 +490,132 @@ public void fetch(final DLTensorId id) {
 
 		public void run() {
 			m_outputs = m_runner.run();
+			m_outputs.forEach(m_tracker::track);
+		}
+
+		public byte[] runAndFetchMetadata() {
+			final Session.Run run = m_runner.setOptions(TFStepStatsProfiler.FULL_TRACE_RUN_OPTIONS)
+					.runAndFetchMetadata();
+			m_outputs = run.outputs;
+			m_outputs.forEach(m_tracker::track);
+			return run.metadata;
+		}
+
+		/**
+		 * Runs the batch fed by {@link #feedInSubBatches} in sub-batches with the sizes of the probe. The inputs of a
+		 * sub-batch are copied from the buffers of the input tensors and its outputs are written to the output tensors
+		 * at the offset of the sub-batch. Only the tensors of one sub-batch hold native memory at a time.
+		 *
+		 * @param session the session which runs the sub-batches
+		 * @param probe the probe which gives the sizes of the sub-batches
+		 * @param fetchMetadata if the run metadata of the first sub-batch should be fetched
+		 * @param outputTensors gives the output tensor of an output id for the shape of the full batch
+		 * @return the run metadata of the first sub-batch or <code>null</code> if it was not fetched
+		 */
+		public byte[] runInSubBatches(final Session session, final TFBatchSizeProbe probe, final boolean fetchMetadata,
+				final BiFunction<DLTensorId, long[], DLTensor<? extends DLReadableBuffer>> outputTensors)
+				throws DLCheckedException {
+			if (m_subBatchInputs.values().stream().anyMatch(t -> getBatchSize(t) != m_batchSize)) {
+				// Inputs with different batch sizes can't be split
+				for (final DLTensorId id : m_subBatchInputs.keySet()) {
+					feed(id, m_subBatchInputs.get(id));
+				}
+				m_subBatchInputs.clear();
+				if (fetchMetadata) {
+					return runAndFetchMetadata();
+				}
+				run();
+				return null;
+			}
+
+			final List<DLTensor<? extends DLReadableBuffer>> outputs = new ArrayList<>(m_outputIds.size());
+			byte[] metadata = null;
+			long offset = 0;
+			while (offset < m_batchSize) {
+				final long size = Math.min(probe.getNextSize(), m_batchSize - offset);
+				final List<Tensor<?>> subTensors = new ArrayList<>();
+				try {
+					final Runner runner = session.runner();
+					long bytesFed = 0;
+					for (final Map.Entry<DLTensorId, DLTensor<? extends DLWritableBuffer>> e : m_subBatchInputs
+							.entrySet()) {
+						final Tensor<?> t = createTFTensor(e.getValue(), offset, size, m_tracker);
+						subTensors.add(t);
+						bytesFed += t.numBytes();
+						runner.feed(opName(e.getKey()), t);
+					}
+					m_outputIds.forEach(id -> runner.fetch(opName(id), opOutput(id)));
+					final long start = System.nanoTime();
+					final List<Tensor<?>> subOutputs;
+					if (fetchMetadata && metadata == null) {
+						final Session.Run run = runner.setOptions(TFStepStatsProfiler.FULL_TRACE_RUN_OPTIONS)
+								.runAndFetchMetadata();
+						subOutputs = run.outputs;
+						metadata = run.metadata;
+					} else {
+						subOutputs = runner.run();
+					}
+					subOutputs.forEach(m_tracker::track);
+					subTensors.addAll(subOutputs);
+					probe.recordRun(size, System.nanoTime() - start);
+					m_bytesFed += bytesFed;
+
+					for (int o = 0; o < subOutputs.size(); o++) {
+						final Tensor<?> out = subOutputs.get(o);
+						final long[] shape = out.shape();
+						if (shape.length == 0 || shape[0] != size) {
+							throw new IllegalStateException("The first dimension of output \"" + m_outputIds.get(o)
+									+ "\" must be the batch size " + size
+									+ " to run the network in sub-batches but the shape is " + Arrays.toString(shape)
+									+ ". Please disable the automatic batch size.");
+						}
+						if (outputs.size() <= o) {
+							shape[0] = m_batchSize;
+							outputs.add(outputTensors.apply(m_outputIds.get(o), shape));
+						}
+						getReadableBuffer(outputs.get(o)).writeFromTensor(out, offset);
+						m_bytesFetched += out.numBytes();
+					}
+					offset += size;
+				} catch (final DLCheckedException | IllegalStateException e) {
+					// The tensor tracker reports an exceeded cap as checked exception and TensorFlow reports an
+					// exhausted resource as illegal state
+					final boolean outOfMemory = e instanceof DLCheckedException
+							|| (e.getMessage() != null && e.getMessage().contains("OOM"));
+					if (!outOfMemory || size == 1) {
+						throw e;
+					}
+					LOGGER.debug("A sub-batch of " + size + " rows ran out of memory. Retrying with fewer rows.", e);
+					probe.recordOutOfMemory(size);
+				} finally {
+					subTensors.forEach(m_tracker::release);
+				}
+			}
+			m_outputWritten = true;
+			return metadata;
+		}
+
+		private static long getBatchSize(final DLTensor<? extends DLWritableBuffer> tensor) {
+			return tensor.getBuffer().size() / tensor.getExampleSize();
+		}
+
+		public long getBatchSize() {
+			return m_batchSize;
+		}
+
+		public long getBytesFed() {
+			return m_bytesFed;
+		}
+
+		public long getBytesFetched() {
+			return m_outputs == null ? m_bytesFetched : m_outputs.stream().mapToLong(Tensor::numBytes).sum();
+		}
+
+		/**
+		 * @return if the outputs have already been written to the output tensors by {@link #runInSubBatches}
+		 */
+		public boolean isOutputWritten() {
+			return m_outputWritten;
 		}
 
 		public long[] getOutputShape(final DLTensorId id) {
@@ -291,14 +623,7 @@ public long[] getOutputShape(final DLTensorId id) {
 		}
 
 		public void fillTensor(final DLTensorId id, final DLTensor<? extends DLReadableBuffer> tensor) {
-			final TFTensorReadableBuffer buffer;
-			try {
-				buffer = (TFTensorReadableBuffer) tensor.getBuffer();
-			} catch (final ClassCastException e) {
-				throw new IllegalStateException("Wrong type of buffer: \"" + tensor.getBuffer().getClass()
-						+ "\", expected: \"" + TFTensorReadableBuffer.class + "\".");
-			}
-			buffer.writeFromTensor(m_outputs.get(m_outputIds.indexOf(id)));
+			getReadableBuffer(tensor).writeFromTensor(m_outputs.get(m_outputIds.indexOf(id)));
 		}
 
 		private String opName(final DLTensorId id) {
@@ -321,10 +646,29 @@ private int opOutput(final DLTensorId id) {
 
 		@Override
 		public void close() throws IOException {
-			m_openTensors.forEach(Tensor::close);
+			// The outputs are null if the run failed
+			final List<Tensor<?>> tensors = new ArrayList<>(m_openTensors);
+			if (m_outputs != null) {
+				tensors.addAll(m_outputs);
+			}
 			m_openTensors.clear();
-			m_outputs.forEach(Tensor::close);
-			m_outputs.clear();
+			m_outputs = null;
+			// Release every tensor even if releasing another one fails
+			RuntimeException failure = null;
+			for (final Tensor<?> t : tensors) {
+				try {
+					m_tracker.release(t);
+				} catch (final RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
 		}
 	}
 }
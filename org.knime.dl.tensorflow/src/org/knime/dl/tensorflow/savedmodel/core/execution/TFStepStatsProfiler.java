@@ -0,0 +1,312 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.execution;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.tensorflow.framework.AllocatorMemoryUsed;
+import org.tensorflow.framework.DeviceStepStats;
+import org.tensorflow.framework.NodeExecStats;
+import org.tensorflow.framework.RunMetadata;
+import org.tensorflow.framework.RunOptions;
+import org.tensorflow.framework.RunOptions.TraceLevel;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Collects the step stats of selected batches that are run with {@link TraceLevel#FULL_TRACE}, aggregates the time and
+ * memory per operation and writes them as a Chrome trace (which can be opened in <code>chrome://tracing</code> or
+ * Perfetto) and as a CSV summary of the most expensive operations.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFStepStatsProfiler {
+
+	/** Serialized run options which enable the full trace. */
+	static final byte[] FULL_TRACE_RUN_OPTIONS =
+			RunOptions.newBuilder().setTraceLevel(TraceLevel.FULL_TRACE).build().toByteArray();
+
+	private final long m_skipBatches;
+
+	private final long m_numBatches;
+
+	private final Map<String, OpStats> m_opStats = new HashMap<>();
+
+	private final List<String> m_devices = new ArrayList<>();
+
+	private final StringBuilder m_traceEvents = new StringBuilder();
+
+	private long m_profiledBatches;
+
+	/**
+	 * Creates a new profiler.
+	 *
+	 * @param skipBatches the number of batches at the beginning of the execution that are not profiled, e.g. to
+	 *            exclude the warm up of the session
+	 * @param numBatches the number of batches to profile
+	 */
+	public TFStepStatsProfiler(final long skipBatches, final long numBatches) {
+		m_skipBatches = skipBatches;
+		m_numBatches = numBatches;
+	}
+
+	/**
+	 * @param batchIndex the index of the batch in the execution
+	 * @return if the batch should be run with a full trace
+	 */
+	public boolean isProfiled(final long batchIndex) {
+		return batchIndex >= m_skipBatches && batchIndex < m_skipBatches + m_numBatches;
+	}
+
+	/**
+	 * @return the number of batches that have been profiled
+	 */
+	public long getProfiledBatches() {
+		return m_profiledBatches;
+	}
+
+	/**
+	 * Adds the run metadata of a profiled batch.
+	 *
+	 * @param runMetadata the serialized {@link RunMetadata} returned by the run
+	 * @param opTypes gives the type of the operation with the given name or <code>null</code> if it is unknown
+	 * @throws InvalidProtocolBufferException if the run metadata could not be parsed
+	 */
+	public void addRunMetadata(final byte[] runMetadata, final UnaryOperator<String> opTypes)
+			throws InvalidProtocolBufferException {
+		final RunMetadata metadata = RunMetadata.parseFrom(runMetadata);
+		for (final DeviceStepStats deviceStats : metadata.getStepStats().getDevStatsList()) {
+			int pid = m_devices.indexOf(deviceStats.getDevice());
+			if (pid < 0) {
+				pid = m_devices.size();
+				m_devices.add(deviceStats.getDevice());
+			}
+			for (final NodeExecStats nodeStats : deviceStats.getNodeStatsList()) {
+				final String name = nodeStats.getNodeName();
+				// Nodes that are not in the graph (e.g. "_SOURCE") have no type
+				final String opType = opTypes.apply(name);
+				final String type = opType == null ? "" : opType;
+				final long micros = nodeStats.getAllEndRelMicros();
+				final long bytes = nodeStats.getMemoryList().stream().mapToLong(AllocatorMemoryUsed::getTotalBytes)
+						.sum();
+				m_opStats.computeIfAbsent(name, n -> new OpStats(n, type)).add(micros, bytes);
+				appendTraceEvent(name, type, pid, nodeStats.getAllStartMicros(), micros, bytes);
+			}
+		}
+		m_profiledBatches++;
+	}
+
+	/**
+	 * @param n the maximum number of operations
+	 * @return the operations with the highest total time, sorted descending
+	 */
+	public List<OpStats> getTopOps(final int n) {
+		return m_opStats.values().stream() //
+				.sorted(Comparator.comparingLong(OpStats::getTotalMicros).reversed()) //
+				.limit(n) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Writes the collected events in the Chrome trace event format.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if writing failed
+	 */
+	public void writeChromeTrace(final Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("{\"traceEvents\":[");
+			for (int pid = 0; pid < m_devices.size(); pid++) {
+				if (pid > 0) {
+					writer.write(',');
+				}
+				writer.write(String.format(Locale.US,
+						"{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":%d,\"args\":{\"name\":\"%s\"}}", pid,
+						escape(m_devices.get(pid))));
+			}
+			if (m_traceEvents.length() > 0) {
+				writer.write(m_devices.isEmpty() ? m_traceEvents.substring(1) : m_traceEvents.toString());
+			}
+			writer.write("],\"displayTimeUnit\":\"ms\"}");
+		}
+	}
+
+	/**
+	 * Writes a CSV summary of the operations with the highest total time.
+	 *
+	 * @param file the file to write to
+	 * @param n the maximum number of operations
+	 * @throws IOException if writing failed
+	 */
+	public void writeTopOps(final Path file, final int n) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("op_name,op_type,count,total_micros,mean_micros,max_micros,total_bytes\n");
+			for (final OpStats op : getTopOps(n)) {
+				writer.write(String.format(Locale.US, "%s,%s,%d,%d,%.1f,%d,%d%n", csvQuote(op.getName()),
+						csvQuote(op.getType()), op.getCount(), op.getTotalMicros(), op.getMeanMicros(),
+						op.getMaxMicros(), op.getTotalBytes()));
+			}
+		}
+	}
+
+	private void appendTraceEvent(final String name, final String type, final int pid, final long startMicros,
+			final long durationMicros, final long bytes) {
+		m_traceEvents.append(String.format(Locale.US,
+				",{\"name\":\"%s\",\"cat\":\"%s\",\"ph\":\"X\",\"pid\":%d,\"tid\":0,\"ts\":%d,\"dur\":%d,"
+						+ "\"args\":{\"op\":\"%s\",\"batch\":%d,\"bytes\":%d}}",
+				escape(name), escape(type), pid, startMicros, durationMicros, escape(type), m_profiledBatches, bytes));
+	}
+
+	private static String csvQuote(final String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String escape(final String value) {
+		final StringBuilder b = new StringBuilder(value.length());
+		for (final char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				b.append('\\').append(c);
+			} else if (c < 0x20) {
+				b.append(String.format("\\u%04x", (int) c));
+			} else {
+				b.append(c);
+			}
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Time and memory of one operation aggregated over all profiled batches.
+	 */
+	public static final class OpStats {
+
+		private final String m_name;
+
+		private final String m_type;
+
+		private long m_count;
+
+		private long m_totalMicros;
+
+		private long m_maxMicros;
+
+		private long m_totalBytes;
+
+		private OpStats(final String name, final String type) {
+			m_name = name;
+			m_type = type == null ? "" : type;
+		}
+
+		private void add(final long micros, final long bytes) {
+			m_count++;
+			m_totalMicros += micros;
+			m_maxMicros = Math.max(m_maxMicros, micros);
+			m_totalBytes += bytes;
+		}
+
+		/**
+		 * @return the name of the operation
+		 */
+		public String getName() {
+			return m_name;
+		}
+
+		/**
+		 * @return the type of the operation or an empty string if it is unknown
+		 */
+		public String getType() {
+			return m_type;
+		}
+
+		/**
+		 * @return how often the operation has been executed
+		 */
+		public long getCount() {
+			return m_count;
+		}
+
+		/**
+		 * @return the total time of the operation in microseconds
+		 */
+		public long getTotalMicros() {
+			return m_totalMicros;
+		}
+
+		/**
+		 * @return the mean time of the operation in microseconds
+		 */
+		public double getMeanMicros() {
+			return m_count == 0 ? 0 : (double) m_totalMicros / m_count;
+		}
+
+		/**
+		 * @return the maximum time of the operation in microseconds
+		 */
+		public long getMaxMicros() {
+			return m_maxMicros;
+		}
+
+		/**
+		 * @return the total number of bytes allocated by the operation
+		 */
+		public long getTotalBytes() {
+			return m_totalBytes;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow.savedmodel.core.execution;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.dl.core.DLCheckedException;
+import org.tensorflow.Tensor;
+
+/**
+ * Keeps track of the TensorFlow tensors of an execution session which hold native memory. Tensors are registered
+ * when they are created or fetched and must be released through the tracker which closes them. The tracker counts the
+ * live tensors and their bytes, remembers the peak and can enforce a cap on the native memory of the tensors.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFTensorTracker {
+
+	private final Map<Tensor<?>, Long> m_liveTensors = new IdentityHashMap<>();
+
+	private long m_liveBytes;
+
+	private long m_peakBytes;
+
+	private long m_capBytes;
+
+	/**
+	 * Sets the maximum native memory the live tensors of this tracker may hold.
+	 *
+	 * @param capBytes the cap in bytes, 0 or less for no cap
+	 */
+	public synchronized void setCapBytes(final long capBytes) {
+		m_capBytes = capBytes;
+	}
+
+	/**
+	 * Checks that a tensor of the given size can be created without exceeding the cap of this tracker. Must be called
+	 * before creating the tensor to fail before the native memory is allocated.
+	 *
+	 * @param bytes the expected size of the tensor in bytes
+	 * @throws DLCheckedException if the tensor would exceed the cap
+	 */
+	public synchronized void checkCap(final long bytes) throws DLCheckedException {
+		if (m_capBytes > 0 && m_liveBytes + bytes > m_capBytes) {
+			throw new DLCheckedException("Creating a TensorFlow tensor of " + bytes + " bytes would exceed the native "
+					+ "memory cap of " + m_capBytes + " bytes (" + m_liveBytes + " bytes are in use). "
+					+ "Please reduce the batch size or increase the native memory budget.");
+		}
+	}
+
+	/**
+	 * Registers a tensor which has been created or fetched. Tensors which are already registered are ignored.
+	 *
+	 * @param tensor the tensor
+	 * @return the tensor
+	 */
+	public synchronized <T> Tensor<T> track(final Tensor<T> tensor) {
+		if (!m_liveTensors.containsKey(tensor)) {
+			final long bytes = tensor.numBytes();
+			m_liveTensors.put(tensor, bytes);
+			m_liveBytes += bytes;
+			m_peakBytes = Math.max(m_peakBytes, m_liveBytes);
+		}
+		return tensor;
+	}
+
+	/**
+	 * Closes a tensor and removes it from the live tensors. Tensors which are not registered are closed but not
+	 * counted.
+	 *
+	 * @param tensor the tensor
+	 */
+	public void release(final Tensor<?> tensor) {
+		synchronized (this) {
+			final Long bytes = m_liveTensors.remove(tensor);
+			if (bytes != null) {
+				m_liveBytes -= bytes;
+			}
+		}
+		tensor.close();
+	}
+
+	/**
+	 * Releases all live tensors of this tracker.
+	 *
+	 * @return the number of tensors which have been released
+	 */
+	public int releaseAll() {
+		final List<Tensor<?>> tensors;
+		synchronized (this) {
+			tensors = new ArrayList<>(m_liveTensors.keySet());
+		}
+		tensors.forEach(this::release);
+		return tensors.size();
+	}
+
+	/**
+	 * @return the number of live tensors of this tracker
+	 */
+	public synchronized int getLiveTensors() {
+		return m_liveTensors.size();
+	}
+
+	/**
+	 * @return the native memory in bytes held by the live tensors of this tracker
+	 */
+	public synchronized long getLiveBytes() {
+		return m_liveBytes;
+	}
+
+	/**
+	 * @return the maximum native memory in bytes the live tensors of this tracker have held at the same time
+	 */
+	public synchronized long getPeakBytes() {
+		return m_peakBytes;
+	}
+}
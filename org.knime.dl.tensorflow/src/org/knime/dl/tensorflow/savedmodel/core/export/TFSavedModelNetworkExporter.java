@@ -47,11 +47,18 @@
 package org.knime.dl.tensorflow.savedmodel.core.export;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
 
+import org.apache.commons.io.FilenameUtils;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.util.FileUtil;
 import org.knime.dl.core.export.DLAbstractNetworkExporter;
+import org.knime.dl.tensorflow.common.TFSavedModelStore;
+import org.knime.dl.tensorflow.common.TFSavedModelZip;
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelNetwork;
 import org.knime.dl.tensorflow.savedmodel.core.TFSavedModelUtil;
 
@@ -60,7 +67,7 @@
  */
 public class TFSavedModelNetworkExporter extends DLAbstractNetworkExporter<TFSavedModelNetwork> {
 
-	private static final int ZIP_COMPRESSION_LEVEL = 5;
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(TFSavedModelNetworkExporter.class);
 
 	private static final String NAME = "TensorFlow SavedModel ZIP Exporter";
 
@@ -81,7 +88,28 @@ public void exportNetwork(final TFSavedModelNetwork network, final URL path, fin
 		if (dest.exists() && !overwrite) {
 			throw new IOException("The destination file already exists.");
 		}
-		FileUtil.zipDir(dest, TFSavedModelUtil.getSavedModelInDir(network.getSource().getURI().toURL()), ZIP_COMPRESSION_LEVEL);
+		final URL source = network.getSource().getURI().toURL();
+		final File savedModelDir = TFSavedModelUtil.getSavedModelInDir(source);
+		// The directory of an extracted ZIP file has a random name: Name the root after the destination instead
+		final String rootName = FilenameUtils.getBaseName(dest.getName());
+		try {
+			// The archive comment identifies the content and the layout of the archive. If the destination has been
+			// written from the same network before, it is not written again
+			final String comment = "SavedModel " + TFSavedModelStore.getInstance().fingerprint(savedModelDir.toPath())
+					+ " root=" + rootName + " level=" + TFSavedModelZip.DEFAULT_ZIP_COMPRESSION_LEVEL;
+			if (TFSavedModelZip.hasZipComment(dest.toPath(), comment)) {
+				LOGGER.debug("The destination file \"" + dest
+						+ "\" already contains the network. Skipping the export.");
+				return;
+			}
+			TFSavedModelZip.zipSavedModel(savedModelDir.toPath(), rootName, new FileOutputStream(dest),
+					TFSavedModelZip.DEFAULT_ZIP_COMPRESSION_LEVEL, true, comment, new ExecutionMonitor());
+		} catch (final CanceledExecutionException e) {
+			// Cannot happen: The execution monitor is never canceled
+			throw new IOException(e);
+		} finally {
+			TFSavedModelUtil.releaseSavedModelInDir(source);
+		}
 	}
 
 }
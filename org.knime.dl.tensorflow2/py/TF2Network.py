@@ -48,6 +48,7 @@
 import os
 import re
 import itertools
+import warnings
 
 import numpy as np
 import pandas as pd
@@ -68,6 +69,141 @@ from DLPythonNetwork import DLPythonNetworkSpec
 from DLPythonNetwork import DLPythonTensorSpec
 
 
+def configure_execution(precision_policy='float32', xla_jit=False, intra_op_threads=0, inter_op_threads=0):
+    """Configure how TensorFlow executes networks in this process.
+    Must be called before TensorFlow executes any op. Settings which cannot be
+    applied (e.g. because the runtime is already initialized or the TensorFlow
+    version does not support them) are skipped with a warning.
+    """
+    # Threading: 0 means that TensorFlow chooses the number of threads
+    try:
+        if intra_op_threads > 0:
+            tf.config.threading.set_intra_op_parallelism_threads(intra_op_threads)
+        if inter_op_threads > 0:
+            tf.config.threading.set_inter_op_parallelism_threads(inter_op_threads)
+    except RuntimeError as e:
+        warnings.warn('Could not configure the number of threads: {}'.format(e))
+
+    # XLA JIT compilation
+    if xla_jit:
+        tf.config.optimizer.set_jit(True)
+
+    # Mixed precision
+    if precision_policy != 'float32':
+        # Layers created from now on use the policy
+        try:
+            tf.keras.mixed_precision.set_global_policy(precision_policy)
+        except AttributeError:
+            # TensorFlow < 2.4
+            tf.keras.mixed_precision.experimental.set_policy(precision_policy)
+        # Loaded models keep the policy they were saved with:
+        # Let the graph optimizer rewrite the ops to the lower precision
+        if precision_policy == 'mixed_float16':
+            rewrites = ['auto_mixed_precision']
+        else:
+            rewrites = ['auto_mixed_precision_onednn_bfloat16',
+                        'auto_mixed_precision_mkl']
+        for rewrite in rewrites:
+            try:
+                tf.config.optimizer.set_experimental_options({rewrite: True})
+                break
+            except (ValueError, TypeError):
+                # Not supported by this TensorFlow version
+                continue
+        else:
+            warnings.warn('The graph optimizer of this TensorFlow version does not support the '
+                          'precision policy "{}".'.format(precision_policy))
+
+
+def execute_networks(network_identifiers, in_table, batch_size):
+    """Execute several networks on the same input table. Each network must have
+    a single input. The values of a row are reshaped to the input shape of each
+    network. Returns a data frame with the flattened outputs of all networks
+    side by side and the same index as the input table.
+    """
+    from DLPythonNetwork import get_network
+
+    X = in_table.values
+    if pd.isnull(X).any():
+        raise ValueError('The input table contains missing values.')
+
+    outputs = []
+    for identifier in network_identifiers:
+        model = get_network(identifier).model
+        inp = model.inputs[0]
+        shape = [d if d is not None else -1 for d in inp.shape.as_list()[1:]]
+        x = X.astype(inp.dtype.as_numpy_dtype).reshape([X.shape[0]] + shape)
+        Y = model.predict(x, batch_size=batch_size)
+        Y = Y if isinstance(Y, list) else [Y]
+        outputs.extend([np.reshape(y, (y.shape[0], -1)).astype(np.float64)
+                        for y in Y])
+
+    result = np.concatenate(outputs, axis=1)
+    return pd.DataFrame(result, index=in_table.index,
+                        columns=[str(i) for i in range(result.shape[1])])
+
+
+def serialize_network_spec(network_identifier, include_versions=True):
+    """Serialize the spec of the network to a single string which is sent to
+    KNIME in one call. Each line describes a tensor spec by the tab separated
+    fields kind ('input', 'hidden' or 'output'), identifier, name, batch size,
+    shape, element type and dimension order. Unknown sizes are empty. If
+    requested, the first line contains the Python and TensorFlow version.
+    """
+    import sys
+    from DLPythonNetwork import get_network
+
+    def escape(value):
+        return str(value).replace('\\', '\\\\').replace('\t', '\\t').replace('\n', '\\n')
+
+    def size(value):
+        return '' if value is None else str(value)
+
+    lines = []
+    if include_versions:
+        python_version = '.'.join(str(v) for v in sys.version_info[:3])
+        lines.append('\t'.join(['versions', python_version, tf.__version__]))
+
+    spec = get_network(network_identifier).spec
+    for kind, tensor_specs in [('input', spec.input_specs),
+                               ('hidden', spec.intermediate_output_specs),
+                               ('output', spec.output_specs)]:
+        for t in tensor_specs:
+            lines.append('\t'.join([kind, escape(t.identifier), escape(t.name), size(t.batch_size),
+                                    ','.join(size(d) for d in t.shape), t.element_type,
+                                    t.dimension_order]))
+    return '\n'.join(lines)
+
+
+def put_in_matching_buffer(y):
+    """Wraps the numpy array in the data buffer matching its type"""
+    if len(y.shape) < 2:
+        y = y[..., None]
+    t = y.dtype
+    if t == np.float64:
+        return DLPythonDoubleBuffer(y)
+    elif t == np.float32:
+        return DLPythonFloatBuffer(y)
+    elif t == np.bool_:
+        return DLPythonBitBuffer(y)
+    elif t == np.int8:
+        return DLPythonByteBuffer(y)
+    elif t == np.uint8:
+        return DLPythonUnsignedByteBuffer(y)
+    elif t == np.int16:
+        return DLPythonShortBuffer(y)
+    elif t == np.int32:
+        return DLPythonIntBuffer(y)
+    elif t == np.int64:
+        return DLPythonLongBuffer(y)
+    elif t == np.object:
+        return DLPythonStringBuffer(y)
+    # TODO: support more types
+    else:
+        raise ValueError(
+            'Output type of the network \'{}\' is not supported.'.format(y.dtype))
+
+
 class TF2NetworkReader(DLPythonNetworkReader):
 
     def read(self, path, compile=True, **kwargs):
@@ -78,6 +214,9 @@ class TF2Network(DLPythonNetwork):
 
     def __init__(self, model):
         super().__init__(model)
+        # Models for the execution with specific outputs.
+        # Maps the tuple of output identifiers to the model and the indices of the inputs it needs
+        self._execution_models = {}
 
     @property
     def spec(self):
@@ -86,20 +225,36 @@ class TF2Network(DLPythonNetwork):
         return self._spec
 
     def execute(self, in_data, batch_size, output_identifiers):
-        if all([o.startswith('output_') for o in output_identifiers]):
-            # Get a model with only the needed outputs
-            model = self._get_sub_output_model(output_identifiers)
-        else:
-            # Get a model with the intermediate outputs
-            model = self._get_hidden_output_model(output_identifiers)
+        model, input_indices = self._get_execution_model(output_identifiers)
 
         X = self._format_input(in_data, batch_size)
+        X = [X[idx] for idx in input_indices]
         Y = model.predict(X, batch_size=batch_size)
         return self._format_output(Y, output_identifiers)
 
+    def _get_execution_model(self, output_identifiers):
+        """Get the model for computing the requested outputs and the indices of the
+        model inputs it has to be fed with. The model is created on the first call for
+        the given outputs and reused for the following batches.
+        """
+        key = tuple(output_identifiers)
+        if key not in self._execution_models:
+            if all([o.startswith('output_') for o in output_identifiers]):
+                # Get a model with only the needed outputs
+                model = self._get_sub_output_model(output_identifiers)
+                input_indices = list(range(len(self._model.inputs)))
+            else:
+                # Get a model with the intermediate outputs
+                model, input_indices = self._get_hidden_output_model(
+                    output_identifiers)
+            self._execution_models[key] = (model, input_indices)
+        return self._execution_models[key]
+
     def _get_hidden_output_model(self, output_identifiers):
         """Create a model with the requested outputs. The outputs can be hidden outputs.
         The model must be a graph model.
+        The model only contains the subgraph which is needed to compute the requested outputs.
+        Returns the model and the indices of the model inputs it needs.
         """
         model = self._model
 
@@ -120,8 +275,40 @@ class TF2Network(DLPythonNetwork):
             else:
                 raise ValueError('Unknown output requested: "{}"'.format(id))
 
+        # Only use the inputs the requested outputs depend on
+        input_indices = self._get_required_input_indices(outputs)
+        inputs = [model.inputs[idx] for idx in input_indices]
+
         # Build the model with the requested outputs
-        return tf.keras.Model(inputs=model.inputs, outputs=outputs)
+        return tf.keras.Model(inputs=inputs, outputs=outputs), input_indices
+
+    def _get_required_input_indices(self, tensors):
+        """Get the indices of the model inputs the given tensors depend on by
+        walking the graph from the tensors back to the inputs. Falls back to all
+        inputs if the graph cannot be traversed.
+        """
+        model = self._model
+        all_indices = list(range(len(model.inputs)))
+        try:
+            input_layers = {id(t._keras_history[0]): idx
+                            for idx, t in enumerate(model.inputs)}
+            required = set()
+            visited = set()
+            stack = list(tensors)
+            while stack:
+                layer, node_idx, _ = stack.pop()._keras_history
+                key = (id(layer), node_idx)
+                if key in visited:
+                    continue
+                visited.add(key)
+                if id(layer) in input_layers:
+                    required.add(input_layers[id(layer)])
+                    continue
+                node = layer._inbound_nodes[node_idx]
+                stack.extend(tf.nest.flatten(node.input_tensors))
+            return sorted(required) if required else all_indices
+        except (AttributeError, IndexError, TypeError):
+            return all_indices
 
     def _get_sub_output_model(self, output_identifiers):
         """Create a model with only the requested outputs (of the model outputs).
@@ -156,15 +343,13 @@ class TF2Network(DLPythonNetwork):
     def _format_output(self, Y, output_identifiers):
         if len(output_identifiers) == 1:
             Y = [Y]
-        out_and_hidden_specs = self.spec.output_specs + \
-            self.spec.intermediate_output_specs
-        output_specs = [[s for s in out_and_hidden_specs if s.identifier == id][0]
-                        for id in output_identifiers]
+        # NOTE: The identifiers are used directly. Looking up the specs would
+        # require enumerating all hidden specs of the network
         output = {}
-        for idx, output_spec in enumerate(output_specs):
+        for idx, identifier in enumerate(output_identifiers):
             out = self._put_in_matching_buffer(Y[idx])
-            out = pd.DataFrame({output_spec.identifier: [out]})
-            output[output_spec.identifier] = out
+            out = pd.DataFrame({identifier: [out]})
+            output[identifier] = out
         return output
 
     def _format_tensor(self, in_data, specs, batch_size):
@@ -178,39 +363,31 @@ class TF2Network(DLPythonNetwork):
         return tensors
 
     def _put_in_matching_buffer(self, y):
-        if len(y.shape) < 2:
-            y = y[..., None]
-        t = y.dtype
-        if t == np.float64:
-            return DLPythonDoubleBuffer(y)
-        elif t == np.float32:
-            return DLPythonFloatBuffer(y)
-        elif t == np.bool_:
-            return DLPythonBitBuffer(y)
-        elif t == np.int8:
-            return DLPythonByteBuffer(y)
-        elif t == np.uint8:
-            return DLPythonUnsignedByteBuffer(y)
-        elif t == np.int16:
-            return DLPythonShortBuffer(y)
-        elif t == np.int32:
-            return DLPythonIntBuffer(y)
-        elif t == np.int64:
-            return DLPythonLongBuffer(y)
-        elif t == np.object:
-            return DLPythonStringBuffer(y)
-        # TODO: support more types
-        else:
-            raise ValueError(
-                'Output type of the network \'{}\' is not supported.'.format(y.dtype))
+        return put_in_matching_buffer(y)
 
 
 class TF2NetworkSpec(DLPythonNetworkSpec):
 
     def __init__(self, input_specs, intermediate_output_specs, output_specs):
+        """Create the spec. intermediate_output_specs can be a list of specs or a
+        function returning the list. The function is called on the first access.
+        """
+        if callable(intermediate_output_specs):
+            self._intermediate_output_specs_fn = intermediate_output_specs
+            intermediate_output_specs = None
+        else:
+            self._intermediate_output_specs_fn = None
         super().__init__(input_specs, intermediate_output_specs, output_specs)
+        self._intermediate_output_specs = intermediate_output_specs
         self.training_config = None
 
+    @property
+    def intermediate_output_specs(self):
+        if self._intermediate_output_specs_fn is not None:
+            self._intermediate_output_specs = self._intermediate_output_specs_fn()
+            self._intermediate_output_specs_fn = None
+        return self._intermediate_output_specs
+
     @property
     def network_type(self):
         from TFNetworkType import instance as TensorFlow
@@ -238,31 +415,43 @@ class TF2NetworkSpecExtractor(object):
             output_specs.append(self._create_output_tensor_specs(
                 idx, tensor, dimension_order))
 
-        # Function for checking if a tensor is an input or output
-        input_names = [t.name for t in model.inputs]
-        output_names = [t.name for t in model.outputs]
+        # Hidden output specs: Enumerated on the first access
+        def extract_hidden_specs():
+            return self._extract_hidden_specs(dimension_order)
 
-        def is_input_or_output(tensor):
-            return tensor.name in input_names or tensor.name in output_names
+        return TF2NetworkSpec(input_specs, extract_hidden_specs, output_specs)
+
+    def _extract_hidden_specs(self, dimension_order):
+        model = self._model
+
+        # Names of the input and output tensors
+        input_output_names = set([t.name for t in model.inputs] +
+                                 [t.name for t in model.outputs])
 
-        # Hidden output specs
         hidden_specs = []
         for layer in model.layers:
             # Loop over nodes
-            for node_idx in itertools.count():
+            for node_idx in self._node_indices(layer):
                 try:
                     tensors = layer.get_output_at(node_idx)
-                    tensors = tensors if isinstance(
-                        tensors, list) else [tensors]
-                    for tensor_idx, tensor in enumerate(tensors):
-                        if not is_input_or_output(tensor):
-                            hidden_specs.append(self._create_hidden_tensor_specs(
-                                layer, node_idx, tensor_idx, tensor, dimension_order))
                 except ValueError:
                     # No node with this index
                     break
-
-        return TF2NetworkSpec(input_specs, hidden_specs, output_specs)
+                tensors = tensors if isinstance(tensors, list) else [tensors]
+                for tensor_idx, tensor in enumerate(tensors):
+                    if tensor.name not in input_output_names:
+                        hidden_specs.append(self._create_hidden_tensor_specs(
+                            layer, node_idx, tensor_idx, tensor, dimension_order))
+        return hidden_specs
+
+    def _node_indices(self, layer):
+        """Get the indices of the nodes of the layer. Uses the inbound nodes of the
+        layer if available and counts up until there is no node otherwise.
+        """
+        inbound_nodes = getattr(layer, '_inbound_nodes', None)
+        if inbound_nodes is not None:
+            return range(len(inbound_nodes))
+        return itertools.count()
 
     def _determine_dimension_order(self):
         """Determine the dimension order of the network.
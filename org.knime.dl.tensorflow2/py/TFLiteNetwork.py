@@ -0,0 +1,259 @@
+# -*- coding: utf-8 -*-
+
+# ------------------------------------------------------------------------
+#  Copyright by KNIME AG, Zurich, Switzerland
+#  Website: http://www.knime.com; Email: contact@knime.com
+#
+#  This program is free software; you can redistribute it and/or modify
+#  it under the terms of the GNU General Public License, Version 3, as
+#  published by the Free Software Foundation.
+#
+#  This program is distributed in the hope that it will be useful, but
+#  WITHOUT ANY WARRANTY; without even the implied warranty of
+#  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+#  GNU General Public License for more details.
+#
+#  You should have received a copy of the GNU General Public License
+#  along with this program; if not, see <http://www.gnu.org/licenses>.
+#
+#  Additional permission under GNU GPL version 3 section 7:
+#
+#  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+#  Hence, KNIME and ECLIPSE are both independent programs and are not
+#  derived from each other. Should, however, the interpretation of the
+#  GNU GPL Version 3 ("License") under any applicable laws result in
+#  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+#  you the additional permission to use and propagate KNIME together with
+#  ECLIPSE with only the license terms in place for ECLIPSE applying to
+#  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+#  license terms of ECLIPSE themselves allow for the respective use and
+#  propagation of ECLIPSE together with KNIME.
+#
+#  Additional permission relating to nodes for KNIME that extend the Node
+#  Extension (and in particular that are based on subclasses of NodeModel,
+#  NodeDialog, and NodeView) and that only interoperate with KNIME through
+#  standard APIs ("Nodes"):
+#  Nodes are deemed to be separate and independent programs and to not be
+#  covered works.  Notwithstanding anything to the contrary in the
+#  License, the License does not apply to Nodes, you are not required to
+#  license Nodes under the License, and you are granted a license to
+#  prepare and propagate Nodes, in each case even if such Nodes are
+#  propagated with or for interoperation with KNIME.  The owner of a Node
+#  may freely choose the license terms applicable to such Node, including
+#  when such Node is propagated with or for interoperation with KNIME.
+# ------------------------------------------------------------------------
+'''
+@author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+'''
+
+import warnings
+
+import numpy as np
+import pandas as pd
+import tensorflow as tf
+
+from DLPythonNetwork import DLPythonNetwork
+from DLPythonNetwork import DLPythonNetworkReader
+from DLPythonNetwork import DLPythonNetworkSpec
+from DLPythonNetwork import DLPythonTensorSpec
+from TF2Network import put_in_matching_buffer
+
+# Options for the interpreters created in this process. See configure_execution
+_num_threads = None
+_use_xnnpack = True
+
+
+def configure_execution(num_threads=0, use_xnnpack=True):
+    """Configure how TensorFlow Lite executes networks in this process.
+    Must be called before the first network is executed. num_threads=0 lets
+    TensorFlow Lite choose the number of threads. If use_xnnpack is False the
+    interpreter runs without the default XNNPACK delegate.
+    """
+    global _num_threads, _use_xnnpack
+    _num_threads = num_threads if num_threads > 0 else None
+    _use_xnnpack = use_xnnpack
+
+
+def create_interpreter(model_content):
+    """Create an interpreter for the given model using the options of
+    configure_execution. Options which are not supported by the TensorFlow
+    version are skipped with a warning.
+    """
+    kwargs = {}
+    if _num_threads is not None:
+        kwargs['num_threads'] = _num_threads
+    if not _use_xnnpack:
+        resolver_types = getattr(tf.lite.experimental, 'OpResolverType', None)
+        if resolver_types is not None:
+            kwargs['experimental_op_resolver_type'] = \
+                resolver_types.BUILTIN_WITHOUT_DEFAULT_DELEGATES
+        else:
+            warnings.warn('This TensorFlow version does not support disabling the '
+                          'XNNPACK delegate.')
+    try:
+        return tf.lite.Interpreter(model_content=model_content, **kwargs)
+    except TypeError as e:
+        warnings.warn('Could not configure the TensorFlow Lite interpreter: {}'.format(e))
+        return tf.lite.Interpreter(model_content=model_content)
+
+
+def convert_saved_model(saved_model_path, tflite_path, optimization='none',
+                        representative_data=None, input_shape=None):
+    """Convert the SavedModel at saved_model_path to a TensorFlow Lite model
+    and write it to tflite_path.
+    optimization is one of 'none', 'dynamic_range', 'float16' and 'integer'.
+    'integer' requires representative_data: A data frame whose rows are
+    reshaped to input_shape (without the batch dimension) and fed to the
+    single input of the model to calibrate the value ranges of the activations.
+    """
+    converter = tf.lite.TFLiteConverter.from_saved_model(saved_model_path)
+    if optimization != 'none':
+        converter.optimizations = [tf.lite.Optimize.DEFAULT]
+    if optimization == 'float16':
+        converter.target_spec.supported_types = [tf.float16]
+    elif optimization == 'integer':
+        if representative_data is None:
+            raise ValueError('Integer quantization requires representative data.')
+        values = representative_data.values.astype(np.float32)
+        if np.isnan(values).any():
+            raise ValueError('The representative data contains missing values.')
+        shape = [1] + list(input_shape)
+
+        def representative_dataset():
+            for row in values:
+                yield [row.reshape(shape)]
+
+        converter.representative_dataset = representative_dataset
+    elif optimization not in ('none', 'dynamic_range'):
+        raise ValueError('Unknown optimization: "{}"'.format(optimization))
+
+    with open(tflite_path, 'wb') as f:
+        f.write(converter.convert())
+
+
+class TFLiteModel(object):
+    """The content of a TensorFlow Lite model (the flatbuffer)."""
+
+    def __init__(self, content):
+        self.content = content
+
+
+class TFLiteNetworkReader(DLPythonNetworkReader):
+
+    def read(self, path, compile=True, **kwargs):
+        with open(path, 'rb') as f:
+            return TFLiteNetwork(TFLiteModel(f.read()))
+
+
+class TFLiteNetwork(DLPythonNetwork):
+
+    def __init__(self, model):
+        super().__init__(model)
+        # The interpreter is created on the first access to use the configured options
+        self._interpreter = None
+        # The shapes the inputs of the interpreter are allocated for
+        self._input_shapes = None
+
+    @property
+    def interpreter(self):
+        if self._interpreter is None:
+            self._interpreter = create_interpreter(self._model.content)
+            self._interpreter.allocate_tensors()
+            self._input_shapes = [d['shape'].tolist()
+                                  for d in self._interpreter.get_input_details()]
+        return self._interpreter
+
+    @property
+    def spec(self):
+        if self._spec is None:
+            self._spec = TFLiteNetworkSpecExtractor(self.interpreter).extract_spec()
+        return self._spec
+
+    def execute(self, in_data, batch_size, output_identifiers):
+        interpreter = self.interpreter
+        X = self._format_input(in_data, batch_size)
+        self._resize_inputs([list(x.shape) for x in X])
+
+        for detail, x in zip(interpreter.get_input_details(), X):
+            interpreter.set_tensor(detail['index'], x.astype(detail['dtype'], copy=False))
+        interpreter.invoke()
+
+        output_details = interpreter.get_output_details()
+        output = {}
+        for identifier in output_identifiers:
+            idx = int(identifier.split('_')[-1])
+            y = interpreter.get_tensor(output_details[idx]['index'])
+            output[identifier] = pd.DataFrame({identifier: [put_in_matching_buffer(y)]})
+        return output
+
+    def _resize_inputs(self, shapes):
+        """Resize the inputs of the interpreter to the given shapes. The tensors
+        are only reallocated if the shapes changed (e.g. for the last batch).
+        """
+        if shapes == self._input_shapes:
+            return
+        interpreter = self.interpreter
+        for detail, shape in zip(interpreter.get_input_details(), shapes):
+            interpreter.resize_tensor_input(detail['index'], shape)
+        interpreter.allocate_tensors()
+        self._input_shapes = shapes
+
+    def _format_input(self, in_data, batch_size):
+        """Creates a list of numpy arrays as network input with the given input data"""
+        tensors = []
+        for spec in self.spec.input_specs:
+            tensor = in_data[spec.identifier].values[0][0].array
+            tensor_shape = in_data[spec.identifier].values[0][1]
+            tensors.append(tensor.reshape([batch_size] + tensor_shape))
+        return tensors
+
+    def save(self, path):
+        with open(path, 'wb') as f:
+            f.write(self._model.content)
+
+
+class TFLiteNetworkSpec(DLPythonNetworkSpec):
+
+    def __init__(self, input_specs, intermediate_output_specs, output_specs):
+        super().__init__(input_specs, intermediate_output_specs, output_specs)
+        self.training_config = None
+
+    @property
+    def network_type(self):
+        from TFLiteNetworkType import instance as TFLite
+        return TFLite()
+
+
+class TFLiteNetworkSpecExtractor(object):
+
+    def __init__(self, interpreter):
+        self._interpreter = interpreter
+
+    def extract_spec(self):
+        interpreter = self._interpreter
+        input_specs = [self._create_tensor_specs('input_' + str(idx), detail)
+                       for idx, detail in enumerate(interpreter.get_input_details())]
+        output_specs = [self._create_tensor_specs('output_' + str(idx), detail)
+                        for idx, detail in enumerate(interpreter.get_output_details())]
+        # The interpreter does not expose intermediate tensors
+        return TFLiteNetworkSpec(input_specs, [], output_specs)
+
+    def _create_tensor_specs(self, id, detail):
+        """Create the tensor specs with the id and the name '<id>/<tensor name>'.
+        Uses the shape signature if available because it contains the unknown
+        dimensions (-1) of the converted model.
+        """
+        name = id + '/' + detail['name']
+        shape_signature = detail.get('shape_signature')
+        if shape_signature is not None and len(shape_signature) > 0:
+            tflite_shape = [d if d >= 0 else None for d in shape_signature.tolist()]
+        else:
+            # Older versions: The batch dimension is resized on execution
+            tflite_shape = [None] + detail['shape'].tolist()[1:]
+        if len(tflite_shape) < 2:
+            tflite_shape.append(1)
+        batch_size = tflite_shape[0]
+        shape = tflite_shape[1:]
+
+        element_type = np.dtype(detail['dtype']).name
+        return DLPythonTensorSpec(id, name, batch_size, shape, element_type, 'TDHWC')
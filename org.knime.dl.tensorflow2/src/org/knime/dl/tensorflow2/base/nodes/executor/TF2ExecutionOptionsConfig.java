@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.base.nodes.executor;
+
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.dl.base.settings.AbstractConfig;
+import org.knime.dl.base.settings.ConfigEntry;
+import org.knime.dl.base.settings.DefaultConfigEntry;
+import org.knime.dl.tensorflow2.core.execution.TF2ExecutionOptions;
+import org.knime.dl.tensorflow2.core.execution.TF2ExecutionOptions.PrecisionPolicy;
+
+/**
+ * Config for the {@link TF2ExecutionOptions} of the TensorFlow 2 Executor.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TF2ExecutionOptionsConfig extends AbstractConfig {
+
+    private static final String CFG_KEY_ROOT = "execution_options";
+
+    private static final String CFG_KEY_PRECISION_POLICY = "precision_policy";
+
+    private static final String CFG_KEY_XLA_JIT = "xla_jit";
+
+    private static final String CFG_KEY_INTRA_OP_THREADS = "intra_op_threads";
+
+    private static final String CFG_KEY_INTER_OP_THREADS = "inter_op_threads";
+
+    /**
+     * Create a new config for the TensorFlow 2 execution options.
+     */
+    TF2ExecutionOptionsConfig() {
+        super(CFG_KEY_ROOT);
+        putDefaults();
+    }
+
+    /** @return the name of the configured mixed precision policy */
+    ConfigEntry<String> getPrecisionPolicy() {
+        return get(CFG_KEY_PRECISION_POLICY, String.class);
+    }
+
+    /** @return if XLA JIT compilation is configured */
+    ConfigEntry<Boolean> getXlaJit() {
+        return get(CFG_KEY_XLA_JIT, Boolean.class);
+    }
+
+    /** @return the configured number of intra op threads */
+    ConfigEntry<Integer> getIntraOpThreads() {
+        return get(CFG_KEY_INTRA_OP_THREADS, Integer.class);
+    }
+
+    /** @return the configured number of inter op threads */
+    ConfigEntry<Integer> getInterOpThreads() {
+        return get(CFG_KEY_INTER_OP_THREADS, Integer.class);
+    }
+
+    /** @return the execution options as configured */
+    TF2ExecutionOptions createExecutionOptions() {
+        return new TF2ExecutionOptions(PrecisionPolicy.fromPolicyName(getPrecisionPolicy().getValue()),
+            getXlaJit().getValue(), getIntraOpThreads().getValue(), getInterOpThreads().getValue());
+    }
+
+    @Override
+    protected boolean handleFailureToLoadConfig(final NodeSettingsRO settings, final Exception cause) {
+        // Backwards compatibility: Nodes created before the options existed use the defaults
+        putDefaults();
+        return true;
+    }
+
+    private void putDefaults() {
+        final TF2ExecutionOptions defaults = TF2ExecutionOptions.DEFAULT;
+        put(new DefaultConfigEntry<>(CFG_KEY_PRECISION_POLICY, String.class,
+            defaults.getPrecisionPolicy().getPolicyName()));
+        put(new DefaultConfigEntry<>(CFG_KEY_XLA_JIT, Boolean.class, defaults.isXlaJit()));
+        put(new DefaultConfigEntry<>(CFG_KEY_INTRA_OP_THREADS, Integer.class, defaults.getIntraOpThreads()));
+        put(new DefaultConfigEntry<>(CFG_KEY_INTER_OP_THREADS, Integer.class, defaults.getInterOpThreads()));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.base.nodes.executor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JSpinner;
+
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
+import org.knime.dl.base.nodes.AbstractGridBagDialogComponentGroup;
+import org.knime.dl.base.settings.ConfigUtil;
+import org.knime.dl.tensorflow2.core.execution.TF2ExecutionOptions.PrecisionPolicy;
+
+/**
+ * Dialog component group for the {@link TF2ExecutionOptionsConfig}.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TF2ExecutionOptionsPanel extends AbstractGridBagDialogComponentGroup {
+
+    /**
+     * Creates a new dialog for the TensorFlow 2 execution options.
+     *
+     * @param cfg the config object
+     */
+    TF2ExecutionOptionsPanel(final TF2ExecutionOptionsConfig cfg) {
+        final List<String> policies =
+            Arrays.stream(PrecisionPolicy.values()).map(PrecisionPolicy::getPolicyName).collect(Collectors.toList());
+
+        final DialogComponentStringSelection dcPrecisionPolicy = new DialogComponentStringSelection(
+            ConfigUtil.toSettingsModelString(cfg.getPrecisionPolicy()), "Mixed precision policy", policies);
+        final DialogComponentBoolean dcXlaJit =
+            new DialogComponentBoolean(ConfigUtil.toSettingsModelBoolean(cfg.getXlaJit()), "");
+        final DialogComponentNumber dcIntraOpThreads = new DialogComponentNumber(
+            ConfigUtil.toSettingsModelIntegerBounded(cfg.getIntraOpThreads(), 0, Integer.MAX_VALUE),
+            "Intra op threads (0 = auto)", 1);
+        final DialogComponentNumber dcInterOpThreads = new DialogComponentNumber(
+            ConfigUtil.toSettingsModelIntegerBounded(cfg.getInterOpThreads(), 0, Integer.MAX_VALUE),
+            "Inter op threads (0 = auto)", 1);
+
+        addDoubleColumnRow(getFirstComponent(dcPrecisionPolicy, JLabel.class),
+            getFirstComponent(dcPrecisionPolicy, JComboBox.class));
+        addDoubleColumnRow(new JLabel("XLA JIT compilation"), getFirstComponent(dcXlaJit, JCheckBox.class));
+        addDoubleColumnRow(getFirstComponent(dcIntraOpThreads, JLabel.class),
+            getFirstComponent(dcIntraOpThreads, JSpinner.class));
+        addDoubleColumnRow(getFirstComponent(dcInterOpThreads, JLabel.class),
+            getFirstComponent(dcInterOpThreads, JSpinner.class));
+    }
+}
@@ -46,6 +46,12 @@
  */
 package org.knime.dl.tensorflow2.base.nodes.executor;
 
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.dl.base.nodes.DLDefaultNodeDialogTab;
 import org.knime.dl.python.base.node.DLAbstractPythonBasedExecutorNodeDialog;
 
 /**
@@ -57,7 +63,33 @@ final class TF2ExecutorNodeDialog extends DLAbstractPythonBasedExecutorNodeDialo
 
     // TODO add TF2 specific settings (GPU settings)
 
+    private final TF2ExecutionOptionsConfig m_executionOptionsConfig;
+
     public TF2ExecutorNodeDialog() {
         super(TF2ExecutorNodeModel::getDefaultPythonCommand);
+        final DLDefaultNodeDialogTab advancedTab = new DLDefaultNodeDialogTab("Advanced Options");
+        addTab(advancedTab.getTitle(), advancedTab.getTab(), false);
+
+        m_executionOptionsConfig = TF2ExecutorNodeModel.createExecutionOptionsConfig();
+        final TF2ExecutionOptionsPanel executionOptionsPanel = new TF2ExecutionOptionsPanel(m_executionOptionsConfig);
+        setWrapperPanel(advancedTab.getTabRoot());
+        addDialogComponentGroupWithBorder(executionOptionsPanel, "Execution Options");
+    }
+
+    @Override
+    protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectSpec[] specs)
+        throws NotConfigurableException {
+        super.loadSettingsFrom(settings, specs);
+        try {
+            m_executionOptionsConfig.loadFromSettings(settings);
+        } catch (final InvalidSettingsException e) {
+            throw new NotConfigurableException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
+        super.saveSettingsTo(settings);
+        m_executionOptionsConfig.saveToSettings(settings);
     }
 }
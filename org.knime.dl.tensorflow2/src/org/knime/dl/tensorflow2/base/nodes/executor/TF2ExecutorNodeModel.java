@@ -46,9 +46,26 @@
  */
 package org.knime.dl.tensorflow2.base.nodes.executor;
 
+import java.util.Map;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.dl.core.DLExecutionSpecCreator;
+import org.knime.dl.core.DLMissingExtensionException;
+import org.knime.dl.core.DLNetwork;
+import org.knime.dl.core.DLNetworkInputPreparer;
+import org.knime.dl.core.DLTensorId;
+import org.knime.dl.core.data.convert.DLTensorToDataCellConverterFactory;
+import org.knime.dl.core.execution.DLExecutionContext;
+import org.knime.dl.core.execution.DLNetworkExecutionSession;
+import org.knime.dl.core.execution.DLNetworkOutputConsumer;
 import org.knime.dl.python.base.node.DLAbstractPythonBasedExecutorNodeModel;
+import org.knime.dl.python.core.DLPythonContext;
 import org.knime.dl.python.prefs.DLPythonPreferences;
 import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObject;
+import org.knime.dl.tensorflow2.core.execution.TF2ExecutionSession;
 import org.knime.python2.PythonCommand;
 
 /**
@@ -62,7 +79,47 @@ static PythonCommand getDefaultPythonCommand() {
         return DLPythonPreferences.getPythonTF2CommandPreference();
     }
 
+    static TF2ExecutionOptionsConfig createExecutionOptionsConfig() {
+        return new TF2ExecutionOptionsConfig();
+    }
+
+    private final TF2ExecutionOptionsConfig m_executionOptionsConfig;
+
     TF2ExecutorNodeModel() {
         super(TF2NetworkPortObject.TYPE, TF2ExecutorNodeModel::getDefaultPythonCommand);
+        m_executionOptionsConfig = createExecutionOptionsConfig();
+    }
+
+    @Override
+    protected <N extends DLNetwork> DLNetworkExecutionSession createExecutionSession(final DLPythonContext context,
+        final N network, final int batchSize, final Map<DLTensorId, int[]> columnsForTensorId,
+        final Map<DLTensorId, DLTensorToDataCellConverterFactory<?, ?>> outputConverterForTensorId,
+        final DataRow firstRow, final DLNetworkInputPreparer inputPreparer,
+        final DLNetworkOutputConsumer outputConsumer) throws DLMissingExtensionException, InvalidSettingsException {
+        final DLExecutionContext<DLPythonContext, N> ctx = getExecutionContext(context);
+        final DLNetworkExecutionSession session = ctx.createExecutionSession(context, network,
+            DLExecutionSpecCreator.createExecutionSpecs(firstRow, ctx.getTensorFactory(), batchSize,
+                columnsForTensorId, m_inputConverters),
+            outputConverterForTensorId.keySet(), inputPreparer, outputConsumer);
+        if (session instanceof TF2ExecutionSession) {
+            ((TF2ExecutionSession)session).setExecutionOptions(m_executionOptionsConfig.createExecutionOptions());
+        }
+        return session;
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) {
+        super.saveSettingsTo(settings);
+        try {
+            m_executionOptionsConfig.saveToSettings(settings);
+        } catch (final InvalidSettingsException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        super.loadValidatedSettingsFrom(settings);
+        m_executionOptionsConfig.loadFromSettings(settings);
     }
 }
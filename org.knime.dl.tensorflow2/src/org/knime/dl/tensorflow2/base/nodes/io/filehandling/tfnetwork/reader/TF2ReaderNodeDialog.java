@@ -48,10 +48,17 @@
  */
 package org.knime.dl.tensorflow2.base.nodes.io.filehandling.tfnetwork.reader;
 
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+
+import javax.swing.BorderFactory;
+import javax.swing.JPanel;
+
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.filehandling.core.node.portobject.reader.PortObjectReaderNodeConfig;
 import org.knime.filehandling.core.node.portobject.reader.PortObjectReaderNodeDialog;
@@ -70,20 +77,35 @@ final class TF2ReaderNodeDialog extends PortObjectReaderNodeDialog<PortObjectRea
     private final PythonExecutableSelectionPanel m_executableSelectionTab =
         new PythonFixedVersionExecutableSelectionPanel(this, TF2ReaderNodeModel.createPythonCommandConfig());
 
+    private final DialogComponentBoolean m_keepH5Checkbox =
+        new DialogComponentBoolean(TF2ReaderNodeModel.createKeepH5Model(), "Keep HDF5 format");
+
     public TF2ReaderNodeDialog(final PortObjectReaderNodeConfig config) {
         super(config, HISTORY_ID);
+        addAdditionalPanel(createNetworkSettingsPanel());
         addTab(PythonExecutableSelectionPanel.DEFAULT_TAB_NAME, m_executableSelectionTab);
     }
 
+    private JPanel createNetworkSettingsPanel() {
+        final JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Network"));
+        final GridBagConstraints gbc = createAndInitGBC();
+        gbc.weightx = 1;
+        panel.add(m_keepH5Checkbox.getComponentPanel(), gbc);
+        return panel;
+    }
+
     @Override
     protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectSpec[] specs)
         throws NotConfigurableException {
         m_executableSelectionTab.loadSettingsFrom(settings);
+        m_keepH5Checkbox.loadSettingsFrom(settings, specs);
         super.loadSettingsFrom(settings, specs);
     }
 
     @Override
     protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
+        m_keepH5Checkbox.saveSettingsTo(settings);
         super.saveSettingsTo(settings);
         m_executableSelectionTab.saveSettingsTo(settings);
     }
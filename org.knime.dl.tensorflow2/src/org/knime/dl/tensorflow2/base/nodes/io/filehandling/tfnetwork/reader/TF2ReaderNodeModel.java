@@ -54,9 +54,12 @@
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -68,6 +71,7 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.context.NodeCreationConfiguration;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.util.PathUtils;
 import org.knime.dl.base.portobjects.DLNetworkPortObject;
@@ -77,6 +81,7 @@
 import org.knime.dl.python.core.DLPythonNetworkHandle;
 import org.knime.dl.python.core.DLPythonNetworkLoaderRegistry;
 import org.knime.dl.python.prefs.DLPythonPreferences;
+import org.knime.dl.tensorflow.common.TFSavedModelStore;
 import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObject;
 import org.knime.dl.tensorflow2.core.TF2Network;
 import org.knime.dl.tensorflow2.core.TF2NetworkLoader;
@@ -100,13 +105,22 @@ private enum NetworkFormat {
     private static final String SAVED_MODEL_REGEX =
         "^.*saved_model.pb$" + "|^.*variables(/.*|\\.*)?$" + "|^.*assets(/.*|\\.*)?$";
 
+    /** Config key for keeping HDF5 networks in the HDF5 format. */
+    private static final String CFG_KEEP_H5 = "keep_h5_format";
+
     static PythonCommandConfig createPythonCommandConfig() {
         return new PythonCommandConfig(PythonVersion.PYTHON3, DLPythonPreferences::getCondaInstallationPath,
             DLPythonPreferences::getPythonTF2CommandPreference);
     }
 
+    static SettingsModelBoolean createKeepH5Model() {
+        return new SettingsModelBoolean(CFG_KEEP_H5, true);
+    }
+
     private final PythonCommandConfig m_pythonCommandConfig = createPythonCommandConfig();
 
+    private final SettingsModelBoolean m_keepH5 = createKeepH5Model();
+
     TF2ReaderNodeModel(final NodeCreationConfiguration creationConfig, final PortObjectReaderNodeConfig config) {
         super(creationConfig, config);
     }
@@ -115,17 +129,28 @@ static PythonCommandConfig createPythonCommandConfig() {
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         super.saveSettingsTo(settings);
         m_pythonCommandConfig.saveSettingsTo(settings);
+        m_keepH5.saveSettingsTo(settings);
     }
 
     @Override
     protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_pythonCommandConfig.loadSettingsFrom(settings);
+        // Added in 5.11: Optional for backwards compatibility
+        if (settings.containsKey(CFG_KEEP_H5)) {
+            m_keepH5.validateSettings(settings);
+        }
         super.validateSettings(settings);
     }
 
     @Override
     protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_pythonCommandConfig.loadSettingsFrom(settings);
+        // Added in 5.11: Workflows created before convert HDF5 networks to SavedModels
+        if (settings.containsKey(CFG_KEEP_H5)) {
+            m_keepH5.loadSettingsFrom(settings);
+        } else {
+            m_keepH5.setBooleanValue(false);
+        }
         super.loadValidatedSettingsFrom(settings);
     }
 
@@ -133,9 +158,10 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws I
     protected PortObject[] readFromPath(final Path inputPath, final ExecutionContext exec) throws Exception {
         final DLExecutionMonitorCancelable cancelable = new DLExecutionMonitorCancelable(exec);
         final NetworkFormat format = getFormat(inputPath);
+        final boolean keepH5 = NetworkFormat.H5 == format && m_keepH5.getBooleanValue();
 
         // File store for the final model
-        final FileStore fileStore = DLNetworkPortObject.createFileStoreForSaving("", exec);
+        final FileStore fileStore = DLNetworkPortObject.createFileStoreForSaving(keepH5 ? "h5" : "", exec);
         final Path fileStorePath = fileStore.getFile().toPath();
         final URI fileStoreUri = fileStorePath.toUri();
 
@@ -143,14 +169,20 @@ protected PortObject[] readFromPath(final Path inputPath, final ExecutionContext
         Path tmpDir = null;
 
         // Get the network location:
-        // SavedModel: Copy into file store
+        // SavedModel: Copy into file store (linked to the SavedModel store if possible)
         // SavedModel ZIP: Extract into file store
-        // H5: Keep at location or copy to tmp file. Will be saved to file store later
+        // H5: Copy into file store if the format is kept. Otherwise keep at location or copy to tmp file and save
+        //     as SavedModel to the file store later
+        final TFSavedModelStore store = TFSavedModelStore.getInstance();
         final URI networkUri;
         switch (format) {
             case SAVED_MODEL:
                 // Copy the SavedModel into the file store
-                PathUtils.copyDirectory(inputPath, fileStorePath);
+                if (isLocalPath(inputPath)) {
+                    materializeDirectory(inputPath, fileStorePath, store);
+                } else {
+                    PathUtils.copyDirectory(inputPath, fileStorePath);
+                }
                 networkUri = fileStoreUri;
                 break;
 
@@ -161,7 +193,11 @@ protected PortObject[] readFromPath(final Path inputPath, final ExecutionContext
                 break;
 
             case H5:
-                if (isLocalPath(inputPath)) {
+                if (keepH5) {
+                    // The HDF5 file is loaded directly by all nodes which do not need a SavedModel
+                    Files.copy(inputPath, fileStorePath, StandardCopyOption.REPLACE_EXISTING);
+                    networkUri = fileStoreUri;
+                } else if (isLocalPath(inputPath)) {
                     networkUri = inputPath.toUri();
                 } else {
                     tmpDir = PathUtils.createTempDir("tf_network");
@@ -186,7 +222,7 @@ protected PortObject[] readFromPath(final Path inputPath, final ExecutionContext
             final DLPythonNetworkHandle handle = loader.load(networkUri, context, true, cancelable);
 
             // For H5 the network is not in the file store yet. Save it to the file store
-            if (NetworkFormat.H5 == format) {
+            if (NetworkFormat.H5 == format && !keepH5) {
                 loader.save(handle, fileStoreUri, context, cancelable);
             }
 
@@ -198,6 +234,11 @@ protected PortObject[] readFromPath(final Path inputPath, final ExecutionContext
             PathUtils.deleteDirectoryIfExists(tmpDir);
         }
 
+        // Store the files only once if the same model has been read before
+        if (NetworkFormat.SAVED_MODEL != format || !isLocalPath(inputPath)) {
+            store.deduplicate(fileStorePath);
+        }
+
         // Create the port object
         final TF2NetworkPortObject portObject = new TF2NetworkPortObject(network, fileStore);
         return new PortObject[]{portObject};
@@ -219,6 +260,23 @@ private static NetworkFormat getFormat(final Path path) throws InvalidSettingsEx
         }
     }
 
+    /** Copy the local directory by materializing each file from the SavedModel store */
+    private static void materializeDirectory(final Path source, final Path target, final TFSavedModelStore store)
+        throws IOException {
+        final List<Path> files;
+        try (final Stream<Path> paths = Files.walk(source)) {
+            files = paths.collect(Collectors.toList());
+        }
+        for (final Path file : files) {
+            final Path fileTarget = target.resolve(source.relativize(file).toString());
+            if (Files.isDirectory(file)) {
+                Files.createDirectories(fileTarget);
+            } else {
+                store.materialize(file, fileTarget);
+            }
+        }
+    }
+
     /** Extract the ZIP file to a file store with the SavedModel at the root */
     private static void extractZipSavedModel(final Path zipFile, final Path target) throws IOException {
         Files.createDirectories(target);
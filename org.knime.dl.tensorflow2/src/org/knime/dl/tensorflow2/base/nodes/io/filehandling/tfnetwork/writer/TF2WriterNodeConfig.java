@@ -53,6 +53,8 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.context.NodeCreationConfiguration;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.dl.tensorflow.common.TFSavedModelZip;
 import org.knime.filehandling.core.node.portobject.SelectionMode;
 import org.knime.filehandling.core.node.portobject.writer.PortObjectWriterNodeConfig;
 
@@ -66,10 +68,29 @@ final class TF2WriterNodeConfig extends PortObjectWriterNodeConfig {
     /** Config key for the network format. */
     private static final String CFG_SAVE_OPTIMIZER_STATE = "save_optimizer_state";
 
+    /** Config key for the ZIP compression level. */
+    private static final String CFG_COMPRESSION_LEVEL = "zip_compression_level";
+
+    /** Config key for storing the variables uncompressed. */
+    private static final String CFG_STORE_VARIABLES = "zip_store_variables";
+
+    /** Config key for hard linking the files of SavedModel folders. */
+    private static final String CFG_LINK_FILES = "link_files";
+
     private static final String[] FILE_SUFFIXES = {"h5", "zip"};
 
+    /** Same as {@link java.util.zip.Deflater#DEFAULT_COMPRESSION} which was used before the option existed */
+    private static final int DEFAULT_COMPRESSION_LEVEL = TFSavedModelZip.DEFAULT_ZIP_COMPRESSION_LEVEL;
+
     private final SettingsModelBoolean m_saveOptimizerState = new SettingsModelBoolean(CFG_SAVE_OPTIMIZER_STATE, false);
 
+    private final SettingsModelIntegerBounded m_compressionLevel =
+        new SettingsModelIntegerBounded(CFG_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_LEVEL, 0, 9);
+
+    private final SettingsModelBoolean m_storeVariables = new SettingsModelBoolean(CFG_STORE_VARIABLES, true);
+
+    private final SettingsModelBoolean m_linkFiles = new SettingsModelBoolean(CFG_LINK_FILES, false);
+
     TF2WriterNodeConfig(final NodeCreationConfiguration creationConfig) {
         super(builder(creationConfig).withFileSuffixes(FILE_SUFFIXES).withSelectionMode(SelectionMode.FILE_AND_FOLDER));
     }
@@ -79,21 +100,65 @@ SettingsModelBoolean getSaveOptimizerStateModel() {
         return m_saveOptimizerState;
     }
 
+    /** @return the model for the compression level of ZIP archives */
+    SettingsModelIntegerBounded getCompressionLevelModel() {
+        return m_compressionLevel;
+    }
+
+    /** @return the model if the variables should be stored uncompressed in ZIP archives */
+    SettingsModelBoolean getStoreVariablesModel() {
+        return m_storeVariables;
+    }
+
+    /** @return the model if the files of SavedModel folders should be hard linked instead of copied */
+    SettingsModelBoolean getLinkFilesModel() {
+        return m_linkFiles;
+    }
+
     @Override
     protected void validateConfigurationForModel(final NodeSettingsRO settings) throws InvalidSettingsException {
         super.validateConfigurationForModel(settings);
         m_saveOptimizerState.validateSettings(settings);
+        // Added in 5.11: Optional for backwards compatibility
+        if (settings.containsKey(CFG_COMPRESSION_LEVEL)) {
+            m_compressionLevel.validateSettings(settings);
+        }
+        if (settings.containsKey(CFG_STORE_VARIABLES)) {
+            m_storeVariables.validateSettings(settings);
+        }
+        if (settings.containsKey(CFG_LINK_FILES)) {
+            m_linkFiles.validateSettings(settings);
+        }
     }
 
     @Override
     protected void saveConfigurationForModel(final NodeSettingsWO settings) {
         super.saveConfigurationForModel(settings);
         m_saveOptimizerState.saveSettingsTo(settings);
+        m_compressionLevel.saveSettingsTo(settings);
+        m_storeVariables.saveSettingsTo(settings);
+        m_linkFiles.saveSettingsTo(settings);
     }
 
     @Override
     protected void loadConfigurationForModel(final NodeSettingsRO settings) throws InvalidSettingsException {
         super.loadConfigurationForModel(settings);
         m_saveOptimizerState.loadSettingsFrom(settings);
+        // Added in 5.11: Workflows created before compress everything with the default level
+        if (settings.containsKey(CFG_COMPRESSION_LEVEL)) {
+            m_compressionLevel.loadSettingsFrom(settings);
+        } else {
+            m_compressionLevel.setIntValue(DEFAULT_COMPRESSION_LEVEL);
+        }
+        if (settings.containsKey(CFG_STORE_VARIABLES)) {
+            m_storeVariables.loadSettingsFrom(settings);
+        } else {
+            m_storeVariables.setBooleanValue(false);
+        }
+        if (settings.containsKey(CFG_LINK_FILES)) {
+            m_linkFiles.loadSettingsFrom(settings);
+        } else {
+            m_linkFiles.setBooleanValue(false);
+        }
     }
 }
@@ -59,6 +59,7 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.filehandling.core.node.portobject.writer.PortObjectWriterNodeDialog;
 import org.knime.python2.config.PythonExecutableSelectionPanel;
@@ -76,11 +77,24 @@ final class TF2WriterNodeDialog extends PortObjectWriterNodeDialog<TF2WriterNode
 
     private final DialogComponentBoolean m_saveOptimizerStateCheckbox;
 
+    private final DialogComponentNumber m_compressionLevelSpinner;
+
+    private final DialogComponentBoolean m_storeVariablesCheckbox;
+
+    private final DialogComponentBoolean m_linkFilesCheckbox;
+
     TF2WriterNodeDialog(final TF2WriterNodeConfig config, final String fileChooserHistoryId) {
         super(config, fileChooserHistoryId);
         m_saveOptimizerStateCheckbox =
             new DialogComponentBoolean(config.getSaveOptimizerStateModel(), "Save Optimizer State");
+        m_compressionLevelSpinner =
+            new DialogComponentNumber(config.getCompressionLevelModel(), "ZIP compression level", 1);
+        m_storeVariablesCheckbox =
+            new DialogComponentBoolean(config.getStoreVariablesModel(), "Store variables uncompressed in ZIP");
+        m_linkFilesCheckbox =
+            new DialogComponentBoolean(config.getLinkFilesModel(), "Hard link SavedModel files (do not modify them)");
         addAdditionalPanel(createNetworkSettingsPanel());
+        addAdditionalPanel(createZipSettingsPanel());
         addTab(PythonExecutableSelectionPanel.DEFAULT_TAB_NAME, m_executableSelectionTab);
     }
 
@@ -90,12 +104,28 @@ private JPanel createNetworkSettingsPanel() {
         final GridBagConstraints gbc = createAndInitGBC();
         gbc.weightx = 1;
         panel.add(m_saveOptimizerStateCheckbox.getComponentPanel(), gbc);
+        gbc.gridy++;
+        panel.add(m_linkFilesCheckbox.getComponentPanel(), gbc);
+        return panel;
+    }
+
+    private JPanel createZipSettingsPanel() {
+        final JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "ZIP"));
+        final GridBagConstraints gbc = createAndInitGBC();
+        gbc.weightx = 1;
+        panel.add(m_compressionLevelSpinner.getComponentPanel(), gbc);
+        gbc.gridy++;
+        panel.add(m_storeVariablesCheckbox.getComponentPanel(), gbc);
         return panel;
     }
 
     @Override
     protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
         m_saveOptimizerStateCheckbox.saveSettingsTo(settings);
+        m_compressionLevelSpinner.saveSettingsTo(settings);
+        m_storeVariablesCheckbox.saveSettingsTo(settings);
+        m_linkFilesCheckbox.saveSettingsTo(settings);
         super.saveSettingsTo(settings);
         m_executableSelectionTab.saveSettingsTo(settings);
     }
@@ -105,6 +135,9 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final PortObjectS
         throws NotConfigurableException {
         m_executableSelectionTab.loadSettingsFrom(settings);
         m_saveOptimizerStateCheckbox.loadSettingsFrom(settings, specs);
+        m_compressionLevelSpinner.loadSettingsFrom(settings, specs);
+        m_storeVariablesCheckbox.loadSettingsFrom(settings, specs);
+        m_linkFilesCheckbox.loadSettingsFrom(settings, specs);
         super.loadSettingsFrom(settings, specs);
     }
 }
@@ -54,11 +54,12 @@
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Optional;
-import java.util.zip.Deflater;
 
 import org.apache.commons.io.FilenameUtils;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
@@ -72,10 +73,12 @@
 import org.knime.dl.python.core.DLPythonNetworkLoaderRegistry;
 import org.knime.dl.python.prefs.DLPythonPreferences;
 import org.knime.dl.python.util.DLPythonUtils;
+import org.knime.dl.tensorflow.common.TFSavedModelZip;
 import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObject;
 import org.knime.dl.tensorflow2.core.TF2Network;
 import org.knime.dl.tensorflow2.core.TF2NetworkLoader;
 import org.knime.dl.tensorflow2.core.TF2PythonContext;
+import org.knime.dl.tensorflow2.core.TF2SavedModelUtil;
 import org.knime.filehandling.core.defaultnodesettings.filechooser.writer.FileOverwritePolicy;
 import org.knime.filehandling.core.node.portobject.writer.PortObjectToPathWriterNodeModel;
 import org.knime.python2.PythonVersion;
@@ -133,19 +136,79 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws I
     @Override
     protected void writeToPath(final PortObject object, final Path outputPath, final ExecutionContext exec)
         throws Exception {
-        final TF2Network network = ((TF2NetworkPortObject)object).getNetwork();
-        final DLExecutionMonitorCancelable cancelable = new DLExecutionMonitorCancelable(exec);
         final NetworkFormat format = getNetworkFormat(outputPath);
-        final boolean saveOptimizerState = getConfig().getSaveOptimizerStateModel().getBooleanValue();
-        final boolean writeDirectly = isLocalPath(outputPath) && !NetworkFormat.SAVED_MODEL_ZIP.equals(format);
 
         // Fail fast if overwrite is disabled but the output exists
         checkOverwrite(outputPath);
 
+        if (!NetworkFormat.SAVED_MODEL.equals(format)) {
+            write((TF2NetworkPortObject)object, format, outputPath, outputPath, exec);
+            return;
+        }
+
+        // Files of the previous model must not remain in the SavedModel folder: Write the model next to the output
+        // and only replace an existing SavedModel folder after the model has been written successfully
+        checkReplaceableDirectory(outputPath);
+        final Path stagingDir = Files.createTempDirectory(outputPath.toAbsolutePath().getParent(),
+            "." + outputPath.getFileName() + ".tmp");
+        try {
+            final Path modelDir = stagingDir.resolve(getModelName(outputPath));
+            write((TF2NetworkPortObject)object, format, outputPath, modelDir, exec);
+            replaceDirectory(modelDir, outputPath);
+        } finally {
+            PathUtils.deleteDirectoryIfExists(stagingDir);
+        }
+    }
+
+    /**
+     * Writes the network in the given format.
+     *
+     * @param outputPath the output path selected by the user
+     * @param targetPath the path to write the network to. Same as the output path for files and a not existing
+     *            directory next to the output path for SavedModel folders.
+     */
+    private void write(final TF2NetworkPortObject portObject, final NetworkFormat format, final Path outputPath,
+        final Path targetPath, final ExecutionContext exec) throws Exception {
+        final TF2Network network = portObject.getNetwork();
+        final DLExecutionMonitorCancelable cancelable = new DLExecutionMonitorCancelable(exec);
+        final boolean saveOptimizerState = getConfig().getSaveOptimizerStateModel().getBooleanValue();
+        final boolean writeDirectly = isLocalPath(outputPath) && !NetworkFormat.SAVED_MODEL_ZIP.equals(format);
+
+        // The network in the file store is a HDF5 file including the optimizer state (if it has one):
+        // Copy it directly instead of loading and saving it in Python
+        if (network.isH5() && NetworkFormat.H5.equals(format) && saveOptimizerState) {
+            try (final OutputStream out = openOutputStream(outputPath)) {
+                Files.copy(Paths.get(network.getSource().getURI()), out);
+            }
+            return;
+        }
+
+        // The network in the file store is a SavedModel including the optimizer state (if it has one):
+        // Copy it directly instead of loading and saving it in Python
+        if (!network.isH5() && !NetworkFormat.H5.equals(format) && saveOptimizerState) {
+            final Path savedModelDir = Paths.get(network.getSource().getURI());
+            if (NetworkFormat.SAVED_MODEL.equals(format)) {
+                final boolean local = isLocalPath(outputPath);
+                final Path targetDir = local ? Paths.get(targetPath.toString()) : targetPath;
+                // Hard links share the content with the file store: Only if the user promises to not modify them
+                final boolean link = local && getConfig().getLinkFilesModel().getBooleanValue();
+                TF2SavedModelUtil.copySavedModel(savedModelDir, targetDir, link, exec);
+            } else {
+                // Do not write the archive again if it has been written from the same network before
+                final String comment = getArchiveComment(portObject.getFingerprint(), outputPath);
+                if (TFSavedModelZip.hasZipComment(outputPath, comment)) {
+                    getLogger().debug("The file \"" + outputPath + "\" already contains the network. Skipping.");
+                    return;
+                }
+                zipSavedModel(savedModelDir, outputPath, comment, exec);
+            }
+            return;
+        }
+
         // Get the path for writing the model to using Python
         final Path modelPath;
         if (writeDirectly) {
-            modelPath = outputPath;
+            modelPath = targetPath;
         } else if (NetworkFormat.H5.equals(format)) {
             modelPath = PathUtils.createTempFile("TF2_network", "h5");
         } else {
@@ -166,11 +229,11 @@ protected void writeToPath(final PortObject object, final Path outputPath, final
         if (!writeDirectly) {
             switch (format) {
                 case SAVED_MODEL:
-                    PathUtils.copyDirectory(modelPath, outputPath);
+                    PathUtils.copyDirectory(modelPath, targetPath);
                     break;
 
                 case SAVED_MODEL_ZIP:
-                    PathUtils.zip(modelPath, openOutputStream(outputPath), Deflater.DEFAULT_COMPRESSION);
+                    zipSavedModel(modelPath, outputPath, null, exec);
                     break;
 
                 case H5:
@@ -188,6 +251,61 @@ protected void writeToPath(final PortObject object, final Path outputPath, final
         }
     }
 
+    /** Write the SavedModel as a ZIP file to the output path with the configured compression */
+    private void zipSavedModel(final Path savedModelDir, final Path outputPath, final String comment,
+        final ExecutionContext exec) throws IOException, CanceledExecutionException {
+        final TF2WriterNodeConfig config = getConfig();
+        TFSavedModelZip.zipSavedModel(savedModelDir, getModelName(outputPath), openOutputStream(outputPath),
+            config.getCompressionLevelModel().getIntValue(), config.getStoreVariablesModel().getBooleanValue(),
+            comment, exec);
+    }
+
+    /** The archive comment identifies the content of the network and the layout of the archive */
+    private String getArchiveComment(final String fingerprint, final Path outputPath) {
+        final TF2WriterNodeConfig config = getConfig();
+        return "SavedModel " + fingerprint + " root=" + getModelName(outputPath) + " level="
+            + config.getCompressionLevelModel().getIntValue() + " stored="
+            + config.getStoreVariablesModel().getBooleanValue();
+    }
+
+    /**
+     * Checks that the output path can be replaced by a SavedModel folder: It must not exist or be a SavedModel folder.
+     * Other files and folders of the user are never deleted.
+     */
+    private static void checkReplaceableDirectory(final Path outputPath) throws IOException {
+        if (!Files.exists(outputPath)) {
+            return;
+        }
+        if (!Files.isDirectory(outputPath)) {
+            throw new IOException("The output path \"" + outputPath
+                + "\" is a file. Only an existing SavedModel folder can be replaced.");
+        }
+        if (!Files.isRegularFile(outputPath.resolve("saved_model.pb"))) {
+            throw new IOException("The folder \"" + outputPath
+                + "\" is not a SavedModel folder (it contains no saved_model.pb file) and is not replaced.");
+        }
+    }
+
+    /**
+     * Moves the written SavedModel folder to the output path. An existing SavedModel folder is moved away first and
+     * restored if moving the new folder fails.
+     */
+    private static void replaceDirectory(final Path modelDir, final Path outputPath) throws IOException {
+        if (!Files.exists(outputPath)) {
+            Files.move(modelDir, outputPath);
+            return;
+        }
+        // The old folder is deleted together with the staging directory
+        final Path oldDir = modelDir.resolveSibling(modelDir.getFileName() + ".old");
+        Files.move(outputPath, oldDir);
+        try {
+            Files.move(modelDir, outputPath);
+        } catch (final IOException e) {
+            Files.move(oldDir, outputPath);
+            throw e;
+        }
+    }
+
     /** Open an output stream at the given location with the configured open options */
     private OutputStream openOutputStream(final Path outputPath) throws IOException {
         final OpenOption[] openOptions =
@@ -0,0 +1,328 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.base.nodes.multiexecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.context.ports.PortsConfiguration;
+import org.knime.core.node.defaultnodesettings.SettingsModelColumnFilter2;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.util.UniqueNameGenerator;
+import org.knime.dl.core.DLExecutionMonitorCancelable;
+import org.knime.dl.core.DLFixedTensorShape;
+import org.knime.dl.core.DLTensorShape;
+import org.knime.dl.core.DLTensorSpec;
+import org.knime.dl.python.core.DLPythonContext;
+import org.knime.dl.python.core.DLPythonNetworkHandle;
+import org.knime.dl.python.core.DLPythonNetworkLoaderRegistry;
+import org.knime.dl.python.prefs.DLPythonPreferences;
+import org.knime.dl.python.util.DLPythonSourceCodeBuilder;
+import org.knime.dl.python.util.DLPythonUtils;
+import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObject;
+import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObjectSpec;
+import org.knime.dl.tensorflow2.core.TF2NetworkLoader;
+import org.knime.dl.tensorflow2.core.TF2NetworkSpec;
+import org.knime.dl.tensorflow2.core.TF2PythonContext;
+import org.knime.python2.PythonVersion;
+import org.knime.python2.config.PythonCommandConfig;
+
+/**
+ * The node model for the TensorFlow 2 Multi Network Executor. Executes several networks on the same input table
+ * using one Python kernel. The input table is transferred to Python in batches and all networks are applied to each
+ * batch, such that only one batch has to fit into the memory of the Python process.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TF2MultiExecutorNodeModel extends NodeModel {
+
+    private static final String INPUT_TABLE_NAME = "in_table";
+
+    private static final String OUTPUT_TABLE_NAME = "out_table";
+
+    private static final String CFG_INPUT_COLUMNS = "input_columns";
+
+    private static final String CFG_BATCH_SIZE = "batch_size";
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    static PythonCommandConfig createPythonCommandConfig() {
+        return new PythonCommandConfig(PythonVersion.PYTHON3, DLPythonPreferences::getCondaInstallationPath,
+            DLPythonPreferences::getPythonTF2CommandPreference);
+    }
+
+    @SuppressWarnings("unchecked")
+    static SettingsModelColumnFilter2 createInputColumnsModel() {
+        return new SettingsModelColumnFilter2(CFG_INPUT_COLUMNS, DoubleValue.class);
+    }
+
+    static SettingsModelIntegerBounded createBatchSizeModel() {
+        return new SettingsModelIntegerBounded(CFG_BATCH_SIZE, DEFAULT_BATCH_SIZE, 1, Integer.MAX_VALUE);
+    }
+
+    private final PythonCommandConfig m_pythonCommandConfig = createPythonCommandConfig();
+
+    private final SettingsModelColumnFilter2 m_inputColumns = createInputColumnsModel();
+
+    private final SettingsModelIntegerBounded m_batchSize = createBatchSizeModel();
+
+    TF2MultiExecutorNodeModel(final PortsConfiguration portsConfig) {
+        super(portsConfig.getInputPorts(), portsConfig.getOutputPorts());
+    }
+
+    @Override
+    protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        final DataTableSpec tableSpec = (DataTableSpec)inSpecs[0];
+        final String[] inputColumns = m_inputColumns.applyTo(tableSpec).getIncludes();
+        if (inputColumns.length == 0) {
+            throw new InvalidSettingsException("No input columns selected.");
+        }
+        final TF2NetworkSpec[] networkSpecs = new TF2NetworkSpec[inSpecs.length - 1];
+        for (int i = 0; i < networkSpecs.length; i++) {
+            if (inSpecs[i + 1] == null) {
+                // The network is not available yet
+                return null;
+            }
+            networkSpecs[i] = ((TF2NetworkPortObjectSpec)inSpecs[i + 1]).getNetworkSpec();
+            checkInput(i, networkSpecs[i], inputColumns.length);
+        }
+        return new PortObjectSpec[]{
+            new DataTableSpec(tableSpec, createPredictionSpec(tableSpec, networkSpecs))};
+    }
+
+    @Override
+    protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+        final DLExecutionMonitorCancelable cancelable = new DLExecutionMonitorCancelable(exec);
+        final BufferedDataTable table = (BufferedDataTable)inObjects[0];
+        final DataTableSpec tableSpec = table.getDataTableSpec();
+
+        // Only the input columns are transferred to Python
+        final ColumnRearranger rearranger = new ColumnRearranger(tableSpec);
+        rearranger.keepOnly(m_inputColumns.applyTo(tableSpec).getIncludes());
+        final BufferedDataTable inputTable =
+            exec.createColumnRearrangeTable(table, rearranger, exec.createSubProgress(0.05));
+
+        final TF2NetworkSpec[] networkSpecs = new TF2NetworkSpec[inObjects.length - 1];
+        for (int i = 0; i < networkSpecs.length; i++) {
+            networkSpecs[i] = ((TF2NetworkPortObject)inObjects[i + 1]).getSpec().getNetworkSpec();
+        }
+        final BufferedDataContainer predictions =
+            exec.createDataContainer(createPredictionSpec(tableSpec, networkSpecs));
+        try (final DLPythonContext context = new TF2PythonContext(m_pythonCommandConfig.getCommand())) {
+            final TF2NetworkLoader loader = new TF2NetworkLoader();
+            loader.checkAvailability(context, false, DLPythonNetworkLoaderRegistry.getInstallationTestTimeout(),
+                cancelable);
+
+            // Load all networks into the same kernel
+            exec.setMessage("Loading networks");
+            final List<DLPythonNetworkHandle> handles = new ArrayList<>();
+            for (int i = 0; i < networkSpecs.length; i++) {
+                final TF2NetworkPortObject networkPortObject = (TF2NetworkPortObject)inObjects[i + 1];
+                handles.add(loader.load(networkPortObject.getNetwork(), context, false, cancelable));
+            }
+
+            // Transfer each batch once and execute all networks on it
+            final String executeCode = getExecuteCode(handles);
+            final ExecutionMonitor executeProgress = exec.createSubProgress(0.9);
+            final int batchSize = m_batchSize.getIntValue();
+            final long numRows = inputTable.size();
+            long numDone = 0;
+            try (final CloseableRowIterator rows = inputTable.iterator()) {
+                while (rows.hasNext()) {
+                    exec.checkCanceled();
+                    final BufferedDataContainer batch = exec.createDataContainer(inputTable.getDataTableSpec());
+                    for (int i = 0; i < batchSize && rows.hasNext(); i++) {
+                        batch.addRowToTable(rows.next());
+                    }
+                    batch.close();
+                    numDone += batch.size();
+                    executeBatch(context, batch.getTable(), executeCode, predictions, exec, cancelable);
+                    executeProgress.setProgress(numDone / (double)numRows,
+                        "Executed networks on " + numDone + " of " + numRows + " rows");
+                }
+            }
+        }
+        predictions.close();
+
+        // The output columns already have their final names: Join them with the input table
+        return new PortObject[]{exec.createJoinedTable(table, predictions.getTable(), exec.createSubProgress(0.05))};
+    }
+
+    /** Transfers the batch to Python, executes the networks on it and adds the outputs to the predictions */
+    private static void executeBatch(final DLPythonContext context, final BufferedDataTable batch,
+        final String executeCode, final BufferedDataContainer predictions, final ExecutionContext exec,
+        final DLExecutionMonitorCancelable cancelable) throws Exception {
+        context.getKernel().putDataTable(INPUT_TABLE_NAME, batch, exec.createSilentSubProgress(0));
+        context.executeInKernel(executeCode, cancelable);
+        final BufferedDataTable batchPredictions =
+            context.getKernel().getDataTable(OUTPUT_TABLE_NAME, exec, exec.createSilentSubProgress(0));
+        try (final CloseableRowIterator rows = batchPredictions.iterator()) {
+            while (rows.hasNext()) {
+                predictions.addRowToTable(rows.next());
+            }
+        }
+        exec.clearTable(batch);
+        exec.clearTable(batchPredictions);
+    }
+
+    private String getExecuteCode(final List<DLPythonNetworkHandle> handles) {
+        final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+            .a("from TF2Network import execute_networks") //
+            .n("global ").a(OUTPUT_TABLE_NAME) //
+            .n(OUTPUT_TABLE_NAME).a(" = execute_networks([");
+        for (int i = 0; i < handles.size(); i++) {
+            if (i > 0) {
+                b.a(", ");
+            }
+            b.as(handles.get(i).getIdentifier());
+        }
+        b.a("], ").a(INPUT_TABLE_NAME).a(", ").a(m_batchSize.getIntValue()).a(")");
+        return b.toString();
+    }
+
+    /** Checks that the network has a single input of the size of the input columns */
+    private static void checkInput(final int networkIdx, final TF2NetworkSpec spec, final int numColumns)
+        throws InvalidSettingsException {
+        final DLTensorSpec[] inputSpecs = spec.getInputSpecs();
+        if (inputSpecs.length != 1) {
+            throw new InvalidSettingsException("Network " + (networkIdx + 1) + " has " + inputSpecs.length
+                + " inputs. Only networks with a single input are supported.");
+        }
+        final long inputSize = getNumElements(networkIdx, inputSpecs[0]);
+        if (inputSize != numColumns) {
+            throw new InvalidSettingsException("The input of network " + (networkIdx + 1) + " has " + inputSize
+                + " elements but " + numColumns + " input columns are selected.");
+        }
+    }
+
+    /** Creates the spec of the output columns of all networks */
+    private static DataTableSpec createPredictionSpec(final DataTableSpec tableSpec,
+        final TF2NetworkSpec[] networkSpecs) throws InvalidSettingsException {
+        final UniqueNameGenerator nameGenerator = new UniqueNameGenerator(tableSpec);
+        final List<DataColumnSpec> columns = new ArrayList<>();
+        for (int i = 0; i < networkSpecs.length; i++) {
+            for (final DLTensorSpec outputSpec : networkSpecs[i].getOutputSpecs()) {
+                final long numElements = getNumElements(i, outputSpec);
+                for (long j = 0; j < numElements; j++) {
+                    columns.add(nameGenerator.newColumn(
+                        "Network " + (i + 1) + " " + outputSpec.getName() + "_" + j, DoubleCell.TYPE));
+                }
+            }
+        }
+        return new DataTableSpec(columns.toArray(new DataColumnSpec[0]));
+    }
+
+    private static long getNumElements(final int networkIdx, final DLTensorSpec spec)
+        throws InvalidSettingsException {
+        final DLTensorShape shape = spec.getShape();
+        if (!(shape instanceof DLFixedTensorShape)) {
+            throw new InvalidSettingsException("The tensor \"" + spec.getName() + "\" of network " + (networkIdx + 1)
+                + " does not have a fixed shape. Only tensors with a fixed shape are supported.");
+        }
+        long numElements = 1;
+        for (final long d : ((DLFixedTensorShape)shape).getShape()) {
+            numElements *= d;
+        }
+        return numElements;
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) {
+        m_inputColumns.saveSettingsTo(settings);
+        m_batchSize.saveSettingsTo(settings);
+        m_pythonCommandConfig.saveSettingsTo(settings);
+    }
+
+    @Override
+    protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_inputColumns.validateSettings(settings);
+        m_batchSize.validateSettings(settings);
+    }
+
+    @Override
+    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_inputColumns.loadSettingsFrom(settings);
+        m_batchSize.loadSettingsFrom(settings);
+        m_pythonCommandConfig.loadSettingsFrom(settings);
+    }
+
+    @Override
+    protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // Nothing to do
+    }
+
+    @Override
+    protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // Nothing to do
+    }
+
+    @Override
+    protected void reset() {
+        // Nothing to do
+    }
+}
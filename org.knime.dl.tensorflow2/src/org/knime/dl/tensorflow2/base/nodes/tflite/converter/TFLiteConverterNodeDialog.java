@@ -0,0 +1,106 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.base.nodes.tflite.converter;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.dl.tensorflow2.core.tflite.TFLiteOptimization;
+import org.knime.python2.config.PythonExecutableSelectionPanel;
+import org.knime.python2.config.PythonFixedVersionExecutableSelectionPanel;
+
+/**
+ * The node dialog for the TensorFlow Lite Converter.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFLiteConverterNodeDialog extends DefaultNodeSettingsPane {
+
+    private final PythonExecutableSelectionPanel m_executableSelectionTab =
+        new PythonFixedVersionExecutableSelectionPanel(this, TFLiteConverterNodeModel.createPythonCommandConfig());
+
+    TFLiteConverterNodeDialog() {
+        final SettingsModelString optimization = TFLiteConverterNodeModel.createOptimizationModel();
+        final SettingsModelIntegerBounded calibrationRows = TFLiteConverterNodeModel.createCalibrationRowsModel();
+        // The number of rows is only relevant for optimizations which are calibrated with the representative data
+        optimization.addChangeListener(e -> updateCalibrationRowsEnabled(optimization, calibrationRows));
+        updateCalibrationRowsEnabled(optimization, calibrationRows);
+
+        addDialogComponent(new DialogComponentStringSelection(optimization, "Optimization", Arrays
+            .stream(TFLiteOptimization.values()).map(TFLiteOptimization::getName).collect(Collectors.toList())));
+        addDialogComponent(
+            new DialogComponentNumber(calibrationRows, "Maximum number of rows used for calibration", 100));
+        addTab(PythonExecutableSelectionPanel.DEFAULT_TAB_NAME, m_executableSelectionTab);
+    }
+
+    private static void updateCalibrationRowsEnabled(final SettingsModelString optimization,
+        final SettingsModelIntegerBounded calibrationRows) {
+        calibrationRows.setEnabled(
+            TFLiteOptimization.fromName(optimization.getStringValue()).requiresRepresentativeData());
+    }
+
+    @Override
+    public void loadAdditionalSettingsFrom(final NodeSettingsRO settings, final PortObjectSpec[] specs)
+        throws NotConfigurableException {
+        m_executableSelectionTab.loadSettingsFrom(settings);
+    }
+
+    @Override
+    public void saveAdditionalSettingsTo(final NodeSettingsWO settings) throws InvalidSettingsException {
+        m_executableSelectionTab.saveSettingsTo(settings);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.base.nodes.tflite.converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.filestore.FileStore;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.context.ports.PortsConfiguration;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.dl.base.portobjects.DLNetworkPortObject;
+import org.knime.dl.core.DLExecutionMonitorCancelable;
+import org.knime.dl.core.DLFixedTensorShape;
+import org.knime.dl.core.DLNetworkFileStoreLocation;
+import org.knime.dl.core.DLTensorSpec;
+import org.knime.dl.python.core.DLPythonContext;
+import org.knime.dl.python.core.DLPythonNetworkHandle;
+import org.knime.dl.python.core.DLPythonNetworkLoaderRegistry;
+import org.knime.dl.python.prefs.DLPythonPreferences;
+import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObject;
+import org.knime.dl.tensorflow2.base.portobjects.TF2NetworkPortObjectSpec;
+import org.knime.dl.tensorflow2.base.portobjects.TFLiteNetworkPortObject;
+import org.knime.dl.tensorflow2.core.TF2NetworkLoader;
+import org.knime.dl.tensorflow2.core.TF2NetworkSpec;
+import org.knime.dl.tensorflow2.core.TF2PythonContext;
+import org.knime.dl.tensorflow2.core.tflite.TFLiteNetwork;
+import org.knime.dl.tensorflow2.core.tflite.TFLiteNetworkLoader;
+import org.knime.dl.tensorflow2.core.tflite.TFLiteOptimization;
+import org.knime.dl.tensorflow2.core.tflite.TFLitePythonCommands;
+import org.knime.python2.PythonVersion;
+import org.knime.python2.config.PythonCommandConfig;
+
+/**
+ * The node model for the TensorFlow Lite Converter. Converts a TensorFlow 2 network to a TensorFlow Lite network
+ * using the converter of the TensorFlow Python package.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TFLiteConverterNodeModel extends NodeModel {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TFLiteConverterNodeModel.class);
+
+    private static final String REPRESENTATIVE_DATA_NAME = "representative_data";
+
+    private static final String CFG_OPTIMIZATION = "optimization";
+
+    private static final String CFG_CALIBRATION_ROWS = "calibration_rows";
+
+    private static final int DEFAULT_CALIBRATION_ROWS = 100;
+
+    static PythonCommandConfig createPythonCommandConfig() {
+        return new PythonCommandConfig(PythonVersion.PYTHON3, DLPythonPreferences::getCondaInstallationPath,
+            DLPythonPreferences::getPythonTF2CommandPreference);
+    }
+
+    static SettingsModelString createOptimizationModel() {
+        return new SettingsModelString(CFG_OPTIMIZATION, TFLiteOptimization.NONE.getName());
+    }
+
+    static SettingsModelIntegerBounded createCalibrationRowsModel() {
+        return new SettingsModelIntegerBounded(CFG_CALIBRATION_ROWS, DEFAULT_CALIBRATION_ROWS, 1, Integer.MAX_VALUE);
+    }
+
+    private final PythonCommandConfig m_pythonCommandConfig = createPythonCommandConfig();
+
+    private final SettingsModelString m_optimization = createOptimizationModel();
+
+    private final SettingsModelIntegerBounded m_calibrationRows = createCalibrationRowsModel();
+
+    private final boolean m_hasRepresentativeDataPort;
+
+    TFLiteConverterNodeModel(final PortsConfiguration portsConfig) {
+        super(portsConfig.getInputPorts(), portsConfig.getOutputPorts());
+        m_hasRepresentativeDataPort = portsConfig.getInputPortLocation()
+            .containsKey(TFLiteConverterNodeFactory.REPRESENTATIVE_DATA_PORT_GROUP);
+    }
+
+    @Override
+    protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        final TFLiteOptimization optimization;
+        try {
+            optimization = TFLiteOptimization.fromName(m_optimization.getStringValue());
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidSettingsException(e.getMessage(), e);
+        }
+        if (optimization.requiresRepresentativeData()) {
+            if (!m_hasRepresentativeDataPort) {
+                throw new InvalidSettingsException("The optimization \"" + optimization.getName()
+                    + "\" requires representative data. Add the representative data input port.");
+            }
+            final TF2NetworkSpec networkSpec = ((TF2NetworkPortObjectSpec)inSpecs[0]).getNetworkSpec();
+            final DataTableSpec dataSpec = (DataTableSpec)inSpecs[1];
+            if (dataSpec != null) {
+                checkRepresentativeData(networkSpec, getNumericColumns(dataSpec));
+            }
+        }
+        // The spec of the converted network is only known after the conversion
+        return new PortObjectSpec[]{null};
+    }
+
+    @Override
+    protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+        final DLExecutionMonitorCancelable cancelable = new DLExecutionMonitorCancelable(exec);
+        final TFLiteOptimization optimization = TFLiteOptimization.fromName(m_optimization.getStringValue());
+        final TF2NetworkPortObject networkPortObject = (TF2NetworkPortObject)inObjects[0];
+        final TF2NetworkSpec networkSpec = networkPortObject.getSpec().getNetworkSpec();
+
+        // The converted model is written directly to the file store
+        final FileStore fileStore = DLNetworkPortObject.createFileStoreForSaving("", exec);
+        final File tfliteFile = fileStore.getFile();
+
+        final TFLiteNetwork network;
+        try (final DLPythonContext context = new TF2PythonContext(m_pythonCommandConfig.getCommand())) {
+            final TFLiteNetworkLoader loader = new TFLiteNetworkLoader();
+            loader.checkAvailability(context, false, DLPythonNetworkLoaderRegistry.getInstallationTestTimeout(),
+                cancelable);
+
+            long[] inputShape = null;
+            if (optimization.requiresRepresentativeData()) {
+                exec.setMessage("Transferring representative data");
+                final BufferedDataTable representativeData =
+                    createRepresentativeData((BufferedDataTable)inObjects[1], networkSpec, exec);
+                context.getKernel().putDataTable(REPRESENTATIVE_DATA_NAME, representativeData,
+                    exec.createSubProgress(0.1));
+                inputShape = ((DLFixedTensorShape)networkSpec.getInputSpecs()[0].getShape()).getShape();
+            }
+
+            // HDF5 networks are converted to a SavedModel first
+            final File savedModelDir = new TF2NetworkLoader()
+                .getSavedModel(networkPortObject.getNetwork(), context, cancelable).toFile();
+
+            exec.setMessage("Converting network");
+            @SuppressWarnings("resource") // The commands use the context which is closed by the try block
+            final TFLitePythonCommands commands = new TFLitePythonCommands(context);
+            commands.convertSavedModel(savedModelDir, tfliteFile, optimization, REPRESENTATIVE_DATA_NAME,
+                inputShape, cancelable);
+            LOGGER.debug("Converted the network to TensorFlow Lite with the optimization \"" + optimization.getName()
+                + "\". Size of the converted network: " + tfliteFile.length() + " bytes.");
+
+            exec.setMessage("Loading converted network");
+            final DLPythonNetworkHandle handle = loader.load(tfliteFile.toURI(), context, false, cancelable);
+            network = loader.fetch(handle, new DLNetworkFileStoreLocation(fileStore), context, cancelable);
+        }
+        return new PortObject[]{new TFLiteNetworkPortObject(network, fileStore)};
+    }
+
+    /** Creates a table with the numeric columns and at most the configured number of rows */
+    private BufferedDataTable createRepresentativeData(final BufferedDataTable table,
+        final TF2NetworkSpec networkSpec, final ExecutionContext exec)
+        throws InvalidSettingsException, CanceledExecutionException {
+        final DataTableSpec tableSpec = table.getDataTableSpec();
+        final String[] columns = getNumericColumns(tableSpec);
+        checkRepresentativeData(networkSpec, columns);
+        final ColumnRearranger rearranger = new ColumnRearranger(tableSpec);
+        rearranger.keepOnly(columns);
+        final BufferedDataTable numericTable =
+            exec.createColumnRearrangeTable(table, rearranger, exec.createSubProgress(0.05));
+
+        final long numRows = Math.min(numericTable.size(), m_calibrationRows.getIntValue());
+        if (numRows == 0) {
+            throw new InvalidSettingsException("The representative data table is empty.");
+        }
+        final BufferedDataContainer container = exec.createDataContainer(numericTable.getDataTableSpec());
+        long i = 0;
+        for (final DataRow row : numericTable) {
+            if (i++ >= numRows) {
+                break;
+            }
+            exec.checkCanceled();
+            container.addRowToTable(row);
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static String[] getNumericColumns(final DataTableSpec spec) {
+        return spec.stream() //
+            .filter(c -> c.getType().isCompatible(DoubleValue.class)) //
+            .map(DataColumnSpec::getName) //
+            .toArray(String[]::new);
+    }
+
+    /** Checks that the network has a single input with a fixed shape and as many elements as numeric columns */
+    private static void checkRepresentativeData(final TF2NetworkSpec spec, final String[] numericColumns)
+        throws InvalidSettingsException {
+        final DLTensorSpec[] inputSpecs = spec.getInputSpecs();
+        if (inputSpecs.length != 1) {
+            throw new InvalidSettingsException("The network has " + inputSpecs.length
+                + " inputs. Only networks with a single input can be calibrated with representative data.");
+        }
+        if (!(inputSpecs[0].getShape() instanceof DLFixedTensorShape)) {
+            throw new InvalidSettingsException("The input \"" + inputSpecs[0].getName()
+                + "\" does not have a fixed shape. Only inputs with a fixed shape can be calibrated.");
+        }
+        final long numElements =
+            Arrays.stream(((DLFixedTensorShape)inputSpecs[0].getShape()).getShape()).reduce(1, (a, b) -> a * b);
+        if (numElements != numericColumns.length) {
+            throw new InvalidSettingsException("The input of the network has " + numElements
+                + " elements but the representative data has " + numericColumns.length + " numeric columns.");
+        }
+    }
+
+    @Override
+    protected void saveSettingsTo(final NodeSettingsWO settings) {
+        m_optimization.saveSettingsTo(settings);
+        m_calibrationRows.saveSettingsTo(settings);
+        m_pythonCommandConfig.saveSettingsTo(settings);
+    }
+
+    @Override
+    protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_optimization.validateSettings(settings);
+        m_calibrationRows.validateSettings(settings);
+    }
+
+    @Override
+    protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_optimization.loadSettingsFrom(settings);
+        m_calibrationRows.loadSettingsFrom(settings);
+        m_pythonCommandConfig.loadSettingsFrom(settings);
+    }
+
+    @Override
+    protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // Nothing to do
+    }
+
+    @Override
+    protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        // Nothing to do
+    }
+
+    @Override
+    protected void reset() {
+        // Nothing to do
+    }
+}
@@ -48,11 +48,15 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.ZipEntry;
 
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.knime.core.data.filestore.FileStore;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortObjectZipInputStream;
 import org.knime.core.node.port.PortObjectZipOutputStream;
@@ -63,6 +67,7 @@
 import org.knime.dl.core.DLInvalidSourceException;
 import org.knime.dl.core.DLNetworkFileStoreLocation;
 import org.knime.dl.python.core.DLPythonNetworkPortObject;
+import org.knime.dl.tensorflow.common.TFSavedModelStore;
 import org.knime.dl.tensorflow2.core.TF2Network;
 import org.knime.python2.PythonCommand;
 
@@ -80,6 +85,13 @@ public class TF2NetworkPortObject extends DLAbstractNetworkPortObject<TF2Network
     @SuppressWarnings("hiding")
     public static final PortType TYPE = PortTypeRegistry.getInstance().getPortType(TF2NetworkPortObject.class);
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TF2NetworkPortObject.class);
+
+    private static final String ZIP_ENTRY_NAME = "TF2NetworkPortObject";
+
+    /** The fingerprint of the network in the file store. <code>null</code> if not computed yet */
+    private volatile String m_fingerprint;
+
     /**
      * Creates a new TensorFlow deep learning network port object. The given network must be stored in the given file
      * store.
@@ -115,6 +127,22 @@ protected void flushToFileStoreInternal(final TF2Network network, final FileStor
         // Nothing to do: The network is already saved in the file store (Checked in the constructor)
     }
 
+    /**
+     * Returns the fingerprint of the content of the network in the file store. Two port objects with the same
+     * fingerprint hold identical networks. Consumers can use the fingerprint to skip writing a network again, e.g. when
+     * exporting it to a location which already contains this network. The fingerprint is saved with the port object
+     * such that it does not need to be computed again after loading the workflow.
+     *
+     * @return the fingerprint
+     * @throws IOException if reading the network files failed
+     */
+    public String getFingerprint() throws IOException {
+        if (m_fingerprint == null) {
+            m_fingerprint = TFSavedModelStore.getInstance().fingerprint(getFileStore(0).getFile().toPath());
+        }
+        return m_fingerprint;
+    }
+
     @Override
     public String getModelName() {
         return "TensorFlow 2 Deep Learning Network";
@@ -144,6 +172,15 @@ public TF2Network getNetwork(final PythonCommand command) throws DLInvalidSource
     @Override
     protected TF2Network getNetworkInternal(final TF2NetworkPortObjectSpec spec)
         throws DLInvalidSourceException, IOException {
+        if (m_fingerprint != null) {
+            // Saved in a previous session: Do not read the files again to compute the fingerprint
+            try {
+                TFSavedModelStore.getInstance().rememberFingerprint(getFileStore(0).getFile().toPath(),
+                    m_fingerprint);
+            } catch (final IOException e) {
+                LOGGER.debug("Failed to remember the fingerprint of the TensorFlow 2 network.", e);
+            }
+        }
         return new TF2Network(spec.getNetworkSpec(), new DLNetworkFileStoreLocation(getFileStore(0)));
     }
 
@@ -155,13 +192,26 @@ public static final class Serializer extends PortObjectSerializer<TF2NetworkPort
         @Override
         public void savePortObject(final TF2NetworkPortObject portObject, final PortObjectZipOutputStream out,
             final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
-            // Nothing to write. The network is defined by its specs and the file store
+            // The network is defined by its specs and the file store
+            // Only the fingerprint is written if it is known already. Saving should not read the whole network
+            final String fingerprint = portObject.m_fingerprint;
+            if (fingerprint != null) {
+                out.putNextEntry(new ZipEntry(ZIP_ENTRY_NAME));
+                final ObjectOutputStream objOut = new ObjectOutputStream(out);
+                objOut.writeUTF(fingerprint);
+                objOut.flush();
+            }
         }
 
         @Override
         public TF2NetworkPortObject loadPortObject(final PortObjectZipInputStream in, final PortObjectSpec spec,
             final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
             final TF2NetworkPortObject portObject = new TF2NetworkPortObject();
+            final ZipEntry entry = in.getNextEntry();
+            // Port objects saved with older versions or without a known fingerprint have no entry
+            if (entry != null && ZIP_ENTRY_NAME.equals(entry.getName())) {
+                portObject.m_fingerprint = new ObjectInputStream(in).readUTF();
+            }
             portObject.m_spec = (TF2NetworkPortObjectSpec)spec;
             return portObject;
         }
@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.base.portobjects;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.knime.core.node.port.PortObjectSpecZipInputStream;
+import org.knime.core.node.port.PortObjectSpecZipOutputStream;
+import org.knime.dl.base.portobjects.DLAbstractNetworkPortObjectSpec;
+import org.knime.dl.base.portobjects.DLNetworkPortObjectSpec;
+import org.knime.dl.tensorflow2.core.TF2NetworkSpec;
+import org.knime.dl.tensorflow2.core.tflite.TFLiteNetwork;
+
+/**
+ * The spec of {@link TFLiteNetworkPortObject}.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public class TFLiteNetworkPortObjectSpec extends DLAbstractNetworkPortObjectSpec<TF2NetworkSpec> {
+
+    private static final String ZIP_ENTRY_NAME = "TFLiteNetworkPortObjectSpec";
+
+    /**
+     * Creates new spec of a {@link TFLiteNetworkPortObject}.
+     *
+     * @param spec the spec of the corresponding TensorFlow Lite deep learning network
+     * @param type the type of the network
+     */
+    public TFLiteNetworkPortObjectSpec(final TF2NetworkSpec spec, final Class<? extends TFLiteNetwork> type) {
+        super(spec, type);
+    }
+
+    @Override
+    protected void hashCodeInternal(final HashCodeBuilder b) {
+        // no op - everything is handled in abstract base class
+    }
+
+    @Override
+    protected boolean equalsInternal(final DLNetworkPortObjectSpec other) {
+        // no op - everything is handled in abstract base class
+        return true;
+    }
+
+    /**
+     * Serializer of {@link TFLiteNetworkPortObjectSpec}
+     */
+    public static final class Serializer extends PortObjectSpecSerializer<TFLiteNetworkPortObjectSpec> {
+
+        @Override
+        public void savePortObjectSpec(final TFLiteNetworkPortObjectSpec portObjectSpec,
+            final PortObjectSpecZipOutputStream out) throws IOException {
+            out.putNextEntry(new ZipEntry(ZIP_ENTRY_NAME));
+            final ObjectOutputStream objOut = new ObjectOutputStream(out);
+            objOut.writeObject(portObjectSpec.m_spec);
+            objOut.writeObject(portObjectSpec.m_type);
+            objOut.flush();
+        }
+
+        @Override
+        public TFLiteNetworkPortObjectSpec loadPortObjectSpec(final PortObjectSpecZipInputStream in)
+            throws IOException {
+            final ZipEntry entry = in.getNextEntry();
+            if (!ZIP_ENTRY_NAME.equals(entry.getName())) {
+                throw new IOException("Failed to load TensorFlow Lite deep learning network. Invalid zip entry name '"
+                    + entry.getName() + "', expected '" + ZIP_ENTRY_NAME + "'.");
+            }
+            final ObjectInputStream objIn = new ObjectInputStream(in);
+            try {
+                final TF2NetworkSpec spec = (TF2NetworkSpec)objIn.readObject();
+                @SuppressWarnings("unchecked")
+                final Class<? extends TFLiteNetwork> type = (Class<? extends TFLiteNetwork>)objIn.readObject();
+                return new TFLiteNetworkPortObjectSpec(spec, type);
+            } catch (final ClassNotFoundException e) {
+                throw new IOException(
+                    "Failed to load TensorFlow Lite deep learning network. Are you missing a KNIME extension?");
+            } catch (final Throwable t) {
+                throw new IOException("Failed to load TensorFlow Lite deep learning network.", t);
+            }
+        }
+    }
+}
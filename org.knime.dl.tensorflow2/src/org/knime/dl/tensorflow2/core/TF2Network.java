@@ -48,23 +48,37 @@
  */
 package org.knime.dl.tensorflow2.core;
 
+import java.io.File;
+
 import org.knime.dl.core.DLNetworkLocation;
 import org.knime.dl.python.core.DLPythonAbstractNetwork;
 
 /**
- * A TensorFlow model representing a <code>tf.keras.Model</code> in the SavedModel format.
+ * A TensorFlow model representing a <code>tf.keras.Model</code> in the SavedModel or HDF5 format.
  *
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
  */
 public class TF2Network extends DLPythonAbstractNetwork<TF2NetworkSpec> {
 
     /**
-     * Create a new TensorFlow 2 network. The network must be saved as a SavedModel in the source location.
+     * Create a new TensorFlow 2 network. The network must be saved as a SavedModel directory or as a HDF5 file in the
+     * source location.
      *
      * @param spec the specification of the network
-     * @param source the location where the SavedModel is located
+     * @param source the location where the SavedModel directory or the HDF5 file is located
      */
     public TF2Network(final TF2NetworkSpec spec, final DLNetworkLocation source) {
         super(spec, source);
     }
+
+    /**
+     * HDF5 networks load faster but nodes which need a SavedModel have to convert them first using
+     * {@link TF2NetworkLoader#getSavedModel(TF2Network, org.knime.dl.python.core.DLPythonContext,
+     * org.knime.dl.core.DLCancelable)}.
+     *
+     * @return if the network is saved as a HDF5 file instead of a SavedModel directory
+     */
+    public boolean isH5() {
+        return new File(getSource().getURI()).isFile();
+    }
 }
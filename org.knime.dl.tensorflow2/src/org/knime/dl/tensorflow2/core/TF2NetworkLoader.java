@@ -52,15 +52,28 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.io.IOUtils;
 
 import org.knime.base.filehandling.remote.files.RemoteFileHandlerRegistry;
 import org.knime.core.data.filestore.FileStore;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.PathUtils;
 import org.knime.dl.core.DLCancelable;
 import org.knime.dl.core.DLCanceledExecutionException;
 import org.knime.dl.core.DLInvalidDestinationException;
@@ -81,8 +94,22 @@
  */
 public class TF2NetworkLoader extends DLPythonAbstractNetworkLoader<TF2Network> {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TF2NetworkLoader.class);
+
     private static final String URL_EXTENSION = "";
 
+    /** The first bytes of every HDF5 file */
+    private static final byte[] HDF5_SIGNATURE = {(byte)0x89, 'H', 'D', 'F', '\r', '\n', 0x1a, '\n'};
+
+    /**
+     * The SavedModels converted from HDF5 networks. Lazily created when a node needs a SavedModel. The future of a
+     * network is completed when its conversion is done, such that concurrent calls wait for the same conversion.
+     */
+    private static final Map<URI, CompletableFuture<Path>> CONVERTED_SAVED_MODELS = new ConcurrentHashMap<>();
+
+    /** How often a call which waits for the conversion of another call checks if it has been canceled */
+    private static final long CONVERSION_POLL_MS = 200;
+
     @Override
     public Class<TF2Network> getNetworkType() {
         return TF2Network.class;
@@ -112,8 +139,13 @@ public URL validateSource(final URI source) throws DLInvalidSourceException {
             throw new DLInvalidSourceException("TensorFlow network source (" + source + ") is not a valid URL.");
         }
         checkIfLocal(source);
+        final Path sourcePath = Paths.get(source);
+        if (Files.isRegularFile(sourcePath)) {
+            checkIsH5(sourcePath);
+            return sourceURL;
+        }
         try {
-            if (!Files.list(Paths.get(source))
+            if (!Files.list(sourcePath)
                 .anyMatch(p -> p.getFileName().toString().matches("^.*saved_model.pb?$"))) {
                 throw new DLInvalidSourceException("The source does not contain a saved_model.pb file.");
             }
@@ -149,9 +181,10 @@ public DLPythonNetworkHandle load(final URI source, final DLPythonContext contex
         final DLCancelable cancelable)
         throws DLInvalidSourceException, DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
         checkIfLocal(source);
-        final File savedModelDir = new File(source);
+        // A SavedModel directory or a HDF5 file
+        final File networkFile = new File(source);
         final TF2PythonCommands commands = createCommands(checkNotNull(context));
-        return commands.loadNetwork(savedModelDir.getAbsolutePath(), loadTrainingConfig, cancelable);
+        return commands.loadNetwork(networkFile.getAbsolutePath(), loadTrainingConfig, cancelable);
     }
 
     @Override
@@ -175,6 +208,129 @@ protected TF2PythonCommands createCommands(final DLPythonContext context) throws
         return new TF2PythonCommands(context);
     }
 
+    /**
+     * Gets a SavedModel directory of the given network. If the network is saved as a HDF5 file, it is converted to a
+     * SavedModel in a temporary directory on the first call. The converted SavedModel is reused by later calls for the
+     * same network and deleted once the HDF5 file does not exist anymore, e.g. because its file store was deleted.
+     *
+     * @param network the network
+     * @param context the Python context used to convert the network
+     * @param cancelable to check if the execution has been canceled
+     * @return the SavedModel directory of the network
+     * @throws DLInvalidSourceException if the network source is not valid
+     * @throws DLInvalidEnvironmentException if the Python environment is not valid
+     * @throws IOException if converting the network failed
+     * @throws DLCanceledExecutionException if the execution has been canceled
+     */
+    public Path getSavedModel(final TF2Network network, final DLPythonContext context, final DLCancelable cancelable)
+        throws DLInvalidSourceException, DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
+        final URI source = network.getSource().getURI();
+        if (!network.isH5()) {
+            return Paths.get(source);
+        }
+        deleteStaleConversions();
+        while (true) {
+            final CompletableFuture<Path> created = new CompletableFuture<>();
+            final CompletableFuture<Path> conversion = CONVERTED_SAVED_MODELS.computeIfAbsent(source, k -> created);
+            if (conversion == created) {
+                return convert(source, created, context, cancelable);
+            }
+            final Path converted = awaitConversion(conversion, cancelable);
+            if (converted != null && Files.isDirectory(converted)) {
+                return converted;
+            }
+            // The conversion of another call has been canceled or the directory has been deleted: Convert again
+            dropConversion(source, conversion);
+        }
+    }
+
+    private Path convert(final URI source, final CompletableFuture<Path> conversion, final DLPythonContext context,
+        final DLCancelable cancelable)
+        throws DLInvalidSourceException, DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
+        Path savedModelDir = null;
+        try {
+            savedModelDir = PathUtils.createTempDir("tf2_savedmodel").resolve("model");
+            final DLPythonNetworkHandle handle = load(source, context, true, cancelable);
+            save(handle, savedModelDir.toUri(), context, cancelable);
+            conversion.complete(savedModelDir);
+            return savedModelDir;
+        } catch (final Throwable t) { // NOSONAR the conversion is failed for every exception
+            conversion.completeExceptionally(t);
+            CONVERTED_SAVED_MODELS.remove(source, conversion);
+            if (savedModelDir != null) {
+                deleteConversion(savedModelDir);
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Waits for the conversion of another call.
+     *
+     * @return the SavedModel directory or <code>null</code> if the other call has been canceled
+     */
+    private static Path awaitConversion(final CompletableFuture<Path> conversion, final DLCancelable cancelable)
+        throws IOException, DLCanceledExecutionException {
+        while (true) {
+            cancelable.checkCanceled();
+            try {
+                return conversion.get(CONVERSION_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                // Check again if this call has been canceled
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the network conversion.", e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof DLCanceledExecutionException) {
+                    return null;
+                }
+                throw new IOException("Converting the network to a SavedModel failed: " + e.getCause().getMessage(),
+                    e.getCause());
+            }
+        }
+    }
+
+    /** Drops and deletes the conversions whose HDF5 file does not exist anymore */
+    private static void deleteStaleConversions() {
+        for (final Map.Entry<URI, CompletableFuture<Path>> e : CONVERTED_SAVED_MODELS.entrySet()) {
+            if (e.getValue().isDone() && "file".equals(e.getKey().getScheme())
+                && !Files.exists(Paths.get(e.getKey()))) {
+                dropConversion(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    private static void dropConversion(final URI source, final CompletableFuture<Path> conversion) {
+        if (CONVERTED_SAVED_MODELS.remove(source, conversion)) {
+            final Path savedModelDir = conversion.isCompletedExceptionally() ? null : conversion.getNow(null);
+            if (savedModelDir != null) {
+                deleteConversion(savedModelDir);
+            }
+        }
+    }
+
+    /** Deletes the temporary directory which contains the SavedModel directory */
+    private static void deleteConversion(final Path savedModelDir) {
+        try {
+            PathUtils.deleteDirectoryIfExists(savedModelDir.getParent());
+        } catch (final IOException e) {
+            LOGGER.debug("Could not delete the converted SavedModel \"" + savedModelDir + "\".", e);
+        }
+    }
+
+    /** Checks if the file starts with the HDF5 signature and throws an exception if not */
+    private static void checkIsH5(final Path file) throws DLInvalidSourceException {
+        final byte[] signature = new byte[HDF5_SIGNATURE.length];
+        try (final InputStream in = Files.newInputStream(file)) {
+            if (IOUtils.read(in, signature) == signature.length && Arrays.equals(signature, HDF5_SIGNATURE)) {
+                return;
+            }
+        } catch (final IOException ex) {
+            throw new DLInvalidSourceException("The source could not be read.", ex);
+        }
+        throw new DLInvalidSourceException("The source is neither a SavedModel directory nor a HDF5 file.");
+    }
+
     /** Checks if the URI points to a local file and throws an exception if not */
     private static void checkIfLocal(final URI source) throws DLInvalidSourceException {
         if (!source.getScheme().equals("file")) {
@@ -65,7 +65,8 @@
 import org.knime.dl.util.DLUtils;
 
 /**
- * The specs of a {@link TF2Network}.
+ * The specs of a {@link TF2Network}. Also used for a {@link org.knime.dl.tensorflow2.core.tflite.TFLiteNetwork
+ * TFLiteNetwork} converted from a TensorFlow 2 network.
  *
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
  */
@@ -48,8 +48,12 @@
  */
 package org.knime.dl.tensorflow2.core;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.knime.core.node.NodeLogger;
 import org.knime.core.util.Version;
@@ -69,8 +73,10 @@
 import org.knime.dl.python.core.training.DLPythonTrainingStatus;
 import org.knime.dl.python.util.DLPythonSourceCodeBuilder;
 import org.knime.dl.python.util.DLPythonUtils;
+import org.knime.dl.tensorflow2.core.execution.TF2ExecutionOptions;
 import org.knime.dl.util.DLThrowingLambdas.DLThrowingBiFunction;
 import org.knime.dl.util.DLUtils;
+import org.knime.python2.PythonCommand;
 import org.knime.python2.extensions.serializationlibrary.interfaces.Cell;
 import org.knime.python2.extensions.serializationlibrary.interfaces.TableChunker;
 
@@ -85,8 +91,18 @@ public final class TF2PythonCommands extends DLPythonAbstractCommands {
 
     private static final String TF_VERSION_NAME = "tf_version";
 
+    private static final String SERIALIZED_SPEC_NAME = "serialized_network_spec";
+
+    /**
+     * The Python and TensorFlow version of each Python command. The environment of a command does not change while
+     * KNIME is running.
+     */
+    private static final Map<PythonCommand, Version[]> VERSIONS = new ConcurrentHashMap<>();
+
     private static final Version MIN_TF_VERSION = new Version(2, 2, 0);
 
+    private final TF2ExecutionOptions m_executionOptions;
+
     /**
      * Create Python commands for handling TensorFlow 2 networks.
      *
@@ -94,12 +110,67 @@ public final class TF2PythonCommands extends DLPythonAbstractCommands {
      *            {@link #close()} is called.
      */
     public TF2PythonCommands(final DLPythonContext context) {
+        this(context, TF2ExecutionOptions.DEFAULT);
+    }
+
+    /**
+     * Create Python commands for handling TensorFlow 2 networks which configure the execution of TensorFlow with the
+     * given options when the context is set up.
+     *
+     * @param context The context which is used to communicate with Python. Note that this context is closed when
+     *            {@link #close()} is called.
+     * @param executionOptions the options for the execution of networks
+     */
+    public TF2PythonCommands(final DLPythonContext context, final TF2ExecutionOptions executionOptions) {
         super(context);
+        m_executionOptions = checkNotNull(executionOptions);
     }
 
     @Override
     @SuppressWarnings("resource") // Context is closed in close method
     public TF2NetworkSpec extractNetworkSpec(final DLPythonNetworkHandle network, final DLCancelable cancelable)
+        throws DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
+        final PythonCommand command = getPythonCommand(getContext(cancelable));
+        final Version[] cachedVersions = command == null ? null : VERSIONS.get(command);
+
+        // All specs and the versions (if not known yet) in one call
+        final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+            .a("import pandas as pd") //
+            .n("from TF2Network import serialize_network_spec") //
+            .n("global ").a(SERIALIZED_SPEC_NAME) //
+            .n(SERIALIZED_SPEC_NAME).a(" = pd.DataFrame([serialize_network_spec(").as(network.getIdentifier()) //
+            .a(", include_versions=").a(cachedVersions == null).a(")])");
+        getContext(cancelable).executeInKernel(b.toString(), cancelable);
+        final String serialized = (String)getContext(cancelable).getDataFromKernel(SERIALIZED_SPEC_NAME,
+            (s, ts) -> new SingleValueTableCreator<>(s, Cell::getStringValue), cancelable).getTable();
+        final TF2SerializedNetworkSpec spec;
+        try {
+            spec = TF2SerializedNetworkSpec.parse(serialized);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.debug("Could not parse the serialized network spec. Extracting the spec tables instead.", e);
+            return extractNetworkSpecTables(network, cancelable);
+        }
+
+        // Package versions
+        final Version[] versions;
+        if (cachedVersions != null) {
+            versions = cachedVersions;
+        } else {
+            versions = new Version[]{spec.getPythonVersion(), spec.getTFVersion()};
+            checkTFVersion(versions[1]);
+            if (command != null) {
+                VERSIONS.put(command, versions);
+            }
+        }
+
+        return new TF2NetworkSpec(versions[0], versions[1], spec.getInputSpecs(), spec.getHiddenOutputSpecs(),
+            spec.getOutputSpecs());
+    }
+
+    /** Extracts the spec with one call per spec table and version. Supports all element types */
+    @SuppressWarnings("resource") // Context is closed in close method
+    private TF2NetworkSpec extractNetworkSpecTables(final DLPythonNetworkHandle network,
+        final DLCancelable cancelable)
         throws DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
         // Input, hidden, output specs
         getContext(cancelable).executeInKernel(getExtractNetworkSpecsCode(network), cancelable);
@@ -110,15 +181,23 @@ public TF2NetworkSpec extractNetworkSpec(final DLPythonNetworkHandle network, fi
         // Package versions
         final Version pythonVersion = getPythonVersion(cancelable);
         final Version tfVersion = getTFVersion(cancelable);
+        checkTFVersion(tfVersion);
+
+        return new TF2NetworkSpec(pythonVersion, tfVersion, inputSpecs, hiddenOutputSpecs, outputSpecs);
+    }
 
+    private static void checkTFVersion(final Version tfVersion) throws DLInvalidEnvironmentException {
         if (tfVersion.compareTo(MIN_TF_VERSION) < 0) {
             throw new DLInvalidEnvironmentException(
                 "TensorFlow 2.2.0 or higher is required to use TensorFlow Keras models. The installed TensorFlow version is \""
                     + tfVersion.toString() + "\". Please update TensorFlow.");
 
         }
+    }
 
-        return new TF2NetworkSpec(pythonVersion, tfVersion, inputSpecs, hiddenOutputSpecs, outputSpecs);
+    /** The Python command of the context or <code>null</code> if it is unknown */
+    private static PythonCommand getPythonCommand(final DLPythonContext context) {
+        return context instanceof TF2PythonContext ? ((TF2PythonContext)context).getPythonCommand() : null;
     }
 
     @Override
@@ -152,8 +231,7 @@ protected File getInstallationTestFile() throws IOException {
 
     @Override
     protected String getSetupBackendCode() {
-        // Nothing to do
-        return "";
+        return m_executionOptions.getSetupCode();
     }
 
     @Override
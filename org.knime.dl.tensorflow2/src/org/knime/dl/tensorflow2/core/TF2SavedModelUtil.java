@@ -0,0 +1,189 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Utilities for handling TensorFlow 2 SavedModel directories on the Java side.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TF2SavedModelUtil {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TF2SavedModelUtil.class);
+
+    /** The maximum number of files that are copied in parallel */
+    private static final int MAX_COPY_THREADS = 4;
+
+    private TF2SavedModelUtil() {
+        // Utility class
+    }
+
+    /**
+     * Copies a SavedModel directory to the given target directory without loading it.
+     * <P>
+     * If <code>linkIfPossible</code> is <code>true</code> the files are hard linked instead of copied as long as the
+     * source and the target are on the same file system. This is only safe because TensorFlow never modifies the
+     * files of a SavedModel in place. If linking is not possible, the files are copied in parallel.
+     *
+     * @param source the SavedModel directory on the default file system
+     * @param target the target directory. Can be on any file system.
+     * @param linkIfPossible if the files should be hard linked if possible. <code>target</code> must be on the default
+     *            file system in this case.
+     * @param exec to report progress and check for cancellation
+     * @throws IOException if copying failed
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    public static void copySavedModel(final Path source, final Path target, final boolean linkIfPossible,
+        final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+        final List<Path> files;
+        try (final Stream<Path> paths = Files.walk(source)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        // Create the directory structure
+        try (final Stream<Path> paths = Files.walk(source)) {
+            for (final Path dir : (Iterable<Path>)paths.filter(Files::isDirectory)::iterator) {
+                Files.createDirectories(resolve(target, source.relativize(dir)));
+            }
+        }
+
+        if (linkIfPossible && linkFiles(source, target, files)) {
+            exec.setProgress(1);
+            return;
+        }
+        copyFiles(source, target, files, exec);
+    }
+
+    /** Hard links the files. Returns false if the file system does not support it */
+    private static boolean linkFiles(final Path source, final Path target, final List<Path> files)
+        throws IOException {
+        for (int i = 0; i < files.size(); i++) {
+            final Path file = files.get(i);
+            final Path targetFile = resolve(target, source.relativize(file));
+            Files.deleteIfExists(targetFile);
+            try {
+                Files.createLink(targetFile, file);
+            } catch (final IOException | UnsupportedOperationException e) {
+                // Different file stores or no support for hard links
+                if (i != 0) {
+                    // Linking failed after it already worked: Something else is wrong
+                    throw e instanceof IOException ? (IOException)e : new IOException(e);
+                }
+                LOGGER.debug("Could not create hard links for the SavedModel. Copying the files instead.", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Copies the files in parallel */
+    private static void copyFiles(final Path source, final Path target, final List<Path> files,
+        final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+        final int numThreads = Math.max(1, Math.min(MAX_COPY_THREADS, files.size()));
+        final ExecutorService executor = ThreadUtils.executorServiceWithContext(Executors.newFixedThreadPool(numThreads));
+        try {
+            final List<Future<?>> futures = new ArrayList<>(files.size());
+            for (final Path file : files) {
+                final Path targetFile = resolve(target, source.relativize(file));
+                futures.add(executor.submit(() -> {
+                    Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                waitForCopy(futures.get(i), exec);
+                exec.setProgress((i + 1) / (double)futures.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void waitForCopy(final Future<?> future, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        try {
+            exec.checkCanceled();
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while copying the SavedModel.");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException("Copying the SavedModel failed.", cause);
+        }
+    }
+
+    /** Resolves the relative path name by name. Works if the paths belong to different file systems */
+    private static Path resolve(final Path base, final Path relative) {
+        Path resolved = base;
+        for (final Path name : relative) {
+            resolved = resolved.resolve(name.toString());
+        }
+        return resolved;
+    }
+}
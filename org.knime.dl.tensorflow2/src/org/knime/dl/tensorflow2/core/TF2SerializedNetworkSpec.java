@@ -0,0 +1,233 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.knime.core.util.Version;
+import org.knime.dl.core.DLDefaultFixedTensorShape;
+import org.knime.dl.core.DLDefaultPartialTensorShape;
+import org.knime.dl.core.DLDefaultTensorId;
+import org.knime.dl.core.DLDefaultTensorSpec;
+import org.knime.dl.core.DLDimensionOrder;
+import org.knime.dl.core.DLTensorId;
+import org.knime.dl.core.DLTensorShape;
+import org.knime.dl.core.DLTensorSpec;
+
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * The spec of a {@link TF2Network} serialized by <code>TF2Network.serialize_network_spec</code> in Python. The spec
+ * is sent as a single string to avoid one round trip and data frame per tensor spec table and version.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+final class TF2SerializedNetworkSpec {
+
+    private static final String VERSIONS_KIND = "versions";
+
+    private Version m_pythonVersion;
+
+    private Version m_tfVersion;
+
+    private final List<DLTensorSpec> m_inputSpecs = new ArrayList<>();
+
+    private final List<DLTensorSpec> m_hiddenOutputSpecs = new ArrayList<>();
+
+    private final List<DLTensorSpec> m_outputSpecs = new ArrayList<>();
+
+    private TF2SerializedNetworkSpec() {
+    }
+
+    /**
+     * Parses the serialized spec.
+     *
+     * @param serialized the string created in Python
+     * @return the parsed spec
+     * @throws IllegalArgumentException if the string is malformed or contains an element type which is not supported
+     */
+    static TF2SerializedNetworkSpec parse(final String serialized) {
+        final TF2SerializedNetworkSpec spec = new TF2SerializedNetworkSpec();
+        if (serialized.isEmpty()) {
+            return spec;
+        }
+        for (final String line : serialized.split("\n")) {
+            final String[] fields = line.split("\t", -1);
+            if (VERSIONS_KIND.equals(fields[0])) {
+                checkFieldCount(line, fields, 3);
+                spec.m_pythonVersion = new Version(fields[1]);
+                spec.m_tfVersion = new Version(fields[2]);
+                continue;
+            }
+            checkFieldCount(line, fields, 7);
+            final DLTensorSpec tensorSpec = parseTensorSpec(fields);
+            switch (fields[0]) {
+                case "input":
+                    spec.m_inputSpecs.add(tensorSpec);
+                    break;
+                case "hidden":
+                    spec.m_hiddenOutputSpecs.add(tensorSpec);
+                    break;
+                case "output":
+                    spec.m_outputSpecs.add(tensorSpec);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown kind of tensor spec \"" + fields[0] + "\".");
+            }
+        }
+        return spec;
+    }
+
+    /**
+     * @return the Python version or <code>null</code> if the versions have not been requested
+     */
+    Version getPythonVersion() {
+        return m_pythonVersion;
+    }
+
+    /**
+     * @return the TensorFlow version or <code>null</code> if the versions have not been requested
+     */
+    Version getTFVersion() {
+        return m_tfVersion;
+    }
+
+    DLTensorSpec[] getInputSpecs() {
+        return m_inputSpecs.toArray(new DLTensorSpec[0]);
+    }
+
+    DLTensorSpec[] getHiddenOutputSpecs() {
+        return m_hiddenOutputSpecs.toArray(new DLTensorSpec[0]);
+    }
+
+    DLTensorSpec[] getOutputSpecs() {
+        return m_outputSpecs.toArray(new DLTensorSpec[0]);
+    }
+
+    private static void checkFieldCount(final String line, final String[] fields, final int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException("Malformed line in the serialized network spec: \"" + line + "\".");
+        }
+    }
+
+    private static DLTensorSpec parseTensorSpec(final String[] fields) {
+        final DLTensorId id = new DLDefaultTensorId(unescape(fields[1]));
+        final String name = unescape(fields[2]);
+        final OptionalLong batchSize = parseSize(fields[3]);
+        final Class<?> type = getClassForType(fields[5]);
+        final DLDimensionOrder dimensionOrder = DLDimensionOrder.valueOf(fields[6]);
+
+        if (fields[4].isEmpty()) {
+            // No shape known
+            return new DLDefaultTensorSpec(id, name, type, dimensionOrder);
+        }
+        final OptionalLong[] dims = Arrays.stream(fields[4].split(",")) //
+            .map(TF2SerializedNetworkSpec::parseSize) //
+            .toArray(OptionalLong[]::new);
+        final DLTensorShape shape;
+        if (Arrays.stream(dims).allMatch(OptionalLong::isPresent)) {
+            shape = new DLDefaultFixedTensorShape(Arrays.stream(dims).mapToLong(OptionalLong::getAsLong).toArray());
+        } else {
+            shape = new DLDefaultPartialTensorShape(dims);
+        }
+        if (batchSize.isPresent()) {
+            return new DLDefaultTensorSpec(id, name, batchSize.getAsLong(), shape, type, dimensionOrder);
+        } else {
+            return new DLDefaultTensorSpec(id, name, shape, type, dimensionOrder);
+        }
+    }
+
+    private static OptionalLong parseSize(final String size) {
+        return size.isEmpty() ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(size));
+    }
+
+    private static Class<?> getClassForType(final String elementType) {
+        switch (elementType) {
+            case "float64":
+                return double.class;
+            case "float32":
+                return float.class;
+            case "bool":
+                return boolean.class;
+            case "int8":
+                return byte.class;
+            case "uint8":
+                return UnsignedBytes.class;
+            case "int16":
+                return short.class;
+            case "int32":
+                return int.class;
+            case "int64":
+                return long.class;
+            case "string":
+            case "object":
+                return String.class;
+            default:
+                throw new IllegalArgumentException("The element type \"" + elementType + "\" is not supported.");
+        }
+    }
+
+    private static String unescape(final String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        final StringBuilder b = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                final char next = value.charAt(++i);
+                b.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.core.execution;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.knime.dl.python.util.DLPythonSourceCodeBuilder;
+import org.knime.dl.python.util.DLPythonUtils;
+
+/**
+ * Options that configure how TensorFlow executes a {@link org.knime.dl.tensorflow2.core.TF2Network TF2Network} in
+ * the Python kernel. The options are applied when the Python context is set up, before the network is loaded.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TF2ExecutionOptions {
+
+    /** The available mixed precision policies. */
+    public enum PrecisionPolicy {
+            /** Compute everything in float32 (the TensorFlow default) */
+            FLOAT32("float32"),
+            /** Compute in float16 where possible. Useful on GPUs with tensor cores */
+            MIXED_FLOAT16("mixed_float16"),
+            /** Compute in bfloat16 where possible. Useful on CPUs and TPUs supporting bfloat16 */
+            MIXED_BFLOAT16("mixed_bfloat16");
+
+        private final String m_policyName;
+
+        private PrecisionPolicy(final String policyName) {
+            m_policyName = policyName;
+        }
+
+        /** @return the name of the <code>tf.keras.mixed_precision</code> policy */
+        public String getPolicyName() {
+            return m_policyName;
+        }
+
+        /**
+         * @param policyName the name of the <code>tf.keras.mixed_precision</code> policy
+         * @return the policy with the given name
+         * @throws IllegalArgumentException if there is no policy with the given name
+         */
+        public static PrecisionPolicy fromPolicyName(final String policyName) {
+            for (final PrecisionPolicy p : values()) {
+                if (p.m_policyName.equals(policyName)) {
+                    return p;
+                }
+            }
+            throw new IllegalArgumentException("Unknown mixed precision policy \"" + policyName + "\".");
+        }
+    }
+
+    /** The default options which do not change the TensorFlow configuration. */
+    public static final TF2ExecutionOptions DEFAULT = new TF2ExecutionOptions(PrecisionPolicy.FLOAT32, false, 0, 0);
+
+    private final PrecisionPolicy m_precisionPolicy;
+
+    private final boolean m_xlaJit;
+
+    private final int m_intraOpThreads;
+
+    private final int m_interOpThreads;
+
+    /**
+     * Creates new execution options.
+     *
+     * @param precisionPolicy the mixed precision policy
+     * @param xlaJit if XLA JIT compilation should be enabled
+     * @param intraOpThreads the number of threads used within an individual op. <code>0</code> lets TensorFlow decide.
+     * @param interOpThreads the number of threads used for running independent ops in parallel. <code>0</code> lets
+     *            TensorFlow decide.
+     */
+    public TF2ExecutionOptions(final PrecisionPolicy precisionPolicy, final boolean xlaJit, final int intraOpThreads,
+        final int interOpThreads) {
+        checkArgument(intraOpThreads >= 0, "The number of intra op threads must not be negative.");
+        checkArgument(interOpThreads >= 0, "The number of inter op threads must not be negative.");
+        m_precisionPolicy = checkNotNull(precisionPolicy);
+        m_xlaJit = xlaJit;
+        m_intraOpThreads = intraOpThreads;
+        m_interOpThreads = interOpThreads;
+    }
+
+    /** @return the mixed precision policy */
+    public PrecisionPolicy getPrecisionPolicy() {
+        return m_precisionPolicy;
+    }
+
+    /** @return if XLA JIT compilation is enabled */
+    public boolean isXlaJit() {
+        return m_xlaJit;
+    }
+
+    /** @return the number of intra op threads. <code>0</code> if TensorFlow decides. */
+    public int getIntraOpThreads() {
+        return m_intraOpThreads;
+    }
+
+    /** @return the number of inter op threads. <code>0</code> if TensorFlow decides. */
+    public int getInterOpThreads() {
+        return m_interOpThreads;
+    }
+
+    /**
+     * @return Python code which applies the options. Must be executed before TensorFlow executes any op in the
+     *         kernel.
+     */
+    public String getSetupCode() {
+        if (equals(DEFAULT)) {
+            // Nothing to configure
+            return "";
+        }
+        final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+            .a("from TF2Network import configure_execution") //
+            .n("configure_execution(") //
+            /**/ .a("precision_policy=").as(m_precisionPolicy.getPolicyName()).a(", ") //
+            /**/ .a("xla_jit=").a(m_xlaJit).a(", ") //
+            /**/ .a("intra_op_threads=").a(m_intraOpThreads).a(", ") //
+            /**/ .a("inter_op_threads=").a(m_interOpThreads) //
+            /**/ .a(")");
+        return b.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = m_precisionPolicy.hashCode();
+        result = prime * result + (m_xlaJit ? 1231 : 1237);
+        result = prime * result + m_intraOpThreads;
+        result = prime * result + m_interOpThreads;
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TF2ExecutionOptions other = (TF2ExecutionOptions)obj;
+        return m_precisionPolicy == other.m_precisionPolicy && m_xlaJit == other.m_xlaJit
+            && m_intraOpThreads == other.m_intraOpThreads && m_interOpThreads == other.m_interOpThreads;
+    }
+}
@@ -46,6 +46,8 @@
  */
 package org.knime.dl.tensorflow2.core.execution;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.Set;
 
 import org.knime.dl.core.DLInvalidEnvironmentException;
@@ -66,6 +68,8 @@
  */
 public class TF2ExecutionSession extends DLPythonAbstractNetworkExecutionSession<TF2Network, TF2PythonCommands> {
 
+    private TF2ExecutionOptions m_executionOptions = TF2ExecutionOptions.DEFAULT;
+
     /**
      * Creates a new execution session for a {@link TF2Network} using the Python API.
      *
@@ -83,8 +87,17 @@ public TF2ExecutionSession(final DLPythonContext context, final TF2Network netwo
         super(context, network, executionInputSpecs, requestedOutputs, inputPreparer, outputConsumer, tensorFactory);
     }
 
+    /**
+     * Sets the options which configure the execution of TensorFlow. Must be called before the session is executed.
+     *
+     * @param executionOptions the execution options
+     */
+    public void setExecutionOptions(final TF2ExecutionOptions executionOptions) {
+        m_executionOptions = checkNotNull(executionOptions);
+    }
+
     @Override
     protected TF2PythonCommands createCommands(final DLPythonContext context) throws DLInvalidEnvironmentException {
-        return new TF2PythonCommands(context);
+        return new TF2PythonCommands(context, m_executionOptions);
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.core.tflite;
+
+/**
+ * The optimizations the TensorFlow Lite converter can apply when converting a SavedModel.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public enum TFLiteOptimization {
+        /** Keep the float32 weights and activations */
+        NONE("None", "none", false),
+        /** Store the weights as 8-bit integers. Activations are quantized dynamically when supported */
+        DYNAMIC_RANGE("Dynamic range (8-bit weights)", "dynamic_range", false),
+        /** Store the weights as 16-bit floats */
+        FLOAT16("16-bit float weights", "float16", false),
+        /** Quantize weights and activations to 8-bit integers. Calibrated with representative data */
+        INTEGER("8-bit integer (calibrated)", "integer", true);
+
+    private final String m_name;
+
+    private final String m_pythonName;
+
+    private final boolean m_requiresRepresentativeData;
+
+    private TFLiteOptimization(final String name, final String pythonName,
+        final boolean requiresRepresentativeData) {
+        m_name = name;
+        m_pythonName = pythonName;
+        m_requiresRepresentativeData = requiresRepresentativeData;
+    }
+
+    /** @return the name of the optimization as shown to the user */
+    public String getName() {
+        return m_name;
+    }
+
+    /** @return the identifier of the optimization in the Python converter function */
+    public String getPythonName() {
+        return m_pythonName;
+    }
+
+    /** @return if the optimization needs representative data to calibrate the value ranges of the activations */
+    public boolean requiresRepresentativeData() {
+        return m_requiresRepresentativeData;
+    }
+
+    /**
+     * @param name the name of the optimization as shown to the user
+     * @return the optimization with the given name
+     * @throws IllegalArgumentException if there is no optimization with the given name
+     */
+    public static TFLiteOptimization fromName(final String name) {
+        for (final TFLiteOptimization o : values()) {
+            if (o.m_name.equals(name)) {
+                return o;
+            }
+        }
+        throw new IllegalArgumentException("Unknown TensorFlow Lite optimization \"" + name + "\".");
+    }
+}
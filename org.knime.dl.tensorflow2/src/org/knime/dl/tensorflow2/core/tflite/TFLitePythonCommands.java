@@ -0,0 +1,232 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.core.tflite;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.knime.core.util.Version;
+import org.knime.dl.core.DLCancelable;
+import org.knime.dl.core.DLCanceledExecutionException;
+import org.knime.dl.core.DLInvalidEnvironmentException;
+import org.knime.dl.core.DLNetworkInputProvider;
+import org.knime.dl.core.DLTensor;
+import org.knime.dl.core.DLTensorId;
+import org.knime.dl.core.DLTensorSpec;
+import org.knime.dl.core.data.DLWritableBuffer;
+import org.knime.dl.core.training.DLTrainingMonitor;
+import org.knime.dl.python.core.DLPythonAbstractCommands;
+import org.knime.dl.python.core.DLPythonContext;
+import org.knime.dl.python.core.DLPythonNetworkHandle;
+import org.knime.dl.python.core.SingleValueTableCreator;
+import org.knime.dl.python.core.training.DLPythonTrainingStatus;
+import org.knime.dl.python.util.DLPythonSourceCodeBuilder;
+import org.knime.dl.python.util.DLPythonUtils;
+import org.knime.dl.tensorflow2.core.TF2NetworkSpec;
+import org.knime.dl.tensorflow2.core.tflite.execution.TFLiteExecutionOptions;
+import org.knime.dl.util.DLThrowingLambdas.DLThrowingBiFunction;
+import org.knime.dl.util.DLUtils;
+import org.knime.python2.extensions.serializationlibrary.interfaces.Cell;
+import org.knime.python2.extensions.serializationlibrary.interfaces.TableChunker;
+
+/**
+ * Python commands for a {@link TFLiteNetwork}.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFLitePythonCommands extends DLPythonAbstractCommands {
+
+    private static final String TF_VERSION_NAME = "tf_version";
+
+    private static final Version MIN_TF_VERSION = new Version(2, 2, 0);
+
+    private final TFLiteExecutionOptions m_executionOptions;
+
+    /**
+     * Create Python commands for handling TensorFlow Lite networks.
+     *
+     * @param context The context which is used to communicate with Python. Note that this context is closed when
+     *            {@link #close()} is called.
+     */
+    public TFLitePythonCommands(final DLPythonContext context) {
+        this(context, TFLiteExecutionOptions.DEFAULT);
+    }
+
+    /**
+     * Create Python commands for handling TensorFlow Lite networks which configure the interpreter with the given
+     * options when the context is set up.
+     *
+     * @param context The context which is used to communicate with Python. Note that this context is closed when
+     *            {@link #close()} is called.
+     * @param executionOptions the options for the execution of networks
+     */
+    public TFLitePythonCommands(final DLPythonContext context, final TFLiteExecutionOptions executionOptions) {
+        super(context);
+        m_executionOptions = checkNotNull(executionOptions);
+    }
+
+    @Override
+    @SuppressWarnings("resource") // Context is closed in close method
+    public TF2NetworkSpec extractNetworkSpec(final DLPythonNetworkHandle network, final DLCancelable cancelable)
+        throws DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
+        // Input and output specs. The interpreter does not expose hidden outputs
+        getContext(cancelable).executeInKernel(getExtractNetworkSpecsCode(network), cancelable);
+        final DLTensorSpec[] inputSpecs = extractTensorSpec(INPUT_SPECS_NAME, cancelable);
+        final DLTensorSpec[] hiddenOutputSpecs = extractTensorSpec(HIDDEN_OUTPUT_SPECS_NAME, cancelable);
+        final DLTensorSpec[] outputSpecs = extractTensorSpec(OUTPUT_SPECS_NAME, cancelable);
+
+        // Package versions
+        final Version pythonVersion = getPythonVersion(cancelable);
+        final Version tfVersion = getTFVersion(cancelable);
+
+        if (tfVersion.compareTo(MIN_TF_VERSION) < 0) {
+            throw new DLInvalidEnvironmentException(
+                "TensorFlow 2.2.0 or higher is required to use TensorFlow Lite models. The installed TensorFlow "
+                    + "version is \"" + tfVersion.toString() + "\". Please update TensorFlow.");
+        }
+
+        return new TF2NetworkSpec(pythonVersion, tfVersion, inputSpecs, hiddenOutputSpecs, outputSpecs);
+    }
+
+    /**
+     * Converts a TensorFlow 2 SavedModel to a TensorFlow Lite flatbuffer file.
+     *
+     * @param savedModelDir the directory of the SavedModel
+     * @param tfliteFile the file the converted model is written to
+     * @param optimization the optimization the converter applies
+     * @param representativeDataName the name of a table in the kernel whose rows are used to calibrate the value
+     *            ranges of the activations. Only used if the optimization
+     *            {@link TFLiteOptimization#requiresRepresentativeData() requires representative data}.
+     * @param inputShape the shape of the single input of the network without the batch dimension. The rows of the
+     *            representative data are reshaped to this shape. Only used if the optimization requires
+     *            representative data.
+     * @param cancelable to check if the execution has been canceled
+     * @throws DLInvalidEnvironmentException if failed to properly setup the Python context
+     * @throws IOException if the conversion failed
+     * @throws DLCanceledExecutionException if the execution has been canceled
+     */
+    @SuppressWarnings("resource") // Context is closed in close method
+    public void convertSavedModel(final File savedModelDir, final File tfliteFile,
+        final TFLiteOptimization optimization, final String representativeDataName, final long[] inputShape,
+        final DLCancelable cancelable)
+        throws DLInvalidEnvironmentException, IOException, DLCanceledExecutionException {
+        final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+            .a("from TFLiteNetwork import convert_saved_model") //
+            .n("convert_saved_model(") //
+            /**/ .asr(savedModelDir.getAbsolutePath()).a(", ") //
+            /**/ .asr(tfliteFile.getAbsolutePath()).a(", ") //
+            /**/ .a("optimization=").as(optimization.getPythonName());
+        if (optimization.requiresRepresentativeData()) {
+            final String shape = Arrays.stream(inputShape).mapToObj(Long::toString).collect(Collectors.joining(", "));
+            b.a(", representative_data=").a(checkNotNull(representativeDataName)) //
+                .a(", input_shape=[").a(shape).a("]");
+        }
+        b.a(")");
+        getContext(cancelable).executeInKernel(b.toString(), cancelable);
+    }
+
+    @Override
+    protected String getSetupEnvironmentCode() {
+        // Nothing to do
+        return "";
+    }
+
+    @Override
+    protected File getInstallationTestFile() throws IOException {
+        return DLUtils.Files.getFileFromSameBundle(this, "py/TFLiteNetworkTester.py");
+    }
+
+    @Override
+    protected String getSetupBackendCode() {
+        return m_executionOptions.getSetupCode();
+    }
+
+    @Override
+    protected TFLiteNetworkReaderCommands getNetworkReaderCommands() {
+        return new TFLiteNetworkReaderCommands();
+    }
+
+    @Override
+    protected DLPythonNetworkTrainingTaskHandler createNetworkTrainingTaskHandler(final DLPythonContext context,
+        final DLTrainingMonitor<? extends DLPythonTrainingStatus> monitor,
+        final DLNetworkInputProvider trainingInputProvider, final DLNetworkInputProvider validationInputProvider,
+        final DLThrowingBiFunction<DLTensorId, DLTensor<? extends DLWritableBuffer>, TableChunker, IOException> singleTensorTableChunkerCreator) {
+        throw new UnsupportedOperationException("TensorFlow Lite networks cannot be trained.");
+    }
+
+    @SuppressWarnings("resource") // Context is closed in close method
+    private Version getTFVersion(final DLCancelable cancelable)
+        throws DLCanceledExecutionException, DLInvalidEnvironmentException, IOException {
+        final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+            .a("import tensorflow as tf") //
+            .n("import pandas as pd") //
+            .n("global ").a(TF_VERSION_NAME) //
+            .n(TF_VERSION_NAME).a(" = pd.DataFrame([tf.__version__])"); //
+        getContext(cancelable).executeInKernel(b.toString(), cancelable);
+        final String tfVersion = (String)getContext(cancelable).getDataFromKernel(TF_VERSION_NAME,
+            (s, ts) -> new SingleValueTableCreator<>(s, Cell::getStringValue), cancelable).getTable();
+        return new Version(tfVersion);
+    }
+
+    private static class TFLiteNetworkReaderCommands extends DLPythonAbstractNetworkReaderCommands {
+
+        protected TFLiteNetworkReaderCommands() {
+            super("from TFLiteNetwork import TFLiteNetworkReader", "TFLiteNetworkReader()");
+        }
+
+        @Override
+        public String read(final String path, final boolean loadTrainingConfig) {
+            return DLPythonUtils.createSourceCodeBuilder() //
+                .a("read(").asr(path).a(")") //
+                .toString();
+        }
+    }
+}
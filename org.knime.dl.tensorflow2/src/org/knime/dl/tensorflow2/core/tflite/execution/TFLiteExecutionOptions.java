@@ -0,0 +1,128 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.dl.tensorflow2.core.tflite.execution;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.knime.dl.python.util.DLPythonSourceCodeBuilder;
+import org.knime.dl.python.util.DLPythonUtils;
+
+/**
+ * Options that configure how the TensorFlow Lite interpreter executes a
+ * {@link org.knime.dl.tensorflow2.core.tflite.TFLiteNetwork TFLiteNetwork} in the Python kernel. The options are
+ * applied when the Python context is set up, before the interpreter is created.
+ *
+ * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
+ */
+public final class TFLiteExecutionOptions {
+
+    /** The default options: TensorFlow Lite chooses the number of threads and XNNPACK is used. */
+    public static final TFLiteExecutionOptions DEFAULT = new TFLiteExecutionOptions(0, true);
+
+    private final int m_numThreads;
+
+    private final boolean m_xnnpack;
+
+    /**
+     * Creates new execution options.
+     *
+     * @param numThreads the number of threads used by the interpreter. <code>0</code> lets TensorFlow Lite decide.
+     * @param xnnpack if the XNNPACK delegate should be used for the supported ops
+     */
+    public TFLiteExecutionOptions(final int numThreads, final boolean xnnpack) {
+        checkArgument(numThreads >= 0, "The number of threads must not be negative.");
+        m_numThreads = numThreads;
+        m_xnnpack = xnnpack;
+    }
+
+    /** @return the number of threads. <code>0</code> if TensorFlow Lite decides. */
+    public int getNumThreads() {
+        return m_numThreads;
+    }
+
+    /** @return if the XNNPACK delegate is used */
+    public boolean isXnnpack() {
+        return m_xnnpack;
+    }
+
+    /**
+     * @return Python code which applies the options. Must be executed before the interpreter is created.
+     */
+    public String getSetupCode() {
+        if (equals(DEFAULT)) {
+            // Nothing to configure
+            return "";
+        }
+        final DLPythonSourceCodeBuilder b = DLPythonUtils.createSourceCodeBuilder() //
+            .a("from TFLiteNetwork import configure_execution") //
+            .n("configure_execution(") //
+            /**/ .a("num_threads=").a(m_numThreads).a(", ") //
+            /**/ .a("use_xnnpack=").a(m_xnnpack) //
+            /**/ .a(")");
+        return b.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = m_numThreads;
+        result = prime * result + (m_xnnpack ? 1231 : 1237);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TFLiteExecutionOptions other = (TFLiteExecutionOptions)obj;
+        return m_numThreads == other.m_numThreads && m_xnnpack == other.m_xnnpack;
+    }
+}